@@ -0,0 +1,35 @@
+package qengine.benchmark.jmh;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Lance la campagne de benchmarks de référence, avec le profiler d'allocation,
+ * et écrit les résultats dans {@code target/jmh-results.json} pour suivre les régressions.
+ * <p>
+ * Usage : {@code java -cp target/benchmarks.jar qengine.benchmark.jmh.BenchmarkRunner [regex] [dataset.nt]}.
+ * Sans fichier de données, les triplets sont générés par {@link WorkloadState}.
+ */
+public class BenchmarkRunner {
+    private static final String RESULT_FILE = "target/jmh-results.json";
+
+    public static void main(String[] args) throws RunnerException {
+        var builder = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : "qengine\\..*Benchmark")
+                .forks(2)
+                .warmupIterations(5)
+                .measurementIterations(5)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(RESULT_FILE);
+        if (args.length > 1) {
+            builder.param("dataset", args[1]).param("generated", "0");
+        }
+        Options options = builder.build();
+        new Runner(options).run();
+    }
+}
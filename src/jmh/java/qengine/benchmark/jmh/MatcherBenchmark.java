@@ -0,0 +1,96 @@
+package qengine.benchmark.jmh;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import qengine.model.RDFAtom;
+import qengine.storage.RDFMatcher;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût de chaque forme de {@link RDFMatcher}, sur des patterns construits à partir des triplets du store :
+ * lecture directe par la permutation préférée de la forme, et par {@code match} qui choisit le chemin d'accès.
+ * La lecture directe demande un store qui maintient la permutation préférée dès le chargement :
+ * elle échoue avec {@code storeType=lazy}, dont le coût se mesure par {@code match}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class MatcherBenchmark {
+
+    private static final int MAX_PATTERNS = 1024;
+
+    @Param({"VAR_LIT_LIT", "VAR_VAR_LIT", "VAR_LIT_VAR", "VAR_VAR_VAR", "LIT_VAR_VAR", "LIT_LIT_VAR", "LIT_VAR_LIT", "LIT_LIT_LIT"})
+    public String shape;
+
+    private RDFMatcher matcher;
+    // Vrai si le store maintient la permutation préférée de la forme
+    private boolean direct;
+    private RDFAtom[] patterns;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup(WorkloadState workload) {
+        matcher = RDFMatcher.valueOf(shape);
+        direct = workload.hexaStore().getPermutations().contains(matcher.permutation());
+        String[] positions = shape.split("_");
+        var factory = SameObjectTermFactory.instance();
+        Term[] variables = {
+                factory.createOrGetVariable("?s"),
+                factory.createOrGetVariable("?p"),
+                factory.createOrGetVariable("?o")
+        };
+
+        int count = Math.min(MAX_PATTERNS, workload.atoms.size());
+        patterns = new RDFAtom[count];
+        for (int i = 0; i < count; i++) {
+            Term[] terms = workload.atoms.get(i * workload.atoms.size() / count).getTerms().clone();
+            for (int j = 0; j < 3; j++) {
+                if (positions[j].equals("VAR")) {
+                    terms[j] = variables[j];
+                }
+            }
+            patterns[i] = new RDFAtom(terms);
+        }
+    }
+
+    @Benchmark
+    public void substitution(WorkloadState workload, Blackhole blackhole) {
+        if (!direct) {
+            throw new IllegalStateException("La lecture directe demande un store qui maintient "
+                    + matcher.permutation() + ", pas storeType=" + workload.storeType);
+        }
+        RDFAtom pattern = patterns[next++ % patterns.length];
+        Iterator<Substitution> results = matcher.substitution(workload.hexaStore(), pattern);
+        while (results.hasNext()) {
+            blackhole.consume(results.next());
+        }
+    }
+
+    @Benchmark
+    public void match(WorkloadState workload, Blackhole blackhole) {
+        RDFAtom pattern = patterns[next++ % patterns.length];
+        Iterator<Substitution> results = workload.hexaStore().match(pattern);
+        while (results.hasNext()) {
+            blackhole.consume(results.next());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package qengine.benchmark.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import qengine.parser.StarQuerySparQLParser;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analyse complète d'un fichier de requêtes, par rdf4j ({@code fastPath=false})
+ * ou par le chemin rapide ({@code fastPath=true}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class ParserJmhBenchmark {
+
+    @Param({"false", "true"})
+    public boolean fastPath;
+
+    @Param({"Q_1_eligibleregion", "Q_4_location_nationality_gender_type"})
+    public String template;
+
+    @Benchmark
+    public void parse(Blackhole blackhole) throws IOException {
+        String queryFile = WorkloadState.QUERYSET_DIR + template + ".queryset";
+        try (StarQuerySparQLParser parser = new StarQuerySparQLParser(queryFile, fastPath)) {
+            while (parser.hasNext()) {
+                blackhole.consume(parser.next());
+            }
+        }
+    }
+}
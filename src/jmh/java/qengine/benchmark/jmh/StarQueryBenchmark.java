@@ -0,0 +1,59 @@
+package qengine.benchmark.jmh;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import qengine.model.StarQuery;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût de {@code match(StarQuery)} pour chaque template WatDiv de {@code data/queryset}.
+ * Chaque invocation exécute la requête suivante du template.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class StarQueryBenchmark {
+
+    @Param({
+            "Q_1_eligibleregion", "Q_1_includes", "Q_1_likes", "Q_1_nationality", "Q_1_subscribes",
+            "Q_2_includes_eligibleRegion", "Q_2_likes_nationality", "Q_2_subscribes_likes", "Q_2_tag_homepage",
+            "Q_3_location_gender_type", "Q_3_location_nationality_gender", "Q_3_nationality_gender_type",
+            "Q_4_location_nationality_gender_type"
+    })
+    public String template;
+
+    private StarQuery[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        queries = WorkloadState.parseTemplate(template).toArray(new StarQuery[0]);
+    }
+
+    @Benchmark
+    public void match(WorkloadState workload, Blackhole blackhole) {
+        StarQuery query = queries[next++ % queries.length];
+        Iterator<Substitution> results = workload.store.match(query);
+        while (results.hasNext()) {
+            blackhole.consume(results.next());
+        }
+    }
+}
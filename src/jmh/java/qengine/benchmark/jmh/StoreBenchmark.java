@@ -0,0 +1,50 @@
+package qengine.benchmark.jmh;
+
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import qengine.model.RDFAtom;
+import qengine.storage.RDFStorage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût du chargement complet du jeu de données via {@link RDFStorage#add},
+ * pour l'implémentation choisie par {@code storeType}, et délai jusqu'à la première réponse.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class StoreBenchmark {
+
+    @Benchmark
+    public RDFStorage add(WorkloadState workload) {
+        RDFStorage store = WorkloadState.newStore(workload.storeType);
+        for (RDFAtom atom : workload.atoms) {
+            store.add(atom);
+        }
+        return store;
+    }
+
+    /**
+     * Chargement suivi d'un premier accès (?, p, o), qui lit {@code pos} : avec {@code storeType=lazy},
+     * cette permutation n'est construite qu'à ce moment.
+     */
+    @Benchmark
+    public void firstQuery(WorkloadState workload, Blackhole blackhole) {
+        RDFStorage store = WorkloadState.newStore(workload.storeType);
+        store.addAll(workload.atoms);
+        RDFAtom first = workload.atoms.get(0);
+        Variable x = SameObjectTermFactory.instance().createOrGetVariable("?x");
+        store.match(new RDFAtom(x, first.getTriplePredicate(), first.getTripleObject())).forEachRemaining(blackhole::consume);
+    }
+}
@@ -0,0 +1,136 @@
+package qengine.benchmark.jmh;
+
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import qengine.benchmark.WatDivGenerator;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+import qengine.parser.RDFAtomParser;
+import qengine.parser.StarQuerySparQLParser;
+import qengine.storage.ConcurrentRDFHexaStore;
+import qengine.storage.IndexPermutation;
+import qengine.storage.RDFHexaStore;
+import qengine.storage.RDFStorage;
+import qengine.storage.TieredRDFHexaStore;
+import qengine.storage.VerticalPartitionStore;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Jeu de données partagé par les benchmarks JMH : les triplets parsés et le store chargé.
+ * Par défaut, 500 000 triplets synthétiques sont générés par {@link WatDivGenerator}, la taille
+ * du jeu {@code data/500k} ; elle se choisit avec {@code -p generated=N}. Avec {@code -p generated=0},
+ * les triplets sont lus dans le fichier {@code -p dataset=...}.
+ * L'implémentation du store se choisit avec {@code -p storeType=hexa|lazy|adjacency|bloom|compiled|concurrent|tiered|vertical}.
+ */
+@State(Scope.Benchmark)
+public class WorkloadState {
+
+    public static final String QUERYSET_DIR = "data/queryset/";
+
+    @Param("data/sample_data.nt")
+    public String dataset;
+
+    @Param("500000")
+    public long generated;
+
+    @Param("hexa")
+    public String storeType;
+
+    public List<RDFAtom> atoms;
+    public RDFStorage store;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        atoms = generated > 0
+                ? new WatDivGenerator(42, generated).atoms().toList()
+                : parseRDFData(dataset);
+        store = newStore(storeType);
+        store.addAll(atoms);
+        if (store instanceof TieredRDFHexaStore tiered) {
+            tiered.compact(); // les requêtes portent sur un unique segment figé
+        }
+    }
+
+    /**
+     * @return le store, pour les benchmarks propres à {@link RDFHexaStore}
+     */
+    public RDFHexaStore hexaStore() {
+        if (store instanceof RDFHexaStore hexaStore) {
+            return hexaStore;
+        }
+        throw new IllegalStateException("Ce benchmark demande un RDFHexaStore, pas storeType=" + storeType);
+    }
+
+    /**
+     * @param storeType hexa, lazy, adjacency, bloom, compiled, concurrent, tiered ou vertical
+     * @return un store vide de l'implémentation demandée
+     */
+    static RDFStorage newStore(String storeType) {
+        return switch (storeType) {
+            case "hexa" -> new RDFHexaStore();
+            case "lazy" -> new RDFHexaStore(EnumSet.allOf(IndexPermutation.class), true);
+            case "adjacency" -> {
+                RDFHexaStore store = new RDFHexaStore();
+                store.setSubjectAdjacency(true);
+                yield store;
+            }
+            case "bloom" -> {
+                RDFHexaStore store = new RDFHexaStore();
+                store.setExistenceFilters(true);
+                yield store;
+            }
+            case "compiled" -> {
+                RDFHexaStore store = new RDFHexaStore();
+                store.setCompiledPlans(true);
+                yield store;
+            }
+            case "concurrent" -> new ConcurrentRDFHexaStore();
+            case "tiered" -> new TieredRDFHexaStore();
+            case "vertical" -> new VerticalPartitionStore();
+            default -> throw new IllegalArgumentException("Type de store inconnu : " + storeType);
+        };
+    }
+
+    /**
+     * Parse le contenu d'un fichier RDF.
+     *
+     * @param rdfFilePath Chemin vers le fichier RDF à parser
+     * @return Liste des RDFAtoms parsés
+     */
+    static List<RDFAtom> parseRDFData(String rdfFilePath) throws IOException {
+        List<RDFAtom> rdfAtoms = new ArrayList<>();
+        try (RDFAtomParser rdfAtomParser = new RDFAtomParser(new FileReader(rdfFilePath), RDFFormat.NTRIPLES)) {
+            while (rdfAtomParser.hasNext()) {
+                rdfAtoms.add(rdfAtomParser.next());
+            }
+        }
+        return rdfAtoms;
+    }
+
+    /**
+     * Parse les requêtes d'un template WatDiv de {@link #QUERYSET_DIR}.
+     *
+     * @param template Nom du template (nom du fichier sans extension)
+     * @return Liste des StarQueries parsées
+     */
+    static List<StarQuery> parseTemplate(String template) throws IOException {
+        List<StarQuery> starQueries = new ArrayList<>();
+        try (StarQuerySparQLParser queryParser = new StarQuerySparQLParser(QUERYSET_DIR + template + ".queryset")) {
+            while (queryParser.hasNext()) {
+                if (queryParser.next() instanceof StarQuery starQuery) {
+                    starQueries.add(starQuery);
+                }
+            }
+        }
+        return starQueries;
+    }
+}
@@ -0,0 +1,58 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Term;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import qengine.benchmark.jmh.WorkloadState;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recherches dans le dictionnaire de {@link RDFHexaStore}, dans les deux sens, sur les termes du
+ * jeu de données chargé : aucune ne modifie le dictionnaire. Les littéraux inlinés sont encodés
+ * et décodés sans le dictionnaire, comme lors de l'évaluation des requêtes.
+ * Placé dans {@code qengine.storage} pour accéder au dictionnaire du store.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class DictionaryBenchmark {
+
+    private Term[] terms;
+    // Indexe de chaque terme de terms
+    private int[] ids;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup(WorkloadState workload) {
+        RDFHexaStore store = workload.hexaStore();
+        terms = workload.atoms.stream()
+                .flatMap(atom -> Arrays.stream(atom.getTerms()))
+                .distinct()
+                .toArray(Term[]::new);
+        ids = Arrays.stream(terms).mapToInt(store::lookup).toArray();
+    }
+
+    @Benchmark
+    public int termToId(WorkloadState workload) {
+        return workload.hexaStore().lookup(terms[next++ % terms.length]);
+    }
+
+    @Benchmark
+    public Term idToTerm(WorkloadState workload) {
+        return workload.hexaStore().term(ids[next++ % ids.length]);
+    }
+}
@@ -18,12 +18,14 @@ public class QueryDatasetProcessor {
     //private static final String DATASET_FILE = WORKING_DIR + "2M/jeu2M.nt";
     private static final String DATASET_FILE = WORKING_DIR + "500k/jeu500K.nt";
     private static final String QUERYSET_DIR = WORKING_DIR + "set2/";
+    private static final long SYNTHETIC_TRIPLES = 500_000; // si DATASET_FILE est absent
+    private static final long SYNTHETIC_SEED = 42;
     private static final double EMPTY_QUERIES_RATIO = 0.05; // 5% de requêtes vides à conserver
 
     public static void main(String[] args) throws IOException {
         // Chargement des données RDF
         System.out.println("=== Parsing RDF Data ===");
-        List<RDFAtom> rdfAtoms = parseRDFData(DATASET_FILE);
+        List<RDFAtom> rdfAtoms = loadRDFData(DATASET_FILE);
         RDFHexaStore hexaFactBase = initializeHexaStore(rdfAtoms);
 
         // Chargement et analyse des requêtes
@@ -48,7 +50,7 @@ public class QueryDatasetProcessor {
 
     private static RDFHexaStore initializeHexaStore(List<RDFAtom> atoms) {
         RDFHexaStore store = new RDFHexaStore();
-        atoms.forEach(store::add);
+        store.addAll(atoms);
         return store;
     }
 
@@ -152,6 +154,21 @@ public class QueryDatasetProcessor {
         return allQueries;
     }
 
+    /**
+     * Charge le jeu de données, ou le génère de façon déterministe s'il est absent du dépôt.
+     *
+     * @param rdfFilePath Chemin vers le fichier RDF à parser
+     * @return Liste des RDFAtoms
+     */
+    private static List<RDFAtom> loadRDFData(String rdfFilePath) throws IOException {
+        if (new File(rdfFilePath).exists()) {
+            return parseRDFData(rdfFilePath);
+        }
+        System.out.printf("%s not found, generating %d synthetic triples (seed %d)%n",
+                rdfFilePath, SYNTHETIC_TRIPLES, SYNTHETIC_SEED);
+        return new WatDivGenerator(SYNTHETIC_SEED, SYNTHETIC_TRIPLES).atoms().toList();
+    }
+
     /**
      * Parse et affiche le contenu d'un fichier RDF.
      *
@@ -3,6 +3,9 @@ package qengine.benchmark;
 import fr.boreal.model.logicalElements.api.Substitution;
 import fr.boreal.model.query.api.Query;
 import org.eclipse.rdf4j.rio.RDFFormat;
+import qengine.instrumentation.MetricsRegistry;
+import qengine.instrumentation.QueryInstrumentation;
+import qengine.instrumentation.QueryRecord;
 import qengine.model.RDFAtom;
 import qengine.model.StarQuery;
 import qengine.parser.RDFAtomParser;
@@ -10,6 +13,7 @@ import qengine.parser.StarQuerySparQLParser;
 import qengine.storage.RDFHexaStore;
 
 import java.io.BufferedWriter;
+import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -22,14 +26,17 @@ public class QueryEngineBenchmark {
     private static final String WORKING_DIR = "data/";
     private static final String DATASET_FILE = WORKING_DIR + "2M/jeu2M.nt";
     private static final String QUERYSET_FILE = WORKING_DIR + "2M/queries.queryset";
+    private static final long SYNTHETIC_TRIPLES = 2_000_000; // si DATASET_FILE est absent
+    private static final long SYNTHETIC_SEED = 42;
 
     private static final String OUTPUT_FILE = "benchmark_results.csv";
+    private static final String TRACE_FILE = "benchmark_traces.jsonl"; // avec -Dqengine.instrumentation=true
     private static final double WARMUP_RATIO = 0.3; // 30% pour le warmup
 
     public static void main(String[] args) throws IOException {
 
         System.out.println("=== Parsing RDF Data ===");
-        List<RDFAtom> rdfAtoms = parseRDFData(DATASET_FILE);
+        List<RDFAtom> rdfAtoms = loadRDFData(DATASET_FILE);
         RDFHexaStore hexaStore = initializeHexaStore(rdfAtoms);
 
 
@@ -44,6 +51,8 @@ public class QueryEngineBenchmark {
         // Exécution du warmup
         System.out.println("=== Executing Warmup Queries ===");
         executeWarmup(benchmarkSets.warmupQueries, hexaStore);
+        QueryInstrumentation.drain(); // Les traces du warmup ne sont pas exportées
+        MetricsRegistry.resetLatencies();
 
         // Exécution du benchmark
         System.out.println("\n=== Executing Benchmark Queries ===");
@@ -52,11 +61,18 @@ public class QueryEngineBenchmark {
 
         // Export des résultats
         exportResults(results, OUTPUT_FILE);
+        if (QueryInstrumentation.isEnabled()) {
+            exportTraces(QueryInstrumentation.drain(), TRACE_FILE);
+        }
+        if (MetricsRegistry.isEnabled()) { // avec -Dqengine.metrics=true
+            System.out.println("\n=== Metrics ===");
+            System.out.print(MetricsRegistry.snapshot().report());
+        }
     }
 
     private static RDFHexaStore initializeHexaStore(List<RDFAtom> atoms) {
         RDFHexaStore store = new RDFHexaStore();
-        atoms.forEach(store::add);
+        store.addAll(atoms);
         return store;
     }
 
@@ -112,9 +128,10 @@ public class QueryEngineBenchmark {
     private static void exportResults(List<QueryExecutionResult> results, String outputFile)
             throws IOException {
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputFile))) {
-            writer.write("resultCount,executionTimeNs\n");
+            writer.write("queryLabel,resultCount,executionTimeNs\n");
             for (QueryExecutionResult result : results) {
-                writer.write(String.format("%d,%d%n",
+                writer.write(String.format("%s,%d,%d%n",
+                        csvField(result.queryLabel()),
                         result.resultCount(),
                         result.executionTimeNs()
                 ));
@@ -122,6 +139,22 @@ public class QueryEngineBenchmark {
         }
     }
 
+    private static void exportTraces(List<QueryRecord> records, String outputFile) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputFile))) {
+            for (QueryRecord record : records) {
+                writer.write(record.toJson());
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Échappe un champ CSV : les blancs de la requête sont compactés sur une ligne et les guillemets doublés.
+     */
+    private static String csvField(String value) {
+        return '"' + value.trim().replaceAll("\\s+", " ").replace("\"", "\"\"") + '"';
+    }
+
     // Classes de données
     private record BenchmarkSets(
             List<StarQuery> warmupQueries,
@@ -135,6 +168,21 @@ public class QueryEngineBenchmark {
     ) {}
 
 
+    /**
+     * Charge le jeu de données, ou le génère de façon déterministe s'il est absent du dépôt.
+     *
+     * @param rdfFilePath Chemin vers le fichier RDF à parser
+     * @return Liste des RDFAtoms
+     */
+    private static List<RDFAtom> loadRDFData(String rdfFilePath) throws IOException {
+        if (new File(rdfFilePath).exists()) {
+            return parseRDFData(rdfFilePath);
+        }
+        System.out.printf("%s not found, generating %d synthetic triples (seed %d)%n",
+                rdfFilePath, SYNTHETIC_TRIPLES, SYNTHETIC_SEED);
+        return new WatDivGenerator(SYNTHETIC_SEED, SYNTHETIC_TRIPLES).atoms().toList();
+    }
+
     /**
      * Parse et affiche le contenu d'un fichier RDF.
      *
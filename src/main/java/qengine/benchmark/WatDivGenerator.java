@@ -0,0 +1,364 @@
+package qengine.benchmark;
+
+import fr.boreal.model.logicalElements.factory.api.TermFactory;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import qengine.model.RDFAtom;
+import qengine.storage.RDFStorage;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Générateur déterministe de données synthétiques au format WatDiv (vocabulaire wsdbm).
+ * <p>
+ * Les entités (utilisateurs, produits, offres) sont générées en alternance, de sorte que
+ * n'importe quel préfixe du flux conserve les proportions du jeu complet. Les constantes
+ * (pays, villes, produits, ...) sont tirées selon une loi de puissance : les premiers
+ * identifiants sont beaucoup plus fréquents que les derniers, comme dans WatDiv.
+ * <p>
+ * Les termes produits sont identiques à ceux de {@link qengine.parser.RDFAtomParser} :
+ * IRIs et littéraux deviennent des littéraux portant leur valeur lexicale.
+ */
+public class WatDivGenerator {
+
+    public static final String WSDBM = "http://db.uwaterloo.ca/~galuc/wsdbm/";
+
+    static final String TYPE = "http://www.w3.org/1999/02/22-rdf-syntax-ns#type";
+    static final String GENDER = WSDBM + "gender";
+    static final String NATIONALITY = "http://schema.org/nationality";
+    static final String LOCATION = "http://purl.org/dc/terms/Location";
+    static final String USER_ID = WSDBM + "userId";
+    static final String BIRTH_DATE = "http://schema.org/birthDate";
+    static final String LIKES = WSDBM + "likes";
+    static final String SUBSCRIBES = WSDBM + "subscribes";
+    static final String FRIEND_OF = WSDBM + "friendOf";
+    static final String TAG = "http://ogp.me/ns#tag";
+    static final String HOMEPAGE = "http://xmlns.com/foaf/homepage";
+    static final String INCLUDES = "http://purl.org/goodrelations/includes";
+    static final String ELIGIBLE_REGION = "http://schema.org/eligibleRegion";
+    static final String PRICE = "http://schema.org/price";
+
+    // Cardinalités fixes, indépendantes de l'échelle (comme dans WatDiv)
+    static final int COUNTRIES = 250;
+    static final int CITIES = 240;
+    static final int TOPICS = 250;
+    static final int ROLES = 3;
+    static final int PRODUCT_CATEGORIES = 15;
+
+    // Nombre moyen de triplets générés par utilisateur (produits et offres compris)
+    private static final double TRIPLES_PER_USER = 13.5;
+
+    /**
+     * Templates de requêtes en étoile, nommés comme les fichiers de {@code data/queryset}.
+     */
+    public enum Template {
+        Q_1_eligibleregion(ELIGIBLE_REGION),
+        Q_1_includes(INCLUDES),
+        Q_1_likes(LIKES),
+        Q_1_nationality(NATIONALITY),
+        Q_1_subscribes(SUBSCRIBES),
+        Q_2_includes_eligibleRegion(INCLUDES, ELIGIBLE_REGION),
+        Q_2_likes_nationality(LIKES, NATIONALITY),
+        Q_2_subscribes_likes(SUBSCRIBES, LIKES),
+        Q_2_tag_homepage(TAG, HOMEPAGE),
+        Q_3_location_gender_type(LOCATION, GENDER, TYPE),
+        Q_3_location_nationality_gender(LOCATION, NATIONALITY, GENDER),
+        Q_3_nationality_gender_type(NATIONALITY, GENDER, TYPE),
+        Q_4_location_nationality_gender_type(LOCATION, NATIONALITY, GENDER, TYPE);
+
+        private final List<String> predicates;
+
+        Template(String... predicates) {
+            this.predicates = List.of(predicates);
+        }
+
+        public List<String> predicates() {
+            return predicates;
+        }
+    }
+
+    private final long seed;
+    private final long triples;
+    private final int users;
+    private final int products;
+    private final int websites;
+
+    /**
+     * @param seed    graine du générateur, deux générateurs de même graine et même échelle produisent les mêmes données
+     * @param triples nombre de triplets à produire
+     */
+    public WatDivGenerator(long seed, long triples) {
+        if (triples <= 0) {
+            throw new IllegalArgumentException("Le nombre de triplets doit être positif : " + triples);
+        }
+        this.seed = seed;
+        this.triples = triples;
+        this.users = (int) Math.max(1, Math.ceil(triples / TRIPLES_PER_USER));
+        this.products = Math.max(10, users / 4);
+        this.websites = Math.max(50, users / 40);
+    }
+
+    /**
+     * @return le nombre de triplets produits par {@link #atoms()}
+     */
+    public long size() {
+        return triples;
+    }
+
+    /**
+     * Produit le flux des triplets, paresseusement : rien n'est matérialisé en mémoire.
+     *
+     * @return un flux de {@link #size()} RDFAtom
+     */
+    public Stream<RDFAtom> atoms() {
+        TermFactory termFactory = SameObjectTermFactory.instance();
+        return triples().map(t -> new RDFAtom(
+                termFactory.createOrGetLiteral(t.subject()),
+                termFactory.createOrGetLiteral(t.predicate()),
+                termFactory.createOrGetLiteral(t.object())));
+    }
+
+    /**
+     * Charge les triplets directement dans un store, sans passer par un fichier.
+     *
+     * @param storage le store à remplir
+     * @return le store rempli
+     */
+    public <S extends RDFStorage> S loadInto(S storage) {
+        storage.addAll(atoms());
+        return storage;
+    }
+
+    /**
+     * Écrit les triplets au format N-Triples.
+     *
+     * @param file le fichier de sortie
+     * @throws IOException si le fichier ne peut pas être écrit
+     */
+    public void writeNTriples(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            Iterator<Triple> it = triples().iterator();
+            while (it.hasNext()) {
+                Triple t = it.next();
+                writer.write('<');
+                writer.write(t.subject());
+                writer.write("> <");
+                writer.write(t.predicate());
+                writer.write("> ");
+                if (t.literal()) {
+                    writer.write('"');
+                    writer.write(t.object());
+                    writer.write('"');
+                } else {
+                    writer.write('<');
+                    writer.write(t.object());
+                    writer.write('>');
+                }
+                writer.write(" .");
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Génère des requêtes en étoile d'un template, dont les constantes suivent la même
+     * distribution que les données.
+     *
+     * @param template le template
+     * @param count    le nombre de requêtes
+     * @return les requêtes SparQL
+     */
+    public List<String> queries(Template template, int count) {
+        SplittableRandom random = new SplittableRandom(seed ^ (0x9E3779B97F4A7C15L * (template.ordinal() + 1)));
+        List<String> queries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder query = new StringBuilder("SELECT ?v0 WHERE {").append(System.lineSeparator());
+            for (String predicate : template.predicates()) {
+                query.append("\t?v0 <").append(predicate).append("> <")
+                        .append(objectFor(predicate, random)).append("> .").append(System.lineSeparator());
+            }
+            queries.add(query.append('}').toString());
+        }
+        return queries;
+    }
+
+    /**
+     * Écrit un fichier {@code .queryset} par template dans un répertoire.
+     *
+     * @param directory le répertoire de sortie
+     * @param count     le nombre de requêtes par template
+     * @throws IOException si un fichier ne peut pas être écrit
+     */
+    public void writeQuerySets(Path directory, int count) throws IOException {
+        Files.createDirectories(directory);
+        for (Template template : Template.values()) {
+            try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve(template.name() + ".queryset"))) {
+                for (String query : queries(template, count)) {
+                    writer.write(query);
+                    writer.newLine();
+                    writer.newLine();
+                }
+            }
+        }
+    }
+
+    private Stream<Triple> triples() {
+        Iterator<Triple> iterator = new TripleIterator();
+        Spliterator<Triple> spliterator = Spliterators.spliterator(iterator, triples,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.SIZED);
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    private String objectFor(String predicate, SplittableRandom random) {
+        return switch (predicate) {
+            case TYPE -> WSDBM + "Role" + skewed(random, ROLES);
+            case GENDER -> WSDBM + "Gender" + (random.nextDouble() < 0.6 ? 0 : 1);
+            case NATIONALITY, ELIGIBLE_REGION -> WSDBM + "Country" + skewed(random, COUNTRIES);
+            case LOCATION -> WSDBM + "City" + skewed(random, CITIES);
+            case LIKES, INCLUDES -> WSDBM + "Product" + skewed(random, products);
+            case SUBSCRIBES, HOMEPAGE -> WSDBM + "Website" + skewed(random, websites);
+            case TAG -> WSDBM + "Topic" + skewed(random, TOPICS);
+            default -> throw new IllegalArgumentException("Prédicat inconnu : " + predicate);
+        };
+    }
+
+    /**
+     * Tire un identifiant dans [0, n) selon une loi de puissance favorisant les petits identifiants.
+     */
+    private static int skewed(SplittableRandom random, int n) {
+        double u = random.nextDouble();
+        return (int) (n * u * u * u);
+    }
+
+    /**
+     * Nombre de répétitions d'un prédicat multi-valué, de moyenne {@code mean}.
+     */
+    private static int repeat(SplittableRandom random, double mean) {
+        int count = 0;
+        double p = mean / (mean + 1);
+        while (random.nextDouble() < p) {
+            count++;
+        }
+        return count;
+    }
+
+    private record Triple(String subject, String predicate, String object, boolean literal) {
+    }
+
+    /**
+     * Produit les triplets entité par entité : un utilisateur à chaque étape,
+     * un produit toutes les quatre étapes, une offre toutes les deux étapes.
+     */
+    private class TripleIterator implements Iterator<Triple> {
+        private final SplittableRandom random = new SplittableRandom(seed);
+        private final Deque<Triple> buffer = new ArrayDeque<>();
+        private long produced;
+        private long step;
+
+        @Override
+        public boolean hasNext() {
+            return produced < triples;
+        }
+
+        @Override
+        public Triple next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            while (buffer.isEmpty()) {
+                generateStep();
+            }
+            produced++;
+            return buffer.poll();
+        }
+
+        private void generateStep() {
+            generateUser(step % users);
+            if (step % 4 == 0) {
+                generateProduct((step / 4) % products);
+            }
+            if (step % 2 == 0) {
+                generateOffer(step / 2);
+            }
+            step++;
+        }
+
+        private void generateUser(long id) {
+            String user = WSDBM + "User" + id;
+            iri(user, TYPE);
+            iri(user, GENDER);
+            iri(user, NATIONALITY);
+            if (random.nextDouble() < 0.6) {
+                iri(user, LOCATION);
+            }
+            literal(user, USER_ID, Integer.toString(random.nextInt(10_000_000)));
+            if (random.nextDouble() < 0.4) {
+                literal(user, BIRTH_DATE, String.format("%04d-%02d-%02d",
+                        1940 + random.nextInt(70), 1 + random.nextInt(12), 1 + random.nextInt(28)));
+            }
+            for (int i = repeat(random, 1.5); i > 0; i--) {
+                iri(user, LIKES);
+            }
+            for (int i = repeat(random, 1.0); i > 0; i--) {
+                iri(user, SUBSCRIBES);
+            }
+            for (int i = repeat(random, 3.0); i > 0; i--) {
+                buffer.add(new Triple(user, FRIEND_OF, WSDBM + "User" + random.nextInt(users), false));
+            }
+        }
+
+        private void generateProduct(long id) {
+            String product = WSDBM + "Product" + id;
+            buffer.add(new Triple(product, TYPE, WSDBM + "ProductCategory" + skewed(random, PRODUCT_CATEGORIES), false));
+            for (int i = 1 + repeat(random, 1.0); i > 0; i--) {
+                iri(product, TAG);
+            }
+            if (random.nextDouble() < 0.5) {
+                iri(product, HOMEPAGE);
+            }
+        }
+
+        private void generateOffer(long id) {
+            String offer = WSDBM + "Offer" + id;
+            iri(offer, INCLUDES);
+            for (int i = 1 + repeat(random, 1.0); i > 0; i--) {
+                iri(offer, ELIGIBLE_REGION);
+            }
+            literal(offer, PRICE, Integer.toString(1 + random.nextInt(500)));
+        }
+
+        private void iri(String subject, String predicate) {
+            buffer.add(new Triple(subject, predicate, objectFor(predicate, random), false));
+        }
+
+        private void literal(String subject, String predicate, String value) {
+            buffer.add(new Triple(subject, predicate, value, true));
+        }
+    }
+
+    /**
+     * Usage : {@code WatDivGenerator <triplets> <graine> <sortie.nt> [répertoire requêtes] [requêtes par template]}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: WatDivGenerator <triples> <seed> <output.nt> [queryDir] [queriesPerTemplate]");
+            System.exit(1);
+        }
+        WatDivGenerator generator = new WatDivGenerator(Long.parseLong(args[1]), Long.parseLong(args[0]));
+
+        long startTime = System.nanoTime();
+        generator.writeNTriples(Path.of(args[2]));
+        System.out.printf("Generated %d triples in %d ms%n", generator.size(), (System.nanoTime() - startTime) / 1_000_000);
+
+        if (args.length > 3) {
+            int count = args.length > 4 ? Integer.parseInt(args[4]) : 1000;
+            generator.writeQuerySets(Path.of(args[3]), count);
+            System.out.printf("Generated %d queries per template in %s%n", count, args[3]);
+        }
+    }
+}
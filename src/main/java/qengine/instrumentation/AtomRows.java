@@ -0,0 +1,11 @@
+package qengine.instrumentation;
+
+/**
+ * Nombre de lignes entrant dans et sortant d'un atome de la requête.
+ *
+ * @param atom    l'atome, sous forme textuelle
+ * @param rowsIn  le nombre de candidats reçus
+ * @param rowsOut le nombre de candidats conservés
+ */
+public record AtomRows(String atom, long rowsIn, long rowsOut) {
+}
@@ -0,0 +1,68 @@
+package qengine.instrumentation;
+
+/**
+ * Copie figée d'un {@link LatencyHistogram}.
+ */
+public final class HistogramSnapshot {
+
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long min;
+    private final long max;
+
+    HistogramSnapshot(long[] counts, long count, long sum, long min, long max) {
+        this.counts = counts;
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long min() {
+        return min;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    public double mean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Retourne la latence sous laquelle se trouvent {@code percentile} % des valeurs enregistrées,
+     * à la précision de l'histogramme près (la borne haute de l'intervalle est retournée).
+     *
+     * @param percentile un pourcentage entre 0 et 100
+     * @return la latence en nanosecondes, ou 0 si l'histogramme est vide
+     */
+    public long percentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Le percentile doit être compris entre 0 et 100 : " + percentile);
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(LatencyHistogram.highestValue(i), max);
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.0f p50=%d p90=%d p99=%d p99.9=%d max=%d (ns)",
+                count, mean(), percentile(50), percentile(90), percentile(99), percentile(99.9), max);
+    }
+}
@@ -0,0 +1,150 @@
+package qengine.instrumentation;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registre de métriques du moteur, consultable pendant son exécution : histogrammes de latence
+ * par modèle de requête et par forme d'atome ({@code RDFMatcher}), et compteurs globaux au processus.
+ * <p>
+ * Les compteurs sont toujours tenus à jour. Les histogrammes demandent deux lectures d'horloge
+ * par mesure et ne sont alimentés qu'une fois activés par {@link #enable()} ou la propriété
+ * système {@code qengine.metrics=true}. Tous les enregistrements sont sans verrou.
+ */
+public final class MetricsRegistry {
+
+    /**
+     * Compteurs globaux du moteur. Ce sont des totaux du processus, tous stores confondus :
+     * un snapshot ou une copie ne les change pas, mais chaque store chargé s'y ajoute.
+     */
+    public enum Counter {
+        /** Triplets ajoutés moins triplets retirés, dans tous les stores */
+        TRIPLES_STORED,
+        /** Termes ajoutés aux dictionnaires de tous les stores */
+        DICTIONARY_SIZE,
+        /** Plans compilés trouvés dans le cache de leur forme */
+        CACHE_HITS,
+        /** Requêtes que le parseur n'a pas pu analyser */
+        REJECTED_QUERIES
+    }
+
+    private static volatile boolean enabled = Boolean.getBoolean("qengine.metrics");
+
+    private static final ConcurrentMap<String, LatencyHistogram> templates = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, LatencyHistogram> shapes = new ConcurrentHashMap<>();
+    private static final LongAdder[] counters = new LongAdder[Counter.values().length];
+
+    static {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+    }
+
+    private MetricsRegistry() {
+    }
+
+    public static void enable() {
+        enabled = true;
+    }
+
+    public static void disable() {
+        enabled = false;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enregistre la latence d'une requête.
+     *
+     * @param template le modèle de la requête (voir {@code StarQuery#getTemplate()})
+     * @param nanos    la durée de l'évaluation
+     */
+    public static void recordQuery(String template, long nanos) {
+        histogram(templates, template).record(nanos);
+    }
+
+    /**
+     * Enregistre la latence de l'évaluation d'un atome.
+     *
+     * @param shape la forme de l'atome, i.e. le nom du {@code RDFMatcher} utilisé
+     * @param nanos la durée de l'évaluation
+     */
+    public static void recordMatch(String shape, long nanos) {
+        histogram(shapes, shape).record(nanos);
+    }
+
+    public static void increment(Counter counter) {
+        counters[counter.ordinal()].increment();
+    }
+
+    public static void add(Counter counter, long delta) {
+        counters[counter.ordinal()].add(delta);
+    }
+
+    public static long get(Counter counter) {
+        return counters[counter.ordinal()].sum();
+    }
+
+    /**
+     * @param template un modèle de requête
+     * @return l'état de son histogramme, vide si aucune requête de ce modèle n'a été mesurée
+     */
+    public static HistogramSnapshot queryLatency(String template) {
+        return histogram(templates, template).snapshot();
+    }
+
+    /**
+     * @param shape une forme d'atome
+     * @return l'état de son histogramme, vide si aucun atome de cette forme n'a été mesuré
+     */
+    public static HistogramSnapshot matchLatency(String shape) {
+        return histogram(shapes, shape).snapshot();
+    }
+
+    /**
+     * @return une copie de l'ensemble des métriques
+     */
+    public static MetricsSnapshot snapshot() {
+        Map<Counter, Long> values = new EnumMap<>(Counter.class);
+        for (Counter counter : Counter.values()) {
+            values.put(counter, get(counter));
+        }
+        return new MetricsSnapshot(snapshots(templates), snapshots(shapes), values);
+    }
+
+    /**
+     * Vide les histogrammes de latence, par exemple à la fin d'un warmup. Les compteurs sont conservés.
+     */
+    public static void resetLatencies() {
+        templates.clear();
+        shapes.clear();
+    }
+
+    /**
+     * Remet toutes les métriques à zéro.
+     */
+    public static void reset() {
+        resetLatencies();
+        for (LongAdder counter : counters) {
+            counter.reset();
+        }
+    }
+
+    private static LatencyHistogram histogram(ConcurrentMap<String, LatencyHistogram> histograms, String key) {
+        // get() ne verrouille jamais, computeIfAbsent seulement à la création
+        LatencyHistogram histogram = histograms.get(key);
+        return histogram != null ? histogram : histograms.computeIfAbsent(key, k -> new LatencyHistogram());
+    }
+
+    private static Map<String, HistogramSnapshot> snapshots(Map<String, LatencyHistogram> histograms) {
+        Map<String, HistogramSnapshot> result = new TreeMap<>();
+        histograms.forEach((key, histogram) -> result.put(key, histogram.snapshot()));
+        return result;
+    }
+}
@@ -0,0 +1,26 @@
+package qengine.instrumentation;
+
+import java.util.Map;
+
+/**
+ * Copie figée du {@link MetricsRegistry}.
+ *
+ * @param templates les latences par modèle de requête
+ * @param shapes    les latences par forme d'atome
+ * @param counters  les compteurs globaux
+ */
+public record MetricsSnapshot(Map<String, HistogramSnapshot> templates,
+                              Map<String, HistogramSnapshot> shapes,
+                              Map<MetricsRegistry.Counter, Long> counters) {
+
+    /**
+     * @return un rapport lisible, une ligne par métrique
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        counters.forEach((counter, value) -> sb.append(counter).append(": ").append(value).append('\n'));
+        shapes.forEach((shape, histogram) -> sb.append(shape).append(": ").append(histogram).append('\n'));
+        templates.forEach((template, histogram) -> sb.append(template).append(": ").append(histogram).append('\n'));
+        return sb.toString();
+    }
+}
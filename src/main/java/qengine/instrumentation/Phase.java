@@ -0,0 +1,19 @@
+package qengine.instrumentation;
+
+/**
+ * Phases de l'exécution d'une requête en étoile.
+ */
+public enum Phase {
+    /** Analyse du texte SparQL. */
+    PARSE,
+    /** Résolution des constantes dans le dictionnaire et choix de l'ordre des atomes. */
+    PLAN,
+    /** Lecture des candidats de l'atome le plus sélectif dans les index. */
+    INDEX_PROBE,
+    /** Filtrage des candidats par les autres atomes. */
+    JOIN,
+    /** Tri et limitation des réponses sur leurs indexes ({@code ORDER BY}, {@code LIMIT}). */
+    ORDER,
+    /** Construction des substitutions à partir des indexes du dictionnaire. */
+    DECODE
+}
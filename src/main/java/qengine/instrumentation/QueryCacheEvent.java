@@ -0,0 +1,49 @@
+package qengine.instrumentation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Événement JFR de l'activité du cache des plans compilés des requêtes en étoile : une forme
+ * d'étoile trouvée ou absente, un plan compilé ou évincé.
+ */
+@Name("qengine.QueryCache")
+@Label("Query Cache")
+@Category({"qengine", "Query"})
+@Description("Activité du cache des plans compilés des requêtes en étoile")
+@StackTrace(false)
+public class QueryCacheEvent extends Event {
+
+    public static final String HIT = "hit";
+    public static final String MISS = "miss";
+    public static final String COMPILE = "compile";
+    public static final String EVICT = "evict";
+
+    @Label("Action")
+    public String action;
+
+    @Label("Shape")
+    @Description("Indexes des prédicats de l'étoile, suivis de = pour les objets constants")
+    public String shape;
+
+    @Label("Entries")
+    @Description("Nombre de plans dans le cache")
+    public int entries;
+
+    /**
+     * Émet un événement instantané, seulement si l'enregistrement JFR est actif.
+     */
+    public static void emit(String action, Object shape, int entries) {
+        QueryCacheEvent event = new QueryCacheEvent();
+        if (event.isEnabled()) {
+            event.action = action;
+            event.shape = String.valueOf(shape);
+            event.entries = entries;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package qengine.instrumentation;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Point d'entrée de l'instrumentation des requêtes : temps par phase, lignes par atome
+ * et octets alloués par le thread (via {@code ThreadMXBean}).
+ * <p>
+ * L'instrumentation est désactivée par défaut et s'active à chaud avec {@link #enable()}
+ * ou la propriété système {@code qengine.instrumentation=true}. Désactivée, elle se réduit
+ * à la lecture d'un booléen volatile par requête.
+ * <p>
+ * Les enregistrements sont transmis au consommateur installé par {@link #setSink(Consumer)},
+ * ou conservés en mémoire jusqu'à l'appel de {@link #drain()}.
+ */
+public final class QueryInstrumentation {
+
+    private static volatile boolean enabled = Boolean.getBoolean("qengine.instrumentation");
+    private static volatile Consumer<QueryRecord> sink;
+
+    private static final Queue<QueryRecord> records = new ConcurrentLinkedQueue<>();
+    // Temps d'analyse des requêtes, en attendant leur exécution
+    private static final Map<Object, Long> parseNanos = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final com.sun.management.ThreadMXBean threadBean = threadBean();
+
+    private QueryInstrumentation() {
+    }
+
+    public static void enable() {
+        enabled = true;
+    }
+
+    public static void disable() {
+        enabled = false;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Installe le consommateur des enregistrements, {@code null} pour les conserver en mémoire.
+     *
+     * @param consumer le consommateur, appelé par le thread qui a exécuté la requête
+     */
+    public static void setSink(Consumer<QueryRecord> consumer) {
+        sink = consumer;
+    }
+
+    /**
+     * Retire et retourne les enregistrements conservés en mémoire.
+     *
+     * @return les enregistrements, dans l'ordre de publication
+     */
+    public static List<QueryRecord> drain() {
+        List<QueryRecord> drained = new ArrayList<>();
+        QueryRecord record;
+        while ((record = records.poll()) != null) {
+            drained.add(record);
+        }
+        return drained;
+    }
+
+    /**
+     * Note le temps d'analyse d'une requête ; il sera rattaché à sa prochaine exécution.
+     *
+     * @param query la requête analysée
+     * @param nanos la durée de l'analyse
+     */
+    public static void recordParse(Object query, long nanos) {
+        if (enabled) {
+            parseNanos.put(query, nanos);
+        }
+    }
+
+    /**
+     * Ouvre la trace d'une exécution de requête.
+     *
+     * @param query la requête exécutée
+     * @return une trace active, ou {@link QueryTrace#NOOP} si l'instrumentation est désactivée
+     */
+    public static QueryTrace begin(Object query) {
+        if (!enabled) {
+            return QueryTrace.NOOP;
+        }
+        Long parsed = parseNanos.remove(query);
+        String label = query instanceof fr.boreal.model.query.api.Query q ? q.getLabel() : String.valueOf(query);
+        return new QueryTrace(label, parsed == null ? 0 : parsed, true);
+    }
+
+    static void publish(QueryRecord record) {
+        Consumer<QueryRecord> consumer = sink;
+        if (consumer != null) {
+            consumer.accept(record);
+        } else {
+            records.add(record);
+        }
+    }
+
+    /**
+     * @return les octets alloués jusqu'ici par le thread courant, ou -1 si la JVM ne le mesure pas
+     */
+    static long allocatedBytes() {
+        return threadBean != null ? threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()) {
+            bean.setThreadAllocatedMemoryEnabled(true);
+            return bean;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,104 @@
+package qengine.instrumentation;
+
+import java.util.List;
+
+/**
+ * Mesures d'une exécution de requête, produites par {@link QueryTrace#end(long)}.
+ *
+ * @param label          le label de la requête
+ * @param phaseNanos     le temps passé dans chaque phase, indexé par {@link Phase#ordinal()}
+ * @param atoms          les lignes entrantes et sortantes de chaque atome, dans l'ordre d'évaluation
+ * @param resultCount    le nombre de réponses
+ * @param totalNanos     la durée totale de l'exécution (hors analyse)
+ * @param allocatedBytes les octets alloués par le thread pendant l'exécution, ou -1 si non mesurable
+ */
+public record QueryRecord(String label,
+                          long[] phaseNanos,
+                          List<AtomRows> atoms,
+                          long resultCount,
+                          long totalNanos,
+                          long allocatedBytes) {
+
+    /**
+     * @param phase une phase
+     * @return le temps passé dans la phase, en nanosecondes
+     */
+    public long nanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * @return l'en-tête CSV correspondant à {@link #toCsv()}
+     */
+    public static String csvHeader() {
+        StringBuilder sb = new StringBuilder("label");
+        for (Phase phase : Phase.values()) {
+            sb.append(',').append(phase.name().toLowerCase()).append("Ns");
+        }
+        return sb.append(",totalNs,resultCount,allocatedBytes,atoms").toString();
+    }
+
+    /**
+     * @return une ligne CSV ; les lignes par atome sont regroupées dans la dernière colonne sous la forme {@code in>out}
+     */
+    public String toCsv() {
+        StringBuilder sb = new StringBuilder(quote(label));
+        for (long nanos : phaseNanos) {
+            sb.append(',').append(nanos);
+        }
+        sb.append(',').append(totalNanos).append(',').append(resultCount).append(',').append(allocatedBytes).append(",\"");
+        for (int i = 0; i < atoms.size(); i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(atoms.get(i).rowsIn()).append('>').append(atoms.get(i).rowsOut());
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * @return un objet JSON sur une ligne
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{\"label\":").append(json(label)).append(",\"phases\":{");
+        for (Phase phase : Phase.values()) {
+            if (phase.ordinal() > 0) {
+                sb.append(',');
+            }
+            sb.append('"').append(phase.name().toLowerCase()).append("\":").append(phaseNanos[phase.ordinal()]);
+        }
+        sb.append("},\"atoms\":[");
+        for (int i = 0; i < atoms.size(); i++) {
+            AtomRows rows = atoms.get(i);
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"atom\":").append(json(rows.atom()))
+                    .append(",\"in\":").append(rows.rowsIn())
+                    .append(",\"out\":").append(rows.rowsOut()).append('}');
+        }
+        return sb.append("],\"results\":").append(resultCount)
+                .append(",\"totalNs\":").append(totalNanos)
+                .append(",\"allocatedBytes\":").append(allocatedBytes)
+                .append('}').toString();
+    }
+
+    private static String quote(String value) {
+        return '"' + value.trim().replaceAll("\\s+", " ").replace("\"", "\"\"") + '"';
+    }
+
+    private static String json(String value) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
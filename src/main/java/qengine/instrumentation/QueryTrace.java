@@ -0,0 +1,95 @@
+package qengine.instrumentation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Trace d'une exécution de requête, obtenue par {@link QueryInstrumentation#begin(Object)}.
+ * <p>
+ * Quand l'instrumentation est désactivée, la trace retournée est {@link #NOOP} : toutes
+ * ses méthodes retournent immédiatement. Une trace n'est utilisée que par un seul thread.
+ */
+public final class QueryTrace {
+
+    /** Trace inactive, utilisée quand l'instrumentation est désactivée. */
+    public static final QueryTrace NOOP = new QueryTrace(null, 0, false);
+
+    private final boolean active;
+    private final String label;
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private final List<AtomRows> atoms;
+    private final long startNanos;
+    private final long startAllocatedBytes;
+    private long phaseStart;
+
+    QueryTrace(String label, long parseNanos, boolean active) {
+        this.active = active;
+        this.label = label;
+        this.atoms = active ? new ArrayList<>() : List.of();
+        this.phaseNanos[Phase.PARSE.ordinal()] = parseNanos;
+        this.startAllocatedBytes = active ? QueryInstrumentation.allocatedBytes() : 0;
+        this.startNanos = active ? System.nanoTime() : 0;
+    }
+
+    /**
+     * @return vrai si la trace enregistre les mesures
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Démarre le chronométrage d'une phase.
+     *
+     * @param phase la phase
+     */
+    public void start(Phase phase) {
+        if (active) {
+            phaseStart = System.nanoTime();
+        }
+    }
+
+    /**
+     * Arrête le chronométrage de la phase démarrée par {@link #start(Phase)} et cumule sa durée.
+     *
+     * @param phase la phase
+     */
+    public void stop(Phase phase) {
+        if (active) {
+            phaseNanos[phase.ordinal()] += System.nanoTime() - phaseStart;
+        }
+    }
+
+    /**
+     * Enregistre les lignes entrant dans et sortant d'un atome.
+     *
+     * @param atom    l'atome
+     * @param rowsIn  le nombre de candidats reçus
+     * @param rowsOut le nombre de candidats conservés
+     */
+    public void rows(Object atom, long rowsIn, long rowsOut) {
+        if (active) {
+            atoms.add(new AtomRows(String.valueOf(atom), rowsIn, rowsOut));
+        }
+    }
+
+    /**
+     * Termine la trace et publie son enregistrement auprès de {@link QueryInstrumentation}.
+     *
+     * @param resultCount le nombre de réponses
+     */
+    public void end(long resultCount) {
+        if (!active) {
+            return;
+        }
+        long totalNanos = System.nanoTime() - startNanos;
+        long allocated = QueryInstrumentation.allocatedBytes();
+        QueryInstrumentation.publish(new QueryRecord(
+                label,
+                phaseNanos.clone(),
+                List.copyOf(atoms),
+                resultCount,
+                totalNanos,
+                allocated < 0 ? -1 : allocated - startAllocatedBytes));
+    }
+}
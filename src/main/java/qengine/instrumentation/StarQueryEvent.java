@@ -0,0 +1,47 @@
+package qengine.instrumentation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Événement JFR émis à chaque évaluation de {@code match(StarQuery)}.
+ * Sa durée couvre toute l'évaluation, décodage des réponses compris ; quand les réponses sont
+ * produites à la demande, elle s'étend jusqu'à l'épuisement de l'itérateur.
+ */
+@Name("qengine.StarQuery")
+@Label("Star Query")
+@Category({"qengine", "Query"})
+@Description("Évaluation d'une requête en étoile")
+@StackTrace(false)
+public class StarQueryEvent extends Event {
+
+    @Label("Fingerprint")
+    @Description("Empreinte de la forme canonique de la requête")
+    public String fingerprint;
+
+    @Label("Plan")
+    @Description("Atomes dans l'ordre d'évaluation, avec leur cardinalité")
+    public String plan;
+
+    @Label("Atoms")
+    public int atoms;
+
+    @Label("Driving Rows")
+    @Description("Nombre de candidats fournis par l'atome le plus sélectif")
+    public long drivingRows;
+
+    @Label("Result Rows")
+    public long resultRows;
+
+    @Label("Cache Hit")
+    @Description("Vrai si le plan compilé de la forme était dans le cache")
+    public boolean cacheHit;
+
+    @Label("Compiled")
+    @Description("Vrai si l'étoile a été évaluée par un plan compilé")
+    public boolean compiled;
+}
@@ -0,0 +1,37 @@
+package qengine.instrumentation;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Événement JFR émis à chaque chargement en masse d'un store ({@code addAll}).
+ */
+@Name("qengine.StoreLoad")
+@Label("Store Load")
+@Category({"qengine", "Storage"})
+@Description("Chargement en masse de triplets dans un store RDF")
+@StackTrace(false)
+public class StoreLoadEvent extends Event {
+
+    @Label("Store")
+    public String store;
+
+    @Label("Triples Added")
+    public long triplesAdded;
+
+    @Label("Triples Per Second")
+    public double triplesPerSecond;
+
+    @Label("Store Size")
+    public long storeSize;
+
+    @Label("Dictionary Size Before")
+    public long dictionaryBefore;
+
+    @Label("Dictionary Size After")
+    public long dictionaryAfter;
+}
@@ -0,0 +1,23 @@
+package qengine.model;
+
+import fr.boreal.model.logicalElements.api.Variable;
+
+import java.util.Objects;
+
+/**
+ * Clé de tri {@code ORDER BY} d'une requête en étoile.
+ *
+ * @param variable  la variable dont la valeur ordonne les réponses
+ * @param ascending vrai pour l'ordre croissant, faux pour {@code DESC}
+ */
+public record OrderKey(Variable variable, boolean ascending) {
+
+    public OrderKey {
+        Objects.requireNonNull(variable, "La variable de tri ne peut pas être null.");
+    }
+
+    @Override
+    public String toString() {
+        return ascending ? variable.label() : "DESC(" + variable.label() + ")";
+    }
+}
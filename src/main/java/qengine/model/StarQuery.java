@@ -30,6 +30,26 @@ public class StarQuery implements Query {
     // Variable centrale de la requête en étoile
     private final Variable centralVariable;
 
+    // Filtres sur les valeurs des variables
+    private final List<ValueFilter> filters;
+
+    // Clés de tri des réponses, et nombre maximal de réponses (négatif si illimité)
+    private final List<OrderKey> orderBy;
+    private final long limit;
+
+    // Agrégat COUNT : la variable qui reçoit le compte (null sans agrégat) et les variables de groupement
+    private final Variable countVariable;
+    private final List<Variable> groupBy;
+
+    // Vrai si les réponses identiques ne sont gardées qu'une fois (SELECT DISTINCT)
+    private final boolean distinct;
+
+    // Forme canonique, calculée à la demande
+    private String canonicalForm;
+
+    // Modèle de la requête, calculé à la demande
+    private String template;
+
     /**
      * Constructeur pour une requête en étoile.
      *
@@ -40,15 +60,106 @@ public class StarQuery implements Query {
      * @throws IllegalArgumentException si les atomes RDF ne forment pas une requête en étoile
      */
     public StarQuery(String label, List<RDFAtom> rdfAtoms, Collection<Variable> answerVariables) {
+        this(label, rdfAtoms, answerVariables, List.of());
+    }
+
+    /**
+     * Constructeur pour une requête en étoile filtrée.
+     *
+     * @param label           le label de la requête
+     * @param rdfAtoms        la collection des triplets RDF
+     * @param answerVariables les variables réponses
+     * @param filters         les filtres sur les valeurs des variables
+     * @throws NullPointerException     si l'un des paramètres est null
+     * @throws IllegalArgumentException si les atomes RDF ne forment pas une requête en étoile
+     *                                  ou si un filtre porte sur une variable absente des triplets
+     */
+    public StarQuery(String label, List<RDFAtom> rdfAtoms, Collection<Variable> answerVariables, List<ValueFilter> filters) {
+        this(label, rdfAtoms, answerVariables, filters, List.of(), -1, null, List.of(), false);
+    }
+
+    private StarQuery(String label, List<RDFAtom> rdfAtoms, Collection<Variable> answerVariables, List<ValueFilter> filters,
+                      List<OrderKey> orderBy, long limit, Variable countVariable, List<Variable> groupBy,
+                      boolean distinct) {
         this.label = Objects.requireNonNull(label, "Le label ne peut pas être null.");
         this.rdfAtoms = Objects.requireNonNull(rdfAtoms, "Les triplets RDF ne peuvent pas être null.");
         this.answerVariables = Objects.requireNonNull(answerVariables, "Les variables réponses ne peuvent pas être null.");
+        this.filters = List.copyOf(Objects.requireNonNull(filters, "Les filtres ne peuvent pas être null."));
+        this.orderBy = List.copyOf(Objects.requireNonNull(orderBy, "Les clés de tri ne peuvent pas être null."));
+        this.limit = Math.max(limit, -1);
+        this.countVariable = countVariable;
+        this.groupBy = List.copyOf(Objects.requireNonNull(groupBy, "Les variables de groupement ne peuvent pas être null."));
+        this.distinct = distinct;
 
         // Déterminer la variable centrale
         this.centralVariable = determineCentralVariable(rdfAtoms);
 
-        // Vérifier que toutes les variables réponses sont valides
+        // Vérifier que toutes les variables réponses, filtrées et de tri sont valides
         validateAnswerVariables(answerVariables, rdfAtoms);
+        for (ValueFilter filter : this.filters) {
+            validateVariable(filter.variable(), "filtrée", rdfAtoms);
+        }
+        for (Variable variable : this.groupBy) {
+            validateVariable(variable, "de groupement", rdfAtoms);
+        }
+        for (OrderKey key : this.orderBy) {
+            if (countVariable == null) {
+                validateVariable(key.variable(), "de tri", rdfAtoms);
+            } else if (!key.variable().equals(countVariable) && !this.groupBy.contains(key.variable())) {
+                throw new IllegalArgumentException("La clé de tri " + key.variable()
+                        + " d'une requête agrégée doit être groupée ou être le compte.");
+            }
+        }
+        if (countVariable != null && !this.groupBy.containsAll(answerVariables)) {
+            throw new IllegalArgumentException("Les variables réponses d'une requête agrégée doivent être groupées.");
+        }
+    }
+
+    /**
+     * Retourne la même requête, dont les réponses sont triées et limitées.
+     *
+     * @param orderBy les clés de tri, de la plus à la moins significative
+     * @param limit   le nombre maximal de réponses, ou une valeur négative pour ne pas limiter
+     * @return la requête triée
+     * @throws IllegalArgumentException si une clé porte sur une variable absente des triplets ou, pour
+     *                                  une requête agrégée, sur une variable qui n'est ni groupée ni le compte
+     */
+    public StarQuery withOrder(List<OrderKey> orderBy, long limit) {
+        return new StarQuery(label, rdfAtoms, answerVariables, filters, orderBy, limit, countVariable, groupBy, distinct);
+    }
+
+    /**
+     * Retourne la même requête, dont les réponses sont comptées : une réponse par groupe de valeurs
+     * des variables de groupement, où {@code countVariable} reçoit le nombre de réponses du groupe.
+     *
+     * @param countVariable la variable qui reçoit le compte, absente des triplets
+     * @param groupBy       les variables de groupement, éventuellement vide pour un seul compte
+     * @return la requête agrégée
+     * @throws IllegalArgumentException si une variable de groupement est absente des triplets,
+     *                                  ou si une variable réponse n'est pas groupée
+     */
+    public StarQuery withCount(Variable countVariable, List<Variable> groupBy) {
+        Objects.requireNonNull(countVariable, "La variable du compte ne peut pas être null.");
+        if (rdfAtoms.stream().anyMatch(atom -> Arrays.asList(atom.getTerms()).contains(countVariable))) {
+            throw new IllegalArgumentException("La variable du compte " + countVariable + " est déjà liée par les triplets.");
+        }
+        return new StarQuery(label, rdfAtoms, answerVariables, filters, orderBy, limit, countVariable, groupBy, distinct);
+    }
+
+    /**
+     * Retourne la même requête, dont les réponses identiques ne sont gardées qu'une fois.
+     *
+     * @return la requête {@code SELECT DISTINCT}
+     */
+    public StarQuery withDistinct() {
+        return new StarQuery(label, rdfAtoms, answerVariables, filters, orderBy, limit, countVariable, groupBy, true);
+    }
+
+    private static void validateVariable(Variable variable, String role, Collection<RDFAtom> rdfAtoms) {
+        if (rdfAtoms.stream().noneMatch(atom -> Arrays.asList(atom.getTerms()).contains(variable))) {
+            throw new IllegalArgumentException("La variable " + role + " " + variable +
+                    " n'est pas présente dans les triplets RDF.");
+        }
     }
 
     /**
@@ -125,6 +236,85 @@ public class StarQuery implements Query {
         return centralVariable;
     }
 
+    /**
+     * Retourne les filtres sur les valeurs des variables.
+     *
+     * @return les filtres, éventuellement vide
+     */
+    public List<ValueFilter> getFilters() {
+        return filters;
+    }
+
+    /**
+     * Retourne les clés de tri des réponses.
+     *
+     * @return les clés, de la plus à la moins significative, éventuellement vide
+     */
+    public List<OrderKey> getOrderBy() {
+        return orderBy;
+    }
+
+    /**
+     * Retourne le nombre maximal de réponses.
+     *
+     * @return la limite, ou vide si les réponses ne sont pas limitées
+     */
+    public OptionalLong getLimit() {
+        return limit < 0 ? OptionalLong.empty() : OptionalLong.of(limit);
+    }
+
+    /**
+     * Retourne la variable qui reçoit le compte des réponses.
+     *
+     * @return la variable, ou vide si la requête n'est pas agrégée
+     */
+    public Optional<Variable> getCountVariable() {
+        return Optional.ofNullable(countVariable);
+    }
+
+    /**
+     * Retourne les variables de groupement du compte.
+     *
+     * @return les variables, éventuellement vide
+     */
+    public List<Variable> getGroupBy() {
+        return groupBy;
+    }
+
+    /**
+     * Retourne vrai si les réponses identiques ne sont gardées qu'une fois. Sinon, une réponse est
+     * rendue pour chaque solution du motif, projetée sur les variables réponses.
+     *
+     * @return vrai pour une requête {@code SELECT DISTINCT}
+     */
+    public boolean isDistinct() {
+        return distinct;
+    }
+
+    /**
+     * Retourne vrai si la variable centrale est la seule variable de chaque atome : chaque atome
+     * se résout alors en un ensemble de valeurs de la variable centrale.
+     *
+     * @return vrai pour une étoile simple
+     */
+    public boolean isSimple() {
+        for (RDFAtom atom : rdfAtoms) {
+            int variables = 0;
+            for (Term term : atom.getTerms()) {
+                if (term.isVariable()) {
+                    if (!term.equals(centralVariable)) {
+                        return false;
+                    }
+                    variables++;
+                }
+            }
+            if (variables != 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Retourne la collection des triplets RDF.
      *
@@ -134,6 +324,147 @@ public class StarQuery implements Query {
         return rdfAtoms;
     }
 
+    /**
+     * Retourne la forme canonique de la requête : les atomes sont triés et les variables
+     * renommées ({@code ?c} pour la variable centrale, {@code ?v1}, {@code ?v2}... pour les autres),
+     * de sorte que deux requêtes équivalentes à l'ordre des atomes et aux noms de variables près
+     * aient la même forme. Le label n'en fait pas partie.
+     *
+     * @return la forme canonique
+     */
+    public String getCanonicalForm() {
+        if (canonicalForm == null) {
+            canonicalForm = computeCanonicalForm();
+        }
+        return canonicalForm;
+    }
+
+    /**
+     * Retourne une empreinte hexadécimale sur 64 bits de la forme canonique.
+     *
+     * @return l'empreinte
+     */
+    public String getFingerprint() {
+        long hash = 0xcbf29ce484222325L; // FNV-1a
+        for (char c : getCanonicalForm().toCharArray()) {
+            hash = (hash ^ c) * 0x100000001b3L;
+        }
+        return String.format("%016x", hash);
+    }
+
+    /**
+     * Retourne le modèle de la requête : sa forme canonique où les constantes en position
+     * sujet ou objet sont remplacées par {@code $}. Les instances d'un même modèle WatDiv,
+     * qui ne diffèrent que par ces constantes, partagent ainsi le même modèle.
+     *
+     * @return le modèle
+     */
+    public String getTemplate() {
+        if (template == null) {
+            template = rdfAtoms.stream()
+                    .map(atom -> {
+                        StringBuilder sb = new StringBuilder();
+                        Term[] terms = atom.getTerms();
+                        for (int i = 0; i < terms.length; i++) {
+                            if (i > 0) {
+                                sb.append(' ');
+                            }
+                            if (terms[i].isVariable()) {
+                                sb.append(terms[i].equals(centralVariable) ? "?c" : "?");
+                            } else {
+                                sb.append(i == 1 ? "<" + terms[i].label() + ">" : "$");
+                            }
+                        }
+                        return sb.toString();
+                    })
+                    .sorted()
+                    .collect(Collectors.joining(" . ", "{ ", " }"))
+                    + filters.stream()
+                    .map(filter -> " FILTER(" + (filter.variable().equals(centralVariable) ? "?c" : "?")
+                            + " " + filter.operator().symbol() + " $)")
+                    .sorted()
+                    .collect(Collectors.joining())
+                    + modifiers(Map.of(centralVariable, "?c"), "?");
+        }
+        return template;
+    }
+
+    private String computeCanonicalForm() {
+        // Tri des atomes sur leur forme anonymisée, puis numérotation des variables par ordre d'apparition
+        List<RDFAtom> sorted = new ArrayList<>(rdfAtoms);
+        sorted.sort(Comparator.comparing(atom -> render(atom, Map.of())));
+
+        Map<Variable, String> names = new HashMap<>();
+        names.put(centralVariable, "?c");
+        for (RDFAtom atom : sorted) {
+            for (Term term : atom.getTerms()) {
+                if (term instanceof Variable variable && !names.containsKey(variable)) {
+                    names.put(variable, "?v" + names.size());
+                }
+            }
+        }
+
+        StringBuilder sb = new StringBuilder("SELECT");
+        answerVariables.stream()
+                .map(variable -> names.getOrDefault(variable, variable.label()))
+                .sorted()
+                .forEach(name -> sb.append(' ').append(name));
+        sb.append(" WHERE {");
+        for (RDFAtom atom : sorted) {
+            sb.append(' ').append(render(atom, names)).append(" .");
+        }
+        filters.stream()
+                .map(filter -> " FILTER(" + names.get(filter.variable()) + " " + filter.operator().symbol()
+                        + " <" + filter.constant().label() + ">)")
+                .sorted()
+                .forEach(sb::append);
+        return sb.append(" }").append(modifiers(names, null)).toString();
+    }
+
+    /**
+     * @return les modificateurs de la requête ({@code DISTINCT}, {@code GROUP BY}, {@code ORDER BY}, {@code LIMIT}),
+     * variables renommées
+     */
+    private String modifiers(Map<Variable, String> names, String otherName) {
+        StringBuilder sb = new StringBuilder();
+        if (distinct) {
+            sb.append(" DISTINCT");
+        }
+        if (countVariable != null) {
+            sb.append(" COUNT");
+            if (!groupBy.isEmpty()) {
+                sb.append(" GROUP BY");
+                groupBy.forEach(variable -> sb.append(' ').append(names.getOrDefault(variable, otherName)));
+            }
+        }
+        if (!orderBy.isEmpty()) {
+            sb.append(" ORDER BY");
+            for (OrderKey key : orderBy) {
+                String name = names.getOrDefault(key.variable(), otherName);
+                sb.append(' ').append(key.ascending() ? name : "DESC(" + name + ")");
+            }
+        }
+        if (limit >= 0) {
+            sb.append(" LIMIT ").append(limit);
+        }
+        return sb.toString();
+    }
+
+    private static String render(RDFAtom atom, Map<Variable, String> names) {
+        StringBuilder sb = new StringBuilder();
+        for (Term term : atom.getTerms()) {
+            if (!sb.isEmpty()) {
+                sb.append(' ');
+            }
+            if (term instanceof Variable variable) {
+                sb.append(names.getOrDefault(variable, "?"));
+            } else {
+                sb.append('<').append(term.label()).append('>');
+            }
+        }
+        return sb.toString();
+    }
+
     /**
      * Convertit la requete en étoile en requete pour Integraal
      *
@@ -152,12 +483,18 @@ public class StarQuery implements Query {
         return label.equals(that.label) &&
                 rdfAtoms.equals(that.rdfAtoms) &&
                 answerVariables.equals(that.answerVariables) &&
-                centralVariable.equals(that.centralVariable);
+                centralVariable.equals(that.centralVariable) &&
+                filters.equals(that.filters) &&
+                orderBy.equals(that.orderBy) &&
+                limit == that.limit &&
+                Objects.equals(countVariable, that.countVariable) &&
+                groupBy.equals(that.groupBy) &&
+                distinct == that.distinct;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(label, rdfAtoms, answerVariables, centralVariable);
+        return Objects.hash(label, rdfAtoms, answerVariables, centralVariable, filters, orderBy, limit, countVariable, groupBy, distinct);
     }
 
     @Override
@@ -167,6 +504,11 @@ public class StarQuery implements Query {
                 ",\n\t rdfAtoms=" + rdfAtoms +
                 ",\n\t answerVariables=" + answerVariables +
                 ",\n\t centralVariable=" + centralVariable +
+                (filters.isEmpty() ? "" : ",\n\t filters=" + filters) +
+                (orderBy.isEmpty() ? "" : ",\n\t orderBy=" + orderBy) +
+                (limit < 0 ? "" : ",\n\t limit=" + limit) +
+                (countVariable == null ? "" : ",\n\t count=" + countVariable + " groupBy=" + groupBy) +
+                (distinct ? ",\n\t distinct" : "") +
                 '}';
     }
 }
@@ -0,0 +1,75 @@
+package qengine.model;
+
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+
+import java.util.Objects;
+
+/**
+ * Filtre {@code FILTER(?v op constante)} d'une requête en étoile, qui compare la valeur
+ * d'une variable à une constante.
+ *
+ * @param variable la variable filtrée
+ * @param operator l'opérateur de comparaison
+ * @param constant la constante
+ */
+public record ValueFilter(Variable variable, Operator operator, Term constant) {
+
+    /**
+     * Opérateurs de comparaison supportés.
+     */
+    public enum Operator {
+        LT("<"), LE("<="), EQ("="), GE(">="), GT(">");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        public String symbol() {
+            return symbol;
+        }
+
+        /**
+         * @return l'opérateur équivalent une fois les deux opérandes échangés
+         */
+        public Operator flip() {
+            return switch (this) {
+                case LT -> GT;
+                case LE -> GE;
+                case EQ -> EQ;
+                case GE -> LE;
+                case GT -> LT;
+            };
+        }
+
+        /**
+         * @param comparison le signe de la comparaison entre la valeur et la constante
+         * @return vrai si la comparaison satisfait l'opérateur
+         */
+        public boolean test(int comparison) {
+            return switch (this) {
+                case LT -> comparison < 0;
+                case LE -> comparison <= 0;
+                case EQ -> comparison == 0;
+                case GE -> comparison >= 0;
+                case GT -> comparison > 0;
+            };
+        }
+    }
+
+    public ValueFilter {
+        Objects.requireNonNull(variable, "La variable filtrée ne peut pas être null.");
+        Objects.requireNonNull(operator, "L'opérateur ne peut pas être null.");
+        Objects.requireNonNull(constant, "La constante ne peut pas être null.");
+        if (constant.isVariable()) {
+            throw new IllegalArgumentException("Un filtre compare une variable à une constante.");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FILTER(" + variable.label() + " " + operator.symbol() + " <" + constant.label() + ">)";
+    }
+}
@@ -0,0 +1,268 @@
+package qengine.parser;
+
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.api.TermFactory;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+
+import java.util.*;
+
+/**
+ * Parser « chemin rapide » pour le sous-ensemble BGP des requêtes en étoile :
+ * <pre>SELECT ?v0 WHERE { ?v0 &lt;p&gt; &lt;o&gt; . ... }</pre>
+ * La requête est lue en une seule passe, sans construire l'arbre algébrique de rdf4j.
+ * Dès qu'une construction n'est pas reconnue (préfixes, FILTER, littéraux échappés, ...),
+ * {@link #parse(String)} retourne {@code null} et l'appelant doit se rabattre sur rdf4j.
+ * <p>
+ * Les termes produits sont identiques à ceux de {@link StarQuerySparQLParser} :
+ * les IRIs et les littéraux deviennent des littéraux portant leur valeur lexicale.
+ * <p>
+ * Cette classe n'est pas thread-safe.
+ */
+public class StarQueryFastParser {
+
+    private final TermFactory termFactory = SameObjectTermFactory.instance();
+
+    private String input;
+    private int pos;
+
+    /**
+     * Analyse une requête SparQL en étoile.
+     *
+     * @param query la requête SparQL
+     * @return la requête en étoile, ou {@code null} si la requête sort du sous-ensemble reconnu
+     */
+    public StarQuery parse(String query) {
+        this.input = query;
+        this.pos = 0;
+        try {
+            return parseQuery(query);
+        } finally {
+            this.input = null;
+        }
+    }
+
+    private StarQuery parseQuery(String label) {
+        skipWhitespace();
+        if (!keyword("SELECT")) {
+            return null;
+        }
+
+        // Variables projetées
+        List<String> projected = new ArrayList<>();
+        skipWhitespace();
+        while (peek() == '?') {
+            String name = variableName();
+            if (name == null || projected.contains(name)) {
+                return null;
+            }
+            projected.add(name);
+            skipWhitespace();
+        }
+        if (projected.isEmpty() || !keyword("WHERE")) {
+            return null;
+        }
+        skipWhitespace();
+        if (peek() != '{') {
+            return null;
+        }
+        pos++;
+
+        // Patterns du BGP
+        Map<String, Variable> variables = new HashMap<>();
+        List<RDFAtom> rdfAtoms = new ArrayList<>();
+        Variable centralVariable = null;
+        while (true) {
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+                break;
+            }
+            Term subject = term(variables);
+            skipWhitespace();
+            Term predicate = term(variables);
+            skipWhitespace();
+            Term object = term(variables);
+            if (subject == null || predicate == null || object == null) {
+                return null;
+            }
+
+            // Même règle que StarQuerySparQLParser pour la variable centrale
+            Variable candidate;
+            if (subject instanceof Variable v) {
+                candidate = v;
+            } else if (object instanceof Variable v) {
+                candidate = v;
+            } else {
+                return null;
+            }
+            if (centralVariable != null && !centralVariable.equals(candidate)) {
+                return null;
+            }
+            centralVariable = candidate;
+            rdfAtoms.add(new RDFAtom(subject, predicate, object));
+
+            skipWhitespace();
+            if (peek() == '.') {
+                pos++;
+            } else if (peek() != '}') {
+                return null;
+            }
+        }
+        skipWhitespace();
+        if (pos != input.length() || rdfAtoms.isEmpty()) {
+            return null;
+        }
+
+        List<Variable> answerVariables = new ArrayList<>(projected.size());
+        for (String name : projected) {
+            Variable variable = variables.get(name);
+            if (variable == null) {
+                return null;
+            }
+            answerVariables.add(variable);
+        }
+        return new StarQuery(label, rdfAtoms, List.copyOf(answerVariables));
+    }
+
+    /**
+     * Lit un terme : variable, IRI absolue ou littéral simple.
+     *
+     * @return le terme lu, ou {@code null} si le terme n'est pas reconnu
+     */
+    private Term term(Map<String, Variable> variables) {
+        switch (peek()) {
+            case '?' -> {
+                String name = variableName();
+                return name == null ? null : variables.computeIfAbsent(name, termFactory::createOrGetVariable);
+            }
+            case '<' -> {
+                String iri = iri();
+                return iri == null ? null : termFactory.createOrGetLiteral(iri);
+            }
+            case '"' -> {
+                String value = literal();
+                return value == null ? null : termFactory.createOrGetLiteral(value);
+            }
+            default -> {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * @return le nom de la variable préfixé par '?', ou {@code null}
+     */
+    private String variableName() {
+        int start = pos++;
+        while (pos < input.length() && isNameChar(input.charAt(pos))) {
+            pos++;
+        }
+        return pos - start > 1 ? input.substring(start, pos) : null;
+    }
+
+    /**
+     * @return le contenu de l'IRI sans les chevrons, ou {@code null} si elle n'est pas absolue et simple
+     */
+    private String iri() {
+        int start = ++pos;
+        int colon = -1;
+        while (pos < input.length()) {
+            char c = input.charAt(pos);
+            if (c == '>') {
+                break;
+            }
+            if (c <= ' ' || c == '<' || c == '"' || c == '{' || c == '}' || c == '|'
+                    || c == '^' || c == '`' || c == '\\') {
+                return null;
+            }
+            if (c == ':' && colon < 0) {
+                colon = pos;
+            }
+            pos++;
+        }
+        if (pos >= input.length() || !isScheme(start, colon)) {
+            return null;
+        }
+        return input.substring(start, pos++);
+    }
+
+    /**
+     * @return la valeur lexicale du littéral, ou {@code null} s'il contient des échappements
+     */
+    private String literal() {
+        int start = ++pos;
+        while (pos < input.length()) {
+            char c = input.charAt(pos);
+            if (c == '"') {
+                break;
+            }
+            if (c == '\\' || c == '\n' || c == '\r') {
+                return null;
+            }
+            pos++;
+        }
+        if (pos >= input.length()) {
+            return null;
+        }
+        String value = input.substring(start, pos++);
+
+        // Étiquette de langue ou type de donnée : seule la valeur lexicale est conservée
+        if (peek() == '@') {
+            int tagStart = ++pos;
+            while (pos < input.length() && (Character.isLetterOrDigit(input.charAt(pos)) || input.charAt(pos) == '-')) {
+                pos++;
+            }
+            return pos > tagStart ? value : null;
+        }
+        if (peek() == '^') {
+            if (pos + 1 >= input.length() || input.charAt(pos + 1) != '^') {
+                return null;
+            }
+            pos += 2;
+            return peek() == '<' && iri() != null ? value : null;
+        }
+        return value;
+    }
+
+    private boolean keyword(String keyword) {
+        if (!input.regionMatches(true, pos, keyword, 0, keyword.length())) {
+            return false;
+        }
+        int end = pos + keyword.length();
+        if (end < input.length() && isNameChar(input.charAt(end))) {
+            return false;
+        }
+        pos = end;
+        return true;
+    }
+
+    private boolean isScheme(int start, int colon) {
+        if (colon <= start || !Character.isLetter(input.charAt(start))) {
+            return false;
+        }
+        for (int i = start + 1; i < colon; i++) {
+            char c = input.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '+' && c != '-' && c != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void skipWhitespace() {
+        while (pos < input.length() && Character.isWhitespace(input.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private char peek() {
+        return pos < input.length() ? input.charAt(pos) : '\0';
+    }
+
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+}
@@ -1,35 +1,60 @@
 package qengine.parser;
 
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
 import fr.boreal.io.api.Parser;
 import fr.boreal.model.logicalElements.api.Term;
 import fr.boreal.model.logicalElements.api.Variable;
 import fr.boreal.model.logicalElements.factory.api.TermFactory;
 import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
 import fr.boreal.model.query.api.Query;
+import org.eclipse.rdf4j.query.algebra.And;
+import org.eclipse.rdf4j.query.algebra.Compare;
+import org.eclipse.rdf4j.query.algebra.Count;
+import org.eclipse.rdf4j.query.algebra.Distinct;
+import org.eclipse.rdf4j.query.algebra.Filter;
+import org.eclipse.rdf4j.query.algebra.Group;
+import org.eclipse.rdf4j.query.algebra.GroupElem;
+import org.eclipse.rdf4j.query.algebra.Order;
+import org.eclipse.rdf4j.query.algebra.OrderElem;
 import org.eclipse.rdf4j.query.algebra.Projection;
 import org.eclipse.rdf4j.query.algebra.ProjectionElemList;
+import org.eclipse.rdf4j.query.algebra.Slice;
 import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.ValueConstant;
+import org.eclipse.rdf4j.query.algebra.ValueExpr;
+import org.eclipse.rdf4j.query.algebra.Var;
 import org.eclipse.rdf4j.query.algebra.helpers.AbstractQueryModelVisitor;
 import org.eclipse.rdf4j.query.algebra.helpers.StatementPatternCollector;
 import org.eclipse.rdf4j.query.parser.ParsedQuery;
 import org.eclipse.rdf4j.query.parser.sparql.SPARQLParser;
 
+import qengine.instrumentation.MetricsRegistry;
+import qengine.instrumentation.QueryInstrumentation;
+import qengine.model.OrderKey;
 import qengine.model.RDFAtom;
 import qengine.model.StarQuery;
+import qengine.model.ValueFilter;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.regex.Pattern;
 
 /**
  * Un parser pour analyser des requêtes SparQL en requêtes en étoile.
  */
 public class StarQuerySparQLParser implements Parser<Query> {
 
-    private final Iterator<String> queryIterator;
+    // Clauses qui suivent le motif d'une requête
+    private static final Pattern MODIFIER = Pattern.compile("(?i)\\s*(GROUP\\s+BY|ORDER\\s+BY|LIMIT|OFFSET)\\b.*");
+    private static final Pattern QUERY_END = Pattern.compile("(?i).*}(\\s*(GROUP\\s+BY|ORDER\\s+BY|LIMIT|OFFSET)\\b.*)?");
+
+    private final PeekingIterator<String> queryIterator;
     private final TermFactory termFactory = SameObjectTermFactory.instance();
     private final SPARQLParser sparqlParser = new SPARQLParser();
+    private final StarQueryFastParser fastParser;
     private Query nextQuery = null;
 
     /**
@@ -39,8 +64,21 @@ public class StarQuerySparQLParser implements Parser<Query> {
      * @throws IOException si le fichier ne peut pas être lu
      */
     public StarQuerySparQLParser(String sparqlFilePath) throws IOException {
+        this(sparqlFilePath, true);
+    }
+
+    /**
+     * Constructeur.
+     *
+     * @param sparqlFilePath chemin vers le fichier contenant les requêtes SparQL
+     * @param fastPath       si vrai, les requêtes BGP simples sont analysées par {@link StarQueryFastParser}
+     *                       et seules les autres passent par rdf4j
+     * @throws IOException si le fichier ne peut pas être lu
+     */
+    public StarQuerySparQLParser(String sparqlFilePath, boolean fastPath) throws IOException {
         List<String> lines = Files.readAllLines(Paths.get(sparqlFilePath));
-        this.queryIterator = lines.iterator();
+        this.queryIterator = Iterators.peekingIterator(lines.iterator());
+        this.fastParser = fastPath ? new StarQueryFastParser() : null;
     }
 
     @Override
@@ -53,24 +91,35 @@ public class StarQuerySparQLParser implements Parser<Query> {
             while (queryIterator.hasNext()) {
                 StringBuilder queryBuilder = new StringBuilder();
 
-                // Construire une requête multi-ligne jusqu'à rencontrer "}"
+                // Construire une requête multi-ligne jusqu'à rencontrer "}", suivi de ses clauses éventuelles
                 while (queryIterator.hasNext()) {
                     String line = queryIterator.next();
                     queryBuilder.append(line).append(System.lineSeparator());
 
-                    if (line.trim().endsWith("}")) {
+                    if (QUERY_END.matcher(line.trim()).matches()) {
+                        while (queryIterator.hasNext() && MODIFIER.matcher(queryIterator.peek()).matches()) {
+                            queryBuilder.append(queryIterator.next()).append(System.lineSeparator());
+                        }
                         break;
                     }
                 }
 
                 String queryString = queryBuilder.toString().trim();
                 if (!queryString.isEmpty()) {
-                    ParsedQuery parsedQuery = sparqlParser.parseQuery(queryString, null);
-                    this.nextQuery = parseStarQuery(parsedQuery);
+                    long startTime = System.nanoTime();
+                    StarQuery fastQuery = fastParser != null ? fastParser.parse(queryString) : null;
+                    if (fastQuery != null) {
+                        this.nextQuery = fastQuery;
+                    } else {
+                        ParsedQuery parsedQuery = sparqlParser.parseQuery(queryString, null);
+                        this.nextQuery = parseStarQuery(parsedQuery);
+                    }
+                    QueryInstrumentation.recordParse(nextQuery, System.nanoTime() - startTime);
                     return true;
                 }
             }
         } catch (Exception e) {
+            MetricsRegistry.increment(MetricsRegistry.Counter.REJECTED_QUERIES);
             throw new RuntimeException("Erreur lors de l'analyse de la requête SparQL", e);
         }
 
@@ -129,9 +178,151 @@ public class StarQuerySparQLParser implements Parser<Query> {
         }
 
         List<Variable> answerVariables = extractAnswerVariables(parsedQuery, variables);
+        List<ValueFilter> filters = extractFilters(parsedQuery, variables);
+        Group group = findGroup(parsedQuery);
 
         // Construire la requête en étoile
-        return new StarQuery(parsedQuery.getSourceString(), rdfAtoms, answerVariables);
+        StarQuery query;
+        if (group == null) {
+            query = new StarQuery(parsedQuery.getSourceString(), rdfAtoms, answerVariables, filters);
+        } else {
+            Variable countVariable = countVariable(group, variables);
+            List<Variable> groupBy = group.getGroupBindingNames().stream()
+                    .map(name -> variables.computeIfAbsent("?" + name, termFactory::createOrGetVariable))
+                    .toList();
+            List<Variable> grouped = answerVariables.stream().filter(v -> !v.equals(countVariable)).toList();
+            query = new StarQuery(parsedQuery.getSourceString(), rdfAtoms, grouped, filters).withCount(countVariable, groupBy);
+        }
+        query = withOrder(query, parsedQuery, variables);
+        return isDistinct(parsedQuery) ? query.withDistinct() : query;
+    }
+
+    /**
+     * @return vrai si la requête est un {@code SELECT DISTINCT}
+     */
+    private boolean isDistinct(ParsedQuery parsedQuery) {
+        boolean[] distinct = {false};
+        parsedQuery.getTupleExpr().visit(new AbstractQueryModelVisitor<RuntimeException>() {
+            @Override
+            public void meet(Distinct node) {
+                distinct[0] = true;
+            }
+        });
+        return distinct[0];
+    }
+
+    /**
+     * @return le nœud de groupement de la requête, ou {@code null} si elle n'est pas agrégée
+     */
+    private Group findGroup(ParsedQuery parsedQuery) {
+        Group[] group = new Group[1];
+        parsedQuery.getTupleExpr().visit(new AbstractQueryModelVisitor<RuntimeException>() {
+            @Override
+            public void meet(Group node) {
+                group[0] = node;
+            }
+        });
+        return group[0];
+    }
+
+    /**
+     * Retourne la variable qui reçoit l'unique agrégat du groupement, un {@code COUNT} non distinct.
+     *
+     * @throws IllegalArgumentException si le groupement a un autre agrégat
+     */
+    private Variable countVariable(Group group, Map<String, Variable> variables) {
+        List<GroupElem> elements = group.getGroupElements();
+        if (elements.size() != 1 || !(elements.get(0).getOperator() instanceof Count count) || count.isDistinct()
+                || count.getArg() != null && !(count.getArg() instanceof Var)) {
+            throw new IllegalArgumentException("Agrégat non supporté : seul un COUNT non distinct l'est ("
+                    + elements + ").");
+        }
+        return variables.computeIfAbsent("?" + elements.get(0).getName(), termFactory::createOrGetVariable);
+    }
+
+    /**
+     * Ajoute à la requête ses clauses {@code ORDER BY} et {@code LIMIT}.
+     *
+     * @throws IllegalArgumentException si une clé de tri n'est pas une variable, ou si la requête a un {@code OFFSET}
+     */
+    private StarQuery withOrder(StarQuery query, ParsedQuery parsedQuery, Map<String, Variable> variables) {
+        List<OrderKey> orderBy = new ArrayList<>();
+        long[] limit = {-1};
+        parsedQuery.getTupleExpr().visit(new AbstractQueryModelVisitor<RuntimeException>() {
+            @Override
+            public void meet(Order order) {
+                for (OrderElem element : order.getElements()) {
+                    if (!(element.getExpr() instanceof Var var) || var.hasValue()) {
+                        throw new IllegalArgumentException("Clé de tri non supportée : seules les variables le sont ("
+                                + element.getExpr() + ").");
+                    }
+                    orderBy.add(new OrderKey((Variable) convertToTerm(var, variables), element.isAscending()));
+                }
+                super.meet(order);
+            }
+
+            @Override
+            public void meet(Slice slice) {
+                if (slice.hasOffset()) {
+                    throw new IllegalArgumentException("OFFSET n'est pas supporté.");
+                }
+                limit[0] = slice.getLimit();
+                super.meet(slice);
+            }
+        });
+        return orderBy.isEmpty() && limit[0] < 0 ? query : query.withOrder(orderBy, limit[0]);
+    }
+
+    /**
+     * Extrait les filtres de la requête : des conjonctions de comparaisons entre une variable
+     * et une constante.
+     *
+     * @param parsedQuery la requête SparQL analysée
+     * @param variables   le dictionnaire des variables
+     * @return la liste des filtres
+     * @throws IllegalArgumentException si un filtre n'est pas de cette forme
+     */
+    private List<ValueFilter> extractFilters(ParsedQuery parsedQuery, Map<String, Variable> variables) {
+        List<ValueFilter> filters = new ArrayList<>();
+        parsedQuery.getTupleExpr().visit(new AbstractQueryModelVisitor<RuntimeException>() {
+            @Override
+            public void meet(Filter filter) {
+                addConditions(filter.getCondition(), variables, filters);
+                super.meet(filter);
+            }
+        });
+        return filters;
+    }
+
+    private void addConditions(ValueExpr condition, Map<String, Variable> variables, List<ValueFilter> filters) {
+        if (condition instanceof And and) {
+            addConditions(and.getLeftArg(), variables, filters);
+            addConditions(and.getRightArg(), variables, filters);
+            return;
+        }
+        if (condition instanceof Compare compare && compare.getOperator() != Compare.CompareOp.NE) {
+            ValueFilter.Operator operator = switch (compare.getOperator()) {
+                case LT -> ValueFilter.Operator.LT;
+                case LE -> ValueFilter.Operator.LE;
+                case GE -> ValueFilter.Operator.GE;
+                case GT -> ValueFilter.Operator.GT;
+                default -> ValueFilter.Operator.EQ;
+            };
+            if (compare.getLeftArg() instanceof Var var && !var.hasValue()
+                    && compare.getRightArg() instanceof ValueConstant constant) {
+                filters.add(new ValueFilter((Variable) convertToTerm(var, variables), operator,
+                        termFactory.createOrGetLiteral(constant.getValue().stringValue())));
+                return;
+            }
+            if (compare.getRightArg() instanceof Var var && !var.hasValue()
+                    && compare.getLeftArg() instanceof ValueConstant constant) {
+                filters.add(new ValueFilter((Variable) convertToTerm(var, variables), operator.flip(),
+                        termFactory.createOrGetLiteral(constant.getValue().stringValue())));
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Filtre non supporté : seules les comparaisons <, <=, =, >=, > "
+                + "entre une variable et une constante le sont (" + condition + ").");
     }
 
     /**
@@ -55,18 +55,13 @@ public final class QuerySetEvaluator {
         Map<Integer, Integer> cardinalityDistribution = new HashMap<>();
 
         for (StarQuery query : evaluationQueries) {
-            List<String> rawResults = new ArrayList<>();
-            Set<String> uniqueResults = new HashSet<>();
-
-            Iterator<Substitution> queryResults = hexaFactBase.match(query);
-            while (queryResults.hasNext()) {
-                String result = queryResults.next().toString();
-                rawResults.add(result);
-                uniqueResults.add(result);
+            // Une seule évaluation : les doublons sont comptés en parcourant les réponses
+            Set<Substitution> distinctResults = new HashSet<>();
+            int totalResults = 0;
+            for (Iterator<Substitution> results = hexaFactBase.match(query); results.hasNext(); totalResults++) {
+                distinctResults.add(results.next());
             }
-
-            int totalResults = rawResults.size();
-            int uniqueCount = uniqueResults.size();
+            int uniqueCount = distinctResults.size();
 
             if (!uniqueQueries.add(query)) {
                 duplicateCount++; //
@@ -189,22 +184,31 @@ public final class QuerySetEvaluator {
      * @param starQuery    La requête à exécuter
      * @param hexaFactBase Le store contenant les atomes
      * @param resultCounts Map pour compter les résultats (peut être null si inutile)
-     * @return Ensemble des résultats pour la requête
+     * @return Nombre de résultats distincts pour la requête
      */
-    private static Set<String> executeStarQuery(StarQuery starQuery, RDFHexaStore hexaFactBase,
-                                                Map<StarQuery, Integer> resultCounts) {
-        Set<String> results = new HashSet<>();
-        Iterator<Substitution> queryResults = hexaFactBase.match(starQuery);
-
-        while (queryResults.hasNext()) {
-            Substitution result = queryResults.next();
-            results.add(result.toString());
-        }
+    private static int executeStarQuery(StarQuery starQuery, RDFHexaStore hexaFactBase,
+                                        Map<StarQuery, Integer> resultCounts) {
+        int results = count(hexaFactBase.match(starQuery.withDistinct()));
 
         if (resultCounts != null) {
-            resultCounts.put(starQuery, results.size());
+            resultCounts.put(starQuery, results);
         }
 
         return results;
     }
+
+    /**
+     * Consomme les réponses d'une requête.
+     *
+     * @param results Les réponses
+     * @return Leur nombre
+     */
+    private static int count(Iterator<Substitution> results) {
+        int count = 0;
+        while (results.hasNext()) {
+            results.next();
+            count++;
+        }
+        return count;
+    }
 }
@@ -0,0 +1,132 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.impl.SubstitutionImpl;
+import qengine.instrumentation.Phase;
+import qengine.instrumentation.QueryTrace;
+import qengine.model.StarQuery;
+
+import java.util.*;
+import java.util.function.IntFunction;
+import java.util.function.LongConsumer;
+
+/**
+ * Adaptateur d'un pipeline de {@link BatchOperator} en itérateur de substitutions : les lots sont
+ * tirés à la demande, projetés sur les variables réponses de la requête, dédoublonnés pour un
+ * {@code SELECT DISTINCT} et limités ; seules les colonnes projetées des lignes retenues sont décodées.
+ * Le tri n'est pas fait ici : une requête ordonnée est évaluée par {@link #rows(BatchOperator)}.
+ * <p>
+ * Le temps passé à produire les réponses est cumulé dans la phase {@link Phase#JOIN} de la trace ;
+ * la requête est terminée, trace et mesures comprises, quand l'itérateur est épuisé ou atteint la
+ * limite. Un itérateur abandonné avant ne la termine pas.
+ */
+final class BatchIterator implements Iterator<Substitution> {
+
+    private final BatchOperator root;
+    private final IntFunction<Term> decoder;
+    private final List<Variable> answers;
+    private final int[] projected;
+    private final IdTupleSet seen;
+    private final long limit;
+    private final IdBatch batch;
+    private final int[] row;
+    private final QueryTrace trace;
+    private final LongConsumer finish;
+
+    private boolean more = true;
+    // Vrai une fois les réponses épuisées et la requête terminée
+    private boolean finished;
+    // Prochaine ligne retenue du lot courant
+    private int k;
+    private long emitted;
+    private Substitution next;
+
+    /**
+     * @param columns la variable de chaque colonne des lignes du pipeline
+     * @param decoder le terme d'un indexe du store
+     * @param finish  appelé avec le nombre de réponses produites, une fois l'itérateur épuisé
+     */
+    BatchIterator(StarQuery q, BatchOperator root, List<Variable> columns, IntFunction<Term> decoder,
+                  QueryTrace trace, LongConsumer finish) {
+        this.root = root;
+        this.decoder = decoder;
+        this.answers = new ArrayList<>(q.getAnswerVariables());
+        this.projected = answers.stream().mapToInt(columns::indexOf).toArray();
+        this.seen = q.isDistinct() ? new IdTupleSet(projected.length) : null;
+        this.limit = q.getLimit().orElse(Long.MAX_VALUE);
+        this.batch = new IdBatch(root.width());
+        this.row = new int[root.width()];
+        this.trace = trace;
+        this.finish = finish;
+    }
+
+    /**
+     * Tire tous les lots du pipeline.
+     *
+     * @return les lignes d'indexes retenues
+     */
+    static List<int[]> rows(BatchOperator root) {
+        IdBatch batch = new IdBatch(root.width());
+        List<int[]> rows = new ArrayList<>();
+        boolean more = true;
+        while (more) {
+            more = root.next(batch);
+            for (int k = 0; k < batch.selected; k++) {
+                int[] row = new int[batch.width()];
+                batch.copyRow(k, row);
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null || finished) {
+            return next != null;
+        }
+        trace.start(Phase.JOIN);
+        while (next == null && emitted < limit) {
+            if (k == batch.selected) {
+                if (!more) {
+                    break;
+                }
+                more = root.next(batch);
+                k = 0;
+                continue;
+            }
+            int current = k++;
+            int position = batch.selection[current];
+            if (seen != null) {
+                batch.copyRow(current, row);
+                if (!seen.add(row, projected)) {
+                    continue;
+                }
+            }
+            Map<Variable, Term> binding = new HashMap<>();
+            for (int c = 0; c < projected.length; c++) {
+                binding.put(answers.get(c), decoder.apply(batch.columns[projected[c]][position]));
+            }
+            next = new SubstitutionImpl(binding);
+        }
+        trace.stop(Phase.JOIN);
+        if (next == null) {
+            finished = true;
+            finish.accept(emitted);
+        }
+        return next != null;
+    }
+
+    @Override
+    public Substitution next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Substitution substitution = next;
+        next = null;
+        emitted++;
+        return substitution;
+    }
+}
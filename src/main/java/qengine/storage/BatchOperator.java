@@ -0,0 +1,192 @@
+package qengine.storage;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+
+/**
+ * Opérateur d'exécution par lots des étoiles : chaque appel produit un {@link IdBatch} d'au plus
+ * {@value IdBatch#CAPACITY} lignes d'indexes au lieu d'une substitution, ce qui amortit le coût
+ * des appels et garde les vecteurs du lot en cache. La première colonne est le sujet de l'étoile.
+ * Les opérateurs se composent en pipeline : {@link Scan}, des {@link Intersect}, des {@link Probe},
+ * puis {@link BatchIterator} projette et décode les lignes.
+ */
+abstract class BatchOperator {
+
+    // Lignes reçues et produites, pour la trace
+    long rowsIn;
+    long rowsOut;
+
+    /**
+     * Vide le lot puis le remplit.
+     *
+     * @return faux si l'opérateur est épuisé, le lot étant alors vide ; un lot vide ne signifie
+     * pas que l'opérateur est épuisé
+     */
+    abstract boolean next(IdBatch batch);
+
+    /**
+     * @return le nombre de colonnes des lignes produites
+     */
+    abstract int width();
+
+    /**
+     * Parcours d'un ensemble de sujets, restreint aux intervalles des filtres sur le sujet.
+     */
+    static final class Scan extends BatchOperator {
+
+        private final PrimitiveIterator.OfInt values;
+        private final List<ValueRange> ranges;
+
+        Scan(Set<Integer> values, List<ValueRange> ranges) {
+            this(values.stream().mapToInt(Integer::intValue).iterator(), ranges);
+        }
+
+        /**
+         * Parcours d'un morceau {@code [from, to)} d'un tableau de sujets.
+         */
+        Scan(int[] values, int from, int to, List<ValueRange> ranges) {
+            this(Arrays.stream(values, from, to).iterator(), ranges);
+        }
+
+        private Scan(PrimitiveIterator.OfInt values, List<ValueRange> ranges) {
+            this.values = values;
+            this.ranges = ranges;
+        }
+
+        @Override
+        boolean next(IdBatch batch) {
+            batch.clear();
+            int[] column = batch.columns[0];
+            while (!batch.isFull() && values.hasNext()) {
+                int value = values.nextInt();
+                rowsIn++;
+                if (RDFHexaStore.inRanges(value, ranges)) {
+                    column[batch.append()] = value;
+                }
+            }
+            rowsOut += batch.selected;
+            return batch.selected > 0;
+        }
+
+        @Override
+        int width() {
+            return 1;
+        }
+    }
+
+    /**
+     * Intersection avec les sujets d'un autre atome : les lignes dont le sujet n'est pas dans
+     * l'ensemble sont retirées du vecteur de sélection, sans être déplacées.
+     */
+    static final class Intersect extends BatchOperator {
+
+        private final BatchOperator input;
+        private final Set<Integer> subjects;
+
+        Intersect(BatchOperator input, Set<Integer> subjects) {
+            this.input = input;
+            this.subjects = subjects;
+        }
+
+        @Override
+        boolean next(IdBatch batch) {
+            boolean more = input.next(batch);
+            int[] column = batch.columns[0];
+            int kept = 0;
+            for (int k = 0; k < batch.selected; k++) {
+                int position = batch.selection[k];
+                if (subjects.contains(column[position])) {
+                    batch.selection[kept++] = position;
+                }
+            }
+            rowsIn += batch.selected;
+            rowsOut += kept;
+            batch.selected = kept;
+            return more;
+        }
+
+        @Override
+        int width() {
+            return input.width();
+        }
+    }
+
+    /**
+     * Sonde des objets d'un atome {@code (?s p ?o)} pour le sujet de chaque ligne : chaque objet
+     * dans les intervalles de ses filtres prolonge la ligne d'une colonne. Une ligne sans objet
+     * est écartée ; une ligne à plusieurs objets peut s'étendre sur plusieurs lots.
+     */
+    static final class Probe extends BatchOperator {
+
+        private final BatchOperator input;
+        private final RDFHexaStore store;
+        private final List<ValueRange> ranges;
+        private final IdBatch in;
+        private final int[] triple = new int[3];
+
+        // Vrai tant que l'entrée peut produire des lots
+        private boolean more = true;
+        // Prochaine ligne retenue de in, et position dans in de la ligne courante
+        private int row;
+        private int position;
+        // Objets de la ligne courante, et prochain objet à produire
+        private int[] objects = new int[16];
+        private int count;
+        private int object;
+
+        Probe(BatchOperator input, RDFHexaStore store, int predicate, List<ValueRange> ranges) {
+            this.input = input;
+            this.store = store;
+            this.ranges = ranges;
+            this.in = new IdBatch(input.width());
+            this.triple[1] = predicate;
+        }
+
+        @Override
+        boolean next(IdBatch batch) {
+            batch.clear();
+            int width = in.width();
+            while (!batch.isFull()) {
+                if (object < count) {
+                    int out = batch.append();
+                    for (int c = 0; c < width; c++) {
+                        batch.columns[c][out] = in.columns[c][position];
+                    }
+                    batch.columns[width][out] = objects[object++];
+                } else if (row < in.selected) {
+                    position = in.selection[row++];
+                    rowsIn++;
+                    probe(in.columns[0][position]);
+                } else if (more) {
+                    more = input.next(in);
+                    row = 0;
+                } else {
+                    break;
+                }
+            }
+            rowsOut += batch.selected;
+            return batch.selected > 0;
+        }
+
+        private void probe(int subject) {
+            triple[0] = subject;
+            count = 0;
+            object = 0;
+            for (int value : store.thirdValues(triple, 2)) {
+                if (RDFHexaStore.inRanges(value, ranges)) {
+                    if (count == objects.length) {
+                        objects = Arrays.copyOf(objects, 2 * count);
+                    }
+                    objects[count++] = value;
+                }
+            }
+        }
+
+        @Override
+        int width() {
+            return in.width() + 1;
+        }
+    }
+}
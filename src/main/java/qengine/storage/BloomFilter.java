@@ -0,0 +1,72 @@
+package qengine.storage;
+
+/**
+ * Filtre de Bloom sur des clés {@code long} : {@link #mightContain} ne se trompe jamais sur une
+ * clé ajoutée, et répond faux pour la plupart des autres. Les clés ne peuvent pas être retirées ;
+ * un filtre qui garde des clés retirées reste correct, il écarte simplement moins de clés.
+ */
+final class BloomFilter {
+
+    // Avec 10 bits par clé et 3 fonctions de hachage, environ 2 % de faux positifs
+    private static final int BITS_PER_KEY = 10;
+    private static final int HASHES = 3;
+
+    private final long[] words;
+    private final int mask;
+    private final int capacity;
+
+    /**
+     * @param capacity le nombre de clés pour lequel le filtre est dimensionné
+     */
+    BloomFilter(int capacity) {
+        int bits = Integer.highestOneBit(Math.max(64, capacity * BITS_PER_KEY - 1)) << 1;
+        this.words = new long[bits >>> 6];
+        this.mask = bits - 1;
+        this.capacity = capacity;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    void add(long key) {
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (h1 + i * h2) & mask;
+            words[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(long key) {
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (h1 + i * h2) & mask;
+            if ((words[bit >>> 6] & 1L << bit) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Signature de 64 bits d'une clé, pour un filtre de Bloom tenant dans un seul {@code long}.
+     */
+    static long signature(long key) {
+        long hash = mix(key);
+        return 1L << hash | 1L << (hash >>> 6) | 1L << (hash >>> 12);
+    }
+
+    // Finaliseur de MurmurHash3
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
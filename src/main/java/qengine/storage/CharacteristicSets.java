@@ -0,0 +1,255 @@
+package qengine.storage;
+
+import java.util.*;
+
+/**
+ * Ensembles caractéristiques d'un store : l'ensemble caractéristique d'un sujet est l'ensemble
+ * des prédicats de ses triplets. Pour chaque ensemble sont tenus le nombre de sujets qui l'ont
+ * et, par prédicat, le nombre de triplets de ces sujets (la multiplicité du prédicat).
+ * <p>
+ * Ces statistiques donnent une estimation quasi exacte du nombre de réponses d'une étoile
+ * centrée sur un sujet, et permettent d'écarter un sujet dont l'ensemble ne contient pas tous
+ * les prédicats d'une requête sans lire les index. Elles sont tenues à jour à chaque ajout
+ * et retrait de triplet. Cette classe n'est pas thread-safe.
+ */
+public class CharacteristicSets {
+
+    /**
+     * Un ensemble caractéristique et ses statistiques.
+     */
+    public static final class CharacteristicSet {
+        private final int[] predicates;
+        private final long[] occurrences;
+        private long subjects;
+
+        private CharacteristicSet(int[] predicates) {
+            this.predicates = predicates;
+            this.occurrences = new long[predicates.length];
+        }
+
+        /**
+         * @return les prédicats de l'ensemble, triés
+         */
+        public int[] predicates() {
+            return predicates.clone();
+        }
+
+        /**
+         * @return le nombre de sujets dont c'est l'ensemble caractéristique
+         */
+        public long subjects() {
+            return subjects;
+        }
+
+        /**
+         * @return le nombre de triplets de prédicat {@code predicate} de ces sujets
+         */
+        public long occurrences(int predicate) {
+            int i = Arrays.binarySearch(predicates, predicate);
+            return i < 0 ? 0 : occurrences[i];
+        }
+
+        /**
+         * @param required des prédicats triés
+         * @return vrai si l'ensemble contient tous ces prédicats
+         */
+        public boolean containsAll(int[] required) {
+            int i = 0;
+            for (int predicate : required) {
+                while (i < predicates.length && predicates[i] < predicate) {
+                    i++;
+                }
+                if (i == predicates.length || predicates[i] != predicate) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private final Map<Integer, CharacteristicSet> bySubject = new HashMap<>();
+    private final Map<List<Integer>, CharacteristicSet> sets = new HashMap<>();
+    // Ensembles contenant chaque prédicat, pour ne parcourir que les candidats d'une requête
+    private final Map<Integer, List<CharacteristicSet>> byPredicate = new HashMap<>();
+
+    /**
+     * Prend en compte l'ajout d'un triplet (s, p, ·).
+     *
+     * @param predicates les objets de chaque prédicat du sujet, ajout compris
+     */
+    void added(int s, int p, Map<Integer, ? extends Set<Integer>> predicates) {
+        CharacteristicSet current = bySubject.get(s);
+        if (predicates.get(p).size() == 1) {
+            // Nouveau prédicat : le sujet change d'ensemble, avec ses triplets déjà présents
+            CharacteristicSet next = move(s, current, current == null ? new int[]{p} : with(current.predicates, p));
+            if (current != null) {
+                transfer(current, next, current.predicates, predicates);
+            }
+            current = next;
+        }
+        current.occurrences[Arrays.binarySearch(current.predicates, p)]++;
+    }
+
+    /**
+     * Prend en compte le retrait d'un triplet (s, p, ·).
+     *
+     * @param predicates les objets de chaque prédicat du sujet, retrait compris, ou {@code null}
+     *                   si le sujet n'a plus de triplet
+     */
+    void removed(int s, int p, Map<Integer, ? extends Set<Integer>> predicates) {
+        CharacteristicSet current = bySubject.get(s);
+        if (current == null) {
+            return;
+        }
+        current.occurrences[Arrays.binarySearch(current.predicates, p)]--;
+        if (predicates != null && predicates.containsKey(p)) {
+            return;
+        }
+        int[] remaining = without(current.predicates, p);
+        CharacteristicSet next = move(s, current, remaining.length == 0 ? null : remaining);
+        if (next != null) {
+            transfer(current, next, remaining, predicates);
+        }
+    }
+
+    /**
+     * @return l'ensemble caractéristique du sujet, ou {@code null} s'il n'a aucun triplet
+     */
+    public CharacteristicSet of(int subject) {
+        return bySubject.get(subject);
+    }
+
+    /**
+     * @return le nombre d'ensembles caractéristiques distincts, y compris ceux qui n'ont plus de sujet
+     */
+    public int size() {
+        return sets.size();
+    }
+
+    /**
+     * @param required des prédicats triés
+     * @return les ensembles qui contiennent tous ces prédicats et ont au moins un sujet
+     */
+    public List<CharacteristicSet> supersetsOf(int[] required) {
+        if (required.length == 0) {
+            return sets.values().stream().filter(set -> set.subjects > 0).toList();
+        }
+        List<CharacteristicSet> smallest = null;
+        for (int predicate : required) {
+            List<CharacteristicSet> candidates = byPredicate.getOrDefault(predicate, List.of());
+            if (smallest == null || candidates.size() < smallest.size()) {
+                smallest = candidates;
+            }
+        }
+        List<CharacteristicSet> supersets = new ArrayList<>();
+        for (CharacteristicSet set : smallest) {
+            if (set.subjects > 0 && set.containsAll(required)) {
+                supersets.add(set);
+            }
+        }
+        return supersets;
+    }
+
+    /**
+     * @param required des prédicats triés
+     * @return le nombre exact de sujets qui ont tous ces prédicats
+     */
+    public long subjectsWith(int[] required) {
+        long subjects = 0;
+        for (CharacteristicSet set : supersetsOf(required)) {
+            subjects += set.subjects;
+        }
+        return subjects;
+    }
+
+    /**
+     * @return le nombre de triplets du prédicat
+     */
+    public long triples(int predicate) {
+        long triples = 0;
+        for (CharacteristicSet set : byPredicate.getOrDefault(predicate, List.of())) {
+            triples += set.occurrences(predicate);
+        }
+        return triples;
+    }
+
+    /**
+     * Estime le nombre de réponses d'une étoile centrée sur un sujet : pour chaque ensemble qui
+     * contient tous les prédicats, le nombre de sujets multiplié, pour chaque prédicat, par sa
+     * multiplicité moyenne dans l'ensemble et par la sélectivité de l'objet s'il est constant.
+     *
+     * @param required      les prédicats de l'étoile, triés
+     * @param selectivities pour chaque prédicat, la part de ses triplets retenue par l'objet (1 si variable)
+     * @return le nombre estimé de réponses
+     */
+    public double estimate(int[] required, double[] selectivities) {
+        double cardinality = 0;
+        for (CharacteristicSet set : supersetsOf(required)) {
+            double rows = set.subjects;
+            for (int k = 0; k < required.length; k++) {
+                double perSubject = (double) set.occurrences(required[k]) / set.subjects;
+                rows *= selectivities[k] < 1 ? Math.min(1, perSubject * selectivities[k]) : perSubject;
+            }
+            cardinality += rows;
+        }
+        return cardinality;
+    }
+
+    /**
+     * Déplace de {@code from} vers {@code to} les multiplicités propres à un sujet.
+     */
+    private static void transfer(CharacteristicSet from, CharacteristicSet to, int[] moved,
+                                 Map<Integer, ? extends Set<Integer>> predicates) {
+        for (int predicate : moved) {
+            long own = predicates.get(predicate).size();
+            from.occurrences[Arrays.binarySearch(from.predicates, predicate)] -= own;
+            to.occurrences[Arrays.binarySearch(to.predicates, predicate)] += own;
+        }
+    }
+
+    /**
+     * Fait passer le sujet de l'ensemble {@code from} à l'ensemble de prédicats {@code to}.
+     *
+     * @return le nouvel ensemble du sujet, ou {@code null} s'il n'en a plus
+     */
+    private CharacteristicSet move(int s, CharacteristicSet from, int[] to) {
+        if (from != null) {
+            from.subjects--;
+        }
+        if (to == null) {
+            bySubject.remove(s);
+            return null;
+        }
+        CharacteristicSet next = sets.computeIfAbsent(key(to), k -> {
+            CharacteristicSet created = new CharacteristicSet(to);
+            for (int predicate : to) {
+                byPredicate.computeIfAbsent(predicate, p -> new ArrayList<>()).add(created);
+            }
+            return created;
+        });
+        next.subjects++;
+        bySubject.put(s, next);
+        return next;
+    }
+
+    private static List<Integer> key(int[] predicates) {
+        return Arrays.stream(predicates).boxed().toList();
+    }
+
+    private static int[] with(int[] predicates, int p) {
+        int i = -Arrays.binarySearch(predicates, p) - 1;
+        int[] result = new int[predicates.length + 1];
+        System.arraycopy(predicates, 0, result, 0, i);
+        result[i] = p;
+        System.arraycopy(predicates, i, result, i + 1, predicates.length - i);
+        return result;
+    }
+
+    private static int[] without(int[] predicates, int p) {
+        int i = Arrays.binarySearch(predicates, p);
+        int[] result = new int[predicates.length - 1];
+        System.arraycopy(predicates, 0, result, 0, i);
+        System.arraycopy(predicates, i + 1, result, i, predicates.length - i - 1);
+        return result;
+    }
+}
@@ -0,0 +1,19 @@
+package qengine.storage;
+
+import java.util.List;
+
+/**
+ * Plan compilé d'une forme d'étoile : des atomes {@code (?s p o)} de même sujet variable, chacun
+ * de prédicat constant, et d'objet constant ou variable propre à l'atome. Voir {@link StarPlanCompiler}.
+ */
+interface CompiledStar {
+
+    /**
+     * Évalue l'étoile sur {@code pos}, {@code pso} et {@code spo}, que le store doit maintenir.
+     *
+     * @param store   le store
+     * @param objects l'indexe de l'objet de chaque atome à objet constant, ignoré pour les autres atomes
+     * @return les lignes d'indexes : le sujet, puis l'objet de chaque atome à objet variable
+     */
+    List<int[]> evaluate(RDFHexaStore store, int[] objects);
+}
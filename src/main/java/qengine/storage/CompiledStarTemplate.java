@@ -0,0 +1,127 @@
+package qengine.storage;
+
+import java.lang.constant.ConstantDescs;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Modèle des plans compilés : son bytecode est défini une fois par forme d'étoile comme classe
+ * cachée, dont les données de classe sont les prédicats et les atomes à objet constant de la forme.
+ * Ces données sont des champs {@code static final}, constants pour le JIT : chaque forme a ses
+ * propres boucles, de longueur connue, et ses propres profils.
+ * <p>
+ * Cette classe n'est jamais chargée autrement que par {@link StarPlanCompiler} ; elle ne doit
+ * contenir ni lambda ni classe interne, qui ne seraient pas redéfinies avec elle.
+ */
+final class CompiledStarTemplate implements CompiledStar {
+
+    // Indexe du prédicat de chaque atome
+    private static final int[] PREDICATES;
+    // Vrai pour les atomes à objet constant
+    private static final boolean[] CONSTANT;
+    // Nombre d'atomes à objet variable
+    private static final int OPEN;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            PREDICATES = MethodHandles.classDataAt(lookup, ConstantDescs.DEFAULT_NAME, int[].class, 0);
+            CONSTANT = MethodHandles.classDataAt(lookup, ConstantDescs.DEFAULT_NAME, boolean[].class, 1);
+        } catch (IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+        int open = 0;
+        for (boolean constant : CONSTANT) {
+            if (!constant) {
+                open++;
+            }
+        }
+        OPEN = open;
+    }
+
+    CompiledStarTemplate() {
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<int[]> evaluate(RDFHexaStore store, int[] objects) {
+        Map<Integer, Map<Integer, Set<Integer>>> pos = store.pos;
+        Map<Integer, Map<Integer, Set<Integer>>> pso = store.pso;
+        Map<Integer, Map<Integer, Set<Integer>>> spo = store.spo;
+
+        // Les sujets de chaque atome ; le plus petit ensemble fournit les candidats
+        Set<Integer>[] subjects = (Set<Integer>[]) new Set<?>[PREDICATES.length];
+        int driver = 0;
+        for (int i = 0; i < PREDICATES.length; i++) {
+            if (CONSTANT[i]) {
+                subjects[i] = RDFHexaStore.leaf(pos, PREDICATES[i], objects[i]);
+            } else {
+                Map<Integer, Set<Integer>> level = pso.get(PREDICATES[i]);
+                subjects[i] = level == null ? Set.of() : level.keySet();
+            }
+            if (subjects[i].isEmpty()) {
+                return new ArrayList<>();
+            }
+            if (subjects[i].size() < subjects[driver].size()) {
+                driver = i;
+            }
+        }
+
+        List<int[]> rows = new ArrayList<>();
+        int[][] values = new int[OPEN][];
+        int[] cursor = new int[OPEN];
+        for (int subject : subjects[driver]) {
+            boolean kept = true;
+            for (int i = 0; i < PREDICATES.length && kept; i++) {
+                kept = i == driver || subjects[i].contains(subject);
+            }
+            if (!kept) {
+                continue;
+            }
+            // Objets des atomes à objet variable
+            Map<Integer, Set<Integer>> predicates = spo.get(subject);
+            for (int i = 0, j = 0; i < PREDICATES.length && kept; i++) {
+                if (!CONSTANT[i]) {
+                    Set<Integer> leaf = predicates == null ? null : predicates.get(PREDICATES[i]);
+                    kept = leaf != null && !leaf.isEmpty();
+                    if (kept) {
+                        int[] column = new int[leaf.size()];
+                        int n = 0;
+                        for (int object : leaf) {
+                            if (n == column.length) { // la feuille a grandi pendant le parcours (store concurrent)
+                                column = Arrays.copyOf(column, 2 * n + 1);
+                            }
+                            column[n++] = object;
+                        }
+                        kept = n > 0;
+                        values[j++] = n == column.length ? column : Arrays.copyOf(column, n);
+                    }
+                }
+            }
+            if (!kept) {
+                continue;
+            }
+            // Produit des objets, le dernier atome variant le plus vite
+            while (true) {
+                int[] row = new int[OPEN + 1];
+                row[0] = subject;
+                for (int j = 0; j < OPEN; j++) {
+                    row[j + 1] = values[j][cursor[j]];
+                }
+                rows.add(row);
+                int j = OPEN - 1;
+                while (j >= 0 && ++cursor[j] == values[j].length) {
+                    cursor[j--] = 0;
+                }
+                if (j < 0) {
+                    break;
+                }
+            }
+        }
+        return rows;
+    }
+}
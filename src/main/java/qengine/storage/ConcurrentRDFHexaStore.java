@@ -0,0 +1,182 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Atom;
+import fr.boreal.model.logicalElements.api.Substitution;
+import qengine.instrumentation.MetricsRegistry;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Variante thread-safe de {@link RDFHexaStore} : plusieurs threads peuvent ajouter et retirer
+ * des triplets pendant que d'autres évaluent des requêtes.
+ * <ul>
+ *     <li>Les six index sont des {@link ConcurrentHashMap} et le dictionnaire, partagé avec
+ *     {@link RDFHexaStore}, est sûr pour des lectures concurrentes : les lectures ne prennent
+ *     aucun verrou.</li>
+ *     <li>Chaque modification d'un index se fait dans un {@code compute} sur sa clé de premier
+ *     niveau, ce qui sérialise les écritures sur un même chemin (y compris l'élagage des
+ *     niveaux vidés) sans bloquer les autres clés.</li>
+ *     <li>Les ajouts et retraits d'un même triplet sur les six index sont sérialisés par un
+ *     verrou choisi selon le triplet parmi un nombre fixe de verrous.</li>
+ * </ul>
+ * Les lectures sont faiblement cohérentes : un triplet en cours d'insertion peut être visible
+ * dans certains index et pas encore dans les autres.
+ * <p>
+ * Les index sont modifiés en place et les structures annexes de {@link RDFHexaStore} (snapshots,
+ * liste d'adjacence, filtres d'existence, plans compilés, changement de permutations) ne sont pas
+ * thread-safe : cette variante n'expose donc que les opérations de {@link RDFStorage}, évaluées par
+ * un {@link RDFHexaStore} interne.
+ */
+public class ConcurrentRDFHexaStore implements RDFStorage {
+
+    private final Indexes indexes;
+
+    public ConcurrentRDFHexaStore() {
+        this(EnumSet.allOf(IndexPermutation.class));
+    }
+
+    /**
+     * @param permutations les permutations à maintenir ; {@link IndexPermutation#SPO} est toujours ajoutée
+     */
+    public ConcurrentRDFHexaStore(Set<IndexPermutation> permutations) {
+        this.indexes = new Indexes(permutations);
+    }
+
+    @Override
+    public boolean add(RDFAtom atom) {
+        return indexes.add(atom);
+    }
+
+    @Override
+    public boolean addAll(Stream<RDFAtom> atoms) {
+        return indexes.addAll(atoms);
+    }
+
+    @Override
+    public boolean remove(RDFAtom atom) {
+        return indexes.remove(atom);
+    }
+
+    @Override
+    public Iterator<Substitution> match(RDFAtom atom) {
+        return indexes.match(atom);
+    }
+
+    @Override
+    public Iterator<Substitution> match(StarQuery q) {
+        return indexes.match(q);
+    }
+
+    @Override
+    public long size() {
+        return indexes.size();
+    }
+
+    @Override
+    public Collection<Atom> getAtoms() {
+        return indexes.getAtoms();
+    }
+
+    /**
+     * @return les permutations maintenues, fixées à la construction
+     */
+    public Set<IndexPermutation> getPermutations() {
+        return indexes.getPermutations();
+    }
+
+    /**
+     * Index concurrents, interrogés par les algorithmes de {@link RDFHexaStore}.
+     */
+    private static final class Indexes extends RDFHexaStore {
+
+        private static final int STRIPES = 64;
+
+        private final LongAdder size = new LongAdder();
+        private final Object[] stripes = new Object[STRIPES];
+
+        Indexes(Set<IndexPermutation> permutations) {
+            super(permutations);
+            characteristicSets = null; // non tenus à jour par cette variante
+            spo = new ConcurrentHashMap<>();
+            pso = new ConcurrentHashMap<>();
+            osp = new ConcurrentHashMap<>();
+            sop = new ConcurrentHashMap<>();
+            pos = new ConcurrentHashMap<>();
+            ops = new ConcurrentHashMap<>();
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new Object();
+            }
+        }
+
+        @Override
+        public boolean addIndex(int s, int p, int o) {
+            synchronized (stripe(s, p, o)) {
+                if (leaf(spo, s, p).contains(o)) {
+                    return false;
+                }
+                int[] triple = {s, p, o};
+                for (IndexPermutation permutation : permutations) {
+                    addToStore(index(permutation), triple[permutation.first], triple[permutation.second], triple[permutation.third]);
+                }
+            }
+            size.increment();
+            MetricsRegistry.increment(MetricsRegistry.Counter.TRIPLES_STORED);
+            return true;
+        }
+
+        @Override
+        public boolean removeIndex(int s, int p, int o) {
+            synchronized (stripe(s, p, o)) {
+                if (!leaf(spo, s, p).contains(o)) {
+                    return false;
+                }
+                int[] triple = {s, p, o};
+                for (IndexPermutation permutation : permutations) {
+                    removeFromStore(index(permutation), triple[permutation.first], triple[permutation.second], triple[permutation.third]);
+                }
+            }
+            size.decrement();
+            MetricsRegistry.add(MetricsRegistry.Counter.TRIPLES_STORED, -1);
+            return true;
+        }
+
+        @Override
+        public long size() {
+            return size.sum();
+        }
+
+        private Object stripe(int s, int p, int o) {
+            int hash = (s * 31 + p) * 31 + o;
+            return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+        }
+
+        private static void addToStore(Map<Integer, Map<Integer, Set<Integer>>> indexes, int a, int b, int c) {
+            indexes.compute(a, (k, x) -> {
+                if (x == null) {
+                    x = new ConcurrentHashMap<>();
+                }
+                x.computeIfAbsent(b, l -> ConcurrentHashMap.newKeySet()).add(c);
+                return x;
+            });
+        }
+
+        private static void removeFromStore(Map<Integer, Map<Integer, Set<Integer>>> indexes, int a, int b, int c) {
+            indexes.computeIfPresent(a, (k, x) -> {
+                x.computeIfPresent(b, (l, y) -> {
+                    y.remove(c);
+                    return y.isEmpty() ? null : y;
+                });
+                return x.isEmpty() ? null : x;
+            });
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.factory.api.TermFactory;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * {@link RDFHexaStore} persistant : chaque modification est journalisée dans un
+ * {@link WriteAheadLog} avant d'être visible, et {@link #checkpoint()} écrit une image complète
+ * du store puis vide le journal. À l'ouverture, l'image est rechargée puis le journal rejoué.
+ * <p>
+ * Le répertoire du store contient {@value #CHECKPOINT_FILE} et {@value #WAL_FILE}.
+ */
+public class DurableRDFHexaStore extends RDFHexaStore implements Closeable {
+
+    public static final String CHECKPOINT_FILE = "checkpoint.bin";
+    public static final String WAL_FILE = "wal.bin";
+
+    public static final int DEFAULT_GROUP_SIZE = 4096;
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 50;
+
+    // "RDF2" : les littéraux encodés par InlineTerms ne figurent plus dans le dictionnaire
+    private static final int CHECKPOINT_MAGIC = 0x52444632;
+    private static final byte LITERAL = 'L';
+    private static final byte VARIABLE = 'V';
+
+    private final Path directory;
+    private final WriteAheadLog wal;
+
+    // Vrai pendant le chargement, pour ne pas journaliser ce qui est relu
+    private boolean recovering;
+
+    /**
+     * Ouvre, ou crée, un store persistant avec les paramètres de journalisation par défaut.
+     *
+     * @param directory le répertoire du store
+     */
+    public DurableRDFHexaStore(Path directory) throws IOException {
+        this(directory, DEFAULT_GROUP_SIZE, DEFAULT_MAX_DELAY_MILLIS);
+    }
+
+    /**
+     * Ouvre, ou crée, un store persistant.
+     *
+     * @param directory      le répertoire du store
+     * @param groupSize      le nombre d'enregistrements du journal entre deux synchronisations
+     * @param maxDelayMillis le délai maximal entre une modification et la synchronisation du journal
+     */
+    public DurableRDFHexaStore(Path directory, int groupSize, long maxDelayMillis) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.recovering = true;
+        try {
+            loadCheckpoint(directory.resolve(CHECKPOINT_FILE));
+            WriteAheadLog.replay(directory.resolve(WAL_FILE), new WriteAheadLog.Visitor() {
+                @Override
+                public void term(int id, Term term) {
+                    restoreTerm(id, term);
+                }
+
+                @Override
+                public void add(int s, int p, int o) {
+                    addIndex(s, p, o);
+                }
+
+                @Override
+                public void remove(int s, int p, int o) {
+                    removeIndex(s, p, o);
+                }
+            });
+        } finally {
+            this.recovering = false;
+        }
+        this.wal = new WriteAheadLog(directory.resolve(WAL_FILE), groupSize, maxDelayMillis);
+    }
+
+    /**
+     * Un nouveau terme est journalisé, avec l'indexe qu'il va recevoir, avant d'entrer dans le
+     * dictionnaire : si l'écriture échoue, le store est inchangé.
+     */
+    @Override
+    int index(Term term) {
+        if (!recovering && lookup(term) == 0) {
+            try {
+                wal.appendTerm(dictionarySize() + 1, term);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Impossible de journaliser le terme " + term, e);
+            }
+        }
+        return super.index(term);
+    }
+
+    @Override
+    public boolean addIndex(int s, int p, int o) {
+        if (recovering) {
+            return super.addIndex(s, p, o);
+        }
+        if (leaf(spo, s, p).contains(o)) {
+            return false;
+        }
+        try {
+            wal.appendAdd(s, p, o);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible de journaliser l'ajout d'un triplet", e);
+        }
+        return super.addIndex(s, p, o);
+    }
+
+    @Override
+    public boolean removeIndex(int s, int p, int o) {
+        if (recovering) {
+            return super.removeIndex(s, p, o);
+        }
+        if (!leaf(spo, s, p).contains(o)) {
+            return false;
+        }
+        try {
+            wal.appendRemove(s, p, o);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible de journaliser le retrait d'un triplet", e);
+        }
+        return super.removeIndex(s, p, o);
+    }
+
+    /**
+     * Force la synchronisation sur disque des modifications journalisées.
+     */
+    public void sync() throws IOException {
+        wal.sync();
+    }
+
+    /**
+     * Écrit une image complète du store, de façon atomique, puis vide le journal.
+     */
+    public void checkpoint() throws IOException {
+        wal.sync();
+        Path target = directory.resolve(CHECKPOINT_FILE);
+        Path temporary = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(CHECKPOINT_MAGIC);
+            int terms = dictionarySize();
+            out.writeInt(terms);
+            for (int id = 1; id <= terms; id++) {
+                Term term = term(id);
+                byte[] label = WriteAheadLog.encode(term);
+                out.writeByte(term.isVariable() ? VARIABLE : LITERAL);
+                out.writeInt(label.length);
+                out.write(label);
+            }
+            out.writeLong(size());
+            for (var subjectEntry : spo.entrySet()) {
+                for (var predicateEntry : subjectEntry.getValue().entrySet()) {
+                    for (int object : predicateEntry.getValue()) {
+                        out.writeInt(subjectEntry.getKey());
+                        out.writeInt(predicateEntry.getKey());
+                        out.writeInt(object);
+                    }
+                }
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        wal.truncate();
+    }
+
+    @Override
+    public void close() throws IOException {
+        wal.close();
+    }
+
+    private void loadCheckpoint(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        TermFactory termFactory = SameObjectTermFactory.instance();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != CHECKPOINT_MAGIC) {
+                throw new IOException("Le fichier " + file + " n'est pas un checkpoint de store.");
+            }
+            int terms = in.readInt();
+            for (int id = 1; id <= terms; id++) {
+                byte kind = in.readByte();
+                byte[] label = new byte[in.readInt()];
+                in.readFully(label);
+                String value = new String(label, StandardCharsets.UTF_8);
+                restoreTerm(id, kind == VARIABLE ? termFactory.createOrGetVariable(value) : termFactory.createOrGetLiteral(value));
+            }
+            long triples = in.readLong();
+            for (long i = 0; i < triples; i++) {
+                addIndex(in.readInt(), in.readInt(), in.readInt());
+            }
+        }
+    }
+
+    private void restoreTerm(int id, Term term) {
+        int index = index(term);
+        if (index != id) {
+            throw new IllegalStateException("Dictionnaire incohérent : " + term + " relu avec l'indexe " + index
+                    + " au lieu de " + id);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package qengine.storage;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Filtres de Bloom d'un {@link RDFHexaStore}, pour écarter sans lire les index la plupart des
+ * candidats qui ne vérifient pas un atome :
+ * <ul>
+ *     <li>un {@link BloomFilter} des sujets de chaque feuille (p, o) de {@code pos} d'au moins
+ *     {@value #MIN_LEAF_SIZE} sujets, reconstruit quand la feuille double de taille, et conservé
+ *     si elle rétrécit ;</li>
+ *     <li>une signature de 64 bits des couples (prédicat, objet) de chaque sujet.</li>
+ * </ul>
+ * Les retraits ne sont pas répercutés : un filtre peut garder des clés retirées, ce qui ne fait
+ * que réduire sa sélectivité. Cette classe n'est pas thread-safe.
+ */
+final class ExistenceFilters {
+
+    static final int MIN_LEAF_SIZE = 1024;
+
+    private final Map<Long, BloomFilter> leaves = new HashMap<>();
+    private final Map<Integer, Long> signatures = new HashMap<>();
+
+    /**
+     * Prend en compte l'ajout du triplet (s, p, o).
+     *
+     * @param subjects la feuille (p, o) de {@code pos}, ajout compris, ou {@code null} si {@code pos}
+     *                 n'est pas maintenue
+     */
+    void added(int s, int p, int o, Set<Integer> subjects) {
+        long pair = SubjectAdjacency.pack(p, o);
+        signatures.merge(s, BloomFilter.signature(pair), (a, b) -> a | b);
+        BloomFilter filter = leaves.get(pair);
+        if (filter != null && (subjects == null || subjects.size() <= filter.capacity())) {
+            // Un filtre existant reçoit tous les ajouts, même si la feuille a rétréci depuis sa construction
+            filter.add(s);
+        } else if (subjects != null && subjects.size() >= MIN_LEAF_SIZE) {
+            filter = new BloomFilter(2 * subjects.size());
+            for (int subject : subjects) {
+                filter.add(subject);
+            }
+            leaves.put(pair, filter);
+        }
+    }
+
+    /**
+     * @return le filtre des sujets de la feuille (p, o), ou {@code null} si elle n'en a pas
+     */
+    BloomFilter leaf(int p, int o) {
+        return leaves.get(SubjectAdjacency.pack(p, o));
+    }
+
+    /**
+     * @return la signature des couples (prédicat, objet) requis
+     */
+    static long signature(long[] pairs) {
+        long signature = 0;
+        for (long pair : pairs) {
+            signature |= BloomFilter.signature(pair);
+        }
+        return signature;
+    }
+
+    /**
+     * @return faux si le sujet n'a certainement pas tous les couples de la signature
+     */
+    boolean mightHaveAll(int s, long signature) {
+        Long own = signatures.get(s);
+        return own != null && (own & signature) == signature;
+    }
+}
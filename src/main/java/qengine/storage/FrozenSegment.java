@@ -0,0 +1,290 @@
+package qengine.storage;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Segment immuable d'indexes de triplets, stocké en tableaux triés : pour chacune des six
+ * permutations, trois colonnes {@code int[]} triées dans l'ordre lexicographique de la permutation.
+ * Un triplet y coûte 72 octets, contre plusieurs centaines dans les {@code HashMap} de
+ * {@link RDFHexaStore}. Les recherches par préfixe se font par recherche dichotomique.
+ */
+final class FrozenSegment {
+
+    private static final int[] EMPTY = new int[0];
+    private static final int RADIX = 1 << 16;
+
+    private final int size;
+    // columns[permutation][colonne] : la colonne k contient la position IndexPermutation.{first,second,third}
+    private final int[][][] columns;
+
+    private FrozenSegment(int[][] triples, int size) {
+        this.size = size;
+        this.columns = new int[IndexPermutation.values().length][][];
+        for (IndexPermutation permutation : IndexPermutation.values()) {
+            int[] order = sortedOrder(triples[permutation.first], triples[permutation.second],
+                    triples[permutation.third], size);
+            columns[permutation.ordinal()] = new int[][]{
+                    gather(triples[permutation.first], order),
+                    gather(triples[permutation.second], order),
+                    gather(triples[permutation.third], order)
+            };
+        }
+    }
+
+    /**
+     * Construit un segment contenant les triplets de {@code delta} et des segments {@code segments},
+     * hormis ceux de {@code removed}. Les sources doivent être immuables et disjointes ; aucune n'est
+     * modifiée.
+     *
+     * @param delta    un store figé, ou {@code null}
+     * @param segments des segments à fusionner
+     * @param removed  des triplets des segments à écarter, ou {@code null}
+     * @return le nouveau segment
+     */
+    static FrozenSegment build(RDFHexaStore delta, List<FrozenSegment> segments, Tombstones removed) {
+        long total = delta == null ? 0 : delta.size();
+        for (FrozenSegment segment : segments) {
+            total += segment.size;
+        }
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Un segment est limité à " + Integer.MAX_VALUE + " triplets.");
+        }
+        int[][] triples = new int[3][(int) total];
+        int n = 0;
+        if (delta != null) {
+            for (var subjectEntry : delta.spo.entrySet()) {
+                for (var predicateEntry : subjectEntry.getValue().entrySet()) {
+                    for (int object : predicateEntry.getValue()) {
+                        triples[0][n] = subjectEntry.getKey();
+                        triples[1][n] = predicateEntry.getKey();
+                        triples[2][n] = object;
+                        n++;
+                    }
+                }
+            }
+        }
+        for (FrozenSegment segment : segments) {
+            int[][] spo = segment.columns[IndexPermutation.SPO.ordinal()];
+            if (removed == null || removed.isEmpty()) {
+                for (int k = 0; k < 3; k++) {
+                    System.arraycopy(spo[k], 0, triples[k], n, segment.size);
+                }
+                n += segment.size;
+                continue;
+            }
+            for (int i = 0; i < segment.size; i++) {
+                if (!removed.contains(spo[0][i], spo[1][i], spo[2][i])) {
+                    for (int k = 0; k < 3; k++) {
+                        triples[k][n] = spo[k][i];
+                    }
+                    n++;
+                }
+            }
+        }
+        return new FrozenSegment(triples, n);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int s, int p, int o) {
+        return values(IndexPermutation.SPO, s, p).contains(o);
+    }
+
+    /**
+     * @return les valeurs de la troisième position de {@code permutation} pour le préfixe (a, b)
+     */
+    Set<Integer> values(IndexPermutation permutation, int a, int b) {
+        int[][] column = columns[permutation.ordinal()];
+        int from = lowerBound(column[0], 0, size, a);
+        int to = upperBound(column[0], from, size, a);
+        int bFrom = lowerBound(column[1], from, to, b);
+        int bTo = upperBound(column[1], bFrom, to, b);
+        return new SortedIntSet(column[2], bFrom, bTo);
+    }
+
+    /**
+     * Parcourt les triplets dont les positions liées valent les indexes donnés.
+     *
+     * @param triple les indexes (sujet, prédicat, objet), 0 pour une position libre
+     * @param action appelée avec chaque triplet (sujet, prédicat, objet) ; le tableau est réutilisé
+     */
+    void scan(int[] triple, Consumer<int[]> action) {
+        boolean s = triple[0] != 0, p = triple[1] != 0, o = triple[2] != 0;
+        IndexPermutation permutation;
+        if (s && p || !s && !p && !o) {
+            permutation = IndexPermutation.SPO;
+        } else if (s) {
+            permutation = o ? IndexPermutation.SOP : IndexPermutation.SPO;
+        } else if (p) {
+            permutation = o ? IndexPermutation.POS : IndexPermutation.PSO;
+        } else {
+            permutation = IndexPermutation.OSP;
+        }
+        int[][] column = columns[permutation.ordinal()];
+        int from = 0;
+        int to = size;
+        int[] positions = {permutation.first, permutation.second, permutation.third};
+        for (int k = 0; k < 3 && triple[positions[k]] != 0; k++) {
+            int value = triple[positions[k]];
+            from = lowerBound(column[k], from, to, value);
+            to = upperBound(column[k], from, to, value);
+        }
+        int[] current = new int[3];
+        for (int i = from; i < to; i++) {
+            for (int k = 0; k < 3; k++) {
+                current[positions[k]] = column[k][i];
+            }
+            action.accept(current);
+        }
+    }
+
+    /**
+     * Ordre stable des lignes triées selon (a, b, c), par tri par dénombrement sur chaque moitié de
+     * 16 bits de chaque colonne en partant de la moins significative. Les indexes pouvant encoder
+     * un littéral ({@link InlineTerms}), leur maximum ne borne pas la taille des compteurs.
+     */
+    private static int[] sortedOrder(int[] a, int[] b, int[] c, int size) {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        int[] counts = new int[RADIX + 1];
+        for (int[] keys : new int[][]{c, b, a}) {
+            order = countingSort(order, keys, size, 0, counts);
+            order = countingSort(order, keys, size, 16, counts);
+        }
+        return order;
+    }
+
+    private static int[] countingSort(int[] order, int[] keys, int size, int shift, int[] counts) {
+        Arrays.fill(counts, 0);
+        for (int i = 0; i < size; i++) {
+            counts[(keys[i] >>> shift & RADIX - 1) + 1]++;
+        }
+        for (int i = 1; i < counts.length; i++) {
+            counts[i] += counts[i - 1];
+        }
+        int[] sorted = new int[size];
+        for (int i = 0; i < size; i++) {
+            sorted[counts[keys[order[i]] >>> shift & RADIX - 1]++] = order[i];
+        }
+        return sorted;
+    }
+
+    private static int[] gather(int[] column, int[] order) {
+        if (order.length == 0) {
+            return EMPTY;
+        }
+        int[] gathered = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            gathered[i] = column[order[i]];
+        }
+        return gathered;
+    }
+
+    static int lowerBound(int[] array, int from, int to, int value) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (array[mid] < value) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    static int upperBound(int[] array, int from, int to, int value) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (array[mid] <= value) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * Vue en lecture seule d'une tranche triée et sans doublon d'un tableau d'indexes.
+     */
+    static final class SortedIntSet extends AbstractSet<Integer> {
+        private final int[] array;
+        private final int from;
+        private final int to;
+
+        SortedIntSet(int[] array, int from, int to) {
+            this.array = array;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Integer value)) {
+                return false;
+            }
+            int i = lowerBound(array, from, to, value);
+            return i < to && array[i] == value;
+        }
+
+        /**
+         * Ne garde, en tête de {@code candidates}, que les valeurs présentes dans cet ensemble.
+         * Les candidats doivent être triés : les deux suites sont parcourues dans l'ordre.
+         *
+         * @return le nombre de candidats gardés
+         */
+        int retain(int[] candidates, int count) {
+            int kept = 0;
+            int position = from;
+            for (int i = 0; i < count && position < to; i++) {
+                position = lowerBound(array, position, to, candidates[i]);
+                if (position < to && array[position] == candidates[i]) {
+                    candidates[kept++] = candidates[i];
+                }
+            }
+            return kept;
+        }
+
+        /**
+         * @return les valeurs de l'ensemble, dans l'ordre
+         */
+        int[] toIntArray() {
+            return Arrays.copyOfRange(array, from, to);
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            return new Iterator<>() {
+                private int next = from;
+
+                @Override
+                public boolean hasNext() {
+                    return next < to;
+                }
+
+                @Override
+                public Integer next() {
+                    if (next >= to) {
+                        throw new NoSuchElementException();
+                    }
+                    return array[next++];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import fr.boreal.model.logicalElements.impl.SubstitutionImpl;
+import qengine.model.StarQuery;
+
+import java.util.*;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Comptes d'une requête agrégée, par groupe d'indexes des variables de groupement.
+ * <p>
+ * Les comptes s'accumulent sur les indexes, sans substitution ; seules les réponses finales,
+ * une par groupe, sont décodées. Cette classe n'est pas thread-safe.
+ */
+final class GroupCounts {
+
+    private final Map<Key, long[]> counts = new LinkedHashMap<>();
+
+    /**
+     * Ajoute {@code n} réponses au groupe, dont les indexes suivent l'ordre de {@link StarQuery#getGroupBy()}.
+     * Le tableau peut être réutilisé par l'appelant.
+     */
+    void add(int[] group, long n) {
+        if (n > 0) {
+            counts.computeIfAbsent(new Key(group.clone()), key -> new long[1])[0] += n;
+        }
+    }
+
+    /**
+     * @return le nombre de groupes
+     */
+    int size() {
+        return counts.size();
+    }
+
+    /**
+     * Décode une réponse par groupe : les variables de groupement et la variable du compte.
+     * Sans variable de groupement, il y a toujours une réponse, de compte éventuellement nul.
+     *
+     * @param decoder le terme d'un indexe du store
+     */
+    List<Substitution> answers(StarQuery q, IntFunction<Term> decoder) {
+        Variable countVariable = q.getCountVariable().orElseThrow();
+        List<Variable> groupBy = q.getGroupBy();
+        if (groupBy.isEmpty() && counts.isEmpty()) {
+            counts.put(new Key(new int[0]), new long[1]);
+        }
+        List<Substitution> answers = new ArrayList<>(counts.size());
+        counts.forEach((key, n) -> {
+            Map<Variable, Term> binding = new HashMap<>();
+            for (int i = 0; i < groupBy.size(); i++) {
+                binding.put(groupBy.get(i), decoder.apply(key.ids[i]));
+            }
+            binding.put(countVariable, SameObjectTermFactory.instance().createOrGetLiteral(Long.toString(n[0])));
+            answers.add(new SubstitutionImpl(binding));
+        });
+        return answers;
+    }
+
+    /**
+     * Compte des réponses déjà décodées, groupées par les indexes des images de leurs variables de groupement.
+     *
+     * @param lookup  l'indexe d'un terme du store
+     * @param decoder le terme d'un indexe du store
+     */
+    static List<Substitution> count(StarQuery q, List<Substitution> answers, ToIntFunction<Term> lookup,
+                                    IntFunction<Term> decoder) {
+        List<Variable> groupBy = q.getGroupBy();
+        GroupCounts counts = new GroupCounts();
+        int[] group = new int[groupBy.size()];
+        for (Substitution answer : answers) {
+            for (int i = 0; i < group.length; i++) {
+                group[i] = lookup.applyAsInt(answer.createImageOf(groupBy.get(i)));
+            }
+            counts.add(group, 1);
+        }
+        return counts.answers(q, decoder);
+    }
+
+    private record Key(int[] ids) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Arrays.equals(ids, key.ids);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(ids);
+        }
+    }
+}
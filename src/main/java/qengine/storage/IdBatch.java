@@ -0,0 +1,65 @@
+package qengine.storage;
+
+/**
+ * Lot de lignes d'indexes échangé par les {@link BatchOperator}. Les lignes sont rangées par
+ * colonne dans des vecteurs de taille fixe, réutilisés d'un lot à l'autre ; le vecteur de sélection
+ * donne les positions des lignes retenues, si bien qu'un filtre écarte des lignes sans les déplacer.
+ * Cette classe n'est pas thread-safe.
+ */
+final class IdBatch {
+
+    // Nombre maximal de lignes d'un lot
+    static final int CAPACITY = 1024;
+
+    // columns[c][r] : la colonne c de la ligne r
+    final int[][] columns;
+    // Positions des lignes retenues, dans l'ordre croissant
+    final int[] selection = new int[CAPACITY];
+    // Nombre de lignes retenues
+    int selected;
+
+    /**
+     * @param width le nombre de colonnes de chaque ligne
+     */
+    IdBatch(int width) {
+        this.columns = new int[width][CAPACITY];
+    }
+
+    int width() {
+        return columns.length;
+    }
+
+    /**
+     * Vide le lot.
+     */
+    void clear() {
+        selected = 0;
+    }
+
+    /**
+     * @return vrai si aucune ligne ne peut plus être ajoutée
+     */
+    boolean isFull() {
+        return selected == CAPACITY;
+    }
+
+    /**
+     * Ajoute une ligne, retenue, à la fin d'un lot dont toutes les lignes sont retenues.
+     *
+     * @return la position de la ligne, dont l'appelant remplit les colonnes
+     */
+    int append() {
+        selection[selected] = selected;
+        return selected++;
+    }
+
+    /**
+     * Copie les colonnes de la ligne retenue {@code k} dans {@code row}.
+     */
+    void copyRow(int k, int[] row) {
+        int position = selection[k];
+        for (int c = 0; c < columns.length; c++) {
+            row[c] = columns[c][position];
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package qengine.storage;
+
+import java.util.Arrays;
+
+/**
+ * Ensemble de n-uplets d'indexes de même largeur. Les n-uplets sont copiés bout à bout dans un
+ * tableau d'entiers et retrouvés par adressage ouvert : aucun objet n'est alloué par n-uplet.
+ * Cette classe n'est pas thread-safe.
+ */
+final class IdTupleSet {
+
+    private static final int EMPTY = -1;
+
+    private final int width;
+    // Les n-uplets, bout à bout
+    private int[] tuples;
+    // Le rang du n-uplet de chaque case, ou EMPTY
+    private int[] slots;
+    private int size;
+
+    /**
+     * @param width le nombre d'indexes de chaque n-uplet
+     */
+    IdTupleSet(int width) {
+        this.width = width;
+        this.tuples = new int[Math.max(width, 1) * 16];
+        this.slots = new int[32];
+        Arrays.fill(slots, EMPTY);
+    }
+
+    /**
+     * Ajoute le n-uplet formé des colonnes {@code columns} de la ligne.
+     *
+     * @return vrai si le n-uplet n'était pas dans l'ensemble
+     */
+    boolean add(int[] row, int[] columns) {
+        int mask = slots.length - 1;
+        for (int slot = hash(row, columns) & mask; ; slot = (slot + 1) & mask) {
+            int rank = slots[slot];
+            if (rank == EMPTY) {
+                insert(slot, row, columns);
+                return true;
+            }
+            if (equals(rank, row, columns)) {
+                return false;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void insert(int slot, int[] row, int[] columns) {
+        if ((size + 1) * width > tuples.length) {
+            tuples = Arrays.copyOf(tuples, 2 * tuples.length);
+        }
+        for (int c = 0; c < width; c++) {
+            tuples[size * width + c] = row[columns[c]];
+        }
+        slots[slot] = size++;
+        if (2 * size > slots.length) {
+            rehash();
+        }
+    }
+
+    private void rehash() {
+        int[] previous = slots;
+        slots = new int[2 * previous.length];
+        Arrays.fill(slots, EMPTY);
+        int mask = slots.length - 1;
+        int[] identity = new int[width];
+        Arrays.setAll(identity, c -> c);
+        int[] tuple = new int[width];
+        for (int rank : previous) {
+            if (rank != EMPTY) {
+                System.arraycopy(tuples, rank * width, tuple, 0, width);
+                int slot = hash(tuple, identity) & mask;
+                while (slots[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = rank;
+            }
+        }
+    }
+
+    private boolean equals(int rank, int[] row, int[] columns) {
+        int offset = rank * width;
+        for (int c = 0; c < width; c++) {
+            if (tuples[offset + c] != row[columns[c]]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int hash(int[] row, int[] columns) {
+        int hash = 0x9e3779b9;
+        for (int c = 0; c < width; c++) {
+            hash = (hash ^ row[columns[c]]) * 0x85ebca6b;
+            hash ^= hash >>> 13;
+        }
+        return hash ^ hash >>> 16;
+    }
+}
@@ -0,0 +1,109 @@
+package qengine.storage;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Relève les motifs d'accès aux index d'un store (quelles positions d'un triplet sont liées)
+ * et recommande le plus petit ensemble de permutations qui les sert tous.
+ * {@link IndexPermutation#SPO} fait toujours partie de la recommandation : le store s'en sert
+ * pour détecter les doublons et énumérer ses triplets.
+ */
+public class IndexAdvisor {
+
+    private final LongAdder[] accesses = new LongAdder[8];
+
+    public IndexAdvisor() {
+        for (int i = 0; i < accesses.length; i++) {
+            accesses[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param boundMask le masque des positions liées, voir {@link IndexPermutation#mask}
+     */
+    public void record(int boundMask) {
+        accesses[boundMask].increment();
+    }
+
+    /**
+     * @param boundMask le masque des positions liées
+     * @return le nombre d'accès relevés pour ce motif
+     */
+    public long accesses(int boundMask) {
+        return accesses[boundMask].sum();
+    }
+
+    public void reset() {
+        for (LongAdder counter : accesses) {
+            counter.reset();
+        }
+    }
+
+    /**
+     * Recommande les permutations à maintenir. Les motifs d'accès qui représentent moins de
+     * {@code minShare} des accès sont ignorés : le store les résoudra par un parcours.
+     *
+     * @param minShare la part minimale des accès, entre 0 et 1
+     * @return les permutations recommandées
+     */
+    public Set<IndexPermutation> recommend(double minShare) {
+        long total = 0;
+        long[] counts = new long[accesses.length];
+        for (int mask = 0; mask < counts.length; mask++) {
+            counts[mask] = accesses(mask);
+            total += counts[mask];
+        }
+
+        // Couverture gloutonne des motifs fréquents, pondérée par leur nombre d'accès
+        EnumSet<IndexPermutation> chosen = EnumSet.of(IndexPermutation.SPO);
+        while (true) {
+            IndexPermutation best = null;
+            long bestGain = 0;
+            for (IndexPermutation candidate : IndexPermutation.values()) {
+                long gain = 0;
+                for (int mask = 0; mask < counts.length; mask++) {
+                    if (counts[mask] > 0 && counts[mask] >= minShare * total
+                            && !isServed(chosen, mask) && candidate.serves(mask)) {
+                        gain += counts[mask];
+                    }
+                }
+                if (gain > bestGain) {
+                    best = candidate;
+                    bestGain = gain;
+                }
+            }
+            if (best == null) {
+                return chosen;
+            }
+            chosen.add(best);
+        }
+    }
+
+    /**
+     * @return un rapport lisible : nombre d'accès par motif et recommandation
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        for (int mask = 0; mask < accesses.length; mask++) {
+            long count = accesses(mask);
+            if (count > 0) {
+                sb.append((mask & 1) != 0 ? 's' : '?')
+                        .append((mask & 2) != 0 ? 'p' : '?')
+                        .append((mask & 4) != 0 ? 'o' : '?')
+                        .append(": ").append(count).append('\n');
+            }
+        }
+        return sb.append("recommended: ").append(recommend(0)).toString();
+    }
+
+    private static boolean isServed(Set<IndexPermutation> permutations, int mask) {
+        for (IndexPermutation permutation : permutations) {
+            if (permutation.serves(mask)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
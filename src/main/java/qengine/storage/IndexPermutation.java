@@ -0,0 +1,48 @@
+package qengine.storage;
+
+/**
+ * Permutations des positions d'un triplet (0 = sujet, 1 = prédicat, 2 = objet) selon lesquelles
+ * un store peut indexer ses triplets. Une permutation sert les accès dont les positions liées
+ * forment un préfixe de son ordre.
+ */
+public enum IndexPermutation {
+    SPO(0, 1, 2),
+    PSO(1, 0, 2),
+    OSP(2, 0, 1),
+    SOP(0, 2, 1),
+    POS(1, 2, 0),
+    OPS(2, 1, 0);
+
+    final int first;
+    final int second;
+    final int third;
+
+    IndexPermutation(int first, int second, int third) {
+        this.first = first;
+        this.second = second;
+        this.third = third;
+    }
+
+    /**
+     * @param s vrai si le sujet est lié
+     * @param p vrai si le prédicat est lié
+     * @param o vrai si l'objet est lié
+     * @return le masque des positions liées, bit 0 pour le sujet
+     */
+    public static int mask(boolean s, boolean p, boolean o) {
+        return (s ? 1 : 0) | (p ? 2 : 0) | (o ? 4 : 0);
+    }
+
+    /**
+     * @param boundMask le masque des positions liées d'un accès
+     * @return vrai si les positions liées forment un préfixe de la permutation
+     */
+    public boolean serves(int boundMask) {
+        int prefix = 0;
+        int[] order = {first, second, third};
+        for (int k = 0; k < Integer.bitCount(boundMask); k++) {
+            prefix |= 1 << order[k];
+        }
+        return prefix == boundMask;
+    }
+}
@@ -0,0 +1,167 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Encodage direct dans l'indexe des littéraux entiers, dates et booléens, qui n'ont alors ni
+ * entrée dans le dictionnaire ni recherche à faire.
+ * <p>
+ * Un indexe reste un {@code int} positif. Le bit 30 distingue les indexes encodés de ceux du
+ * dictionnaire (de 1 à 2<sup>30</sup> - 1) ; les bits 28 et 29 donnent le type et les 28 bits
+ * restants la valeur :
+ * <ul>
+ *     <li>{@link Kind#INTEGER} : un entier de 0 à 2<sup>28</sup> - 1 écrit sans zéro initial ;</li>
+ *     <li>{@link Kind#DATE} : une date {@code aaaa-mm-jj}, en jours depuis l'époque, décalés ;</li>
+ *     <li>{@link Kind#BOOLEAN} : {@code true} ou {@code false}.</li>
+ * </ul>
+ * À type égal, l'ordre des indexes est celui des valeurs. Seuls les littéraux dont la valeur est
+ * une chaîne sous forme canonique sont encodés, pour que le terme décodé soit égal à l'original.
+ */
+public final class InlineTerms {
+
+    /**
+     * Type d'un littéral encodé dans son indexe.
+     */
+    public enum Kind {
+        INTEGER, DATE, BOOLEAN
+    }
+
+    static final int INLINE_BIT = 1 << 30;
+    private static final int KIND_SHIFT = 28;
+    private static final int PAYLOAD_MASK = (1 << KIND_SHIFT) - 1;
+    private static final int MAX_INTEGER_DIGITS = 9;
+    // Décalage des jours depuis l'époque, pour que les dates de l'an 1 à 9999 soient positives
+    private static final int DAY_OFFSET = 1 << 22;
+
+    private InlineTerms() {
+    }
+
+    /**
+     * @return vrai si l'indexe encode directement un littéral
+     */
+    public static boolean isInline(int id) {
+        return (id & INLINE_BIT) != 0;
+    }
+
+    /**
+     * @return le type du littéral encodé dans l'indexe, qui doit être encodé
+     */
+    public static Kind kind(int id) {
+        return Kind.values()[(id >>> KIND_SHIFT) & 3];
+    }
+
+    /**
+     * @return la valeur encodée : l'entier, le jour depuis l'époque ou 0 et 1 pour un booléen
+     */
+    public static long value(int id) {
+        int payload = id & PAYLOAD_MASK;
+        return kind(id) == Kind.DATE ? (long) payload - DAY_OFFSET : payload;
+    }
+
+    /**
+     * @return l'indexe encodant le terme, ou 0 s'il ne peut pas être encodé
+     */
+    public static int encode(Term term) {
+        if (!(term instanceof Literal<?> literal) || !(literal.value() instanceof String value) || value.isEmpty()) {
+            return 0;
+        }
+        char first = value.charAt(0);
+        if (first >= '0' && first <= '9') {
+            int integer = parseInteger(value);
+            if (integer >= 0) {
+                return inline(Kind.INTEGER, integer);
+            }
+            long day = parseDate(value);
+            if (day != Long.MIN_VALUE) {
+                return inline(Kind.DATE, (int) (day + DAY_OFFSET));
+            }
+            return 0;
+        }
+        return switch (value) {
+            case "false" -> inline(Kind.BOOLEAN, 0);
+            case "true" -> inline(Kind.BOOLEAN, 1);
+            default -> 0;
+        };
+    }
+
+    /**
+     * @return le terme encodé dans l'indexe, qui doit être encodé
+     */
+    public static Term decode(int id) {
+        long value = value(id);
+        String label = switch (kind(id)) {
+            case INTEGER -> Long.toString(value);
+            case DATE -> LocalDate.ofEpochDay(value).toString();
+            case BOOLEAN -> value == 0 ? "false" : "true";
+        };
+        return SameObjectTermFactory.instance().createOrGetLiteral(label);
+    }
+
+    /**
+     * @return l'indexe encodant une valeur du type donné, ou 0 si elle n'est pas encodable
+     */
+    public static int encode(Kind kind, long value) {
+        long payload = kind == Kind.DATE ? value + DAY_OFFSET : value;
+        if (payload < 0 || payload > PAYLOAD_MASK || kind == Kind.BOOLEAN && value > 1) {
+            return 0;
+        }
+        return inline(kind, (int) payload);
+    }
+
+    /**
+     * @return le plus petit indexe possible d'un littéral du type donné
+     */
+    public static int first(Kind kind) {
+        return inline(kind, 0);
+    }
+
+    /**
+     * @return le plus grand indexe possible d'un littéral du type donné
+     */
+    public static int last(Kind kind) {
+        return inline(kind, PAYLOAD_MASK);
+    }
+
+    private static int inline(Kind kind, int payload) {
+        return INLINE_BIT | kind.ordinal() << KIND_SHIFT | payload;
+    }
+
+    /**
+     * @return l'entier écrit sous forme canonique, s'il tient dans 28 bits, ou -1
+     */
+    private static int parseInteger(String value) {
+        int length = value.length();
+        if (length > MAX_INTEGER_DIGITS || length > 1 && value.charAt(0) == '0') {
+            return -1;
+        }
+        int result = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result <= PAYLOAD_MASK ? result : -1;
+    }
+
+    /**
+     * @return le jour depuis l'époque d'une date {@code aaaa-mm-jj} canonique, ou {@code Long.MIN_VALUE}
+     */
+    private static long parseDate(String value) {
+        if (value.length() != 10 || value.charAt(4) != '-' || value.charAt(7) != '-') {
+            return Long.MIN_VALUE;
+        }
+        try {
+            LocalDate date = LocalDate.parse(value);
+            return date.getYear() >= 1 && date.toString().equals(value) ? date.toEpochDay() : Long.MIN_VALUE;
+        } catch (DateTimeParseException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+}
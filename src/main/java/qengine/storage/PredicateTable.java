@@ -0,0 +1,185 @@
+package qengine.storage;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Table (sujet, objet) des triplets d'un prédicat, stockée en deux paires de colonnes
+ * {@code int[]} triées : l'une selon (sujet, objet), l'autre selon (objet, sujet).
+ * <p>
+ * Les ajouts sont d'abord accumulés, puis fusionnés dans les colonnes triées à la lecture
+ * suivante. Un retrait d'une paire déjà fusionnée décale les colonnes, en O(taille de la table).
+ * Cette classe n'est pas thread-safe.
+ */
+final class PredicateTable {
+
+    /**
+     * Reçoit les paires (sujet, objet) parcourues.
+     */
+    @FunctionalInterface
+    interface PairConsumer {
+        void accept(int subject, int object);
+    }
+
+    private static final int[] EMPTY = new int[0];
+
+    // Colonnes triées selon (sujet, objet), puis selon (objet, sujet)
+    private int[] soSubjects = EMPTY;
+    private int[] soObjects = EMPTY;
+    private int[] osObjects = EMPTY;
+    private int[] osSubjects = EMPTY;
+    private int merged;
+
+    // Paires ajoutées et pas encore fusionnées, codées (sujet << 32 | objet)
+    private final Set<Long> pending = new HashSet<>();
+
+    /**
+     * @return vrai si la paire a été ajoutée, faux si elle était déjà présente
+     */
+    boolean add(int s, int o) {
+        return !containsMerged(s, o) && pending.add(pack(s, o));
+    }
+
+    /**
+     * @return vrai si la paire a été retirée, faux si elle était absente
+     */
+    boolean remove(int s, int o) {
+        if (pending.remove(pack(s, o))) {
+            return true;
+        }
+        int i = find(soSubjects, soObjects, s, o);
+        if (i < 0) {
+            return false;
+        }
+        int j = find(osObjects, osSubjects, o, s);
+        removeAt(soSubjects, i);
+        removeAt(soObjects, i);
+        removeAt(osObjects, j);
+        removeAt(osSubjects, j);
+        merged--;
+        return true;
+    }
+
+    int size() {
+        return merged + pending.size();
+    }
+
+    boolean contains(int s, int o) {
+        return containsMerged(s, o) || pending.contains(pack(s, o));
+    }
+
+    /**
+     * @return les objets du sujet {@code s}, triés
+     */
+    FrozenSegment.SortedIntSet objects(int s) {
+        seal();
+        int from = FrozenSegment.lowerBound(soSubjects, 0, merged, s);
+        return new FrozenSegment.SortedIntSet(soObjects, from, FrozenSegment.upperBound(soSubjects, from, merged, s));
+    }
+
+    /**
+     * @return les sujets de l'objet {@code o}, triés
+     */
+    FrozenSegment.SortedIntSet subjects(int o) {
+        seal();
+        int from = FrozenSegment.lowerBound(osObjects, 0, merged, o);
+        return new FrozenSegment.SortedIntSet(osSubjects, from, FrozenSegment.upperBound(osObjects, from, merged, o));
+    }
+
+    /**
+     * Parcourt, dans l'ordre des colonnes lues, les paires dont les positions liées valent celles données.
+     *
+     * @param s le sujet, ou 0 s'il est libre
+     * @param o l'objet, ou 0 s'il est libre
+     */
+    void scan(int s, int o, PairConsumer action) {
+        seal();
+        if (s != 0 && o != 0) {
+            if (containsMerged(s, o)) {
+                action.accept(s, o);
+            }
+        } else if (s != 0) {
+            for (int object : objects(s)) {
+                action.accept(s, object);
+            }
+        } else if (o != 0) {
+            for (int subject : subjects(o)) {
+                action.accept(subject, o);
+            }
+        } else {
+            for (int i = 0; i < merged; i++) {
+                action.accept(soSubjects[i], soObjects[i]);
+            }
+        }
+    }
+
+    /**
+     * Fusionne les ajouts en attente dans les colonnes triées.
+     */
+    private void seal() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        long[] so = new long[pending.size()];
+        long[] os = new long[so.length];
+        int n = 0;
+        for (long pair : pending) {
+            so[n] = pair;
+            os[n] = pack((int) pair, (int) (pair >>> 32));
+            n++;
+        }
+        pending.clear();
+        Arrays.sort(so);
+        Arrays.sort(os);
+        int[][] bySubject = merge(soSubjects, soObjects, merged, so);
+        int[][] byObject = merge(osObjects, osSubjects, merged, os);
+        soSubjects = bySubject[0];
+        soObjects = bySubject[1];
+        osObjects = byObject[0];
+        osSubjects = byObject[1];
+        merged += n;
+    }
+
+    /**
+     * Fusionne deux suites triées et disjointes : les colonnes (a, b) et les paires codées {@code pairs}.
+     */
+    private static int[][] merge(int[] a, int[] b, int count, long[] pairs) {
+        int[] mergedA = new int[count + pairs.length];
+        int[] mergedB = new int[mergedA.length];
+        int i = 0, j = 0, k = 0;
+        while (i < count || j < pairs.length) {
+            if (j == pairs.length || i < count && pack(a[i], b[i]) < pairs[j]) {
+                mergedA[k] = a[i];
+                mergedB[k++] = b[i++];
+            } else {
+                mergedA[k] = (int) (pairs[j] >>> 32);
+                mergedB[k++] = (int) pairs[j++];
+            }
+        }
+        return new int[][]{mergedA, mergedB};
+    }
+
+    private boolean containsMerged(int s, int o) {
+        return find(soSubjects, soObjects, s, o) >= 0;
+    }
+
+    /**
+     * @return la ligne de la paire (a, b) dans les colonnes triées, ou -1
+     */
+    private int find(int[] a, int[] b, int x, int y) {
+        int from = FrozenSegment.lowerBound(a, 0, merged, x);
+        int to = FrozenSegment.upperBound(a, from, merged, x);
+        int i = FrozenSegment.lowerBound(b, from, to, y);
+        return i < to && b[i] == y ? i : -1;
+    }
+
+    private void removeAt(int[] column, int i) {
+        System.arraycopy(column, i + 1, column, i, merged - i - 1);
+    }
+
+    // Les indexes sont positifs : l'ordre des paires codées est l'ordre lexicographique
+    private static long pack(int a, int b) {
+        return (long) a << 32 | b;
+    }
+}
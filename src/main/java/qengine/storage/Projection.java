@@ -0,0 +1,101 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.impl.SubstitutionImpl;
+import qengine.model.StarQuery;
+
+import java.util.*;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Projection des réponses d'une requête sur ses variables réponses.
+ * <p>
+ * Les réponses sont projetées sur leurs indexes : seules les variables réponses sont décodées et,
+ * pour un {@code SELECT DISTINCT}, les doublons sont écartés par un {@link IdTupleSet} des indexes
+ * projetés. La limite d'une requête {@code DISTINCT} s'applique après l'élimination des doublons :
+ * le tri doit alors être fait sur {@link #ordering(StarQuery)}, qui n'a pas de limite.
+ */
+final class Projection {
+
+    private Projection() {
+    }
+
+    /**
+     * @return la requête dont le tri et la limite s'appliquent avant la projection
+     */
+    static StarQuery ordering(StarQuery q) {
+        return defersLimit(q) ? q.withOrder(q.getOrderBy(), -1) : q;
+    }
+
+    /**
+     * La limite d'une requête {@code DISTINCT} non agrégée compte les réponses distinctes.
+     */
+    private static boolean defersLimit(StarQuery q) {
+        return q.isDistinct() && q.getLimit().isPresent() && q.getCountVariable().isEmpty();
+    }
+
+    /**
+     * Projette et décode des lignes d'indexes.
+     *
+     * @param columns la variable de chaque colonne des lignes
+     * @param decoder le terme d'un indexe du store
+     */
+    static List<Substitution> rows(StarQuery q, List<Variable> columns, List<int[]> rows, IntFunction<Term> decoder) {
+        List<Variable> answers = new ArrayList<>(q.getAnswerVariables());
+        int[] projected = answers.stream().mapToInt(columns::indexOf).toArray();
+        IdTupleSet seen = q.isDistinct() ? new IdTupleSet(projected.length) : null;
+        long limit = defersLimit(q) ? q.getLimit().getAsLong() : Long.MAX_VALUE;
+        List<Substitution> results = new ArrayList<>(Math.min(rows.size(), (int) Math.min(limit, Integer.MAX_VALUE)));
+        for (int[] row : rows) {
+            if (results.size() >= limit) {
+                break;
+            }
+            if (seen != null && !seen.add(row, projected)) {
+                continue;
+            }
+            Map<Variable, Term> binding = new HashMap<>();
+            for (int c = 0; c < projected.length; c++) {
+                binding.put(answers.get(c), decoder.apply(row[projected[c]]));
+            }
+            results.add(new SubstitutionImpl(binding));
+        }
+        return results;
+    }
+
+    /**
+     * Projette des réponses déjà décodées, dédoublonnées sur les indexes de leurs images.
+     *
+     * @param lookup l'indexe d'un terme du store
+     */
+    static List<Substitution> answers(StarQuery q, List<Substitution> answers, ToIntFunction<Term> lookup) {
+        List<Variable> variables = new ArrayList<>(q.getAnswerVariables());
+        int[] identity = new int[variables.size()];
+        Arrays.setAll(identity, c -> c);
+        IdTupleSet seen = q.isDistinct() ? new IdTupleSet(variables.size()) : null;
+        long limit = defersLimit(q) ? q.getLimit().getAsLong() : Long.MAX_VALUE;
+        int[] row = new int[variables.size()];
+        List<Substitution> results = new ArrayList<>(answers.size());
+        for (Substitution answer : answers) {
+            if (results.size() >= limit) {
+                break;
+            }
+            if (seen != null) {
+                for (int c = 0; c < row.length; c++) {
+                    row[c] = lookup.applyAsInt(answer.createImageOf(variables.get(c)));
+                }
+                if (!seen.add(row, identity)) {
+                    continue;
+                }
+            }
+            Map<Variable, Term> binding = new HashMap<>();
+            for (Variable variable : variables) {
+                binding.put(variable, answer.createImageOf(variable));
+            }
+            results.add(new SubstitutionImpl(binding));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,29 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Évaluation d'une requête découpée en morceaux indépendants, exécutés par {@link QueryScheduler}.
+ * Chaque morceau produit des lignes d'indexes ; les lignes de tous les morceaux, dans l'ordre des
+ * morceaux, donnent les réponses de la requête.
+ *
+ * @param count  le nombre de morceaux
+ * @param morsel les lignes du morceau d'un rang donné
+ * @param enough le nombre de lignes à partir duquel les morceaux restants sont inutiles
+ * @param finish les réponses, à partir des lignes de tous les morceaux
+ */
+record QueryMorsels(int count, IntFunction<List<int[]>> morsel, long enough,
+                    Function<List<int[]>, List<Substitution>> finish) {
+
+    /**
+     * @return une requête évaluée d'un bloc, lors de la finition de son unique morceau
+     */
+    static QueryMorsels whole(Supplier<List<Substitution>> evaluation) {
+        return new QueryMorsels(1, morsel -> List.of(), Long.MAX_VALUE, rows -> evaluation.get());
+    }
+}
@@ -0,0 +1,205 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import qengine.instrumentation.MetricsRegistry;
+import qengine.model.StarQuery;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Ordonnanceur de requêtes par morceaux sur un pool de threads partagé.
+ * <p>
+ * À sa soumission, une requête est découpée par le store en morceaux indépendants (voir
+ * {@link RDFHexaStore#morsels}) : une requête sélective forme un seul morceau, une requête lourde,
+ * comme {@code ?s ?p ?o} ou une étoile sur un {@code rdf:type} fréquent, en forme beaucoup. Les
+ * threads exécutent les morceaux un à un : une requête lourde occupe tous les threads libres, mais
+ * une requête légère soumise ensuite n'attend que la fin d'un morceau en cours.
+ * <p>
+ * Le prochain morceau est choisi par ordonnancement par pas : à chaque morceau exécuté, sa requête
+ * avance d'un pas inversement proportionnel au poids de sa {@link Priority}, et la requête la moins
+ * avancée est servie la première. Entre requêtes de même priorité, les morceaux sont donc répartis
+ * équitablement ; une requête {@link Priority#HIGH} en reçoit quatre fois plus qu'une requête
+ * {@link Priority#LOW}, qui n'est jamais affamée.
+ * <p>
+ * Une requête est découpée puis exécutée sur un {@link RDFHexaStore#snapshot() snapshot} du store
+ * pris à sa soumission : ses morceaux voient tous la même version, même si le store est modifié
+ * pendant leur exécution. Un store modifiable ne doit donc pas être modifié pendant un appel à
+ * {@link #submit}, que le thread qui l'écrit peut faire lui-même.
+ */
+public final class QueryScheduler implements AutoCloseable {
+
+    public static final int DEFAULT_MORSEL_SIZE = 1 << 12;
+
+    public enum Priority {
+        HIGH(4), NORMAL(2), LOW(1);
+
+        private final int weight;
+
+        Priority(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    // Pas d'une requête de poids 1
+    private static final long STRIDE = 1 << 20;
+
+    private final RDFHexaStore store;
+    private final int morselSize;
+
+    // Requêtes dont il reste des morceaux à lancer ; protégé, avec les champs suivants, par son verrou
+    private final PriorityQueue<Task> ready = new PriorityQueue<>(
+            Comparator.comparingLong((Task task) -> task.pass).thenComparingLong(task -> task.sequence));
+    // Avancement de la dernière requête servie : celui des requêtes nouvellement soumises
+    private long virtualTime;
+    private long sequence;
+    private boolean closed;
+
+    public QueryScheduler(RDFHexaStore store) {
+        this(store, Runtime.getRuntime().availableProcessors(), DEFAULT_MORSEL_SIZE);
+    }
+
+    /**
+     * @param store      le store interrogé
+     * @param workers    le nombre de threads du pool
+     * @param morselSize le nombre maximal de candidats, ou de sujets, d'un morceau
+     */
+    public QueryScheduler(RDFHexaStore store, int workers, int morselSize) {
+        if (workers < 1 || morselSize < 1) {
+            throw new IllegalArgumentException("Il faut au moins un thread et un candidat par morceau.");
+        }
+        this.store = store;
+        this.morselSize = morselSize;
+        for (int i = 0; i < workers; i++) {
+            Thread worker = new Thread(this::work, "qengine-query-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    public CompletableFuture<List<Substitution>> submit(StarQuery q) {
+        return submit(q, Priority.NORMAL);
+    }
+
+    /**
+     * Découpe la requête et planifie ses morceaux. Annuler le futur retourné abandonne les
+     * morceaux qui n'ont pas commencé.
+     *
+     * @return le futur des réponses de la requête
+     * @throws IllegalStateException si l'ordonnanceur est fermé
+     */
+    public CompletableFuture<List<Substitution>> submit(StarQuery q, Priority priority) {
+        Task task = new Task(q, store.snapshot().morsels(q, morselSize), priority);
+        synchronized (ready) {
+            if (closed) {
+                throw new IllegalStateException("L'ordonnanceur est fermé.");
+            }
+            task.pass = virtualTime;
+            task.sequence = sequence++;
+            ready.add(task);
+            ready.notify();
+        }
+        return task.future;
+    }
+
+    /**
+     * Refuse les nouvelles requêtes ; les threads s'arrêtent une fois les requêtes soumises terminées.
+     */
+    @Override
+    public void close() {
+        synchronized (ready) {
+            closed = true;
+            ready.notifyAll();
+        }
+    }
+
+    private void work() {
+        while (true) {
+            Task task;
+            int morsel;
+            synchronized (ready) {
+                while (ready.isEmpty() && !closed) {
+                    try {
+                        ready.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (ready.isEmpty()) {
+                    return;
+                }
+                task = ready.poll();
+                morsel = task.next++;
+                virtualTime = task.pass;
+                task.pass += STRIDE / task.priority.weight;
+                if (task.next < task.morsels.count()) {
+                    // Les morceaux suivants peuvent être pris par d'autres threads
+                    ready.add(task);
+                    ready.notify();
+                }
+            }
+            task.run(morsel);
+        }
+    }
+
+    private static final class Task {
+
+        private final StarQuery query;
+        private final QueryMorsels morsels;
+        private final Priority priority;
+        private final long start = System.nanoTime();
+        private final CompletableFuture<List<Substitution>> future = new CompletableFuture<>();
+        private final AtomicReferenceArray<List<int[]>> parts;
+        private final AtomicInteger remaining;
+        private final AtomicLong rows = new AtomicLong();
+
+        // Protégés par le verrou de ready
+        private int next;
+        private long pass;
+        private long sequence;
+
+        Task(StarQuery query, QueryMorsels morsels, Priority priority) {
+            this.query = query;
+            this.morsels = morsels;
+            this.priority = priority;
+            this.parts = new AtomicReferenceArray<>(morsels.count());
+            this.remaining = new AtomicInteger(morsels.count());
+        }
+
+        /**
+         * Exécute un morceau ; le dernier morceau terminé assemble les réponses.
+         */
+        void run(int morsel) {
+            try {
+                if (!future.isDone() && rows.get() < morsels.enough()) {
+                    List<int[]> part = morsels.morsel().apply(morsel);
+                    parts.set(morsel, part);
+                    rows.addAndGet(part.size());
+                }
+                if (remaining.decrementAndGet() == 0 && !future.isDone()) {
+                    List<int[]> all = new ArrayList<>((int) Math.min(rows.get(), Integer.MAX_VALUE));
+                    for (int m = 0; m < parts.length(); m++) {
+                        if (parts.get(m) != null) {
+                            all.addAll(parts.get(m));
+                        }
+                    }
+                    List<Substitution> results = morsels.finish().apply(all);
+                    if (morsels.count() > 1 && MetricsRegistry.isEnabled()) {
+                        // Une requête d'un seul morceau est mesurée par le store
+                        MetricsRegistry.recordQuery(query.getTemplate(), System.nanoTime() - start);
+                    }
+                    future.complete(results);
+                }
+            } catch (Throwable e) {
+                // Une erreur complète aussi le futur, pour que l'attente des réponses ne bloque pas
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -1,17 +1,31 @@
 package qengine.storage;
 
 import com.google.common.collect.Iterators;
-import com.google.common.collect.Streams;
 import fr.boreal.model.logicalElements.api.Atom;
 import fr.boreal.model.logicalElements.api.Substitution;
 import fr.boreal.model.logicalElements.api.Term;
-import org.apache.commons.collections4.BidiMap;
-import org.apache.commons.collections4.bidimap.DualHashBidiMap;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.impl.SubstitutionImpl;
+import qengine.instrumentation.MetricsRegistry;
+import qengine.instrumentation.Phase;
+import qengine.instrumentation.QueryInstrumentation;
+import qengine.instrumentation.QueryTrace;
+import qengine.instrumentation.StarQueryEvent;
+import qengine.instrumentation.StoreLoadEvent;
 import qengine.model.RDFAtom;
 import qengine.model.StarQuery;
+import qengine.model.ValueFilter;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static fr.lirmm.graphik.util.stream.Iterators.emptyIterator;
 
@@ -20,38 +34,515 @@ import static fr.lirmm.graphik.util.stream.Iterators.emptyIterator;
  * Cette classe utilise six index pour optimiser les recherches.
  * Les index sont basés sur les combinaisons (Sujet, Prédicat, Objet), (Sujet, Objet, Prédicat),
  * (Prédicat, Sujet, Objet), (Prédicat, Objet, Sujet), (Objet, Sujet, Prédicat) et (Objet, Prédicat, Sujet).
+ * <p>
+ * Seules les permutations choisies à la construction ou par {@link #setPermutations(Set)} sont
+ * maintenues ; les accès qu'aucune ne sert sont résolus par un parcours de {@code spo}, qui est
+ * toujours maintenue. {@link #getIndexAdvisor()} relève les accès pour choisir ces permutations.
+ * <p>
+ * En mode paresseux, seule {@code spo} est construite au chargement : les autres permutations
+ * demandées le sont, en parallèle, au premier accès qui en a besoin. Les lecteurs concurrents
+ * attendent la fin de cette construction.
  */
 public class RDFHexaStore implements RDFStorage {
 
-    final BidiMap<Integer, Term> dict = new DualHashBidiMap<>();
+    final TermDictionary dict;
 
-    final Map<Integer, Map<Integer, Set<Integer>>> spo = new HashMap<>();
-    final Map<Integer, Map<Integer, Set<Integer>>> pso = new HashMap<>();
-    final Map<Integer, Map<Integer, Set<Integer>>> osp = new HashMap<>();
-    final Map<Integer, Map<Integer, Set<Integer>>> sop = new HashMap<>();
-    final Map<Integer, Map<Integer, Set<Integer>>> pos = new HashMap<>();
-    final Map<Integer, Map<Integer, Set<Integer>>> ops = new HashMap<>();
+    // Nombre de termes du dictionnaire visibles : ceux présents à la création d'un snapshot
+    private final int dictionaryLimit;
+
+    Map<Integer, Map<Integer, Set<Integer>>> spo = new Level<>(0);
+    Map<Integer, Map<Integer, Set<Integer>>> pso = new Level<>(0);
+    Map<Integer, Map<Integer, Set<Integer>>> osp = new Level<>(0);
+    Map<Integer, Map<Integer, Set<Integer>>> sop = new Level<>(0);
+    Map<Integer, Map<Integer, Set<Integer>>> pos = new Level<>(0);
+    Map<Integer, Map<Integer, Set<Integer>>> ops = new Level<>(0);
+
+    // Nombre minimal de triplets par tranche lors de la construction parallèle d'une permutation
+    private static final int MIN_BUILD_CHUNK = 1 << 14;
+
+    // Nombre maximal de candidats de l'atome directeur pour les vérifier par la liste d'adjacence
+    static final int ADJACENCY_MAX_CANDIDATES = 256;
 
     private long size;
 
+    /**
+     * Génération des noeuds d'index modifiables en place. Les noeuds d'une génération antérieure
+     * sont partagés avec au moins un snapshot : ils sont copiés avant d'être modifiés.
+     */
+    private long generation;
+
+    private final boolean readOnly;
+
+    // Permutations maintenues, SPO comprise
+    EnumSet<IndexPermutation> permutations;
+
+    // Permutations demandées, pas encore construites ; protégées, avec builds, par le verrou de builds
+    private EnumSet<IndexPermutation> deferred = EnumSet.noneOf(IndexPermutation.class);
+    private final Map<IndexPermutation, CompletableFuture<Void>> builds = new EnumMap<>(IndexPermutation.class);
+
+    private final IndexAdvisor advisor = new IndexAdvisor();
+
+    // Ensembles caractéristiques des sujets, ou null quand la variante ne les tient pas à jour
+    CharacteristicSets characteristicSets = new CharacteristicSets();
+
+    // Couples (prédicat, objet) de chaque sujet, ou null s'ils ne sont pas tenus à jour
+    private SubjectAdjacency adjacency;
+
+    // Filtres de Bloom des feuilles de pos et des sujets, ou null s'ils ne sont pas tenus à jour
+    private ExistenceFilters filters;
+
+    // Plans compilés des étoiles fréquentes, ou null en mode interprété
+    private StarPlanCompiler compiler;
+
+    public RDFHexaStore() {
+        this(EnumSet.allOf(IndexPermutation.class));
+    }
+
+    /**
+     * @param permutations les permutations à maintenir ; {@link IndexPermutation#SPO} est toujours ajoutée
+     */
+    public RDFHexaStore(Set<IndexPermutation> permutations) {
+        this(permutations, false);
+    }
+
+    /**
+     * @param permutations les permutations à maintenir ; {@link IndexPermutation#SPO} est toujours ajoutée
+     * @param lazy         vrai pour ne construire les permutations autres que {@code spo} qu'à leur premier usage
+     */
+    public RDFHexaStore(Set<IndexPermutation> permutations, boolean lazy) {
+        this.dict = new TermDictionary();
+        this.dictionaryLimit = Integer.MAX_VALUE;
+        this.readOnly = false;
+        this.permutations = EnumSet.of(IndexPermutation.SPO);
+        if (lazy) {
+            this.deferred.addAll(permutations);
+            this.deferred.remove(IndexPermutation.SPO);
+        } else {
+            this.permutations.addAll(permutations);
+        }
+    }
+
+    /**
+     * Construit un snapshot en lecture seule partageant les index de {@code source}.
+     */
+    RDFHexaStore(RDFHexaStore source) {
+        this.dict = source.dict;
+        this.dictionaryLimit = source.dictionarySize();
+        this.spo = source.spo;
+        this.pso = source.pso;
+        this.osp = source.osp;
+        this.sop = source.sop;
+        this.pos = source.pos;
+        this.ops = source.ops;
+        this.size = source.size;
+        this.readOnly = true;
+        this.permutations = EnumSet.copyOf(source.permutations);
+        this.characteristicSets = null; // propres au store source, qui continue d'évoluer
+        this.adjacency = null;
+        this.filters = null;
+        this.compiler = source.compiler;
+        synchronized (source.builds) {
+            this.deferred = EnumSet.copyOf(source.deferred);
+        }
+    }
+
+    /**
+     * Retourne une version figée du store, en O(1). Les requêtes sur le snapshot ne voient pas
+     * les modifications ultérieures du store : celui-ci copie les noeuds d'index qu'il partage
+     * avec le snapshot (racine, niveau intermédiaire et feuille touchés) avant de les modifier.
+     * <p>
+     * Le dictionnaire, qui ne fait que croître, reste partagé : le snapshot n'en voit que les termes
+     * présents à sa création, et peut être interrogé depuis un autre thread pendant que le store
+     * est modifié.
+     *
+     * @return un store en lecture seule
+     */
+    public RDFHexaStore snapshot() {
+        if (readOnly) {
+            return this;
+        }
+        RDFHexaStore snapshot = new RDFHexaStore(this);
+        generation++;
+        return snapshot;
+    }
+
+    /**
+     * @return vrai si le store est un snapshot
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Vide les index, dont les triplets sont désormais tenus ailleurs (voir {@link TieredRDFHexaStore}).
+     * Le dictionnaire, la liste d'adjacence et les filtres d'existence, qui décrivent toujours tous
+     * les triplets, sont conservés. Un snapshot pris avant reste intact.
+     */
+    void detachIndexes() {
+        checkWritable();
+        for (IndexPermutation permutation : IndexPermutation.values()) {
+            setIndex(permutation, new Level<>(generation));
+        }
+        if (characteristicSets != null) {
+            characteristicSets = new CharacteristicSets();
+        }
+        size = 0;
+    }
+
+    /**
+     * Parcourt les triplets du store.
+     *
+     * @param action appelée avec chaque triplet (sujet, prédicat, objet) ; le tableau est réutilisé
+     */
+    void forEachTriple(Consumer<int[]> action) {
+        int[] triple = new int[3];
+        spo.forEach((subject, predicates) -> predicates.forEach((predicate, objects) -> {
+            for (int object : objects) {
+                triple[0] = subject;
+                triple[1] = predicate;
+                triple[2] = object;
+                action.accept(triple);
+            }
+        }));
+    }
+
+    /**
+     * @return les sujets des triplets (s, p, o), ou {@code null} si {@code pos} n'est pas maintenue
+     */
+    Set<Integer> posSubjects(int p, int o) {
+        return permutations.contains(IndexPermutation.POS) ? leaf(pos, p, o) : null;
+    }
+
+    /**
+     * @return les permutations maintenues
+     */
+    public Set<IndexPermutation> getPermutations() {
+        return Collections.unmodifiableSet(permutations);
+    }
+
+    /**
+     * Change les permutations maintenues : les nouvelles sont construites à partir de {@code spo},
+     * les autres sont libérées.
+     *
+     * @param permutations les permutations à maintenir ; {@link IndexPermutation#SPO} est toujours ajoutée
+     */
+    public void setPermutations(Set<IndexPermutation> permutations) {
+        checkWritable();
+        EnumSet<IndexPermutation> wanted = EnumSet.of(IndexPermutation.SPO);
+        wanted.addAll(permutations);
+        synchronized (builds) {
+            deferred.clear();
+        }
+        for (IndexPermutation permutation : IndexPermutation.values()) {
+            if (!wanted.contains(permutation)) {
+                setIndex(permutation, new Level<>(generation));
+            } else if (!this.permutations.contains(permutation)) {
+                setIndex(permutation, build(permutation));
+            }
+        }
+        this.permutations = wanted;
+    }
+
+    /**
+     * Garantit qu'une permutation est construite si elle est maintenue ou différée. La première
+     * demande d'une permutation différée la construit ; les demandes concurrentes attendent.
+     *
+     * @return vrai si la permutation est maintenue
+     */
+    boolean ensurePermutation(IndexPermutation permutation) {
+        if (permutations.contains(permutation)) {
+            return true;
+        }
+        CompletableFuture<Void> pending;
+        boolean owner = false;
+        synchronized (builds) {
+            if (!deferred.contains(permutation)) {
+                return permutations.contains(permutation);
+            }
+            pending = builds.get(permutation);
+            if (pending == null) {
+                pending = new CompletableFuture<>();
+                builds.put(permutation, pending);
+                owner = true;
+            }
+        }
+        if (!owner) {
+            pending.join();
+            return true;
+        }
+        try {
+            Map<Integer, Map<Integer, Set<Integer>>> built = build(permutation);
+            synchronized (builds) {
+                setIndex(permutation, built);
+                EnumSet<IndexPermutation> maintained = EnumSet.copyOf(permutations);
+                maintained.add(permutation);
+                permutations = maintained;
+                deferred.remove(permutation);
+                builds.remove(permutation);
+            }
+            pending.complete(null);
+            return true;
+        } catch (RuntimeException | Error e) {
+            synchronized (builds) {
+                builds.remove(permutation);
+            }
+            pending.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Construit une permutation à partir de {@code spo} : les triplets sont copiés et triés selon la
+     * première position de la permutation, puis les tranches de premières clés sont indexées en parallèle.
+     */
+    private Map<Integer, Map<Integer, Set<Integer>>> build(IndexPermutation permutation) {
+        int n = Math.toIntExact(size);
+        int[][] triples = new int[3][n];
+        int row = 0;
+        for (var subjectEntry : spo.entrySet()) {
+            for (var predicateEntry : subjectEntry.getValue().entrySet()) {
+                for (int object : predicateEntry.getValue()) {
+                    triples[0][row] = subjectEntry.getKey();
+                    triples[1][row] = predicateEntry.getKey();
+                    triples[2][row] = object;
+                    row++;
+                }
+            }
+        }
+
+        // Clé de tri : première position en poids fort, numéro de ligne en poids faible
+        int[] firsts = triples[permutation.first];
+        int[] seconds = triples[permutation.second];
+        int[] thirds = triples[permutation.third];
+        long[] sorted = new long[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = (long) firsts[i] << 32 | i;
+        }
+        Arrays.parallelSort(sorted);
+
+        // Tranches alignées sur les changements de première clé, pour que chacune ait ses propres noeuds
+        int chunks = Math.max(1, Math.min(n / MIN_BUILD_CHUNK, ForkJoinPool.getCommonPoolParallelism() * 4));
+        int[] bounds = new int[chunks + 1];
+        for (int c = 1; c < chunks; c++) {
+            int bound = Math.max(bounds[c - 1], (int) ((long) n * c / chunks));
+            while (bound > 0 && bound < n && sorted[bound] >>> 32 == sorted[bound - 1] >>> 32) {
+                bound++;
+            }
+            bounds[c] = bound;
+        }
+        bounds[chunks] = n;
+
+        long owner = generation;
+        List<Level<Map<Integer, Set<Integer>>>> parts = IntStream.range(0, chunks).parallel().mapToObj(c -> {
+            Level<Map<Integer, Set<Integer>>> part = new Level<>(owner);
+            for (int i = bounds[c]; i < bounds[c + 1]; i++) {
+                int line = (int) sorted[i];
+                part.computeIfAbsent(firsts[line], k -> new Level<>(owner))
+                        .computeIfAbsent(seconds[line], k -> new Leaf(owner))
+                        .add(thirds[line]);
+            }
+            return part;
+        }).toList();
+        Level<Map<Integer, Set<Integer>>> root = new Level<>(owner);
+        parts.forEach(root::putAll);
+        return root;
+    }
+
+    /**
+     * Active ou désactive la liste d'adjacence par sujet. Active, elle est construite à partir de
+     * {@code spo} puis tenue à jour ; les étoiles simples centrées sur un sujet dont l'atome
+     * directeur a au plus {@value #ADJACENCY_MAX_CANDIDATES} candidats vérifient alors tous leurs
+     * autres atomes par une seule fusion sur les couples (prédicat, objet) de chaque candidat.
+     */
+    public void setSubjectAdjacency(boolean enabled) {
+        checkWritable();
+        if (!enabled) {
+            adjacency = null;
+        } else if (adjacency == null) {
+            adjacency = new SubjectAdjacency();
+            forEachTriple(triple -> adjacency.add(triple[0], triple[1], triple[2]));
+        }
+    }
+
+    /**
+     * @return vrai si la liste d'adjacence par sujet est tenue à jour
+     */
+    public boolean hasSubjectAdjacency() {
+        return adjacency != null;
+    }
+
+    /**
+     * Active ou désactive les filtres de Bloom d'existence (voir {@link ExistenceFilters}). Actifs,
+     * ils sont construits à partir des index puis tenus à jour ; les étoiles simples centrées sur
+     * un sujet s'en servent pour écarter les candidats avant de lire les feuilles des autres atomes.
+     */
+    public void setExistenceFilters(boolean enabled) {
+        checkWritable();
+        if (!enabled) {
+            filters = null;
+        } else if (filters == null) {
+            filters = new ExistenceFilters();
+            forEachTriple(triple -> filters.added(triple[0], triple[1], triple[2], posSubjects(triple[1], triple[2])));
+        }
+    }
+
+    /**
+     * @return vrai si les filtres de Bloom d'existence sont tenus à jour
+     */
+    public boolean hasExistenceFilters() {
+        return filters != null;
+    }
+
+    /**
+     * @return les ensembles caractéristiques des sujets, s'ils sont tenus à jour par ce store
+     */
+    public Optional<CharacteristicSets> getCharacteristicSets() {
+        return Optional.ofNullable(characteristicSets);
+    }
+
+    /**
+     * Estime le nombre de réponses d'une étoile centrée sur un sujet à partir des ensembles
+     * caractéristiques. Un objet constant ajoute la taille d'une feuille de {@code pos} ou de
+     * {@code ops} ; si aucune des deux n'est maintenue, il n'est pas pris en compte.
+     *
+     * @return l'estimation, vide si l'étoile n'est pas centrée sur le sujet de chacun de ses atomes
+     * avec un prédicat constant, ou si le store ne tient pas les ensembles caractéristiques
+     */
+    public OptionalDouble estimateCardinality(StarQuery q) {
+        int[] required = requiredPredicates(q);
+        if (required == null) {
+            return OptionalDouble.empty();
+        }
+        List<RDFAtom> atoms = q.getRdfAtoms();
+        double[] selectivities = new double[required.length];
+        Arrays.fill(selectivities, 1);
+        for (RDFAtom atom : atoms) {
+            Term object = atom.getTripleObject();
+            if (!object.isVariable()) {
+                int predicate = lookup(atom.getTriplePredicate());
+                int k = Arrays.binarySearch(required, predicate);
+                long total = characteristicSets.triples(predicate);
+                long matching = objectCount(predicate, lookup(object));
+                if (matching >= 0) {
+                    selectivities[k] *= total == 0 ? 0 : (double) matching / total;
+                }
+            }
+        }
+        return OptionalDouble.of(characteristicSets.estimate(required, selectivities));
+    }
+
+    /**
+     * @return le nombre de triplets (?, p, o), ou -1 si ni {@code pos} ni {@code ops} n'est maintenue
+     */
+    private long objectCount(int p, int o) {
+        if (ensurePermutation(IndexPermutation.POS)) {
+            return leaf(pos, p, o).size();
+        }
+        if (ensurePermutation(IndexPermutation.OPS)) {
+            return leaf(ops, o, p).size();
+        }
+        return -1;
+    }
+
+    /**
+     * @return les prédicats, triés, d'une étoile dont la variable centrale est le sujet de chaque
+     * atome et dont les prédicats sont constants ; {@code null} sinon, ou sans ensembles caractéristiques
+     */
+    private int[] requiredPredicates(StarQuery q) {
+        if (characteristicSets == null) {
+            return null;
+        }
+        List<RDFAtom> atoms = q.getRdfAtoms();
+        int[] required = new int[atoms.size()];
+        for (int k = 0; k < required.length; k++) {
+            RDFAtom atom = atoms.get(k);
+            if (!atom.getTripleSubject().equals(q.getCentralVariable()) || atom.getTriplePredicate().isVariable()) {
+                return null;
+            }
+            required[k] = lookup(atom.getTriplePredicate());
+        }
+        Arrays.sort(required);
+        return required;
+    }
+
+    /**
+     * @return le relevé des accès aux index de ce store
+     */
+    public IndexAdvisor getIndexAdvisor() {
+        return advisor;
+    }
+
+    /**
+     * Applique la recommandation de {@link #getIndexAdvisor()}.
+     *
+     * @param minShare la part minimale des accès qu'un motif doit représenter pour justifier un index
+     * @return les permutations désormais maintenues
+     */
+    public Set<IndexPermutation> tunePermutations(double minShare) {
+        setPermutations(advisor.recommend(minShare));
+        return getPermutations();
+    }
+
+    Map<Integer, Map<Integer, Set<Integer>>> index(IndexPermutation permutation) {
+        return switch (permutation) {
+            case SPO -> spo;
+            case PSO -> pso;
+            case OSP -> osp;
+            case SOP -> sop;
+            case POS -> pos;
+            case OPS -> ops;
+        };
+    }
+
+    private void setIndex(IndexPermutation permutation, Map<Integer, Map<Integer, Set<Integer>>> index) {
+        switch (permutation) {
+            case SPO -> spo = index;
+            case PSO -> pso = index;
+            case OSP -> osp = index;
+            case SOP -> sop = index;
+            case POS -> pos = index;
+            case OPS -> ops = index;
+        }
+    }
+
+    void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Un snapshot est en lecture seule.");
+        }
+    }
+
     /**
      * Créer ou retourne une nouvelle indexe dans {@link RDFHexaStore#dict} pour un terme donné.
+     * Les littéraux encodables par {@link InlineTerms} n'entrent pas dans le dictionnaire.
      *
      * @param term Term
      * @return Index
      */
     int index(Term term) {
-        // TODO: Utiliser une HashMap si le temps d'insertion n'est pas important.
-        // BidiMap permet de faire ce get en O(1) mais on passe juste à O(n) si on utilise une Map.
-        return dict.inverseBidiMap().computeIfAbsent(term, k -> dict.size() + 1);
+        int inline = InlineTerms.encode(term);
+        if (inline != 0) {
+            return inline;
+        }
+        return dict.index(term);
+    }
+
+    Term term(int index) {
+        if (InlineTerms.isInline(index)) {
+            return InlineTerms.decode(index);
+        }
+        return index <= dictionaryLimit ? dict.term(index) : null;
     }
 
-    private Term term(int index) {
-        return dict.get(index);
+    /**
+     * @return le nombre de termes du dictionnaire
+     */
+    int dictionarySize() {
+        return Math.min(dict.size(), dictionaryLimit);
     }
 
     @Override
     public boolean add(RDFAtom atom) {
+        checkWritable();
         return addIndex(
                 index(atom.getTripleSubject()),
                 index(atom.getTriplePredicate()),
@@ -67,14 +558,138 @@ public class RDFHexaStore implements RDFStorage {
      * @param p L'indexe de l'objet
      */
     public boolean addIndex(int s, int p, int o) {
-        var r = addToStore(spo, s, p, o)
-                && addToStore(pso, p, s, o)
-                && addToStore(osp, o, s, p)
-                && addToStore(sop, s, o, p)
-                && addToStore(pos, p, o, s)
-                && addToStore(ops, o, p, s);
-        if (r) size++;
-        return r;
+        checkWritable();
+        if (leaf(spo, s, p).contains(o)) {
+            return false;
+        }
+        int[] triple = {s, p, o};
+        for (IndexPermutation permutation : permutations) {
+            setIndex(permutation, addToStore(index(permutation),
+                    triple[permutation.first], triple[permutation.second], triple[permutation.third]));
+        }
+        if (characteristicSets != null) {
+            characteristicSets.added(s, p, spo.get(s));
+        }
+        trackAdded(s, p, o);
+        size++;
+        MetricsRegistry.increment(MetricsRegistry.Counter.TRIPLES_STORED);
+        return true;
+    }
+
+    @Override
+    public boolean remove(RDFAtom atom) {
+        checkWritable();
+        return removeIndex(
+                lookup(atom.getTripleSubject()),
+                lookup(atom.getTriplePredicate()),
+                lookup(atom.getTripleObject())
+        );
+    }
+
+    /**
+     * Tient à jour la liste d'adjacence et les filtres d'existence après l'ajout d'un triplet,
+     * y compris hors des index (voir {@link TieredRDFHexaStore}).
+     */
+    void trackAdded(int s, int p, int o) {
+        if (adjacency != null) {
+            adjacency.add(s, p, o);
+        }
+        if (filters != null) {
+            filters.added(s, p, o, posSubjects(p, o));
+        }
+    }
+
+    /**
+     * Tient à jour la liste d'adjacence après le retrait d'un triplet, y compris hors des index.
+     */
+    void trackRemoved(int s, int p, int o) {
+        if (adjacency != null) {
+            adjacency.remove(s, p, o);
+        }
+    }
+
+    /**
+     * Retire le triplet d'indexes de l'ensemble des dictionnaires d'indexes.
+     * Les indexes restent attribués à leurs termes dans {@link #dict}.
+     *
+     * @param s L'indexe du sujet
+     * @param p L'indexe du prédicat
+     * @param o L'indexe de l'objet
+     * @return vrai si le triplet était présent
+     */
+    public boolean removeIndex(int s, int p, int o) {
+        checkWritable();
+        if (!leaf(spo, s, p).contains(o)) {
+            return false;
+        }
+        int[] triple = {s, p, o};
+        for (IndexPermutation permutation : permutations) {
+            setIndex(permutation, removeFromStore(index(permutation),
+                    triple[permutation.first], triple[permutation.second], triple[permutation.third]));
+        }
+        if (characteristicSets != null) {
+            characteristicSets.removed(s, p, spo.get(s));
+        }
+        trackRemoved(s, p, o);
+        size--;
+        MetricsRegistry.add(MetricsRegistry.Counter.TRIPLES_STORED, -1);
+        return true;
+    }
+
+    @Override
+    public boolean addAll(Stream<RDFAtom> atoms) {
+        StoreLoadEvent event = new StoreLoadEvent();
+        event.begin();
+        long start = System.nanoTime();
+        long sizeBefore = size();
+        int dictBefore = dictionarySize();
+        boolean added = RDFStorage.super.addAll(atoms);
+        event.end();
+        if (event.shouldCommit()) {
+            event.store = getClass().getSimpleName();
+            event.triplesAdded = size() - sizeBefore;
+            event.triplesPerSecond = event.triplesAdded * 1e9 / Math.max(System.nanoTime() - start, 1);
+            event.storeSize = size();
+            event.dictionaryBefore = dictBefore;
+            event.dictionaryAfter = dictionarySize();
+            event.commit();
+        }
+        return added;
+    }
+
+    /**
+     * Active ou désactive le mode compilé (voir {@link StarPlanCompiler}). Actif, les étoiles sans
+     * filtre de la forme décrite par {@link #isIndexedFilteredStar}, qui ne sont pas des étoiles
+     * simples et dont la forme est fréquente, sont évaluées par une classe spécialisée. Les étoiles
+     * simples gardent leurs élagages (ensembles caractéristiques, liste d'adjacence, filtres de
+     * Bloom) et les autres requêtes restent interprétées. Le mode compilé est désactivé par défaut.
+     *
+     * @throws UnsupportedOperationException à l'activation, si la variante n'évalue pas les étoiles
+     *                                       sur ses index (voir {@link TieredRDFHexaStore})
+     */
+    public void setCompiledPlans(boolean enabled) {
+        if (enabled && !supportsRangeScans()) {
+            throw new UnsupportedOperationException("Cette variante n'évalue pas les étoiles sur ses index : le mode compilé est indisponible.");
+        }
+        if (!enabled) {
+            compiler = null;
+        } else if (compiler == null) {
+            compiler = new StarPlanCompiler();
+        }
+    }
+
+    /**
+     * @return vrai si les étoiles fréquentes sont évaluées par des plans compilés
+     */
+    public boolean hasCompiledPlans() {
+        return compiler != null;
+    }
+
+    /**
+     * @return le nombre de plans compilés conservés
+     */
+    int compiledPlanCount() {
+        return compiler != null ? compiler.size() : 0;
     }
 
     /**
@@ -84,110 +699,1281 @@ public class RDFHexaStore implements RDFStorage {
      * @param a       Index du premier élément
      * @param b       Index du deuxième élémént
      * @param c       Index du troisième élément
+     * @return l'indexing, copiée si elle était partagée avec un snapshot
      */
-    private boolean addToStore(Map<Integer, Map<Integer, Set<Integer>>> indexes,
-                               int a, int b, int c) {
-        var x = indexes.computeIfAbsent(a, k -> new HashMap<>());
-        var y = x.computeIfAbsent(b, k -> new HashSet<>());
+    private Map<Integer, Map<Integer, Set<Integer>>> addToStore(Map<Integer, Map<Integer, Set<Integer>>> indexes,
+                                                                int a, int b, int c) {
+        var x = writable(indexes);
+        var y = x.get(a);
+        y = y == null ? new Level<>(generation) : writable(y);
+        x.put(a, y);
+        var z = y.get(b);
+        z = z == null ? new Leaf(generation) : writable(z);
+        y.put(b, z);
 
-        return y.add(c);
+        z.add(c);
+        return x;
     }
 
-    @Override
-    public long size() {
-        return size;
-    }
+    /**
+     * Retire le triplet, présent, de l'indexing passée en paramètre et élague les niveaux vides.
+     *
+     * @return l'indexing, copiée si elle était partagée avec un snapshot
+     */
+    private Map<Integer, Map<Integer, Set<Integer>>> removeFromStore(Map<Integer, Map<Integer, Set<Integer>>> indexes,
+                                                                     int a, int b, int c) {
+        var x = writable(indexes);
+        var y = writable(x.get(a));
+        var z = writable(y.get(b));
 
-    @Override
-    public Iterator<Substitution> match(RDFAtom atom) {
-        for (var matcher : RDFMatcher.values()) {
-            if (matcher.matches(atom)) {
-                return matcher.substitution(this, atom);
-            }
+        z.remove(c);
+        if (z.isEmpty()) {
+            y.remove(b);
+        } else {
+            y.put(b, z);
         }
-        return emptyIterator();
+        if (y.isEmpty()) {
+            x.remove(a);
+        } else {
+            x.put(a, y);
+        }
+        return x;
     }
 
-    private long estimateMatchNumbers(RDFAtom atom) {
-        return ops
-                .getOrDefault(index(atom.getTripleObject()), new HashMap<>())
-                .getOrDefault(index(atom.getTriplePredicate()), new HashSet<>())
-                .size();
+    private <V> Map<Integer, V> writable(Map<Integer, V> node) {
+        return node instanceof Level<?> level && level.generation == generation ? node : new Level<>(node, generation);
     }
 
-    @Override
-    public Iterator<Substitution> match(StarQuery q) {
-        List<RDFAtom> queryAtoms = new ArrayList<>(q.getRdfAtoms());
+    private Set<Integer> writable(Set<Integer> leaf) {
+        return leaf instanceof Leaf owned && owned.generation == generation ? leaf : new Leaf(leaf, generation);
+    }
 
-        var smallestSubstitutionOpt = queryAtoms.stream()
-                .min((q1, q2) -> Math.toIntExact(estimateMatchNumbers(q1) - estimateMatchNumbers(q2)));
-        if (!smallestSubstitutionOpt.isPresent()) {
-            return emptyIterator();
-        }
-        var smallestQuery = smallestSubstitutionOpt.get();
-        queryAtoms.remove(smallestQuery);
+    /**
+     * Niveau d'index, étiqueté par la génération qui peut le modifier en place.
+     * <p>
+     * Chaque mutateur qui peut changer les clés oublie leur ordre trié. Les vues ({@code keySet},
+     * {@code entrySet}, {@code values}) et leurs itérateurs ne servent qu'en lecture.
+     */
+    private static final class Level<V> extends HashMap<Integer, V> {
+        private final long generation;
 
-        var subs = Streams.stream(match(smallestQuery))
-                .filter(sub -> queryAtoms.stream().allMatch(query -> Streams.stream(match(query))
-                        .anyMatch(sub::equals)));
+        // Clés triées dans l'ordre de leurs valeurs, ou null à recalculer après un changement des clés
+        private volatile int[] sortedKeys;
 
-        return subs.iterator();
+        Level(long generation) {
+            this.generation = generation;
+        }
 
-        /** Étape 1 : Trouver le triplet avec le moins de correspondances
-        RDFAtom firstToProcess = null;
-        long minEstimate = Long.MAX_VALUE;
+        Level(Map<Integer, V> source, long generation) {
+            super(source);
+            this.generation = generation;
+        }
 
-        for (RDFAtom queryAtom : queryAtoms) {
-            long estimate = estimateMatchNumbers(queryAtom);
-            if (estimate < minEstimate) {
-                minEstimate = estimate;
-                firstToProcess = queryAtom;
+        /**
+         * Oublie l'ordre des clés si leur nombre a changé : une mutation ajoute ou retire des clés, jamais les deux.
+         */
+        private void keysChanged(int size) {
+            if (size() != size) {
+                sortedKeys = null;
             }
         }
 
-        if (firstToProcess == null) {
-            return Collections.emptyIterator();
+        @Override
+        public V put(Integer key, V value) {
+            int size = size();
+            V previous = super.put(key, value);
+            keysChanged(size);
+            return previous;
         }
 
-        // Étape 2 : Effectuer le premier match
-        Iterator<Substitution> initialMatches = match(firstToProcess);
-        List<Substitution> validSubstitutions = new ArrayList<>();
+        @Override
+        public void putAll(Map<? extends Integer, ? extends V> map) {
+            int size = size();
+            super.putAll(map);
+            keysChanged(size);
+        }
 
-        // Étape 3 : Filtrer les substitutions en fonction des autres triplets
-        while (initialMatches.hasNext()) {
-            Substitution currentSubstitution = initialMatches.next();
-            boolean isValid = true;
+        @Override
+        public V putIfAbsent(Integer key, V value) {
+            int size = size();
+            V previous = super.putIfAbsent(key, value);
+            keysChanged(size);
+            return previous;
+        }
 
-            for (RDFAtom queryAtom : queryAtoms) {
-                if (queryAtom.equals(firstToProcess)) {
-                    continue; // Ne pas retraiter le triplet déjà matché
-                }
+        @Override
+        public V computeIfAbsent(Integer key, Function<? super Integer, ? extends V> mapping) {
+            int size = size();
+            V value = super.computeIfAbsent(key, mapping);
+            keysChanged(size);
+            return value;
+        }
 
-                // Appliquer la substitution actuelle au triplet
-                RDFAtom substitutedAtom = applySubstitutionToAtom(queryAtom, currentSubstitution);
+        @Override
+        public V computeIfPresent(Integer key, BiFunction<? super Integer, ? super V, ? extends V> remapping) {
+            int size = size();
+            V value = super.computeIfPresent(key, remapping);
+            keysChanged(size);
+            return value;
+        }
 
-                // Vérifier si ce triplet substitué a des correspondances
-                Iterator<Substitution> matches = match(substitutedAtom);
-                if (!matches.hasNext()) {
-                    isValid = false;
-                    break;
-                }
-            }
-            if (isValid) {
-                validSubstitutions.add(currentSubstitution);
-            }
+        @Override
+        public V compute(Integer key, BiFunction<? super Integer, ? super V, ? extends V> remapping) {
+            int size = size();
+            V value = super.compute(key, remapping);
+            keysChanged(size);
+            return value;
+        }
+
+        @Override
+        public V merge(Integer key, V value, BiFunction<? super V, ? super V, ? extends V> remapping) {
+            int size = size();
+            V merged = super.merge(key, value, remapping);
+            keysChanged(size);
+            return merged;
+        }
+
+        @Override
+        public V remove(Object key) {
+            int size = size();
+            V previous = super.remove(key);
+            keysChanged(size);
+            return previous;
+        }
+
+        @Override
+        public boolean remove(Object key, Object value) {
+            int size = size();
+            boolean removed = super.remove(key, value);
+            keysChanged(size);
+            return removed;
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+            sortedKeys = null;
+        }
+    }
+
+    /**
+     * Feuille d'index, étiquetée par la génération qui peut la modifier en place.
+     */
+    private static final class Leaf extends HashSet<Integer> {
+        private final long generation;
+
+        Leaf(long generation) {
+            this.generation = generation;
+        }
+
+        Leaf(Set<Integer> source, long generation) {
+            super(source);
+            this.generation = generation;
         }
+    }
 
-        return validSubstitutions.iterator();**/
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Substitution> match(RDFAtom atom) {
+        advisor.record(IndexPermutation.mask(!atom.getTripleSubject().isVariable(),
+                !atom.getTriplePredicate().isVariable(), !atom.getTripleObject().isVariable()));
+        for (var matcher : RDFMatcher.values()) {
+            if (matcher.matches(atom)) {
+                long start = MetricsRegistry.isEnabled() ? System.nanoTime() : 0;
+                Iterator<Substitution> results = matcher.substitution(this, atom);
+                if (start != 0) {
+                    MetricsRegistry.recordMatch(matcher.name(), System.nanoTime() - start);
+                }
+                return results;
+            }
+        }
+        return emptyIterator();
+    }
+
+    /**
+     * Choisit la permutation qui sert le motif : la première maintenue parmi celles qui le servent
+     * par un intervalle de préfixe, ou à défaut sa permutation préférée si elle est différée.
+     *
+     * @return la permutation, ou {@code null} si le motif doit être évalué par un parcours de {@code spo}
+     */
+    IndexPermutation accessPath(RDFMatcher matcher) {
+        EnumSet<IndexPermutation> maintained = permutations;
+        for (IndexPermutation permutation : matcher.permutations()) {
+            if (maintained.contains(permutation)) {
+                return permutation;
+            }
+        }
+        return ensurePermutation(matcher.permutation()) ? matcher.permutation() : null;
+    }
+
+    /**
+     * Évalue un atome par un parcours de {@code spo}, quand la permutation adaptée n'est pas maintenue.
+     */
+    Iterator<Substitution> scan(RDFAtom atom) {
+        Term[] terms = {atom.getTripleSubject(), atom.getTriplePredicate(), atom.getTripleObject()};
+        int[] bound = new int[3];
+        for (int k = 0; k < 3; k++) {
+            if (!terms[k].isVariable() && (bound[k] = lookup(terms[k])) == 0) {
+                return emptyIterator();
+            }
+        }
+        List<Substitution> results = new ArrayList<>();
+        for (var subjectEntry : bound[0] != 0 ? singleEntry(spo, bound[0]) : spo.entrySet()) {
+            for (var predicateEntry : bound[1] != 0 ? singleEntry(subjectEntry.getValue(), bound[1]) : subjectEntry.getValue().entrySet()) {
+                Set<Integer> objects = predicateEntry.getValue();
+                for (int object : bound[2] != 0 ? (objects.contains(bound[2]) ? Set.of(bound[2]) : Set.<Integer>of()) : objects) {
+                    Map<Variable, Term> images = new HashMap<>();
+                    int[] triple = {subjectEntry.getKey(), predicateEntry.getKey(), object};
+                    boolean consistent = true;
+                    for (int k = 0; k < 3 && consistent; k++) {
+                        if (terms[k] instanceof Variable variable) {
+                            Term previous = images.putIfAbsent(variable, term(triple[k]));
+                            consistent = previous == null || previous.equals(term(triple[k]));
+                        }
+                    }
+                    if (consistent) {
+                        results.add(new SubstitutionImpl(images));
+                    }
+                }
+            }
+        }
+        return results.iterator();
+    }
+
+    private static <V> Set<Map.Entry<Integer, V>> singleEntry(Map<Integer, V> map, int key) {
+        V value = map.get(key);
+        return value == null ? Set.of() : Set.of(Map.entry(key, value));
+    }
+
+    /**
+     * Retourne l'indexe d'un terme déjà présent dans {@link RDFHexaStore#dict}, sans l'y ajouter.
+     *
+     * @param term Term
+     * @return Index, ou 0 si le terme est inconnu
+     */
+    int lookup(Term term) {
+        int inline = InlineTerms.encode(term);
+        if (inline != 0) {
+            return inline;
+        }
+        int index = dict.lookup(term);
+        return index <= dictionaryLimit ? index : 0;
+    }
+
+    @Override
+    public Iterator<Substitution> match(StarQuery q) {
+        long start = MetricsRegistry.isEnabled() ? System.nanoTime() : 0;
+        StarQueryEvent event = new StarQueryEvent();
+        event.begin();
+        QueryTrace trace = QueryInstrumentation.begin(q);
+        int[] required = requiredPredicates(q);
+        List<Substitution> results;
+        if (required != null && characteristicSets.subjectsWith(required) == 0) {
+            // Aucun sujet n'a tous les prédicats de l'étoile : les index ne sont pas lus
+            results = q.getCountVariable().isPresent() ? new GroupCounts().answers(q, this::term) : List.of();
+        } else if (q.getCountVariable().isPresent()) {
+            results = matchAggregate(q, trace, event);
+        } else {
+            results = matchCompiled(q, trace, event);
+            if (results != null) {
+                event.compiled = true;
+            } else if (q.getFilters().isEmpty() && q.isSimple()) {
+                results = matchSimpleStar(q, required, trace, event);
+            } else {
+                return matchStar(q, trace, event, rows -> finish(q, trace, event, start, rows));
+            }
+        }
+        finish(q, trace, event, start, results.size());
+        return results.iterator();
+    }
+
+    /**
+     * Termine la trace, la mesure et l'événement JFR d'une requête, une fois ses réponses produites.
+     *
+     * @param start l'instant du début de l'évaluation, ou 0 si les métriques sont désactivées
+     * @param rows  le nombre de réponses
+     */
+    private static void finish(StarQuery q, QueryTrace trace, StarQueryEvent event, long start, long rows) {
+        trace.end(rows);
+        if (start != 0) {
+            MetricsRegistry.recordQuery(q.getTemplate(), System.nanoTime() - start);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.fingerprint = q.getFingerprint();
+            event.atoms = q.getRdfAtoms().size();
+            event.resultRows = rows;
+            event.commit();
+        }
+    }
+
+    /**
+     * Évalue une étoile simple sur les indexes : l'atome le plus sélectif fournit les candidats,
+     * les autres atomes les filtrent par appartenance, puis seuls les survivants sont décodés.
+     */
+    private List<Substitution> matchSimpleStar(StarQuery q, int[] required, QueryTrace trace, StarQueryEvent event) {
+        List<RDFAtom> atoms = q.getRdfAtoms();
+
+        // Plan : chaque atome donne l'ensemble des valeurs possibles de la variable centrale
+        trace.start(Phase.PLAN);
+        List<Set<Integer>> values = new ArrayList<>(atoms.size());
+        for (RDFAtom atom : atoms) {
+            values.add(centralValues(atom));
+        }
+        List<Integer> order = new ArrayList<>(atoms.size());
+        for (int i = 0; i < atoms.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparingInt(i -> values.get(i).size()));
+        trace.stop(Phase.PLAN);
+        if (event.isEnabled()) {
+            event.plan = order.stream()
+                    .map(i -> atoms.get(i) + "=" + values.get(i).size())
+                    .collect(Collectors.joining(" > "));
+        }
+
+        trace.start(Phase.INDEX_PROBE);
+        Set<Integer> driving = values.get(order.get(0));
+        int[] candidates = new int[driving.size()];
+        int count = 0;
+        for (int value : driving) {
+            if (count == candidates.length) { // l'ensemble a grandi pendant le parcours (store concurrent)
+                candidates = Arrays.copyOf(candidates, 2 * count + 1);
+            }
+            candidates[count++] = value;
+        }
+        trace.stop(Phase.INDEX_PROBE);
+        trace.rows(atoms.get(order.get(0)), count, count);
+        event.drivingRows = count;
+
+        if (required != null && required.length > 1) {
+            // Écarte les sujets dont l'ensemble caractéristique n'a pas tous les prédicats de l'étoile
+            Map<CharacteristicSets.CharacteristicSet, Boolean> admissible = new IdentityHashMap<>();
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                CharacteristicSets.CharacteristicSet set = characteristicSets.of(candidates[i]);
+                if (set != null && admissible.computeIfAbsent(set, c -> c.containsAll(required))) {
+                    candidates[kept++] = candidates[i];
+                }
+            }
+            count = kept;
+        }
+
+        trace.start(Phase.JOIN);
+        if (adjacency != null && count <= ADJACENCY_MAX_CANDIDATES && order.size() > 1 && isSubjectStar(q)) {
+            // Atome directeur très sélectif : une fusion par candidat sur ses couples (prédicat, objet)
+            List<RDFAtom> verified = new ArrayList<>(order.size() - 1);
+            long[] pairs = new long[order.size() - 1];
+            for (int k = 1; k < order.size(); k++) {
+                RDFAtom atom = atoms.get(order.get(k));
+                verified.add(atom);
+                pairs[k - 1] = SubjectAdjacency.pack(lookup(atom.getTriplePredicate()), lookup(atom.getTripleObject()));
+            }
+            Arrays.sort(pairs);
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                if (adjacency.containsAll(candidates[i], pairs)) {
+                    candidates[kept++] = candidates[i];
+                }
+            }
+            trace.rows(verified, count, kept);
+            count = kept;
+        } else {
+            boolean filtered = filters != null && order.size() > 1 && isSubjectStar(q);
+            if (filtered) {
+                // Signature des autres atomes : la plupart des candidats qui échouent n'atteignent pas les index
+                long[] pairs = new long[order.size() - 1];
+                for (int k = 1; k < order.size(); k++) {
+                    RDFAtom atom = atoms.get(order.get(k));
+                    pairs[k - 1] = SubjectAdjacency.pack(lookup(atom.getTriplePredicate()), lookup(atom.getTripleObject()));
+                }
+                long signature = ExistenceFilters.signature(pairs);
+                int kept = 0;
+                for (int i = 0; i < count; i++) {
+                    if (filters.mightHaveAll(candidates[i], signature)) {
+                        candidates[kept++] = candidates[i];
+                    }
+                }
+                count = kept;
+            }
+            for (int k = 1; k < order.size() && count > 0; k++) {
+                Set<Integer> filter = values.get(order.get(k));
+                RDFAtom atom = atoms.get(order.get(k));
+                BloomFilter bloom = filtered ? filters.leaf(lookup(atom.getTriplePredicate()), lookup(atom.getTripleObject())) : null;
+                int kept = 0;
+                for (int i = 0; i < count; i++) {
+                    if ((bloom == null || bloom.mightContain(candidates[i])) && filter.contains(candidates[i])) {
+                        candidates[kept++] = candidates[i];
+                    }
+                }
+                trace.rows(atoms.get(order.get(k)), count, kept);
+                count = kept;
+            }
+        }
+        trace.stop(Phase.JOIN);
+
+        if (isOrdered(q)) {
+            trace.start(Phase.ORDER);
+            long limit = q.getLimit().orElse(-1);
+            count = q.getOrderBy().isEmpty() ? (int) Math.min(count, limit)
+                    : new ValueOrder(this::term).sort(candidates, count, q.getOrderBy().get(0).ascending(), limit);
+            trace.stop(Phase.ORDER);
+        }
+        return decode(q, candidates, count, trace);
+    }
+
+    /**
+     * Évalue une étoile filtrée ou qui n'est pas simple. Quand chaque atome a la même variable pour
+     * sujet, un prédicat constant et pour objet une constante ou une variable propre à l'atome,
+     * l'étoile est évaluée sur les indexes : un filtre sur un objet variable ne retient dans
+     * {@code pos[p]} que les objets de son intervalle, dont les sujets forment les candidats. L'étoile
+     * est alors exécutée par lots d'indexes (voir {@link BatchOperator}) et seules les variables
+     * réponses des réponses qui passent les filtres sont décodées. Sinon, l'étoile est évaluée sans
+     * ses filtres puis les réponses filtrées et projetées.
+     * <p>
+     * Sans {@code ORDER BY}, les réponses de l'exécution par lots sont produites à la demande par
+     * l'itérateur retourné, qui lit les index : le store ne doit pas être modifié avant son
+     * épuisement, sauf à interroger un {@link #snapshot() snapshot}. Avec un {@code ORDER BY}, les
+     * réponses sont toutes produites avant d'être retournées.
+     *
+     * @param finish appelé avec le nombre de réponses une fois qu'elles sont toutes produites
+     */
+    private Iterator<Substitution> matchStar(StarQuery q, QueryTrace trace, StarQueryEvent event, LongConsumer finish) {
+        trace.start(Phase.PLAN);
+        Map<Variable, List<ValueRange>> ranges = ranges(q);
+        if (ranges == null) {
+            trace.stop(Phase.PLAN);
+            finish.accept(0);
+            return Collections.emptyIterator();
+        }
+        StarPlan plan = planStar(q, ranges, trace, event);
+        if (plan == null) {
+            List<Substitution> results = matchGeneric(q, trace, event);
+            results.removeIf(substitution -> !accepts(substitution, ranges));
+            results = project(q, order(q, results, trace), trace);
+            finish.accept(results.size());
+            return results.iterator();
+        }
+
+        // Pipeline par lots, à partir des candidats de l'atome directeur
+        List<RDFAtom> atoms = q.getRdfAtoms();
+        List<Variable> columns = starColumns(q);
+        BatchOperator scan = new BatchOperator.Scan(plan.subjects().get(plan.driver()),
+                ranges.getOrDefault(columns.get(0), List.of()));
+        Map<BatchOperator, RDFAtom> stages = new LinkedHashMap<>();
+        stages.put(scan, atoms.get(plan.driver()));
+        BatchOperator root = pipeline(q, ranges, plan, scan, stages);
+        LongConsumer done = rows -> {
+            stages.forEach((operator, atom) -> trace.rows(atom, operator.rowsIn, operator.rowsOut));
+            event.drivingRows = scan.rowsOut;
+            finish.accept(rows);
+        };
+
+        if (q.getOrderBy().isEmpty()) {
+            // Les lots sont tirés, projetés et décodés à mesure que les réponses sont lues, jusqu'à la limite
+            return new BatchIterator(q, root, columns, this::term, trace, done);
+        }
+        trace.start(Phase.JOIN);
+        List<int[]> rows = BatchIterator.rows(root);
+        trace.stop(Phase.JOIN);
+        trace.start(Phase.ORDER);
+        rows = ValueOrder.sortRows(Projection.ordering(q), columns, rows, this::term);
+        trace.stop(Phase.ORDER);
+
+        // Seules les variables réponses sont décodées
+        trace.start(Phase.DECODE);
+        List<Substitution> results = Projection.rows(q, columns, rows, this::term);
+        trace.stop(Phase.DECODE);
+        done.accept(results.size());
+        return results.iterator();
+    }
+
+    /**
+     * @return la variable de chaque colonne des lignes d'une étoile évaluée sur les indexes : le sujet,
+     * puis l'objet de chaque atome à objet variable
+     */
+    private static List<Variable> starColumns(StarQuery q) {
+        List<Variable> columns = new ArrayList<>(q.getRdfAtoms().size() + 1);
+        columns.add((Variable) q.getRdfAtoms().get(0).getTripleSubject());
+        for (RDFAtom atom : q.getRdfAtoms()) {
+            if (atom.getTripleObject() instanceof Variable object) {
+                columns.add(object);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Complète le pipeline par lots d'une étoile à partir du parcours de ses candidats : intersection
+     * avec les sujets des autres atomes, puis sonde des objets de chaque atome à objet variable.
+     *
+     * @param stages reçoit chaque opérateur ajouté avec l'atome qu'il évalue, ou {@code null}
+     * @return le dernier opérateur, dont les lignes ont pour colonnes {@link #starColumns}
+     */
+    private BatchOperator pipeline(StarQuery q, Map<Variable, List<ValueRange>> ranges, StarPlan plan,
+                                   BatchOperator scan, Map<BatchOperator, RDFAtom> stages) {
+        List<RDFAtom> atoms = q.getRdfAtoms();
+        BatchOperator root = scan;
+        for (int i = 0; i < atoms.size(); i++) {
+            if (i != plan.driver() && plan.subjects().get(i) != null) {
+                root = new BatchOperator.Intersect(root, plan.subjects().get(i));
+                if (stages != null) {
+                    stages.put(root, atoms.get(i));
+                }
+            }
+        }
+        for (RDFAtom atom : atoms) {
+            if (atom.getTripleObject() instanceof Variable object) {
+                root = new BatchOperator.Probe(root, this, lookup(atom.getTriplePredicate()),
+                        ranges.getOrDefault(object, List.of()));
+                if (stages != null) {
+                    stages.put(root, atom);
+                }
+            }
+        }
+        return root;
+    }
+
+    /**
+     * Découpe l'évaluation d'une requête pour {@link QueryScheduler}. Une étoile évaluable sur les
+     * indexes dont l'atome directeur a plus de {@code size} candidats forme des morceaux d'au plus
+     * {@code size} candidats, chacun exécuté par le pipeline par lots ; un atome {@code (?s ?p ?o)}
+     * sans filtre forme des morceaux d'au plus {@code size} sujets de {@code spo}. Les autres
+     * requêtes, dont les requêtes agrégées, forment un seul morceau évalué par {@link #match(StarQuery)}.
+     */
+    QueryMorsels morsels(StarQuery q, int size) {
+        QueryMorsels whole = QueryMorsels.whole(() -> {
+            List<Substitution> results = new ArrayList<>();
+            match(q).forEachRemaining(results::add);
+            return results;
+        });
+        if (q.getCountVariable().isPresent() || !supportsRangeScans()) {
+            return whole;
+        }
+        long enough = q.getOrderBy().isEmpty() && !q.isDistinct() ? q.getLimit().orElse(Long.MAX_VALUE) : Long.MAX_VALUE;
+        RDFAtom atom = q.getRdfAtoms().get(0);
+        if (q.getRdfAtoms().size() == 1 && q.getFilters().isEmpty() && atom.getTripleSubject() instanceof Variable s
+                && atom.getTriplePredicate() instanceof Variable p && atom.getTripleObject() instanceof Variable o) {
+            if (spo.size() <= size) {
+                return whole;
+            }
+            int[] subjects = spo.keySet().stream().mapToInt(Integer::intValue).toArray();
+            List<Variable> columns = List.of(s, p, o);
+            return new QueryMorsels((subjects.length + size - 1) / size,
+                    m -> triples(subjects, m * size, Math.min(subjects.length, (m + 1) * size), columns),
+                    enough, rows -> finish(q, columns, rows));
+        }
+
+        Map<Variable, List<ValueRange>> ranges = ranges(q);
+        StarPlan plan = ranges == null ? null : planStar(q, ranges, QueryTrace.NOOP, new StarQueryEvent());
+        if (plan == null || plan.subjects().get(plan.driver()).size() <= size) {
+            return whole;
+        }
+        int[] candidates = plan.subjects().get(plan.driver()).stream().mapToInt(Integer::intValue).toArray();
+        List<Variable> columns = starColumns(q);
+        List<ValueRange> central = ranges.getOrDefault(columns.get(0), List.of());
+        return new QueryMorsels((candidates.length + size - 1) / size,
+                m -> BatchIterator.rows(pipeline(q, ranges, plan, new BatchOperator.Scan(candidates, m * size,
+                        Math.min(candidates.length, (m + 1) * size), central), null)),
+                enough, rows -> finish(q, columns, rows));
+    }
+
+    /**
+     * @return les triplets {@code (s, p, o)} des sujets {@code [from, to)}, dont les positions d'une
+     * même variable de {@code columns} ont le même indexe
+     */
+    private List<int[]> triples(int[] subjects, int from, int to, List<Variable> columns) {
+        boolean sp = columns.get(0).equals(columns.get(1));
+        boolean so = columns.get(0).equals(columns.get(2));
+        boolean po = columns.get(1).equals(columns.get(2));
+        List<int[]> rows = new ArrayList<>();
+        for (int k = from; k < to; k++) {
+            Map<Integer, Set<Integer>> predicates = spo.getOrDefault(subjects[k], Map.of());
+            for (var entry : predicates.entrySet()) {
+                for (int object : entry.getValue()) {
+                    int[] row = {subjects[k], entry.getKey(), object};
+                    if ((!sp || row[0] == row[1]) && (!so || row[0] == row[2]) && (!po || row[1] == row[2])) {
+                        rows.add(row);
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Trie, projette et décode les lignes d'indexes des morceaux d'une requête.
+     */
+    private List<Substitution> finish(StarQuery q, List<Variable> columns, List<int[]> rows) {
+        if (isOrdered(q)) {
+            rows = ValueOrder.sortRows(Projection.ordering(q), columns, rows, this::term);
+        }
+        return Projection.rows(q, columns, rows, this::term);
+    }
+
+    /**
+     * Évalue l'étoile par le plan compilé de sa forme, en mode compilé : l'étoile doit être sans
+     * filtre, de la forme décrite par {@link #isIndexedFilteredStar} sans être simple, et le store
+     * doit maintenir {@code pos} et {@code pso}, construites au besoin si elles sont différées.
+     *
+     * @return les réponses, ou {@code null} si l'étoile doit être interprétée
+     */
+    private List<Substitution> matchCompiled(StarQuery q, QueryTrace trace, StarQueryEvent event) {
+        StarPlanCompiler compiler = this.compiler;
+        if (compiler == null || !q.getFilters().isEmpty() || q.isSimple() || !isIndexedFilteredStar(q)
+                || !ensurePermutation(IndexPermutation.POS) || !ensurePermutation(IndexPermutation.PSO)) {
+            return null;
+        }
+        trace.start(Phase.PLAN);
+        List<RDFAtom> atoms = q.getRdfAtoms();
+        int[] predicates = new int[atoms.size()];
+        boolean[] constant = new boolean[atoms.size()];
+        int[] objects = new int[atoms.size()];
+        for (int i = 0; i < atoms.size(); i++) {
+            RDFAtom atom = atoms.get(i);
+            predicates[i] = lookup(atom.getTriplePredicate());
+            constant[i] = !atom.getTripleObject().isVariable();
+            objects[i] = constant[i] ? lookup(atom.getTripleObject()) : 0;
+        }
+        CompiledStar plan = compiler.plan(predicates, constant, event);
+        trace.stop(Phase.PLAN);
+        if (plan == null) {
+            return null;
+        }
+        if (event.isEnabled()) {
+            event.plan = "compilé " + Arrays.toString(predicates);
+        }
+
+        trace.start(Phase.JOIN);
+        List<int[]> rows = plan.evaluate(this, objects);
+        trace.stop(Phase.JOIN);
+        trace.rows(atoms, rows.size(), rows.size());
+        advisor.record(IndexPermutation.mask(false, true, false));
+
+        List<Variable> columns = starColumns(q);
+        if (isOrdered(q)) {
+            trace.start(Phase.ORDER);
+            rows = ValueOrder.sortRows(Projection.ordering(q), columns, rows, this::term);
+            trace.stop(Phase.ORDER);
+        }
+        trace.start(Phase.DECODE);
+        List<Substitution> results = Projection.rows(q, columns, rows, this::term);
+        trace.stop(Phase.DECODE);
+        return results;
+    }
+
+    /**
+     * @return les intervalles des filtres de la requête par variable, ou {@code null} si un filtre
+     * n'est satisfait par aucun indexe
+     */
+    private Map<Variable, List<ValueRange>> ranges(StarQuery q) {
+        Map<Variable, List<ValueRange>> ranges = new HashMap<>();
+        for (ValueFilter filter : q.getFilters()) {
+            ValueRange range = ValueRange.of(filter, this::lookup, this::term);
+            if (!range.isSatisfiable()) {
+                return null;
+            }
+            ranges.computeIfAbsent(filter.variable(), v -> new ArrayList<>()).add(range);
+        }
+        return ranges;
+    }
+
+    /**
+     * Étoile évaluée sur les indexes : les sujets qui la vérifient et, pour chacun, les objets
+     * de chaque atome à objet variable qui satisfont leurs intervalles.
+     *
+     * @param subject    la variable sujet commune aux atomes
+     * @param open       les atomes à objet variable
+     * @param candidates les sujets, dont seuls les {@code count} premiers comptent
+     * @param objects    pour chaque sujet, les objets de chaque atome de {@code open}
+     */
+    private record IndexedStar(Variable subject, List<RDFAtom> open, int[] candidates, int count, int[][][] objects) {
+
+        /**
+         * @return la variable de chaque colonne d'une ligne : le sujet, puis l'objet de chaque atome de open
+         */
+        List<Variable> columns() {
+            List<Variable> columns = new ArrayList<>(open.size() + 1);
+            columns.add(subject);
+            open.forEach(atom -> columns.add((Variable) atom.getTripleObject()));
+            return columns;
+        }
+    }
+
+    /**
+     * Plan d'une étoile évaluable sur les indexes.
+     *
+     * @param subjects pour chaque atome, les sujets qui le vérifient, ou {@code null} s'ils ne sont pas disponibles
+     * @param driver   l'atome dont l'ensemble de sujets, le plus petit, fournit les candidats
+     */
+    private record StarPlan(List<Set<Integer>> subjects, int driver) {
+    }
+
+    /**
+     * Planifie l'étoile sur les indexes, si elle a la forme décrite par {@link #isIndexedFilteredStar}.
+     * Chaque atome donne, quand il est disponible, l'ensemble des sujets qui le vérifient : par son
+     * objet constant, par les objets de son intervalle dans {@code pos[p]}, ou par les clés de
+     * {@code pso[p]} si cette permutation est maintenue. Le plus petit ensemble fournit les candidats,
+     * les autres les filtrent. La phase de plan, commencée par l'appelant, est terminée ici.
+     *
+     * @return le plan, ou {@code null} si l'étoile doit être évaluée par jointure des substitutions
+     */
+    private StarPlan planStar(StarQuery q, Map<Variable, List<ValueRange>> ranges, QueryTrace trace,
+                              StarQueryEvent event) {
+        List<RDFAtom> atoms = q.getRdfAtoms();
+        List<Set<Integer>> subjects = supportsRangeScans() && isIndexedFilteredStar(q) ? new ArrayList<>() : null;
+        for (int i = 0; subjects != null && i < atoms.size(); i++) {
+            RDFAtom atom = atoms.get(i);
+            Term object = atom.getTripleObject();
+            int p = lookup(atom.getTriplePredicate());
+            if (!object.isVariable()) {
+                subjects.add(centralValues(atom));
+            } else if (ranges.containsKey(object)) {
+                Set<Integer> inRange = subjectsInRange(p, ranges.get(object));
+                if (inRange == null) {
+                    subjects = null;
+                } else {
+                    subjects.add(inRange);
+                }
+            } else if (permutations.contains(IndexPermutation.PSO)) {
+                advisor.record(IndexPermutation.mask(false, true, false));
+                subjects.add(index(IndexPermutation.PSO).getOrDefault(p, Map.of()).keySet());
+            } else {
+                subjects.add(null);
+            }
+        }
+        int driver = -1;
+        for (int i = 0; subjects != null && i < atoms.size(); i++) {
+            if (subjects.get(i) != null && (driver < 0 || subjects.get(i).size() < subjects.get(driver).size())) {
+                driver = i;
+            }
+        }
+        trace.stop(Phase.PLAN);
+        if (driver < 0) {
+            return null;
+        }
+        if (event.isEnabled()) {
+            event.plan = atoms.get(driver) + "=" + subjects.get(driver).size()
+                    + (q.getFilters().isEmpty() ? "" : " (filtres : " + q.getFilters() + ")");
+        }
+        return new StarPlan(subjects, driver);
+    }
+
+    /**
+     * Évalue l'étoile sur les indexes, selon son {@link #planStar plan} : les candidats fournis par
+     * l'atome directeur sont filtrés par les autres atomes, puis les objets des atomes à objet
+     * variable sont lus pour chaque candidat. La phase de plan, commencée par l'appelant, est terminée ici.
+     *
+     * @return l'étoile évaluée, ou {@code null} si elle doit être évaluée par jointure des substitutions
+     */
+    private IndexedStar indexedStar(StarQuery q, Map<Variable, List<ValueRange>> ranges, QueryTrace trace,
+                                    StarQueryEvent event) {
+        StarPlan plan = planStar(q, ranges, trace, event);
+        if (plan == null) {
+            return null;
+        }
+        List<RDFAtom> atoms = q.getRdfAtoms();
+        List<Set<Integer>> subjects = plan.subjects();
+        int driver = plan.driver();
+
+        trace.start(Phase.INDEX_PROBE);
+        Set<Integer> driving = subjects.get(driver);
+        int[] candidates = new int[driving.size()];
+        int count = 0;
+        Variable subject = (Variable) atoms.get(0).getTripleSubject();
+        List<ValueRange> central = ranges.getOrDefault(subject, List.of());
+        for (int value : driving) {
+            if (count == candidates.length) { // l'ensemble a grandi pendant le parcours (store concurrent)
+                candidates = Arrays.copyOf(candidates, 2 * count + 1);
+            }
+            if (inRanges(value, central)) {
+                candidates[count++] = value;
+            }
+        }
+        trace.stop(Phase.INDEX_PROBE);
+        trace.rows(atoms.get(driver), driving.size(), count);
+        event.drivingRows = count;
+
+        trace.start(Phase.JOIN);
+        for (int i = 0; i < atoms.size() && count > 0; i++) {
+            Set<Integer> filter = subjects.get(i);
+            if (i == driver || filter == null) {
+                continue;
+            }
+            int kept = 0;
+            for (int k = 0; k < count; k++) {
+                if (filter.contains(candidates[k])) {
+                    candidates[kept++] = candidates[k];
+                }
+            }
+            trace.rows(atoms.get(i), count, kept);
+            count = kept;
+        }
+        // Objets des atomes à objet variable, restreints à leurs intervalles
+        List<RDFAtom> open = atoms.stream().filter(atom -> atom.getTripleObject().isVariable()).toList();
+        int[][][] objects = new int[count][][];
+        int[] triple = new int[3];
+        int kept = 0;
+        for (int k = 0; k < count; k++) {
+            int[][] values = new int[open.size()][];
+            boolean empty = false;
+            for (int j = 0; j < open.size() && !empty; j++) {
+                RDFAtom atom = open.get(j);
+                triple[0] = candidates[k];
+                triple[1] = lookup(atom.getTriplePredicate());
+                List<ValueRange> objectRanges = ranges.getOrDefault((Variable) atom.getTripleObject(), List.of());
+                values[j] = thirdValues(triple, 2).stream()
+                        .mapToInt(Integer::intValue)
+                        .filter(object -> inRanges(object, objectRanges))
+                        .toArray();
+                empty = values[j].length == 0;
+            }
+            if (!empty) {
+                candidates[kept] = candidates[k];
+                objects[kept++] = values;
+            }
+        }
+        if (!open.isEmpty()) {
+            trace.rows(open, count, kept);
+        }
+        trace.stop(Phase.JOIN);
+        return new IndexedStar(subject, open, candidates, kept, objects);
+    }
+
+    /**
+     * Évalue une requête agrégée sans construire de substitution pour ses réponses :
+     * <ul>
+     *     <li>un atome {@code (?x p ?o)} groupé au plus par l'une de ses variables est compté par les
+     *     tailles des feuilles de {@code pos[p]} ou {@code pso[p]} ;</li>
+     *     <li>une étoile évaluable sur les indexes est comptée par sujet candidat : le produit des
+     *     nombres d'objets des atomes non groupés, pour chaque combinaison des objets groupés ;</li>
+     *     <li>sinon, les réponses de l'étoile sont évaluées puis comptées.</li>
+     * </ul>
+     * Seule une réponse par groupe est décodée.
+     */
+    private List<Substitution> matchAggregate(StarQuery q, QueryTrace trace, StarQueryEvent event) {
+        GroupCounts counts = new GroupCounts();
+        trace.start(Phase.PLAN);
+        Map<Variable, List<ValueRange>> ranges = ranges(q);
+        if (ranges == null) {
+            trace.stop(Phase.PLAN);
+            return order(q, counts.answers(q, this::term), trace);
+        }
+        if (countSingleAtom(q, ranges, counts, trace, event)) {
+            return order(q, decodeCounts(q, counts, trace), trace);
+        }
+        IndexedStar star = indexedStar(q, ranges, trace, event);
+        if (star == null) {
+            List<Substitution> results = matchGeneric(q, trace, event);
+            results.removeIf(substitution -> !accepts(substitution, ranges));
+            return order(q, GroupCounts.count(q, results, this::lookup, this::term), trace);
+        }
+
+        trace.start(Phase.JOIN);
+        List<Variable> columns = star.columns();
+        int[] groupColumns = q.getGroupBy().stream().mapToInt(columns::indexOf).toArray();
+        boolean[] grouped = new boolean[columns.size()];
+        for (int column : groupColumns) {
+            grouped[column] = true;
+        }
+        int[] row = new int[columns.size()];
+        int[] group = new int[groupColumns.length];
+        for (int k = 0; k < star.count(); k++) {
+            int[][] objects = star.objects()[k];
+            long n = 1;
+            for (int j = 0; j < objects.length; j++) {
+                if (!grouped[j + 1]) {
+                    n *= objects[j].length;
+                }
+            }
+            row[0] = star.candidates()[k];
+            countGroups(objects, grouped, 0, row, groupColumns, group, n, counts);
+        }
+        trace.stop(Phase.JOIN);
+        return order(q, decodeCounts(q, counts, trace), trace);
+    }
+
+    /**
+     * Ajoute {@code n} réponses au groupe de chaque combinaison des objets groupés, à partir de la colonne {@code j + 1}.
+     */
+    private static void countGroups(int[][] objects, boolean[] grouped, int j, int[] row, int[] groupColumns,
+                                    int[] group, long n, GroupCounts counts) {
+        if (j == objects.length) {
+            for (int i = 0; i < groupColumns.length; i++) {
+                group[i] = row[groupColumns[i]];
+            }
+            counts.add(group, n);
+        } else if (!grouped[j + 1]) {
+            countGroups(objects, grouped, j + 1, row, groupColumns, group, n, counts);
+        } else {
+            for (int object : objects[j]) {
+                row[j + 1] = object;
+                countGroups(objects, grouped, j + 1, row, groupColumns, group, n, counts);
+            }
+        }
+    }
+
+    /**
+     * Compte une requête d'un seul atome {@code (?x p ?o)}, groupée au plus par l'une de ses variables,
+     * par les tailles des feuilles de la permutation qui a {@code p} puis la variable groupée pour préfixe :
+     * {@code pos} pour un groupement par l'objet ou sans groupement, {@code pso} pour un groupement par le sujet.
+     * Une feuille n'est parcourue que si la variable qu'elle contient est filtrée.
+     * La phase de plan, commencée par l'appelant, est terminée ici.
+     *
+     * @return faux si la requête n'a pas cette forme ou si la permutation n'est pas disponible
+     */
+    private boolean countSingleAtom(StarQuery q, Map<Variable, List<ValueRange>> ranges, GroupCounts counts,
+                                    QueryTrace trace, StarQueryEvent event) {
+        List<RDFAtom> atoms = q.getRdfAtoms();
+        RDFAtom atom = atoms.get(0);
+        Term subject = atom.getTripleSubject();
+        Term object = atom.getTripleObject();
+        List<Variable> groupBy = q.getGroupBy();
+        if (atoms.size() != 1 || !supportsRangeScans() || !subject.isVariable() || !object.isVariable()
+                || subject.equals(object) || atom.getTriplePredicate().isVariable() || groupBy.size() > 1) {
+            return false;
+        }
+        boolean bySubject = groupBy.contains(subject);
+        IndexPermutation permutation = bySubject ? IndexPermutation.PSO : IndexPermutation.POS;
+        if (!ensurePermutation(permutation)) {
+            return false;
+        }
+        advisor.record(IndexPermutation.mask(false, true, false));
+        trace.stop(Phase.PLAN);
+        if (event.isEnabled()) {
+            event.plan = "|" + permutation + "[" + atom.getTriplePredicate() + "]|";
+        }
+
+        trace.start(Phase.INDEX_PROBE);
+        List<ValueRange> keyRanges = ranges.getOrDefault(bySubject ? subject : object, List.of());
+        List<ValueRange> leafRanges = ranges.getOrDefault(bySubject ? object : subject, List.of());
+        int[] group = new int[groupBy.size()];
+        var level = index(permutation).getOrDefault(lookup(atom.getTriplePredicate()), Map.of());
+        level.forEach((key, leaf) -> {
+            if (!inRanges(key, keyRanges)) {
+                return;
+            }
+            long n = leafRanges.isEmpty() ? leaf.size() : leaf.stream().filter(id -> inRanges(id, leafRanges)).count();
+            if (group.length > 0) {
+                group[0] = key;
+            }
+            counts.add(group, n);
+        });
+        trace.stop(Phase.INDEX_PROBE);
+        trace.rows(atom, level.size(), counts.size());
+        event.drivingRows = counts.size();
+        return true;
+    }
+
+    private List<Substitution> decodeCounts(StarQuery q, GroupCounts counts, QueryTrace trace) {
+        trace.start(Phase.DECODE);
+        List<Substitution> results = counts.answers(q, this::term);
+        trace.stop(Phase.DECODE);
+        return results;
+    }
+
+    /**
+     * @return vrai si les réponses de la requête sont triées ou limitées
+     */
+    private static boolean isOrdered(StarQuery q) {
+        return !q.getOrderBy().isEmpty() || q.getLimit().isPresent();
+    }
+
+    /**
+     * Trie et limite des réponses déjà décodées, sur les indexes de leurs images.
+     */
+    private List<Substitution> order(StarQuery q, List<Substitution> results, QueryTrace trace) {
+        if (!isOrdered(q)) {
+            return results;
+        }
+        trace.start(Phase.ORDER);
+        List<Substitution> ordered = ValueOrder.sortAnswers(Projection.ordering(q), results, this::lookup, this::term);
+        trace.stop(Phase.ORDER);
+        return ordered;
+    }
+
+    /**
+     * Projette des réponses déjà décodées sur les variables réponses.
+     */
+    private List<Substitution> project(StarQuery q, List<Substitution> results, QueryTrace trace) {
+        trace.start(Phase.DECODE);
+        List<Substitution> projected = Projection.answers(q, results, this::lookup);
+        trace.stop(Phase.DECODE);
+        return projected;
+    }
+
+    /**
+     * Une étoile filtrée s'évalue sur les indexes si chaque atome a la même variable pour sujet,
+     * un prédicat constant et pour objet une constante ou une variable qui n'apparaît nulle part ailleurs.
+     * Avec un seul atome, cette variable n'est pas forcément la variable centrale de la requête.
+     */
+    private static boolean isIndexedFilteredStar(StarQuery q) {
+        Term subject = q.getRdfAtoms().get(0).getTripleSubject();
+        Set<Term> objects = new HashSet<>();
+        for (RDFAtom atom : q.getRdfAtoms()) {
+            Term object = atom.getTripleObject();
+            if (!subject.isVariable() || !atom.getTripleSubject().equals(subject) || atom.getTriplePredicate().isVariable()
+                    || object.equals(subject) || object.isVariable() && !objects.add(object)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return vrai si les filtres peuvent être évalués sur les indexes de ce store
+     */
+    boolean supportsRangeScans() {
+        return true;
+    }
+
+    /**
+     * Les sujets des objets de {@code pos[p]} qui satisfont tous les intervalles. Les objets de
+     * {@code pos[p]}, triés dans l'ordre de leurs valeurs au premier filtre sur {@code p} puis gardés
+     * par le noeud jusqu'au prochain changement de ses clés, sont délimités par recherche dichotomique.
+     *
+     * @return les sujets, ou {@code null} si {@code pos} n'est pas maintenue
+     */
+    private Set<Integer> subjectsInRange(int p, List<ValueRange> ranges) {
+        if (!ensurePermutation(IndexPermutation.POS)) {
+            return null;
+        }
+        advisor.record(IndexPermutation.mask(false, true, false));
+        Map<Integer, Set<Integer>> objects = index(IndexPermutation.POS).getOrDefault(p, Map.of());
+        Set<Integer> subjects = new HashSet<>();
+        if (!(objects instanceof Level<Set<Integer>> level)) {
+            // Noeud sans clés triées (voir ConcurrentRDFHexaStore) : parcours de toutes les clés
+            objects.forEach((object, leaf) -> {
+                if (inRanges(object, ranges)) {
+                    subjects.addAll(leaf);
+                }
+            });
+            return subjects;
+        }
+        int[] sorted = level.sortedKeys;
+        if (sorted == null) {
+            sorted = level.keySet().stream().mapToInt(Integer::intValue).toArray();
+            TermValue.sort(sorted, this::term);
+            level.sortedKeys = sorted;
+        }
+        int from = 0;
+        int to = sorted.length;
+        for (ValueRange range : ranges) {
+            from = Math.max(from, range.from(sorted));
+            to = Math.min(to, range.to(sorted));
+        }
+        for (int i = from; i < to; i++) {
+            if (inRanges(sorted[i], ranges)) {
+                subjects.addAll(level.get(sorted[i]));
+            }
+        }
+        return subjects;
+    }
+
+    static boolean inRanges(int id, List<ValueRange> ranges) {
+        for (ValueRange range : ranges) {
+            if (!range.contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return vrai si les images de la substitution satisfont les intervalles de leurs variables
+     */
+    private boolean accepts(Substitution substitution, Map<Variable, List<ValueRange>> ranges) {
+        for (var entry : ranges.entrySet()) {
+            if (!inRanges(lookup(substitution.createImageOf(entry.getKey())), entry.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return vrai si la variable centrale est le sujet de chaque atome
+     */
+    private static boolean isSubjectStar(StarQuery q) {
+        for (RDFAtom atom : q.getRdfAtoms()) {
+            if (!atom.getTripleSubject().equals(q.getCentralVariable())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Décode les candidats d'une étoile simple, projetés sur les variables réponses.
+     */
+    private List<Substitution> decode(StarQuery q, int[] candidates, int count, QueryTrace trace) {
+        trace.start(Phase.DECODE);
+        Variable central = q.getCentralVariable();
+        List<Substitution> results;
+        if (q.getAnswerVariables().size() == 1 && q.getAnswerVariables().contains(central)) {
+            results = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                results.add(new SubstitutionImpl(Map.of(central, term(candidates[i]))));
+            }
+        } else {
+            List<int[]> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                rows.add(new int[]{candidates[i]});
+            }
+            results = Projection.rows(q, List.of(central), rows, this::term);
+        }
+        trace.stop(Phase.DECODE);
+        return results;
+    }
+
+    /**
+     * Retourne les indexes que peut prendre l'unique variable d'un atome.
+     */
+    Set<Integer> centralValues(RDFAtom atom) {
+        Term[] terms = {atom.getTripleSubject(), atom.getTriplePredicate(), atom.getTripleObject()};
+        int free = terms[0].isVariable() ? 0 : terms[2].isVariable() ? 2 : 1;
+        int[] triple = new int[3];
+        for (int k = 0; k < 3; k++) {
+            if (k != free) {
+                triple[k] = lookup(terms[k]);
+            }
+        }
+        return thirdValues(triple, free);
+    }
+
+    /**
+     * Retourne les valeurs de la position {@code free} des triplets dont les deux autres positions
+     * valent celles de {@code triple}, via une permutation maintenue qui a ces deux positions pour
+     * préfixe, ou à défaut par un parcours de {@code spo}.
+     */
+    Set<Integer> thirdValues(int[] triple, int free) {
+        advisor.record(7 & ~(1 << free));
+        for (IndexPermutation permutation : permutations) {
+            if (permutation.third == free) {
+                return leaf(index(permutation), triple[permutation.first], triple[permutation.second]);
+            }
+        }
+        EnumSet<IndexPermutation> pending;
+        synchronized (builds) {
+            pending = EnumSet.copyOf(deferred);
+        }
+        for (IndexPermutation permutation : pending) {
+            if (permutation.third == free && ensurePermutation(permutation)) {
+                return leaf(index(permutation), triple[permutation.first], triple[permutation.second]);
+            }
+        }
+        Set<Integer> values = new HashSet<>();
+        if (free == 1) {
+            // (s, o) liés : parcours des prédicats du sujet
+            var predicates = spo.get(triple[0]);
+            if (predicates != null) {
+                predicates.forEach((predicate, objects) -> {
+                    if (objects.contains(triple[2])) {
+                        values.add(predicate);
+                    }
+                });
+            }
+        } else {
+            // (p, o) liés : parcours de tous les sujets
+            spo.forEach((subject, predicates) -> {
+                if (leaf(predicates, triple[1]).contains(triple[2])) {
+                    values.add(subject);
+                }
+            });
+        }
+        return values;
+    }
+
+    private static Set<Integer> leaf(Map<Integer, Set<Integer>> level, int b) {
+        var y = level.get(b);
+        return y == null ? Set.of() : y;
+    }
+
+    static Set<Integer> leaf(Map<Integer, Map<Integer, Set<Integer>>> indexes, int a, int b) {
+        var x = indexes.get(a);
+        if (x == null) {
+            return Set.of();
+        }
+        var y = x.get(b);
+        return y == null ? Set.of() : y;
+    }
+
+    /**
+     * Évalue une étoile quelconque par jointure des substitutions, atome par atome,
+     * en commençant par les atomes ayant le moins de variables.
+     */
+    private List<Substitution> matchGeneric(StarQuery q, QueryTrace trace, StarQueryEvent event) {
+        trace.start(Phase.PLAN);
+        List<RDFAtom> atoms = new ArrayList<>(q.getRdfAtoms());
+        atoms.sort(Comparator.comparingLong(atom -> Arrays.stream(atom.getTerms()).filter(Term::isVariable).count()));
+        trace.stop(Phase.PLAN);
+        if (event.isEnabled()) {
+            event.plan = atoms.stream().map(String::valueOf).collect(Collectors.joining(" > "));
+        }
+
+        trace.start(Phase.JOIN);
+        List<Map<Variable, Term>> bindings = List.of(Map.of());
+        for (RDFAtom atom : atoms) {
+            List<Map<Variable, Term>> next = new ArrayList<>();
+            for (Map<Variable, Term> binding : bindings) {
+                RDFAtom bound = applySubstitutionToAtom(atom, new SubstitutionImpl(binding));
+                List<Variable> variables = Arrays.stream(bound.getTerms())
+                        .filter(Term::isVariable)
+                        .map(Variable.class::cast)
+                        .distinct()
+                        .toList();
+                if (variables.isEmpty()) {
+                    if (contains(bound)) {
+                        next.add(binding);
+                    }
+                    continue;
+                }
+                for (Iterator<Substitution> it = match(bound); it.hasNext(); ) {
+                    Substitution sub = it.next();
+                    Map<Variable, Term> extended = new HashMap<>(binding);
+                    for (Variable variable : variables) {
+                        extended.put(variable, sub.createImageOf(variable));
+                    }
+                    next.add(extended);
+                }
+            }
+            trace.rows(atom, bindings.size(), next.size());
+            if (atom == atoms.get(0)) {
+                event.drivingRows = next.size();
+            }
+            bindings = next;
+        }
+        trace.stop(Phase.JOIN);
+
+        trace.start(Phase.DECODE);
+        List<Substitution> results = new ArrayList<>(bindings.size());
+        for (Map<Variable, Term> binding : bindings) {
+            results.add(new SubstitutionImpl(binding));
+        }
+        trace.stop(Phase.DECODE);
+        return results;
+    }
+
+    /**
+     * @return vrai si le triplet, sans variable, est présent dans le store
+     */
+    boolean contains(RDFAtom atom) {
+        advisor.record(7);
+        return leaf(spo, lookup(atom.getTripleSubject()), lookup(atom.getTriplePredicate()))
+                .contains(lookup(atom.getTripleObject()));
     }
 
     @Override
     public Collection<Atom> getAtoms() {
         var atoms = new ArrayList<Atom>((int) size());
-        for (var sI : spo.keySet()) {
-            for (var pI : spo.get(sI).keySet()) {
-                for (var oI : spo.get(sI).get(pI)) {
-                    atoms.add(new RDFAtom(term(sI), term(pI), term(oI)));
+        for (var subjectEntry : spo.entrySet()) {
+            for (var predicateEntry : subjectEntry.getValue().entrySet()) {
+                for (var oI : predicateEntry.getValue()) {
+                    atoms.add(new RDFAtom(term(subjectEntry.getKey()), term(predicateEntry.getKey()), term(oI)));
                 }
             }
         }
@@ -1,104 +1,33 @@
 package qengine.storage;
 
-import com.google.common.collect.Iterators;
 import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
 import fr.boreal.model.logicalElements.api.Variable;
 import fr.boreal.model.logicalElements.impl.SubstitutionImpl;
 import qengine.model.RDFAtom;
 
 import java.util.*;
-import java.util.function.BiFunction;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 import static java.util.Collections.emptyIterator;
 
+/**
+ * Chemins d'accès des huit formes de triplets, selon que le sujet, le prédicat et l'objet sont
+ * liés (LIT) ou non (VAR). Chaque forme est servie par les permutations dont les positions liées
+ * forment un préfixe : ses réponses sont alors exactement un intervalle de préfixe d'un index,
+ * lu sans parcourir d'autre clé. La première permutation de chaque forme est la préférée.
+ */
 public enum RDFMatcher {
 
-    VAR_LIT_LIT(
-            atom -> atom.getTripleSubject().isVariable() && !atom.getTriplePredicate().isVariable()
-                    && !atom.getTripleObject().isVariable(),
-            (store, atom) -> {
-                var results = store.pos.getOrDefault(store.index(atom.getTriplePredicate()), new HashMap<>())
-                        .getOrDefault(store.index(atom.getTripleObject()), new HashSet<>())
-                        .stream()
-                        .map(i -> (Substitution) new SubstitutionImpl(Map.of((Variable) atom.getTripleSubject(), store.dict.get(i))))
-                        .collect(Collectors.toSet());
-                return results.iterator();
-            }),
-
-    VAR_VAR_LIT(
-            atom -> atom.getTripleSubject().isVariable() && atom.getTriplePredicate().isVariable()
-                    && !atom.getTripleObject().isVariable(),
-            (store, atom) -> {
-                var results = store.ops.getOrDefault(store.index(atom.getTripleObject()), new HashMap<>())
-                        .entrySet().stream()
-                        .flatMap(entry -> entry.getValue().stream()
-                                .map(i -> (Substitution) new SubstitutionImpl(Map.of(
-                                        (Variable) atom.getTriplePredicate(), store.dict.get(entry.getKey()),
-                                        (Variable) atom.getTripleSubject(), store.dict.get(i)))))
-                        .collect(Collectors.toSet());
-                return results.iterator();
-            }),
-
-    VAR_VAR_VAR(
-            atom -> atom.getTripleSubject().isVariable() && atom.getTriplePredicate().isVariable()
-                    && atom.getTripleObject().isVariable(),
-            (store, atom) -> {
-                var results = store.spo.entrySet().stream()
-                        .flatMap(subjectEntry -> subjectEntry.getValue().entrySet().stream()
-                                .flatMap(predicateEntry -> predicateEntry.getValue().stream()
-                                        .map(objectId -> (Substitution) new SubstitutionImpl(Map.of(
-                                                (Variable) atom.getTripleSubject(), store.dict.get(subjectEntry.getKey()),
-                                                (Variable) atom.getTriplePredicate(), store.dict.get(predicateEntry.getKey()),
-                                                (Variable) atom.getTripleObject(), store.dict.get(objectId))))))
-                        .collect(Collectors.toSet());
-                return results.iterator();
-            }),
-
-    LIT_VAR_VAR(
-            atom -> !atom.getTripleSubject().isVariable() && atom.getTriplePredicate().isVariable()
-                    && atom.getTripleObject().isVariable(),
-            (store, atom) -> {
-                var results = store.spo.getOrDefault(store.index(atom.getTripleSubject()), new HashMap<>())
-                        .entrySet().stream()
-                        .flatMap(predicateEntry -> predicateEntry.getValue().stream()
-                                .map(objectId -> (Substitution) new SubstitutionImpl(Map.of(
-                                        (Variable) atom.getTriplePredicate(), store.dict.get(predicateEntry.getKey()),
-                                        (Variable) atom.getTripleObject(), store.dict.get(objectId)))))
-                        .collect(Collectors.toSet());
-                return results.iterator();
-            }),
-
-    LIT_LIT_VAR(
-            atom -> !atom.getTripleSubject().isVariable() && !atom.getTriplePredicate().isVariable()
-                    && atom.getTripleObject().isVariable(),
-            (store, atom) -> {
-                var results = store.spo.getOrDefault(store.index(atom.getTripleSubject()), new HashMap<>())
-                        .getOrDefault(store.index(atom.getTriplePredicate()), new HashSet<>())
-                        .stream()
-                        .map(objectId -> (Substitution) new SubstitutionImpl(Map.of(
-                                (Variable) atom.getTripleObject(), store.dict.get(objectId))))
-                        .collect(Collectors.toSet());
-                return results.iterator();
-            }),
-
-    LIT_VAR_LIT(
-            atom -> !atom.getTripleSubject().isVariable() && atom.getTriplePredicate().isVariable()
-                    && !atom.getTripleObject().isVariable(),
-            (store, atom) -> {
-                var results = store.spo.getOrDefault(store.index(atom.getTripleSubject()), new HashMap<>())
-                        .entrySet().stream()
-                        .filter(entry -> entry.getValue().contains(store.index(atom.getTripleObject())))
-                        .map(entry -> (Substitution) new SubstitutionImpl(Map.of(
-                                (Variable) atom.getTriplePredicate(), store.dict.get(entry.getKey()))))
-                        .collect(Collectors.toSet());
-                return results.iterator();
-            }),
-    LIT_LIT_LIT(
-            atom -> !atom.getTripleSubject().isVariable() && !atom.getTriplePredicate().isVariable()
-                    && !atom.getTripleObject().isVariable(),
-            (store, atom) -> emptyIterator());
+    VAR_LIT_LIT(false, true, true, IndexPermutation.POS, IndexPermutation.OPS),
+    VAR_VAR_LIT(false, false, true, IndexPermutation.OPS, IndexPermutation.OSP),
+    VAR_LIT_VAR(false, true, false, IndexPermutation.PSO, IndexPermutation.POS),
+    VAR_VAR_VAR(false, false, false, IndexPermutation.SPO, IndexPermutation.SOP, IndexPermutation.PSO,
+            IndexPermutation.POS, IndexPermutation.OSP, IndexPermutation.OPS),
+    LIT_VAR_VAR(true, false, false, IndexPermutation.SPO, IndexPermutation.SOP),
+    LIT_LIT_VAR(true, true, false, IndexPermutation.SPO, IndexPermutation.PSO),
+    LIT_VAR_LIT(true, false, true, IndexPermutation.SOP, IndexPermutation.OSP),
+    LIT_LIT_LIT(true, true, true, IndexPermutation.SPO, IndexPermutation.SOP, IndexPermutation.PSO,
+            IndexPermutation.POS, IndexPermutation.OSP, IndexPermutation.OPS);
 
     public static Optional<RDFMatcher> match(RDFAtom atom) {
         for (var matcher: RDFMatcher.values()) {
@@ -109,20 +38,122 @@ public enum RDFMatcher {
         return Optional.empty();
     }
 
-    private final Predicate<RDFAtom> predicate;
-    private final BiFunction<RDFHexaStore, RDFAtom, Iterator<Substitution>> extractor;
+    private final int boundMask;
+    private final List<IndexPermutation> permutations;
+
+    RDFMatcher(boolean s, boolean p, boolean o, IndexPermutation... permutations) {
+        this.boundMask = IndexPermutation.mask(s, p, o);
+        this.permutations = List.of(permutations);
+    }
 
-    RDFMatcher(Predicate<RDFAtom> predicate, BiFunction<RDFHexaStore, RDFAtom, Iterator<Substitution>> extractor) {
-        this.predicate = predicate;
-        this.extractor = extractor;
+    /**
+     * @return la permutation préférée de ce motif ; le store doit la maintenir pour l'utiliser
+     */
+    public IndexPermutation permutation() {
+        return permutations.get(0);
+    }
+
+    /**
+     * @return les permutations qui servent ce motif par un intervalle de préfixe, la préférée en premier
+     */
+    public List<IndexPermutation> permutations() {
+        return permutations;
     }
 
     public boolean matches(RDFAtom atom) {
-        return predicate.test(atom);
+        return IndexPermutation.mask(!atom.getTripleSubject().isVariable(), !atom.getTriplePredicate().isVariable(),
+                !atom.getTripleObject().isVariable()) == boundMask;
     }
 
+    /**
+     * Lit les réponses de l'atome par la première permutation de {@link #permutations()} que le
+     * store maintient, ou à défaut par sa permutation préférée si elle est différée. Sans l'une
+     * ni l'autre, l'atome est évalué par un parcours de {@code spo}.
+     */
     public Iterator<Substitution> substitution(RDFHexaStore hexaStore, RDFAtom atom) {
-        return extractor.apply(hexaStore, atom);
+        IndexPermutation permutation = hexaStore.accessPath(this);
+        return permutation != null ? substitution(hexaStore, atom, permutation) : hexaStore.scan(atom);
     }
-}
 
+    /**
+     * Lit les réponses de l'atome dans l'intervalle de préfixe d'une permutation. Un triplet
+     * sans variable a pour réponse la substitution vide s'il est présent.
+     *
+     * @param permutation une permutation de {@link #permutations()}, maintenue par le store ou
+     *                    différée, auquel cas elle est construite
+     */
+    public Iterator<Substitution> substitution(RDFHexaStore hexaStore, RDFAtom atom, IndexPermutation permutation) {
+        if (!permutations.contains(permutation)) {
+            throw new IllegalArgumentException("La permutation " + permutation + " ne sert pas le motif " + this + ".");
+        }
+        if (!hexaStore.ensurePermutation(permutation)) {
+            throw new IllegalArgumentException("Le store ne maintient pas la permutation " + permutation + ".");
+        }
+        Term[] terms = {atom.getTripleSubject(), atom.getTriplePredicate(), atom.getTripleObject()};
+        int[] triple = new int[3];
+        for (int k = 0; k < 3; k++) {
+            if (!terms[k].isVariable() && (triple[k] = hexaStore.lookup(terms[k])) == 0) {
+                return emptyIterator();
+            }
+        }
+        int first = permutation.first;
+        int second = permutation.second;
+        int third = permutation.third;
+        Map<Integer, Map<Integer, Set<Integer>>> index = hexaStore.index(permutation);
+        List<Substitution> results = new ArrayList<>();
+        switch (Integer.bitCount(boundMask)) {
+            case 3 -> {
+                if (RDFHexaStore.leaf(index, triple[first], triple[second]).contains(triple[third])) {
+                    results.add(new SubstitutionImpl());
+                }
+            }
+            case 2 -> {
+                for (int c : RDFHexaStore.leaf(index, triple[first], triple[second])) {
+                    triple[third] = c;
+                    bind(hexaStore, terms, triple, results);
+                }
+            }
+            case 1 -> {
+                for (var entry : index.getOrDefault(triple[first], Map.of()).entrySet()) {
+                    triple[second] = entry.getKey();
+                    for (int c : entry.getValue()) {
+                        triple[third] = c;
+                        bind(hexaStore, terms, triple, results);
+                    }
+                }
+            }
+            default -> {
+                for (var level : index.entrySet()) {
+                    triple[first] = level.getKey();
+                    for (var entry : level.getValue().entrySet()) {
+                        triple[second] = entry.getKey();
+                        for (int c : entry.getValue()) {
+                            triple[third] = c;
+                            bind(hexaStore, terms, triple, results);
+                        }
+                    }
+                }
+            }
+        }
+        return results.iterator();
+    }
+
+    /**
+     * Ajoute la substitution qui envoie les variables de l'atome sur le triplet, si une variable
+     * répétée y a partout la même image.
+     */
+    private static void bind(RDFHexaStore hexaStore, Term[] terms, int[] triple, List<Substitution> results) {
+        Map<Variable, Term> images = new HashMap<>(4);
+        for (int k = 0; k < 3; k++) {
+            if (terms[k] instanceof Variable variable) {
+                for (int j = 0; j < k; j++) {
+                    if (terms[j].equals(variable) && triple[j] != triple[k]) {
+                        return;
+                    }
+                }
+                images.putIfAbsent(variable, hexaStore.term(triple[k]));
+            }
+        }
+        results.add(new SubstitutionImpl(images));
+    }
+}
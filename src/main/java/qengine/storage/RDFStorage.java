@@ -22,6 +22,14 @@ public interface RDFStorage {
      */
     boolean add(RDFAtom a);
 
+    /**
+     * Retire un RDFAtom du store.
+     *
+     * @param a le RDFAtom à retirer
+     * @return true si le RDFAtom a été retiré, false s'il était absent
+     */
+    boolean remove(RDFAtom a);
+
     /**
      * @param a atom
      * @return un itérateur de substitutions correspondant aux match des atomes
@@ -32,7 +40,8 @@ public interface RDFStorage {
 
     /**
      * @param q star query
-     * @return an itérateur de subsitutions décrivrant les réponses à la requete
+     * @return an itérateur de subsitutions décrivrant les réponses à la requete, une par solution
+     *          projetée sur les variables réponses (sans doublon pour un {@code SELECT DISTINCT})
      */
     Iterator<Substitution> match(StarQuery q);
 
@@ -70,4 +79,14 @@ public interface RDFStorage {
     default boolean addAll(Collection<RDFAtom> atoms) {
         return this.addAll(atoms.stream());
     }
+
+    /**
+     * Retire des RDFAtom du store.
+     *
+     * @param atoms les RDFAtom à retirer
+     * @return true si au moins un RDFAtom a été retiré, false s'ils étaient tous absents
+     */
+    default boolean removeAll(Collection<RDFAtom> atoms) {
+        return atoms.stream().map(this::remove).reduce(Boolean::logicalOr).orElse(false);
+    }
 }
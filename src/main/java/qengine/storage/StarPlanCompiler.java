@@ -0,0 +1,139 @@
+package qengine.storage;
+
+import qengine.instrumentation.MetricsRegistry;
+import qengine.instrumentation.QueryCacheEvent;
+import qengine.instrumentation.StarQueryEvent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.util.*;
+
+/**
+ * Compilation des formes d'étoiles fréquentes en classes spécialisées.
+ * <p>
+ * Une forme est la liste des prédicats d'une étoile et, pour chaque atome, le fait que son objet
+ * soit constant ou variable : les objets constants restent des paramètres, pour que les requêtes
+ * préparées d'une même forme partagent leur plan. Une forme évaluée {@value #COMPILE_THRESHOLD}
+ * fois est compilée en définissant le bytecode de {@link CompiledStarTemplate} comme classe cachée,
+ * avec la forme pour données de classe. Les formes plus rares, et toutes les formes si la
+ * définition échoue, restent interprétées.
+ * <p>
+ * Les plans forment un cache LRU : chaque recherche, compilation et éviction émet un
+ * {@link QueryCacheEvent}.
+ * <p>
+ * Les indexes des prédicats sont ceux du dictionnaire d'un store : un compilateur n'est partagé
+ * qu'avec ses snapshots.
+ */
+final class StarPlanCompiler {
+
+    // Nombre d'évaluations d'une forme avant sa compilation
+    static final int COMPILE_THRESHOLD = 8;
+    // Nombre maximal de plans compilés conservés
+    static final int MAX_PLANS = 256;
+
+    // Bytecode du modèle, ou null s'il n'a pas pu être lu
+    private static final byte[] TEMPLATE = template();
+
+    private final Map<Shape, Integer> executions = new HashMap<>();
+    private final LinkedHashMap<Shape, CompiledStar> plans = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Shape, CompiledStar> eldest) {
+            if (size() <= MAX_PLANS) {
+                return false;
+            }
+            QueryCacheEvent.emit(QueryCacheEvent.EVICT, eldest.getKey(), MAX_PLANS);
+            return true;
+        }
+    };
+    private boolean failed = TEMPLATE == null;
+
+    private record Shape(int[] predicates, boolean[] constant) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Shape shape && Arrays.equals(predicates, shape.predicates)
+                    && Arrays.equals(constant, shape.constant);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(predicates) + Arrays.hashCode(constant);
+        }
+
+        /**
+         * @return les prédicats, suivis de {@code =} pour les atomes à objet constant
+         */
+        @Override
+        public String toString() {
+            StringJoiner joiner = new StringJoiner(", ", "[", "]");
+            for (int i = 0; i < predicates.length; i++) {
+                joiner.add(constant[i] ? predicates[i] + "=" : String.valueOf(predicates[i]));
+            }
+            return joiner.toString();
+        }
+    }
+
+    /**
+     * Compte une évaluation de la forme et retourne son plan compilé.
+     *
+     * @param predicates l'indexe du prédicat de chaque atome
+     * @param constant   vrai pour les atomes à objet constant
+     * @param event      l'événement de la requête, marqué si le plan est trouvé dans le cache
+     * @return le plan, ou {@code null} si la forme doit être interprétée
+     */
+    synchronized CompiledStar plan(int[] predicates, boolean[] constant, StarQueryEvent event) {
+        Shape shape = new Shape(predicates.clone(), constant.clone());
+        CompiledStar plan = plans.get(shape);
+        if (plan != null) {
+            event.cacheHit = true;
+            MetricsRegistry.increment(MetricsRegistry.Counter.CACHE_HITS);
+            QueryCacheEvent.emit(QueryCacheEvent.HIT, shape, plans.size());
+            return plan;
+        }
+        QueryCacheEvent.emit(QueryCacheEvent.MISS, shape, plans.size());
+        if (failed) {
+            return null;
+        }
+        if (executions.size() >= 4 * MAX_PLANS && !executions.containsKey(shape)) {
+            executions.clear(); // les formes rares ne s'accumulent pas
+        }
+        if (executions.merge(shape, 1, Integer::sum) < COMPILE_THRESHOLD) {
+            return null;
+        }
+        executions.remove(shape);
+        plan = compile(shape);
+        if (plan != null) {
+            plans.put(shape, plan);
+            QueryCacheEvent.emit(QueryCacheEvent.COMPILE, shape, plans.size());
+        }
+        return plan;
+    }
+
+    /**
+     * @return le nombre de plans compilés conservés
+     */
+    synchronized int size() {
+        return plans.size();
+    }
+
+    private CompiledStar compile(Shape shape) {
+        try {
+            Class<?> type = MethodHandles.lookup()
+                    .defineHiddenClassWithClassData(TEMPLATE, List.of(shape.predicates(), shape.constant()), true)
+                    .lookupClass();
+            return (CompiledStar) type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            failed = true;
+            return null;
+        }
+    }
+
+    private static byte[] template() {
+        try (InputStream in = CompiledStarTemplate.class.getResourceAsStream("CompiledStarTemplate.class")) {
+            return in == null ? null : in.readAllBytes();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package qengine.storage;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Liste d'adjacence par sujet : pour chaque sujet, le tableau trié de ses couples (prédicat, objet),
+ * codés {@code prédicat << 32 | objet}. Vérifier qu'un sujet a plusieurs couples revient alors à
+ * fusionner deux courts tableaux triés, sans lire un index par couple.
+ * <p>
+ * Les tableaux ne sont jamais modifiés en place : un ajout ou un retrait remplace le tableau du sujet.
+ * Cette classe n'est pas thread-safe.
+ */
+final class SubjectAdjacency {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final Map<Integer, long[]> pairs = new HashMap<>();
+
+    void add(int s, int p, int o) {
+        long pair = pack(p, o);
+        long[] current = pairs.getOrDefault(s, EMPTY);
+        int i = Arrays.binarySearch(current, pair);
+        if (i >= 0) {
+            return;
+        }
+        i = -i - 1;
+        long[] next = new long[current.length + 1];
+        System.arraycopy(current, 0, next, 0, i);
+        next[i] = pair;
+        System.arraycopy(current, i, next, i + 1, current.length - i);
+        pairs.put(s, next);
+    }
+
+    void remove(int s, int p, int o) {
+        long[] current = pairs.get(s);
+        int i = current == null ? -1 : Arrays.binarySearch(current, pack(p, o));
+        if (i < 0) {
+            return;
+        }
+        if (current.length == 1) {
+            pairs.remove(s);
+            return;
+        }
+        long[] next = new long[current.length - 1];
+        System.arraycopy(current, 0, next, 0, i);
+        System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+        pairs.put(s, next);
+    }
+
+    /**
+     * @param required des couples codés par {@link #pack}, triés
+     * @return vrai si le sujet a tous ces couples
+     */
+    boolean containsAll(int s, long[] required) {
+        long[] own = pairs.getOrDefault(s, EMPTY);
+        int i = 0;
+        for (long pair : required) {
+            while (i < own.length && own[i] < pair) {
+                i++;
+            }
+            if (i == own.length || own[i] != pair) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Les indexes sont positifs : l'ordre des couples codés est l'ordre lexicographique
+    static long pack(int p, int o) {
+        return (long) p << 32 | o;
+    }
+}
@@ -0,0 +1,89 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Term;
+import qengine.instrumentation.MetricsRegistry;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionnaire des termes du store, qui ne fait que croître : le terme d'indexe {@code i} est
+ * rangé une fois pour toutes à la position {@code i} d'un tableau découpé en blocs.
+ * <p>
+ * Les lectures ne prennent aucun verrou et peuvent se faire pendant des ajouts. Un terme est écrit
+ * dans son bloc avant que la taille, volatile, ne l'inclue, et son indexe n'est publié qu'ensuite :
+ * un lecteur qui obtient un indexe, par le dictionnaire ou par les index du store, trouve donc
+ * toujours son terme. Les ajouts sont sérialisés entre eux.
+ */
+final class TermDictionary {
+
+    // Taille d'un bloc du tableau des termes
+    private static final int BLOCK_BITS = 12;
+    private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+
+    private final Map<Term, Integer> ids = new ConcurrentHashMap<>();
+
+    // blocks[i >>> BLOCK_BITS][i & (BLOCK_SIZE - 1)] : le terme d'indexe i ; les blocs ne sont jamais remplacés
+    private volatile Term[][] blocks = new Term[16][];
+
+    // Nombre de termes publiés ; les indexes vont de 1 à size
+    private volatile int size;
+
+    /**
+     * @return l'indexe du terme, attribué au besoin
+     */
+    int index(Term term) {
+        Integer id = ids.get(term);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(term);
+            if (id != null) {
+                return id;
+            }
+            int next = size + 1;
+            int block = next >>> BLOCK_BITS;
+            Term[][] current = blocks;
+            if (block == current.length) {
+                current = Arrays.copyOf(current, 2 * current.length);
+                blocks = current;
+            }
+            if (current[block] == null) {
+                current[block] = new Term[BLOCK_SIZE];
+            }
+            current[block][next & (BLOCK_SIZE - 1)] = term;
+            size = next;
+            ids.put(term, next);
+            MetricsRegistry.increment(MetricsRegistry.Counter.DICTIONARY_SIZE);
+            return next;
+        }
+    }
+
+    /**
+     * @return l'indexe du terme, ou 0 s'il est inconnu
+     */
+    int lookup(Term term) {
+        Integer id = ids.get(term);
+        return id == null ? 0 : id;
+    }
+
+    /**
+     * @return le terme de l'indexe, ou null s'il n'est pas attribué
+     */
+    Term term(int index) {
+        // La lecture de size rend visible le terme écrit avant elle
+        if (index < 1 || index > size) {
+            return null;
+        }
+        return blocks[index >>> BLOCK_BITS][index & (BLOCK_SIZE - 1)];
+    }
+
+    /**
+     * @return le nombre de termes
+     */
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,136 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.api.Term;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * Valeur d'un terme, sur laquelle portent les filtres et les tris : un nombre, une date ou un
+ * booléen, ou à défaut le label du terme.
+ * <p>
+ * Les valeurs se comparent d'abord par type, dans l'ordre de {@link InlineTerms.Kind} puis les
+ * labels, et à type égal par valeur. Un littéral encodé par {@link InlineTerms} a sa valeur dans
+ * son indexe ; un littéral du dictionnaire a une valeur numérique s'il s'écrit comme un nombre
+ * décimal que l'encodage n'accepte pas, comme {@code -3}, {@code 2.5} ou un entier trop grand.
+ */
+final class TermValue implements Comparable<TermValue> {
+
+    // Rang des termes sans valeur, après les types de InlineTerms.Kind
+    private static final int LABEL = InlineTerms.Kind.values().length;
+
+    private final int rank;
+    // Valeur d'un littéral encodé
+    private final long value;
+    // Valeur d'un nombre du dictionnaire, ou null
+    private final BigDecimal number;
+    // Label d'un terme sans valeur, ou null
+    private final String label;
+
+    private TermValue(int rank, long value, BigDecimal number, String label) {
+        this.rank = rank;
+        this.value = value;
+        this.number = number;
+        this.label = label;
+    }
+
+    /**
+     * @param decoder le terme d'un indexe du store
+     * @return la valeur du terme de l'indexe, ou {@code null} si l'indexe n'a pas de terme
+     */
+    static TermValue of(int id, IntFunction<Term> decoder) {
+        if (InlineTerms.isInline(id)) {
+            return new TermValue(InlineTerms.kind(id).ordinal(), InlineTerms.value(id), null, null);
+        }
+        Term term = id == 0 ? null : decoder.apply(id);
+        return term == null ? null : of(term);
+    }
+
+    static TermValue of(Term term) {
+        int inline = InlineTerms.encode(term);
+        if (inline != 0) {
+            return new TermValue(InlineTerms.kind(inline).ordinal(), InlineTerms.value(inline), null, null);
+        }
+        if (term instanceof Literal<?> literal && literal.value() instanceof String value && isDecimal(value)) {
+            return new TermValue(InlineTerms.Kind.INTEGER.ordinal(), 0, new BigDecimal(value), null);
+        }
+        return new TermValue(LABEL, 0, null, term.label());
+    }
+
+    /**
+     * @return le type de la valeur, ou {@code null} si le terme n'a que son label
+     */
+    InlineTerms.Kind kind() {
+        return rank == LABEL ? null : InlineTerms.Kind.values()[rank];
+    }
+
+    /**
+     * @return vrai si les deux valeurs sont du même type, et donc comparables
+     */
+    boolean sameKind(TermValue other) {
+        return rank == other.rank;
+    }
+
+    /**
+     * @return la valeur, qui doit être un nombre, une date ou un booléen
+     */
+    BigDecimal decimal() {
+        return number != null ? number : BigDecimal.valueOf(value);
+    }
+
+    @Override
+    public int compareTo(TermValue other) {
+        if (rank != other.rank) {
+            return Integer.compare(rank, other.rank);
+        }
+        if (rank == LABEL) {
+            return label.compareTo(other.label);
+        }
+        if (number == null && other.number == null) {
+            return Long.compare(value, other.value);
+        }
+        return decimal().compareTo(other.decimal());
+    }
+
+    /**
+     * Trie des indexes dans l'ordre de leurs valeurs, en décodant chaque indexe une seule fois.
+     *
+     * @param decoder le terme d'un indexe du store
+     */
+    static void sort(int[] ids, IntFunction<Term> decoder) {
+        TermValue[] values = new TermValue[ids.length];
+        Integer[] order = new Integer[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            values[i] = of(ids[i], decoder);
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> values[a].compareTo(values[b]));
+        int[] sorted = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            sorted[i] = ids[order[i]];
+        }
+        System.arraycopy(sorted, 0, ids, 0, ids.length);
+    }
+
+    /**
+     * @return vrai si la chaîne est un nombre décimal : un signe facultatif, des chiffres et au plus un point
+     */
+    private static boolean isDecimal(String value) {
+        int start = value.startsWith("-") || value.startsWith("+") ? 1 : 0;
+        boolean digits = false;
+        boolean point = false;
+        for (int i = start; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                return false;
+            }
+        }
+        return digits;
+    }
+}
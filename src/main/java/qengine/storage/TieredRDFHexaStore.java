@@ -0,0 +1,543 @@
+package qengine.storage;
+
+import com.google.common.collect.Iterators;
+import fr.boreal.model.logicalElements.api.Atom;
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.impl.SubstitutionImpl;
+import qengine.instrumentation.MetricsRegistry;
+import qengine.model.RDFAtom;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Store à niveaux, dans l'esprit d'un LSM-tree :
+ * <ul>
+ *     <li>un delta modifiable (les index hérités de {@link RDFHexaStore}) reçoit les ajouts ;</li>
+ *     <li>quand il atteint {@code deltaThreshold} triplets, il est figé et un thread d'arrière-plan
+ *     le replie dans un {@link FrozenSegment} en tableaux triés ;</li>
+ *     <li>quand il y aurait plus de {@code maxSegments} segments, le repli fusionne aussi tous les
+ *     segments existants en un seul.</li>
+ * </ul>
+ * Les requêtes réunissent les réponses des trois niveaux, qui sont disjoints : un triplet
+ * n'est ajouté au delta que s'il est absent des niveaux figés.
+ * <p>
+ * Un triplet retiré d'un segment, immuable, y est marqué par un {@link Tombstones} du delta : ses
+ * lignes sont écartées à la lecture, et le repli suivant, qui fusionne alors tous les segments, les
+ * supprime. Retirer un triplet du delta en cours de repli attend la fin de ce repli.
+ * <p>
+ * La liste d'adjacence et les filtres d'existence, quand ils sont actifs, couvrent les trois niveaux.
+ * <p>
+ * Comme {@link RDFHexaStore}, cette classe n'est pas thread-safe ; seule la construction
+ * des segments se fait en arrière-plan, sur des données immuables. Le segment construit est
+ * installé par le thread appelant lors de l'opération suivante. Si le repli échoue, le delta
+ * figé reste interrogé ; l'échec est signalé par l'écriture suivante, qui relance le repli.
+ */
+public class TieredRDFHexaStore extends RDFHexaStore {
+
+    public static final int DEFAULT_DELTA_THRESHOLD = 1 << 16;
+    public static final int DEFAULT_MAX_SEGMENTS = 4;
+
+    private static final Executor MERGER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "qengine-segment-merge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int deltaThreshold;
+    private final int maxSegments;
+
+    // Delta figé en cours de repli, ou null
+    private RDFHexaStore frozenDelta;
+    private List<FrozenSegment> segments = List.of();
+    // Repli en cours : son résultat remplace mergedSegments et frozenDelta
+    private CompletableFuture<FrozenSegment> merge;
+    private List<FrozenSegment> mergedSegments;
+    // Cause de l'échec du dernier repli, pas encore signalée
+    private Throwable mergeFailure;
+
+    // Triplets retirés des segments depuis le gel du delta ; partagés avec un snapshot si tombstonesShared
+    private Tombstones tombstones = new Tombstones();
+    private boolean tombstonesShared;
+    // Triplets retirés gelés avec le delta : le repli en cours les écarte, ou null
+    private Tombstones frozenTombstones;
+
+    public TieredRDFHexaStore() {
+        this(DEFAULT_DELTA_THRESHOLD, DEFAULT_MAX_SEGMENTS);
+    }
+
+    /**
+     * @param deltaThreshold le nombre de triplets du delta qui déclenche son repli
+     * @param maxSegments    le nombre maximal de segments figés
+     */
+    public TieredRDFHexaStore(int deltaThreshold, int maxSegments) {
+        if (deltaThreshold < 1 || maxSegments < 1) {
+            throw new IllegalArgumentException("Le seuil du delta et le nombre de segments doivent être positifs.");
+        }
+        this.deltaThreshold = deltaThreshold;
+        this.maxSegments = maxSegments;
+        characteristicSets = null; // non tenus à jour par cette variante
+    }
+
+    /**
+     * Construit un snapshot en lecture seule de {@code source}, de delta {@code delta}.
+     */
+    private TieredRDFHexaStore(TieredRDFHexaStore source, RDFHexaStore delta) {
+        super(delta);
+        this.deltaThreshold = source.deltaThreshold;
+        this.maxSegments = source.maxSegments;
+        this.frozenDelta = source.frozenDelta;
+        this.segments = source.segments;
+        this.tombstones = source.tombstones;
+        this.frozenTombstones = source.frozenTombstones;
+        source.tombstonesShared = true;
+    }
+
+    @Override
+    public boolean addIndex(int s, int p, int o) {
+        checkWritable();
+        checkMerge();
+        if (frozenContains(s, p, o)) {
+            return false;
+        }
+        if (tombstones.contains(s, p, o)) {
+            // Le triplet est encore dans son segment : il suffit de lever son retrait
+            writableTombstones().remove(s, p, o);
+            trackAdded(s, p, o);
+            MetricsRegistry.increment(MetricsRegistry.Counter.TRIPLES_STORED);
+            return true;
+        }
+        if (!super.addIndex(s, p, o)) {
+            return false;
+        }
+        if (super.size() >= deltaThreshold && frozenDelta == null) {
+            startMerge();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean removeIndex(int s, int p, int o) {
+        checkWritable();
+        checkMerge();
+        if (frozenDelta != null && leaf(frozenDelta.spo, s, p).contains(o)) {
+            // Le delta figé est immuable : le triplet sera retiré de son segment
+            awaitMerge();
+        }
+        if (super.removeIndex(s, p, o)) {
+            return true;
+        }
+        if (!segmentsContain(s, p, o) || removed(s, p, o)) {
+            return false;
+        }
+        writableTombstones().add(s, p, o);
+        trackRemoved(s, p, o);
+        MetricsRegistry.add(MetricsRegistry.Counter.TRIPLES_STORED, -1);
+        return true;
+    }
+
+    /**
+     * Retourne une version figée du store : un snapshot du delta, avec le delta en cours de repli
+     * et les segments, qui sont immuables. Un repli terminé ensuite n'est installé que dans ce store.
+     */
+    @Override
+    public RDFHexaStore snapshot() {
+        if (isReadOnly()) {
+            return this;
+        }
+        installMerge();
+        return new TieredRDFHexaStore(this, super.snapshot());
+    }
+
+    @Override
+    public long size() {
+        long size = super.size();
+        if (frozenDelta != null) {
+            size += frozenDelta.size();
+        }
+        for (FrozenSegment segment : segments) {
+            size += segment.size();
+        }
+        size -= tombstones.size();
+        if (frozenTombstones != null) {
+            size -= frozenTombstones.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return le nombre de segments figés installés
+     */
+    public int segmentCount() {
+        installMerge();
+        return segments.size();
+    }
+
+    /**
+     * Replie tout le contenu du store en un unique segment et attend la fin du repli.
+     */
+    public void compact() {
+        checkWritable();
+        awaitMerge();
+        if (super.size() > 0 || segments.size() > 1 || !tombstones.isEmpty()) {
+            startMerge(true);
+            awaitMerge();
+        }
+    }
+
+    /**
+     * Attend la fin du repli en cours, s'il y en a un, et installe son segment.
+     *
+     * @throws IllegalStateException si le repli a échoué ; il est alors relancé
+     */
+    public void awaitMerge() {
+        if (merge != null) {
+            try {
+                merge.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                // Signalé par checkMerge
+            }
+        }
+        checkMerge();
+    }
+
+    private void startMerge() {
+        startMerge(segments.size() + 1 > maxSegments);
+    }
+
+    /**
+     * Fige le delta et lance son repli en arrière-plan.
+     *
+     * @param all vrai pour fusionner aussi tous les segments existants
+     */
+    private void startMerge(boolean all) {
+        frozenDelta = super.snapshot();
+        detachIndexes();
+        // Les triplets retirés ne sont supprimés que si tous les segments sont fusionnés
+        mergedSegments = all || !tombstones.isEmpty() ? segments : List.of();
+        frozenTombstones = tombstones;
+        tombstones = new Tombstones();
+        tombstonesShared = false;
+        launchMerge();
+    }
+
+    /**
+     * Lance en arrière-plan le repli du delta figé et des segments à fusionner.
+     */
+    private void launchMerge() {
+        RDFHexaStore delta = frozenDelta;
+        List<FrozenSegment> inputs = mergedSegments;
+        Tombstones removed = frozenTombstones;
+        merge = CompletableFuture.supplyAsync(() -> fold(delta, inputs, removed), MERGER);
+    }
+
+    /**
+     * Construit le segment d'un repli ; appelée par le thread d'arrière-plan.
+     */
+    FrozenSegment fold(RDFHexaStore delta, List<FrozenSegment> inputs, Tombstones removed) {
+        return FrozenSegment.build(delta, inputs, removed);
+    }
+
+    /**
+     * Installe le repli terminé, ou retient la cause de son échec.
+     */
+    private void installMerge() {
+        if (merge == null || !merge.isDone()) {
+            return;
+        }
+        if (merge.isCompletedExceptionally()) {
+            try {
+                merge.join();
+            } catch (CompletionException e) {
+                mergeFailure = e.getCause();
+            }
+            merge = null;
+            return;
+        }
+        List<FrozenSegment> installed = new ArrayList<>(segments.size() + 1);
+        for (FrozenSegment segment : segments) {
+            if (!mergedSegments.contains(segment)) {
+                installed.add(segment);
+            }
+        }
+        installed.add(merge.join());
+        segments = List.copyOf(installed);
+        frozenDelta = null;
+        merge = null;
+        mergedSegments = null;
+        frozenTombstones = null;
+    }
+
+    /**
+     * Signale l'échec du dernier repli et le relance sur les mêmes données figées.
+     *
+     * @throws IllegalStateException si le dernier repli a échoué
+     */
+    private void checkMerge() {
+        installMerge();
+        if (mergeFailure != null) {
+            Throwable failure = mergeFailure;
+            mergeFailure = null;
+            launchMerge();
+            throw new IllegalStateException("Le repli du delta a échoué ; il est relancé.", failure);
+        }
+    }
+
+    private Tombstones writableTombstones() {
+        if (tombstonesShared) {
+            tombstones = tombstones.copy();
+            tombstonesShared = false;
+        }
+        return tombstones;
+    }
+
+    /**
+     * @return vrai si le triplet, figé dans un segment, en a été retiré
+     */
+    private boolean removed(int s, int p, int o) {
+        return tombstones.contains(s, p, o) || frozenTombstones != null && frozenTombstones.contains(s, p, o);
+    }
+
+    private boolean hasRemovals() {
+        return !tombstones.isEmpty() || frozenTombstones != null && !frozenTombstones.isEmpty();
+    }
+
+    /**
+     * @return vrai si le triplet est dans un segment, qu'il en ait été retiré ou non
+     */
+    private boolean segmentsContain(int s, int p, int o) {
+        for (FrozenSegment segment : segments) {
+            if (segment.contains(s, p, o)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean frozenContains(int s, int p, int o) {
+        if (frozenDelta != null && leaf(frozenDelta.spo, s, p).contains(o)) {
+            return true;
+        }
+        return segmentsContain(s, p, o) && !removed(s, p, o);
+    }
+
+    /**
+     * @param values   les valeurs d'un segment à la position {@code position} des triplets
+     * @param triple   les autres positions des triplets
+     * @param position la position des valeurs dans les triplets
+     * @return les valeurs des triplets qui n'ont pas été retirés
+     */
+    private Set<Integer> live(Set<Integer> values, int[] triple, int position) {
+        if (!hasRemovals() || values.isEmpty()) {
+            return values;
+        }
+        int[] current = triple.clone();
+        Set<Integer> live = new HashSet<>();
+        for (int value : values) {
+            current[position] = value;
+            if (!removed(current[0], current[1], current[2])) {
+                live.add(value);
+            }
+        }
+        return live;
+    }
+
+    /**
+     * Parcourt les triplets d'un segment qui n'ont pas été retirés.
+     */
+    private void scanLive(FrozenSegment segment, int[] bound, Consumer<int[]> action) {
+        if (!hasRemovals()) {
+            segment.scan(bound, action);
+            return;
+        }
+        segment.scan(bound, triple -> {
+            if (!removed(triple[0], triple[1], triple[2])) {
+                action.accept(triple);
+            }
+        });
+    }
+
+    @Override
+    void forEachTriple(Consumer<int[]> action) {
+        installMerge();
+        super.forEachTriple(action);
+        if (frozenDelta != null) {
+            frozenDelta.forEachTriple(action);
+        }
+        for (FrozenSegment segment : segments) {
+            scanLive(segment, new int[3], action);
+        }
+    }
+
+    @Override
+    Set<Integer> posSubjects(int p, int o) {
+        Set<Integer> delta = super.posSubjects(p, o);
+        if (delta == null || frozenDelta == null && segments.isEmpty()) {
+            return delta;
+        }
+        List<Set<Integer>> parts = new ArrayList<>(segments.size() + 2);
+        parts.add(delta);
+        if (frozenDelta != null) {
+            Set<Integer> frozen = frozenDelta.posSubjects(p, o);
+            if (frozen == null) {
+                return null;
+            }
+            parts.add(frozen);
+        }
+        for (FrozenSegment segment : segments) {
+            parts.add(live(segment.values(IndexPermutation.POS, p, o), new int[]{0, p, o}, 0));
+        }
+        parts.removeIf(Set::isEmpty);
+        return parts.size() == 1 ? parts.get(0) : new DisjointUnion(parts);
+    }
+
+    @Override
+    Set<Integer> centralValues(RDFAtom atom) {
+        installMerge();
+        List<Set<Integer>> parts = new ArrayList<>(segments.size() + 2);
+        parts.add(super.centralValues(atom));
+        if (frozenDelta != null) {
+            parts.add(frozenDelta.centralValues(atom));
+        }
+        if (!segments.isEmpty()) {
+            Term s = atom.getTripleSubject();
+            Term p = atom.getTriplePredicate();
+            Term o = atom.getTripleObject();
+            for (FrozenSegment segment : segments) {
+                if (s.isVariable()) {
+                    int[] triple = {0, lookup(p), lookup(o)};
+                    parts.add(live(segment.values(IndexPermutation.POS, triple[1], triple[2]), triple, 0));
+                } else if (o.isVariable()) {
+                    int[] triple = {lookup(s), lookup(p), 0};
+                    parts.add(live(segment.values(IndexPermutation.SPO, triple[0], triple[1]), triple, 2));
+                } else {
+                    int[] triple = {lookup(s), 0, lookup(o)};
+                    parts.add(live(segment.values(IndexPermutation.SOP, triple[0], triple[2]), triple, 1));
+                }
+            }
+        }
+        parts.removeIf(Set::isEmpty);
+        return parts.size() == 1 ? parts.get(0) : new DisjointUnion(parts);
+    }
+
+    /**
+     * Les indexes du delta ne contiennent qu'une partie des triplets : les étoiles filtrées
+     * sont évaluées par {@link #match(RDFAtom)} puis filtrées.
+     */
+    @Override
+    boolean supportsRangeScans() {
+        return false;
+    }
+
+    @Override
+    boolean contains(RDFAtom atom) {
+        installMerge();
+        int s = lookup(atom.getTripleSubject());
+        int p = lookup(atom.getTriplePredicate());
+        int o = lookup(atom.getTripleObject());
+        return leaf(spo, s, p).contains(o) || frozenContains(s, p, o);
+    }
+
+    @Override
+    public Iterator<Substitution> match(RDFAtom atom) {
+        installMerge();
+        Iterator<Substitution> delta = super.match(atom);
+        if (frozenDelta == null && segments.isEmpty()) {
+            return delta;
+        }
+        List<Iterator<Substitution>> parts = new ArrayList<>();
+        parts.add(delta);
+        if (frozenDelta != null) {
+            parts.add(frozenDelta.match(atom));
+        }
+
+        // Positions liées et variables de l'atome
+        Term[] terms = {atom.getTripleSubject(), atom.getTriplePredicate(), atom.getTripleObject()};
+        int[] bound = new int[3];
+        for (int k = 0; k < 3; k++) {
+            if (!terms[k].isVariable()) {
+                bound[k] = lookup(terms[k]);
+                if (bound[k] == 0) {
+                    return delta;
+                }
+            }
+        }
+        for (FrozenSegment segment : segments) {
+            List<Substitution> results = new ArrayList<>();
+            scanLive(segment, bound, triple -> {
+                Map<Variable, Term> images = new HashMap<>();
+                for (int k = 0; k < 3; k++) {
+                    if (terms[k] instanceof Variable variable) {
+                        Term image = term(triple[k]);
+                        if (images.putIfAbsent(variable, image) != null && !images.get(variable).equals(image)) {
+                            return; // même variable liée à deux termes différents
+                        }
+                    }
+                }
+                results.add(new SubstitutionImpl(images));
+            });
+            parts.add(results.iterator());
+        }
+        return Iterators.concat(parts.iterator());
+    }
+
+    @Override
+    public Collection<Atom> getAtoms() {
+        installMerge();
+        List<Atom> atoms = new ArrayList<>(super.getAtoms());
+        if (frozenDelta != null) {
+            atoms.addAll(frozenDelta.getAtoms());
+        }
+        for (FrozenSegment segment : segments) {
+            scanLive(segment, new int[3], triple -> atoms.add(new RDFAtom(term(triple[0]), term(triple[1]), term(triple[2]))));
+        }
+        return atoms;
+    }
+
+    /**
+     * Réunion d'ensembles disjoints, sans copie.
+     */
+    private static final class DisjointUnion extends AbstractSet<Integer> {
+        private final List<Set<Integer>> parts;
+        private final int size;
+
+        DisjointUnion(List<Set<Integer>> parts) {
+            this.parts = parts;
+            int total = 0;
+            for (Set<Integer> part : parts) {
+                total += part.size();
+            }
+            this.size = total;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            for (Set<Integer> part : parts) {
+                if (part.contains(o)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            return Iterators.concat(Iterators.transform(parts.iterator(), Set::iterator));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
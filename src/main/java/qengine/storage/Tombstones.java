@@ -0,0 +1,68 @@
+package qengine.storage;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Triplets retirés d'un {@link TieredRDFHexaStore} alors qu'ils étaient figés dans un segment :
+ * les segments étant immuables, leurs lignes sont écartées à la lecture, jusqu'au repli qui les
+ * supprime. Cette classe n'est pas thread-safe.
+ */
+final class Tombstones {
+
+    // sujet -> prédicat -> objets
+    private final Map<Integer, Map<Integer, Set<Integer>>> triples = new HashMap<>();
+    private int size;
+
+    boolean contains(int s, int p, int o) {
+        return RDFHexaStore.leaf(triples, s, p).contains(o);
+    }
+
+    /**
+     * @return vrai si le triplet n'était pas déjà retiré
+     */
+    boolean add(int s, int p, int o) {
+        if (!triples.computeIfAbsent(s, k -> new HashMap<>()).computeIfAbsent(p, k -> new HashSet<>()).add(o)) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * @return vrai si le triplet était retiré
+     */
+    boolean remove(int s, int p, int o) {
+        Map<Integer, Set<Integer>> predicates = triples.get(s);
+        Set<Integer> objects = predicates == null ? null : predicates.get(p);
+        if (objects == null || !objects.remove(o)) {
+            return false;
+        }
+        if (objects.isEmpty()) {
+            predicates.remove(p);
+            if (predicates.isEmpty()) {
+                triples.remove(s);
+            }
+        }
+        size--;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    Tombstones copy() {
+        Tombstones copy = new Tombstones();
+        triples.forEach((s, predicates) -> predicates.forEach((p, objects) ->
+                copy.triples.computeIfAbsent(s, k -> new HashMap<>()).put(p, new HashSet<>(objects))));
+        copy.size = size;
+        return copy;
+    }
+}
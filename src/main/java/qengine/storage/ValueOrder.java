@@ -0,0 +1,156 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import qengine.model.StarQuery;
+
+import java.util.*;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Ordre total des valeurs, évalué sur les indexes d'un store : les termes se comparent par leur
+ * {@link TermValue valeur}, par type puis par valeur, et par label s'ils n'ont pas de valeur.
+ * Chaque indexe trié est décodé une seule fois, avant le tri ; la valeur d'un littéral encodé
+ * par {@link InlineTerms} se lit dans son indexe, sans décodage.
+ * <p>
+ * Avec une limite, seules les {@code limit} premières valeurs sont gardées, dans un tas borné.
+ */
+final class ValueOrder {
+
+    private final IntFunction<Term> decoder;
+
+    /**
+     * @param decoder le terme d'un indexe du store
+     */
+    ValueOrder(IntFunction<Term> decoder) {
+        this.decoder = decoder;
+    }
+
+    /**
+     * Ligne à trier, avec les valeurs de ses clés.
+     */
+    private record Keyed<T>(TermValue[] keys, T row) {
+    }
+
+    /**
+     * @param ascending le sens de chaque clé
+     * @return l'ordre des lignes selon les valeurs de leurs clés
+     */
+    private static <T> Comparator<Keyed<T>> order(boolean[] ascending) {
+        return (a, b) -> {
+            for (int k = 0; k < ascending.length; k++) {
+                int comparison = a.keys[k].compareTo(b.keys[k]);
+                if (comparison != 0) {
+                    return ascending[k] ? comparison : -comparison;
+                }
+            }
+            return 0;
+        };
+    }
+
+    /**
+     * Trie en place les {@code count} premiers indexes et ne garde que les {@code limit} premiers.
+     *
+     * @param limit le nombre maximal d'indexes gardés, ou une valeur négative pour tous les garder
+     * @return le nombre d'indexes gardés, en tête du tableau
+     */
+    int sort(int[] ids, int count, boolean ascending, long limit) {
+        List<Keyed<Integer>> keyed = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keyed.add(new Keyed<>(new TermValue[]{TermValue.of(ids[i], decoder)}, ids[i]));
+        }
+        List<Keyed<Integer>> sorted = sort(keyed, order(new boolean[]{ascending}), limit);
+        for (int i = 0; i < sorted.size(); i++) {
+            ids[i] = sorted.get(i).row();
+        }
+        return sorted.size();
+    }
+
+    /**
+     * Trie les lignes et ne garde que les {@code limit} premières.
+     *
+     * @param limit le nombre maximal de lignes gardées, ou une valeur négative pour toutes les garder
+     * @return les lignes gardées, triées
+     */
+    static <T> List<T> sort(List<T> rows, Comparator<T> order, long limit) {
+        if (limit < 0 || limit >= rows.size()) {
+            List<T> sorted = new ArrayList<>(rows);
+            sorted.sort(order);
+            return sorted;
+        }
+        PriorityQueue<T> heap = new PriorityQueue<>((int) limit + 1, order.reversed());
+        for (T row : rows) {
+            if (heap.size() < limit) {
+                heap.add(row);
+            } else if (limit > 0 && order.compare(row, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(row);
+            }
+        }
+        List<T> sorted = new ArrayList<>(heap);
+        sorted.sort(order);
+        return sorted;
+    }
+
+    /**
+     * Trie et limite des lignes d'indexes selon l'{@code ORDER BY} et le {@code LIMIT} de la requête ;
+     * seules les clés de tri de chaque ligne sont décodées, une fois.
+     *
+     * @param columns la variable de chaque colonne des lignes
+     * @param decoder le terme d'un indexe du store
+     */
+    static List<int[]> sortRows(StarQuery q, List<Variable> columns, List<int[]> rows, IntFunction<Term> decoder) {
+        long limit = q.getLimit().orElse(-1);
+        if (q.getOrderBy().isEmpty()) {
+            return limit >= 0 && limit < rows.size() ? rows.subList(0, (int) limit) : rows;
+        }
+        int[] keys = new int[q.getOrderBy().size()];
+        boolean[] ascending = new boolean[keys.length];
+        for (int k = 0; k < keys.length; k++) {
+            keys[k] = columns.indexOf(q.getOrderBy().get(k).variable());
+            ascending[k] = q.getOrderBy().get(k).ascending();
+        }
+        List<Keyed<int[]>> keyed = new ArrayList<>(rows.size());
+        for (int[] row : rows) {
+            TermValue[] values = new TermValue[keys.length];
+            for (int k = 0; k < keys.length; k++) {
+                values[k] = TermValue.of(row[keys[k]], decoder);
+            }
+            keyed.add(new Keyed<>(values, row));
+        }
+        List<int[]> sorted = new ArrayList<>();
+        for (Keyed<int[]> row : sort(keyed, order(ascending), limit)) {
+            sorted.add(row.row());
+        }
+        return sorted;
+    }
+
+    /**
+     * Trie et limite des réponses déjà décodées, sur les indexes des images de leurs clés.
+     *
+     * @param lookup  l'indexe d'un terme du store
+     * @param decoder le terme d'un indexe du store
+     */
+    static List<Substitution> sortAnswers(StarQuery q, List<Substitution> answers, ToIntFunction<Term> lookup,
+                                          IntFunction<Term> decoder) {
+        List<Variable> columns = new ArrayList<>();
+        q.getOrderBy().forEach(key -> columns.add(key.variable()));
+        // Chaque ligne : les indexes des clés, puis le rang de la réponse
+        List<int[]> rows = new ArrayList<>(answers.size());
+        for (int i = 0; i < answers.size(); i++) {
+            int[] row = new int[columns.size() + 1];
+            for (int c = 0; c < columns.size(); c++) {
+                row[c] = lookup.applyAsInt(answers.get(i).createImageOf(columns.get(c)));
+            }
+            row[columns.size()] = i;
+            rows.add(row);
+        }
+        List<Substitution> sorted = new ArrayList<>();
+        for (int[] row : sortRows(q, columns, rows, decoder)) {
+            sorted.add(answers.get(row[columns.size()]));
+        }
+        return sorted;
+    }
+}
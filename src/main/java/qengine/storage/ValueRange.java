@@ -0,0 +1,168 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Term;
+import qengine.model.ValueFilter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Traduction d'un {@link ValueFilter} en intervalle de {@link TermValue valeurs}.
+ * <p>
+ * Le filtre compare la valeur d'un terme à celle de la constante : un nombre, une date ou un
+ * booléen, ou à défaut un label. Une valeur d'un autre type ne le satisfait pas. Les indexes
+ * encodés par {@link InlineTerms} qui le satisfont forment un intervalle d'entiers : ils se
+ * vérifient par deux comparaisons, sans décoder de terme. Seuls les termes du dictionnaire qui
+ * peuvent avoir le type de la constante, les nombres non encodés et les labels, sont décodés.
+ * <p>
+ * Dans l'ordre des valeurs, les termes qui satisfont le filtre sont consécutifs : {@link #from}
+ * et {@link #to} les délimitent dans un tableau trié.
+ */
+final class ValueRange {
+
+    private final ValueFilter.Operator operator;
+    private final TermValue constant;
+    // Indexes encodés du type de la constante qui satisfont le filtre, éventuellement vide (low > high)
+    private final int low;
+    private final int high;
+    // Vrai si des termes du dictionnaire peuvent satisfaire le filtre
+    private final boolean dictionary;
+    // Vrai si le filtre est une égalité d'indexes, entre low et high
+    private final boolean exact;
+    private final IntFunction<Term> decoder;
+
+    private ValueRange(ValueFilter.Operator operator, TermValue constant, int low, int high, boolean dictionary,
+                       boolean exact, IntFunction<Term> decoder) {
+        this.operator = operator;
+        this.constant = constant;
+        this.low = low;
+        this.high = high;
+        this.dictionary = dictionary;
+        this.exact = exact;
+        this.decoder = decoder;
+    }
+
+    /**
+     * @param lookup  l'indexe d'un terme dans le store, ou 0 s'il est inconnu
+     * @param decoder le terme d'un indexe du store
+     */
+    static ValueRange of(ValueFilter filter, ToIntFunction<Term> lookup, IntFunction<Term> decoder) {
+        ValueFilter.Operator operator = filter.operator();
+        TermValue constant = TermValue.of(filter.constant());
+        InlineTerms.Kind kind = constant.kind();
+        if (kind == null) {
+            if (operator == ValueFilter.Operator.EQ) {
+                // Un label n'est égal qu'à son propre terme
+                int id = lookup.applyAsInt(filter.constant());
+                return id == 0 ? new ValueRange(operator, constant, 1, 0, false, true, decoder)
+                        : new ValueRange(operator, constant, id, id, false, true, decoder);
+            }
+            return new ValueRange(operator, constant, 1, 0, true, false, decoder);
+        }
+        // Bornes entières de l'intervalle, les valeurs encodées étant entières ; vide pour une égalité à 2.5
+        BigDecimal value = constant.decimal();
+        long floor = clamp(value.setScale(0, RoundingMode.FLOOR));
+        long ceiling = clamp(value.setScale(0, RoundingMode.CEILING));
+        long min = InlineTerms.value(InlineTerms.first(kind));
+        long max = InlineTerms.value(InlineTerms.last(kind));
+        long from = switch (operator) {
+            case LT, LE -> min;
+            case EQ, GE -> ceiling;
+            case GT -> floor + 1;
+        };
+        long to = switch (operator) {
+            case LT -> ceiling - 1;
+            case LE, EQ -> floor;
+            case GE, GT -> max;
+        };
+        int first = InlineTerms.first(kind);
+        int low = (int) (first + Math.min(Math.max(from, min), max + 1) - min);
+        int high = (int) (first + Math.min(Math.max(to, min - 1), max) - min);
+        return new ValueRange(operator, constant, low, high, kind == InlineTerms.Kind.INTEGER, false, decoder);
+    }
+
+    /**
+     * @return la valeur bornée à un intervalle qui contient toutes les valeurs encodables
+     */
+    private static long clamp(BigDecimal value) {
+        BigDecimal bound = BigDecimal.valueOf(1L << 40);
+        return value.max(bound.negate()).min(bound).longValue();
+    }
+
+    /**
+     * @return vrai si l'indexe satisfait le filtre
+     */
+    boolean contains(int id) {
+        if (exact || InlineTerms.isInline(id)) {
+            return id >= low && id <= high;
+        }
+        return dictionary && position(id) == 0;
+    }
+
+    /**
+     * @return faux si aucun indexe ne satisfait le filtre
+     */
+    boolean isSatisfiable() {
+        return dictionary || low <= high;
+    }
+
+    /**
+     * @return la position de la valeur de l'indexe par rapport aux valeurs qui satisfont le filtre :
+     * négative avant, nulle parmi elles, positive après ou si l'indexe n'a pas de terme
+     */
+    private int position(int id) {
+        if (!exact && InlineTerms.isInline(id) && constant.kind() == InlineTerms.kind(id)) {
+            return id < low ? -1 : id > high ? 1 : 0;
+        }
+        TermValue value = TermValue.of(id, decoder);
+        if (value == null) {
+            return 1;
+        }
+        if (!value.sameKind(constant)) {
+            return value.compareTo(constant);
+        }
+        int comparison = value.compareTo(constant);
+        return switch (operator) {
+            case LT -> comparison < 0 ? 0 : 1;
+            case LE -> comparison <= 0 ? 0 : 1;
+            case EQ -> comparison;
+            case GE -> comparison < 0 ? -1 : 0;
+            case GT -> comparison <= 0 ? -1 : 0;
+        };
+    }
+
+    /**
+     * @param sorted des indexes triés dans l'ordre de leurs valeurs
+     * @return le rang du premier indexe qui n'est pas avant les valeurs du filtre
+     */
+    int from(int[] sorted) {
+        return search(sorted, 0);
+    }
+
+    /**
+     * @param sorted des indexes triés dans l'ordre de leurs valeurs
+     * @return le rang du premier indexe après les valeurs du filtre
+     */
+    int to(int[] sorted) {
+        return search(sorted, 1);
+    }
+
+    /**
+     * @return le rang du premier indexe dont la position est au moins {@code bound}
+     */
+    private int search(int[] sorted, int bound) {
+        int from = 0;
+        int to = sorted.length;
+        while (from < to) {
+            int middle = (from + to) >>> 1;
+            if (Integer.signum(position(sorted[middle])) < bound) {
+                from = middle + 1;
+            } else {
+                to = middle;
+            }
+        }
+        return from;
+    }
+}
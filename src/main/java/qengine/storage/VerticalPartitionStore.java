@@ -0,0 +1,286 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Atom;
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.impl.SubstitutionImpl;
+import org.apache.commons.collections4.BidiMap;
+import org.apache.commons.collections4.bidimap.DualHashBidiMap;
+import qengine.instrumentation.MetricsRegistry;
+import qengine.instrumentation.Phase;
+import qengine.instrumentation.QueryInstrumentation;
+import qengine.instrumentation.QueryTrace;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+import qengine.model.ValueFilter;
+
+import java.util.*;
+
+import static java.util.Collections.emptyIterator;
+
+/**
+ * Store partitionné verticalement : une {@link PredicateTable} de paires (sujet, objet) par prédicat,
+ * triée selon (sujet, objet) et selon (objet, sujet).
+ * <p>
+ * Un atome dont le prédicat est constant ne lit que la table de ce prédicat, et les valeurs d'une
+ * variable y sont une tranche contiguë et triée d'un tableau : les étoiles simples se résolvent par
+ * intersection de suites triées. Les atomes dont le prédicat est variable parcourent toutes les tables.
+ * <p>
+ * Cette classe n'est pas thread-safe.
+ */
+public class VerticalPartitionStore implements RDFStorage {
+
+    private final BidiMap<Term, Integer> dict = new DualHashBidiMap<>();
+    private final Map<Integer, PredicateTable> tables = new HashMap<>();
+    private long size;
+
+    @Override
+    public boolean add(RDFAtom a) {
+        int s = index(a.getTripleSubject());
+        int p = index(a.getTriplePredicate());
+        int o = index(a.getTripleObject());
+        if (!tables.computeIfAbsent(p, k -> new PredicateTable()).add(s, o)) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(RDFAtom a) {
+        PredicateTable table = tables.get(lookup(a.getTriplePredicate()));
+        if (table == null || !table.remove(lookup(a.getTripleSubject()), lookup(a.getTripleObject()))) {
+            return false;
+        }
+        size--;
+        return true;
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return le nombre de prédicats distincts, donc de tables
+     */
+    public int predicateCount() {
+        return tables.size();
+    }
+
+    @Override
+    public Iterator<Substitution> match(RDFAtom atom) {
+        Term[] terms = {atom.getTripleSubject(), atom.getTriplePredicate(), atom.getTripleObject()};
+        int[] bound = new int[3];
+        for (int k = 0; k < 3; k++) {
+            if (!terms[k].isVariable() && (bound[k] = lookup(terms[k])) == 0) {
+                return emptyIterator();
+            }
+        }
+        List<Substitution> results = new ArrayList<>();
+        for (int predicate : predicates(bound[1])) {
+            tables.get(predicate).scan(bound[0], bound[2], (subject, object) -> {
+                int[] triple = {subject, predicate, object};
+                Map<Variable, Term> images = new HashMap<>();
+                for (int k = 0; k < 3; k++) {
+                    if (terms[k] instanceof Variable variable) {
+                        Term image = term(triple[k]);
+                        Term previous = images.putIfAbsent(variable, image);
+                        if (previous != null && !previous.equals(image)) {
+                            return; // même variable liée à deux termes différents
+                        }
+                    }
+                }
+                results.add(new SubstitutionImpl(images));
+            });
+        }
+        return results.iterator();
+    }
+
+    @Override
+    public Iterator<Substitution> match(StarQuery q) {
+        long start = MetricsRegistry.isEnabled() ? System.nanoTime() : 0;
+        QueryTrace trace = QueryInstrumentation.begin(q);
+        List<Substitution> results = q.isSimple() ? matchSimpleStar(q, trace) : matchGeneric(q, trace);
+        if (!q.getFilters().isEmpty()) {
+            // Pas d'intervalle dans les tables : les réponses sont filtrées une fois décodées
+            for (ValueFilter filter : q.getFilters()) {
+                ValueRange range = ValueRange.of(filter, this::lookup, this::term);
+                results.removeIf(substitution -> !range.contains(lookup(substitution.createImageOf(filter.variable()))));
+            }
+        }
+        if (q.getCountVariable().isPresent()) {
+            // Pas de taille de feuille à lire : les réponses sont comptées une fois évaluées
+            results = GroupCounts.count(q, results, this::lookup, this::term);
+        }
+        if (!q.getOrderBy().isEmpty() || q.getLimit().isPresent()) {
+            trace.start(Phase.ORDER);
+            results = ValueOrder.sortAnswers(Projection.ordering(q), results, this::lookup, this::term);
+            trace.stop(Phase.ORDER);
+        }
+        if (q.getCountVariable().isEmpty()) {
+            results = Projection.answers(q, results, this::lookup);
+        }
+        trace.end(results.size());
+        if (start != 0) {
+            MetricsRegistry.recordQuery(q.getTemplate(), System.nanoTime() - start);
+        }
+        return results.iterator();
+    }
+
+    /**
+     * Évalue une étoile simple : chaque atome donne la suite triée des valeurs de la variable
+     * centrale, et la plus courte est filtrée par les autres en les parcourant dans l'ordre.
+     */
+    private List<Substitution> matchSimpleStar(StarQuery q, QueryTrace trace) {
+        List<RDFAtom> atoms = q.getRdfAtoms();
+        trace.start(Phase.PLAN);
+        List<FrozenSegment.SortedIntSet> values = new ArrayList<>(atoms.size());
+        for (RDFAtom atom : atoms) {
+            values.add(centralValues(atom));
+        }
+        List<Integer> order = new ArrayList<>(atoms.size());
+        for (int i = 0; i < atoms.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparingInt(i -> values.get(i).size()));
+        trace.stop(Phase.PLAN);
+
+        trace.start(Phase.INDEX_PROBE);
+        int[] candidates = values.get(order.get(0)).toIntArray();
+        int count = candidates.length;
+        trace.stop(Phase.INDEX_PROBE);
+        trace.rows(atoms.get(order.get(0)), count, count);
+
+        trace.start(Phase.JOIN);
+        for (int k = 1; k < order.size() && count > 0; k++) {
+            int kept = values.get(order.get(k)).retain(candidates, count);
+            trace.rows(atoms.get(order.get(k)), count, kept);
+            count = kept;
+        }
+        trace.stop(Phase.JOIN);
+
+        trace.start(Phase.DECODE);
+        Variable central = q.getCentralVariable();
+        List<Substitution> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            results.add(new SubstitutionImpl(Map.of(central, term(candidates[i]))));
+        }
+        trace.stop(Phase.DECODE);
+        return results;
+    }
+
+    /**
+     * Retourne, triés, les indexes que peut prendre l'unique variable d'un atome.
+     */
+    private FrozenSegment.SortedIntSet centralValues(RDFAtom atom) {
+        Term s = atom.getTripleSubject();
+        Term p = atom.getTriplePredicate();
+        Term o = atom.getTripleObject();
+        if (p.isVariable()) {
+            // (s, ?, o) : les prédicats dont la table contient la paire
+            int subject = lookup(s);
+            int object = lookup(o);
+            int[] predicates = tables.entrySet().stream()
+                    .filter(entry -> entry.getValue().contains(subject, object))
+                    .mapToInt(Map.Entry::getKey)
+                    .sorted()
+                    .toArray();
+            return new FrozenSegment.SortedIntSet(predicates, 0, predicates.length);
+        }
+        PredicateTable table = tables.get(lookup(p));
+        if (table == null) {
+            return new FrozenSegment.SortedIntSet(new int[0], 0, 0);
+        }
+        return s.isVariable() ? table.subjects(lookup(o)) : table.objects(lookup(s));
+    }
+
+    /**
+     * Évalue une étoile quelconque par jointure des substitutions, atome par atome,
+     * en commençant par les atomes ayant le moins de variables.
+     */
+    private List<Substitution> matchGeneric(StarQuery q, QueryTrace trace) {
+        trace.start(Phase.PLAN);
+        List<RDFAtom> atoms = new ArrayList<>(q.getRdfAtoms());
+        atoms.sort(Comparator.comparingLong(atom -> Arrays.stream(atom.getTerms()).filter(Term::isVariable).count()));
+        trace.stop(Phase.PLAN);
+
+        trace.start(Phase.JOIN);
+        List<Map<Variable, Term>> bindings = List.of(Map.of());
+        for (RDFAtom atom : atoms) {
+            List<Map<Variable, Term>> next = new ArrayList<>();
+            for (Map<Variable, Term> binding : bindings) {
+                Substitution substitution = new SubstitutionImpl(binding);
+                RDFAtom bound = new RDFAtom(substitution.createImageOf(atom.getTripleSubject()),
+                        substitution.createImageOf(atom.getTriplePredicate()),
+                        substitution.createImageOf(atom.getTripleObject()));
+                List<Variable> variables = Arrays.stream(bound.getTerms())
+                        .filter(Term::isVariable)
+                        .map(Variable.class::cast)
+                        .distinct()
+                        .toList();
+                for (Iterator<Substitution> it = match(bound); it.hasNext(); ) {
+                    Substitution sub = it.next();
+                    Map<Variable, Term> extended = new HashMap<>(binding);
+                    for (Variable variable : variables) {
+                        extended.put(variable, sub.createImageOf(variable));
+                    }
+                    next.add(extended);
+                }
+            }
+            trace.rows(atom, bindings.size(), next.size());
+            bindings = next;
+        }
+        trace.stop(Phase.JOIN);
+
+        List<Substitution> results = new ArrayList<>(bindings.size());
+        for (Map<Variable, Term> binding : bindings) {
+            results.add(new SubstitutionImpl(binding));
+        }
+        return results;
+    }
+
+    @Override
+    public Collection<Atom> getAtoms() {
+        List<Atom> atoms = new ArrayList<>((int) size);
+        tables.forEach((predicate, table) -> table.scan(0, 0, (subject, object) ->
+                atoms.add(new RDFAtom(term(subject), term(predicate), term(object)))));
+        return atoms;
+    }
+
+    /**
+     * @return le prédicat lié, ou tous les prédicats s'il est libre
+     */
+    private Collection<Integer> predicates(int predicate) {
+        if (predicate == 0) {
+            return tables.keySet();
+        }
+        return tables.containsKey(predicate) ? List.of(predicate) : List.of();
+    }
+
+    private int index(Term term) {
+        int inline = InlineTerms.encode(term);
+        if (inline != 0) {
+            return inline;
+        }
+        Integer index = dict.get(term);
+        if (index == null) {
+            index = dict.size() + 1;
+            dict.put(term, index);
+        }
+        return index;
+    }
+
+    /**
+     * @return l'indexe du terme, ou 0 s'il est inconnu
+     */
+    private int lookup(Term term) {
+        int inline = InlineTerms.encode(term);
+        return inline != 0 ? inline : dict.getOrDefault(term, 0);
+    }
+
+    private Term term(int index) {
+        return InlineTerms.isInline(index) ? InlineTerms.decode(index) : dict.getKey(index);
+    }
+}
@@ -0,0 +1,277 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.factory.api.TermFactory;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Journal binaire en ajout seul des modifications d'un {@link RDFHexaStore} : nouvelles entrées
+ * du dictionnaire et triplets ajoutés ou retirés, encodés par leurs indexes.
+ * <p>
+ * Chaque enregistrement est écrit sous la forme {@code [longueur][type + contenu][CRC32]}. Les
+ * enregistrements sont regroupés en mémoire et le fichier n'est synchronisé sur disque
+ * ({@code fsync}) que tous les {@code groupSize} enregistrements, ou quand {@code maxDelayMillis}
+ * se sont écoulées depuis la dernière synchronisation. Un thread d'arrière-plan synchronise aussi
+ * toutes les {@code maxDelayMillis} les enregistrements en attente, pour qu'un enregistrement ne
+ * reste pas en mémoire quand aucun ajout ne le suit : une panne peut donc perdre au plus le dernier
+ * groupe, ou les enregistrements des {@code maxDelayMillis} précédentes. Une erreur de cette
+ * synchronisation est levée par l'ajout suivant. À la relecture, un enregistrement tronqué ou
+ * corrompu marque la fin du journal.
+ * <p>
+ * Les méthodes sont synchronisées, à cause de ce thread d'arrière-plan.
+ */
+public class WriteAheadLog implements Closeable {
+
+    /**
+     * Reçoit les enregistrements lors de la relecture du journal.
+     */
+    public interface Visitor {
+        void term(int id, Term term);
+
+        void add(int s, int p, int o);
+
+        void remove(int s, int p, int o);
+    }
+
+    private static final byte TERM = 'T';
+    private static final byte ADD = 'A';
+    private static final byte REMOVE = 'R';
+
+    private static final byte LITERAL = 'L';
+    private static final byte VARIABLE = 'V';
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final ScheduledExecutorService SYNCER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "qengine-wal-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final FileChannel channel;
+    private final int groupSize;
+    private final long maxDelayNanos;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CRC32 crc = new CRC32();
+
+    // Synchronisation périodique, ou null si chaque ajout est synchronisé
+    private final ScheduledFuture<?> timer;
+
+    private int unsynced;
+    private long lastSync = System.nanoTime();
+    // Erreur de la synchronisation périodique, levée par l'ajout suivant
+    private IOException timerFailure;
+
+    /**
+     * Ouvre le journal en ajout, en le créant si besoin.
+     *
+     * @param file           le fichier du journal
+     * @param groupSize      le nombre d'enregistrements entre deux synchronisations
+     * @param maxDelayMillis le délai maximal entre l'ajout d'un enregistrement et sa synchronisation
+     */
+    public WriteAheadLog(Path file, int groupSize, long maxDelayMillis) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.channel.position(channel.size());
+        this.groupSize = groupSize;
+        this.maxDelayNanos = maxDelayMillis * 1_000_000;
+        this.timer = maxDelayMillis > 0
+                ? SYNCER.scheduleWithFixedDelay(this::syncPending, maxDelayMillis, maxDelayMillis, TimeUnit.MILLISECONDS)
+                : null;
+    }
+
+    public synchronized void appendTerm(int id, Term term) throws IOException {
+        byte[] label = encode(term);
+        ByteBuffer record = begin(TERM, 4 + 1 + label.length);
+        record.putInt(id).put(term.isVariable() ? VARIABLE : LITERAL).put(label);
+        end(record);
+    }
+
+    public synchronized void appendAdd(int s, int p, int o) throws IOException {
+        end(begin(ADD, 12).putInt(s).putInt(p).putInt(o));
+    }
+
+    public synchronized void appendRemove(int s, int p, int o) throws IOException {
+        end(begin(REMOVE, 12).putInt(s).putInt(p).putInt(o));
+    }
+
+    /**
+     * Écrit les enregistrements en attente et les synchronise sur disque.
+     */
+    public synchronized void sync() throws IOException {
+        flush();
+        channel.force(false);
+        unsynced = 0;
+        lastSync = System.nanoTime();
+    }
+
+    /**
+     * Vide le journal, par exemple après un checkpoint qui contient toutes ses modifications.
+     */
+    public synchronized void truncate() throws IOException {
+        buffer.clear();
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+        unsynced = 0;
+        lastSync = System.nanoTime();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (timer != null) {
+            timer.cancel(false);
+        }
+        if (!channel.isOpen()) {
+            return;
+        }
+        sync();
+        channel.close();
+    }
+
+    /**
+     * Synchronise les enregistrements en attente ; appelée par le thread d'arrière-plan.
+     */
+    private synchronized void syncPending() {
+        if (unsynced == 0 || !channel.isOpen()) {
+            return;
+        }
+        try {
+            sync();
+        } catch (IOException e) {
+            timerFailure = e;
+        }
+    }
+
+    /**
+     * Relit un journal.
+     *
+     * @param file    le fichier du journal, éventuellement absent
+     * @param visitor le destinataire des enregistrements
+     * @return le nombre d'enregistrements relus
+     */
+    public static long replay(Path file, Visitor visitor) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        TermFactory termFactory = SameObjectTermFactory.instance();
+        CRC32 crc = new CRC32();
+        long records = 0;
+        long valid = 0;
+        long fileSize = Files.size(file);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                byte[] body;
+                try {
+                    int length = in.readInt();
+                    if (length <= 0 || length > fileSize) {
+                        break;
+                    }
+                    body = new byte[length];
+                    in.readFully(body);
+                    crc.reset();
+                    crc.update(body);
+                    if (in.readInt() != (int) crc.getValue()) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break; // fin du journal, ou dernier enregistrement tronqué par une panne
+                }
+                ByteBuffer record = ByteBuffer.wrap(body);
+                switch (record.get()) {
+                    case TERM -> {
+                        int id = record.getInt();
+                        byte kind = record.get();
+                        String label = new String(body, record.position(), record.remaining(), StandardCharsets.UTF_8);
+                        visitor.term(id, kind == VARIABLE
+                                ? termFactory.createOrGetVariable(label)
+                                : termFactory.createOrGetLiteral(label));
+                    }
+                    case ADD -> visitor.add(record.getInt(), record.getInt(), record.getInt());
+                    case REMOVE -> visitor.remove(record.getInt(), record.getInt(), record.getInt());
+                    default -> throw new IOException("Type d'enregistrement inconnu dans " + file);
+                }
+                records++;
+                valid += 8 + body.length;
+            }
+        }
+        // Retire la fin invalide pour que les prochains ajouts suivent le dernier enregistrement valide
+        if (valid < fileSize) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * @return le libellé d'un terme tel qu'il a été créé : la valeur pour un littéral
+     */
+    static byte[] encode(Term term) {
+        String label = term instanceof Literal<?> literal ? String.valueOf(literal.value()) : term.label();
+        return label.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private ByteBuffer begin(byte type, int payload) throws IOException {
+        if (timerFailure != null) {
+            IOException failure = timerFailure;
+            timerFailure = null;
+            throw new IOException("La synchronisation périodique du journal a échoué.", failure);
+        }
+        int length = 1 + payload;
+        if (buffer.remaining() < 8 + length) {
+            flush();
+        }
+        // Un enregistrement plus grand que le tampon est écrit directement
+        ByteBuffer record = 8 + length <= BUFFER_SIZE ? buffer : ByteBuffer.allocate(8 + length);
+        record.putInt(length);
+        record.mark();
+        return record.put(type);
+    }
+
+    private void end(ByteBuffer record) throws IOException {
+        // Le CRC couvre le type et le contenu, entre la marque et la position courante
+        int end = record.position();
+        record.reset();
+        int start = record.position();
+        crc.reset();
+        crc.update(record.array(), start, end - start);
+        record.position(end);
+        record.putInt((int) crc.getValue());
+        if (record != buffer) {
+            flush();
+            record.flip();
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+        }
+        if (++unsynced >= groupSize || System.nanoTime() - lastSync >= maxDelayNanos) {
+            sync();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
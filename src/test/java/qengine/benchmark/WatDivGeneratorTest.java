@@ -0,0 +1,74 @@
+package qengine.benchmark;
+
+import com.google.common.collect.Iterators;
+import org.junit.jupiter.api.Test;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+import qengine.parser.StarQueryFastParser;
+import qengine.storage.RDFHexaStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour la classe {@link WatDivGenerator}.
+ */
+class WatDivGeneratorTest {
+
+    @Test
+    void testExactSize() {
+        WatDivGenerator generator = new WatDivGenerator(1, 10_000);
+        assertEquals(10_000, generator.atoms().count(), "Le générateur doit produire exactement le nombre demandé.");
+    }
+
+    @Test
+    void testDeterministic() {
+        List<RDFAtom> first = new WatDivGenerator(7, 5_000).atoms().toList();
+        List<RDFAtom> second = new WatDivGenerator(7, 5_000).atoms().toList();
+        List<RDFAtom> other = new WatDivGenerator(8, 5_000).atoms().toList();
+
+        assertEquals(first, second, "Une même graine doit produire les mêmes triplets.");
+        assertNotEquals(first, other, "Deux graines différentes doivent produire des triplets différents.");
+    }
+
+    @Test
+    void testQueriesMatchData() {
+        WatDivGenerator generator = new WatDivGenerator(3, 50_000);
+        RDFHexaStore store = generator.loadInto(new RDFHexaStore());
+        assertTrue(store.size() > 0, "Le store doit contenir les triplets générés.");
+
+        StarQueryFastParser parser = new StarQueryFastParser();
+        for (WatDivGenerator.Template template : WatDivGenerator.Template.values()) {
+            int nonEmpty = 0;
+            for (String sparql : generator.queries(template, 20)) {
+                StarQuery query = parser.parse(sparql);
+                assertNotNull(query, "Les requêtes générées doivent être des requêtes en étoile valides.");
+                assertEquals(template.predicates().size(), query.getRdfAtoms().size());
+                if (Iterators.size(store.match(query)) > 0) {
+                    nonEmpty++;
+                }
+            }
+            if (template.predicates().size() == 1) {
+                assertTrue(nonEmpty > 0, "Les requêtes à un triplet de " + template + " devraient avoir des réponses.");
+            }
+        }
+    }
+
+    @Test
+    void testWriteNTriples() throws IOException {
+        Path file = Files.createTempFile("watdiv", ".nt");
+        try {
+            new WatDivGenerator(1, 100).writeNTriples(file);
+            List<String> lines = Files.readAllLines(file);
+            assertEquals(100, lines.size(), "Chaque triplet doit occuper une ligne.");
+            assertTrue(lines.stream().allMatch(line -> line.startsWith("<") && line.endsWith(" .")),
+                    "Chaque ligne doit être un triplet N-Triples.");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
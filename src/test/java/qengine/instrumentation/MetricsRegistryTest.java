@@ -0,0 +1,76 @@
+package qengine.instrumentation;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+import qengine.storage.RDFHexaStore;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour les classes {@link MetricsRegistry} et {@link LatencyHistogram}.
+ */
+class MetricsRegistryTest {
+    private static final Literal<String> SUBJECT_1 = SameObjectTermFactory.instance().createOrGetLiteral("subject1");
+    private static final Literal<String> PREDICATE_1 = SameObjectTermFactory.instance().createOrGetLiteral("predicate1");
+    private static final Literal<String> OBJECT_1 = SameObjectTermFactory.instance().createOrGetLiteral("object1");
+    private static final Literal<String> OBJECT_2 = SameObjectTermFactory.instance().createOrGetLiteral("object2");
+    private static final Variable VAR_X = SameObjectTermFactory.instance().createOrGetVariable("?x");
+
+    @BeforeEach
+    void setUp() {
+        MetricsRegistry.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        MetricsRegistry.disable();
+        MetricsRegistry.reset();
+    }
+
+    @Test
+    void testPercentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1_000);
+        }
+        HistogramSnapshot snapshot = histogram.snapshot();
+
+        assertEquals(100_000, snapshot.count());
+        assertEquals(1_000, snapshot.min());
+        assertEquals(100_000_000, snapshot.max());
+        assertEquals(50_000_000, snapshot.percentile(50), 50_000_000 * 0.016);
+        assertEquals(99_000_000, snapshot.percentile(99), 99_000_000 * 0.016);
+        assertEquals(100_000_000, snapshot.percentile(100));
+        assertEquals(0, new LatencyHistogram().snapshot().percentile(99), "Un histogramme vide retourne 0.");
+    }
+
+    @Test
+    void testStoreFeedsRegistry() {
+        MetricsRegistry.enable();
+        RDFHexaStore store = new RDFHexaStore();
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1));
+
+        assertEquals(1, MetricsRegistry.get(MetricsRegistry.Counter.TRIPLES_STORED), "Un doublon n'est pas compté.");
+        assertEquals(3, MetricsRegistry.get(MetricsRegistry.Counter.DICTIONARY_SIZE));
+
+        StarQuery q1 = new StarQuery("q1", List.of(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1)), List.of(VAR_X));
+        StarQuery q2 = new StarQuery("q2", List.of(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_2)), List.of(VAR_X));
+        store.match(q1);
+        store.match(q2);
+        store.match(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1));
+
+        assertEquals(q1.getTemplate(), q2.getTemplate(), "Les deux requêtes sont des instances du même modèle.");
+        assertEquals(2, MetricsRegistry.queryLatency(q1.getTemplate()).count());
+        assertEquals(1, MetricsRegistry.matchLatency("VAR_LIT_LIT").count());
+        assertTrue(MetricsRegistry.snapshot().report().contains("TRIPLES_STORED: 1"));
+    }
+}
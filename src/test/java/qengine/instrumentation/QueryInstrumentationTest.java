@@ -0,0 +1,90 @@
+package qengine.instrumentation;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+import qengine.storage.RDFHexaStore;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour la classe {@link QueryInstrumentation}.
+ */
+class QueryInstrumentationTest {
+    private static final Literal<String> SUBJECT_1 = SameObjectTermFactory.instance().createOrGetLiteral("subject1");
+    private static final Literal<String> SUBJECT_2 = SameObjectTermFactory.instance().createOrGetLiteral("subject2");
+    private static final Literal<String> PREDICATE_1 = SameObjectTermFactory.instance().createOrGetLiteral("predicate1");
+    private static final Literal<String> PREDICATE_2 = SameObjectTermFactory.instance().createOrGetLiteral("predicate2");
+    private static final Literal<String> OBJECT_1 = SameObjectTermFactory.instance().createOrGetLiteral("object1");
+    private static final Variable VAR_X = SameObjectTermFactory.instance().createOrGetVariable("?x");
+
+    @AfterEach
+    void tearDown() {
+        QueryInstrumentation.disable();
+        QueryInstrumentation.setSink(null);
+        QueryInstrumentation.drain();
+    }
+
+    private static RDFHexaStore store() {
+        RDFHexaStore store = new RDFHexaStore();
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_1));
+        return store;
+    }
+
+    private static StarQuery query() {
+        return new StarQuery("star", List.of(
+                new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1),
+                new RDFAtom(VAR_X, PREDICATE_2, OBJECT_1)), List.of(VAR_X));
+    }
+
+    @Test
+    void testDisabledRecordsNothing() {
+        store().match(query()).forEachRemaining(s -> {});
+        assertTrue(QueryInstrumentation.drain().isEmpty(), "Aucun enregistrement ne doit être produit sans activation.");
+        assertFalse(QueryInstrumentation.begin(query()).isActive(), "La trace doit être inactive sans activation.");
+    }
+
+    @Test
+    void testRecordsPhasesAndRows() {
+        RDFHexaStore store = store();
+        StarQuery query = query();
+        QueryInstrumentation.enable();
+        QueryInstrumentation.recordParse(query, 1234);
+        store.match(query).forEachRemaining(s -> {});
+
+        List<QueryRecord> records = QueryInstrumentation.drain();
+        assertEquals(1, records.size(), "Une exécution doit produire un enregistrement.");
+        QueryRecord record = records.get(0);
+        assertEquals("star", record.label());
+        assertEquals(1, record.resultCount(), "Un seul sujet satisfait les deux atomes.");
+        assertEquals(1234, record.nanos(Phase.PARSE), "Le temps d'analyse doit être rattaché à l'exécution.");
+        assertTrue(record.totalNanos() > 0);
+
+        // L'atome le plus sélectif (predicate2) guide l'évaluation
+        assertEquals(2, record.atoms().size());
+        assertEquals(new AtomRows(query.getRdfAtoms().get(1).toString(), 1, 1), record.atoms().get(0));
+        assertEquals(new AtomRows(query.getRdfAtoms().get(0).toString(), 1, 1), record.atoms().get(1));
+
+        assertTrue(record.toJson().startsWith("{\"label\":\"star\""));
+        assertEquals(QueryRecord.csvHeader().split(",").length, record.toCsv().split(",").length);
+    }
+
+    @Test
+    void testSink() {
+        List<QueryRecord> received = new java.util.ArrayList<>();
+        QueryInstrumentation.setSink(received::add);
+        QueryInstrumentation.enable();
+        store().match(query()).forEachRemaining(s -> {});
+
+        assertEquals(1, received.size(), "L'enregistrement doit être transmis au consommateur.");
+        assertTrue(QueryInstrumentation.drain().isEmpty(), "Rien ne doit être conservé quand un consommateur est installé.");
+    }
+}
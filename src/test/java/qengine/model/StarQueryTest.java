@@ -43,6 +43,23 @@ class StarQueryTest {
         assertEquals(centralVariable, query.getCentralVariable());
     }
 
+    @Test
+    void testIsSimple() {
+        Variable centralVariable = termFactory.createOrGetVariable("?x");
+        Variable other = termFactory.createOrGetVariable("?y");
+        Term predicate1 = termFactory.createOrGetLiteral("http://example.org/predicate1");
+        Term predicate2 = termFactory.createOrGetLiteral("http://example.org/predicate2");
+        Term object = termFactory.createOrGetLiteral("http://example.org/object");
+
+        RDFAtom atom1 = new RDFAtom(centralVariable, predicate1, object);
+        RDFAtom atom2 = new RDFAtom(centralVariable, predicate2, object);
+        RDFAtom open = new RDFAtom(centralVariable, predicate2, other);
+
+        assertTrue(new StarQuery("Simple", List.of(atom1, atom2), List.of(centralVariable)).isSimple());
+        assertFalse(new StarQuery("Ouverte", List.of(atom1, open), List.of(centralVariable)).isSimple(),
+                "Une autre variable que la variable centrale rend l'étoile non simple.");
+    }
+
     @Test
     void testStarQueryConstructorInvalidNoSharedVariable() {
         Variable var1 = termFactory.createOrGetVariable("?x");
@@ -217,4 +234,20 @@ class StarQueryTest {
         assertEquals(answerVariables, foQuery.getAnswerVariables(), "Les variables de réponse doivent être les mêmes que celles de la requête étoile.");
     }
 
+    @Test
+    void testFingerprintIgnoresVariableNamesAndAtomOrder() {
+        Variable x = termFactory.createOrGetVariable("?x");
+        Variable y = termFactory.createOrGetVariable("?y");
+        Term predicate1 = termFactory.createOrGetLiteral("http://example.org/predicate1");
+        Term predicate2 = termFactory.createOrGetLiteral("http://example.org/predicate2");
+        Term object = termFactory.createOrGetLiteral("http://example.org/object");
+
+        StarQuery q1 = new StarQuery("q1", List.of(new RDFAtom(x, predicate1, object), new RDFAtom(x, predicate2, object)), List.of(x));
+        StarQuery q2 = new StarQuery("q2", List.of(new RDFAtom(y, predicate2, object), new RDFAtom(y, predicate1, object)), List.of(y));
+        StarQuery q3 = new StarQuery("q3", List.of(new RDFAtom(x, predicate1, object)), List.of(x));
+
+        assertEquals(q1.getCanonicalForm(), q2.getCanonicalForm());
+        assertEquals(q1.getFingerprint(), q2.getFingerprint());
+        assertNotEquals(q1.getFingerprint(), q3.getFingerprint());
+    }
 }
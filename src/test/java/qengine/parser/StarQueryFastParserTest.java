@@ -0,0 +1,65 @@
+package qengine.parser;
+
+import fr.boreal.model.query.api.Query;
+import org.junit.jupiter.api.Test;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour la classe StarQueryFastParser.
+ */
+class StarQueryFastParserTest {
+    private final String sampleQueryFile = "src/test/resources/sample_query.queryset";
+
+    @Test
+    void testSameQueriesAsRdf4j() throws IOException {
+        assertEquals(parseAll(sampleQueryFile, false), parseAll(sampleQueryFile, true),
+                "Le chemin rapide doit produire les mêmes requêtes que rdf4j.");
+    }
+
+    @Test
+    void testParseStarQuery() {
+        String query = "SELECT ?v0 WHERE {\n\t?v0 <http://schema.org/nationality> <http://example.org/Country3> .\n"
+                + "\t?v0 <http://example.org/gender> \"Gender1\"@en . }";
+        StarQuery starQuery = new StarQueryFastParser().parse(query);
+
+        assertNotNull(starQuery, "La requête BGP devrait être reconnue.");
+        assertEquals(query, starQuery.getLabel(), "Le label devrait être la requête source.");
+        assertEquals("?v0", starQuery.getCentralVariable().label(), "La variable centrale devrait être ?v0.");
+        assertEquals(2, starQuery.getRdfAtoms().size(), "La requête devrait contenir deux triplets.");
+
+        RDFAtom atom = starQuery.getRdfAtoms().get(1);
+        assertEquals("http://example.org/gender", atom.getTriplePredicate().label(), "Le prédicat est incorrect.");
+        assertEquals("Gender1", atom.getTripleObject().label(), "Seule la valeur lexicale devrait être conservée.");
+    }
+
+    @Test
+    void testUnsupportedQueriesFallBack() {
+        StarQueryFastParser parser = new StarQueryFastParser();
+
+        assertNull(parser.parse("PREFIX ex: <http://example.org/> SELECT ?v0 WHERE { ?v0 ex:p ex:o . }"),
+                "Les préfixes ne sont pas gérés par le chemin rapide.");
+        assertNull(parser.parse("SELECT ?v0 WHERE { ?v0 <http://example.org/p> ?o . FILTER(?o > 3) }"),
+                "Les FILTER ne sont pas gérés par le chemin rapide.");
+        assertNull(parser.parse("SELECT * WHERE { ?v0 <http://example.org/p> <http://example.org/o> . }"),
+                "SELECT * n'est pas géré par le chemin rapide.");
+        assertNull(parser.parse("SELECT ?v0 WHERE { ?v0 <http://example.org/p> \"a\\\"b\" . }"),
+                "Les littéraux échappés ne sont pas gérés par le chemin rapide.");
+        assertNull(parser.parse("SELECT ?v0 WHERE { <http://example.org/s> <http://example.org/p> <http://example.org/o> . }"),
+                "Une requête sans variable centrale doit être laissée à rdf4j.");
+    }
+
+    private static List<Query> parseAll(String queryFile, boolean fastPath) throws IOException {
+        List<Query> queries = new ArrayList<>();
+        try (StarQuerySparQLParser parser = new StarQuerySparQLParser(queryFile, fastPath)) {
+            parser.forEachRemaining(queries::add);
+        }
+        return queries;
+    }
+}
@@ -4,11 +4,14 @@ import fr.boreal.model.logicalElements.api.Term;
 import fr.boreal.model.logicalElements.api.Variable;
 import fr.boreal.model.query.api.Query;
 import org.junit.jupiter.api.Test;
+import qengine.model.OrderKey;
 import qengine.model.RDFAtom;
 import qengine.model.StarQuery;
+import qengine.model.ValueFilter;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -126,4 +129,65 @@ class StarQuerySparQLParserTest {
         }
     }
 
+    @Test
+    void testParseFilters() throws IOException {
+        try (StarQuerySparQLParser parser = new StarQuerySparQLParser("src/test/resources/filter_query.queryset")) {
+            StarQuery query = (StarQuery) parser.next();
+            List<ValueFilter> filters = query.getFilters();
+            assertEquals(2, filters.size(), "Les deux comparaisons de la conjonction devraient être extraites.");
+            assertEquals("?v1", filters.get(0).variable().label());
+            assertEquals(ValueFilter.Operator.GE, filters.get(0).operator());
+            assertEquals("1990-01-01", filters.get(0).constant().label());
+            assertEquals(ValueFilter.Operator.LT, filters.get(1).operator(),
+                    "Une constante à gauche devrait inverser l'opérateur.");
+            assertEquals("100", filters.get(1).constant().label());
+            assertTrue(query.getCanonicalForm().contains("FILTER(?v1 >= <1990-01-01>)"));
+        }
+    }
+
+    @Test
+    void testParseOrderByAndLimit() throws IOException {
+        try (StarQuerySparQLParser parser = new StarQuerySparQLParser("src/test/resources/order_query.queryset")) {
+            StarQuery ordered = (StarQuery) parser.next();
+            List<OrderKey> orderBy = ordered.getOrderBy();
+            assertEquals(2, orderBy.size());
+            assertEquals("?v1", orderBy.get(0).variable().label());
+            assertFalse(orderBy.get(0).ascending(), "DESC(?v1) devrait être décroissant.");
+            assertTrue(orderBy.get(1).ascending());
+            assertEquals(10, ordered.getLimit().orElseThrow());
+
+            StarQuery limited = (StarQuery) parser.next();
+            assertTrue(limited.getOrderBy().isEmpty());
+            assertEquals(3, limited.getLimit().orElseThrow(), "Une clause sur la ligne du motif devrait être lue.");
+            assertFalse(parser.hasNext());
+        }
+    }
+
+    @Test
+    void testParseCountGroupBy() throws IOException {
+        try (StarQuerySparQLParser parser = new StarQuerySparQLParser("src/test/resources/count_query.queryset")) {
+            StarQuery grouped = (StarQuery) parser.next();
+            assertEquals("?count", grouped.getCountVariable().orElseThrow().label());
+            assertEquals(List.of("?v1"), grouped.getGroupBy().stream().map(Variable::label).toList());
+            assertEquals(List.of("?v1"), grouped.getAnswerVariables().stream().map(Variable::label).toList(),
+                    "La variable du compte ne devrait pas être une variable des triplets.");
+            assertEquals("?count", grouped.getOrderBy().get(0).variable().label());
+
+            StarQuery total = (StarQuery) parser.next();
+            assertEquals("?n", total.getCountVariable().orElseThrow().label());
+            assertTrue(total.getGroupBy().isEmpty());
+            assertFalse(parser.hasNext());
+        }
+    }
+
+    @Test
+    void testParseDistinct() throws IOException {
+        try (StarQuerySparQLParser parser = new StarQuerySparQLParser("src/test/resources/distinct_query.queryset")) {
+            StarQuery query = (StarQuery) parser.next();
+            assertTrue(query.isDistinct(), "SELECT DISTINCT devrait être conservé.");
+            assertEquals(List.of("?v1"), query.getAnswerVariables().stream().map(Variable::label).toList());
+            assertNotEquals(query.getCanonicalForm(),
+                    new StarQuery("Sans DISTINCT", query.getRdfAtoms(), query.getAnswerVariables()).getCanonicalForm());
+        }
+    }
 }
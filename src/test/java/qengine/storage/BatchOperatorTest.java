@@ -0,0 +1,97 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.Test;
+import qengine.instrumentation.QueryTrace;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour les classes {@link BatchOperator} et {@link BatchIterator}.
+ */
+public class BatchOperatorTest {
+    private static final Literal<String> PREDICATE_1 = SameObjectTermFactory.instance().createOrGetLiteral("predicate1");
+    private static final Literal<String> PREDICATE_2 = SameObjectTermFactory.instance().createOrGetLiteral("predicate2");
+    private static final Literal<String> OBJECT_1 = SameObjectTermFactory.instance().createOrGetLiteral("object1");
+    private static final Variable VAR_X = SameObjectTermFactory.instance().createOrGetVariable("?x");
+    private static final Variable VAR_Y = SameObjectTermFactory.instance().createOrGetVariable("?y");
+
+    // Plus de sujets qu'un lot n'a de lignes : les lots sont remplis puis réutilisés
+    private static final int SUBJECTS = 3 * IdBatch.CAPACITY + 7;
+
+    private static RDFHexaStore store() {
+        RDFHexaStore store = new RDFHexaStore();
+        List<RDFAtom> atoms = new ArrayList<>();
+        for (int i = 0; i < SUBJECTS; i++) {
+            Literal<String> subject = SameObjectTermFactory.instance().createOrGetLiteral("subject" + i);
+            atoms.add(new RDFAtom(subject, PREDICATE_1, OBJECT_1));
+            for (int j = 0; j < i % 4; j++) {
+                atoms.add(new RDFAtom(subject, PREDICATE_2, SameObjectTermFactory.instance().createOrGetLiteral("value" + j)));
+            }
+        }
+        store.addAll(atoms);
+        return store;
+    }
+
+    @Test
+    public void testPipelineAcrossBatches() {
+        RDFHexaStore store = store();
+        int p1 = store.lookup(PREDICATE_1);
+        int p2 = store.lookup(PREDICATE_2);
+        Set<Integer> subjects = RDFHexaStore.leaf(store.pos, p1, store.lookup(OBJECT_1));
+        BatchOperator scan = new BatchOperator.Scan(subjects, List.of());
+        BatchOperator intersect = new BatchOperator.Intersect(scan, store.pso.get(p2).keySet());
+        BatchOperator probe = new BatchOperator.Probe(intersect, store, p2, List.of());
+        assertEquals(2, probe.width());
+
+        List<int[]> rows = BatchIterator.rows(probe);
+        long expected = 0;
+        for (int i = 0; i < SUBJECTS; i++) {
+            expected += i % 4;
+        }
+        assertEquals(expected, rows.size(), "Chaque sujet doit produire une ligne par objet.");
+        assertEquals(SUBJECTS, scan.rowsOut);
+        assertEquals(SUBJECTS - (SUBJECTS + 3) / 4, intersect.rowsOut, "Les sujets sans predicate2 sont écartés.");
+        assertEquals(expected, probe.rowsOut);
+        for (int[] row : rows) {
+            assertTrue(store.contains(new RDFAtom(store.term(row[0]), PREDICATE_2, store.term(row[1]))));
+        }
+        assertFalse(probe.next(new IdBatch(2)), "Un opérateur épuisé ne produit plus de lot.");
+    }
+
+    @Test
+    public void testIteratorProjectsDistinctAndLimit() {
+        RDFHexaStore store = store();
+        int p2 = store.lookup(PREDICATE_2);
+        List<Variable> columns = List.of(VAR_X, VAR_Y);
+        StarQuery query = new StarQuery("Batch", List.of(new RDFAtom(VAR_X, PREDICATE_2, VAR_Y)), List.of(VAR_Y));
+
+        BatchOperator scan = new BatchOperator.Scan(store.pso.get(p2).keySet(), List.of());
+        Set<Substitution> distinct = new HashSet<>();
+        new BatchIterator(query.withDistinct(), new BatchOperator.Probe(scan, store, p2, List.of()), columns, store::term,
+                QueryTrace.NOOP, rows -> {
+        }).forEachRemaining(substitution -> assertTrue(distinct.add(substitution), "Doublon : " + substitution));
+        assertEquals(3, distinct.size());
+
+        scan = new BatchOperator.Scan(store.pso.get(p2).keySet(), List.of());
+        List<Long> finished = new ArrayList<>();
+        Iterator<Substitution> limited = new BatchIterator(query.withOrder(List.of(), 10),
+                new BatchOperator.Probe(scan, store, p2, List.of()), columns, store::term, QueryTrace.NOOP, finished::add);
+        int count = 0;
+        while (limited.hasNext()) {
+            Substitution substitution = limited.next();
+            assertEquals(List.of(VAR_Y), List.copyOf(substitution.keys()), "Seul ?y est projeté.");
+            count++;
+        }
+        assertEquals(10, count);
+        assertThrows(NoSuchElementException.class, limited::next);
+        assertEquals(List.of(10L), finished, "La requête est terminée une seule fois, à l'épuisement de l'itérateur.");
+    }
+}
@@ -0,0 +1,108 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.Test;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour la classe {@link CharacteristicSets}, tenue à jour par {@link RDFHexaStore}.
+ */
+public class CharacteristicSetsTest {
+    private static final Literal<String> SUBJECT_1 = SameObjectTermFactory.instance().createOrGetLiteral("subject1");
+    private static final Literal<String> SUBJECT_2 = SameObjectTermFactory.instance().createOrGetLiteral("subject2");
+    private static final Literal<String> PREDICATE_1 = SameObjectTermFactory.instance().createOrGetLiteral("predicate1");
+    private static final Literal<String> PREDICATE_2 = SameObjectTermFactory.instance().createOrGetLiteral("predicate2");
+    private static final Literal<String> PREDICATE_3 = SameObjectTermFactory.instance().createOrGetLiteral("predicate3");
+    private static final Literal<String> OBJECT_1 = SameObjectTermFactory.instance().createOrGetLiteral("object1");
+    private static final Literal<String> OBJECT_2 = SameObjectTermFactory.instance().createOrGetLiteral("object2");
+    private static final Variable VAR_X = SameObjectTermFactory.instance().createOrGetVariable("?x");
+    private static final Variable VAR_Y = SameObjectTermFactory.instance().createOrGetVariable("?y");
+    private static final Variable VAR_Z = SameObjectTermFactory.instance().createOrGetVariable("?z");
+
+    @Test
+    public void testMaintainedOnAddAndRemove() {
+        RDFHexaStore store = new RDFHexaStore();
+        store.addAll(List.of(
+                new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1),
+                new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_2),
+                new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_1),
+                new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1)));
+        CharacteristicSets sets = store.getCharacteristicSets().orElseThrow();
+        int p1 = store.lookup(PREDICATE_1);
+        int p2 = store.lookup(PREDICATE_2);
+
+        CharacteristicSets.CharacteristicSet both = sets.of(store.lookup(SUBJECT_1));
+        assertEquals(1, both.subjects());
+        assertEquals(2, both.occurrences(p1), "Les deux triplets de predicate1 du sujet suivent le sujet.");
+        assertEquals(1, both.occurrences(p2));
+        assertEquals(2, sets.subjectsWith(new int[]{p1}));
+        assertEquals(1, sets.subjectsWith(sorted(p1, p2)));
+
+        store.remove(new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_1));
+        CharacteristicSets.CharacteristicSet single = sets.of(store.lookup(SUBJECT_1));
+        assertEquals(2, single.subjects(), "Sans predicate2, le sujet rejoint l'ensemble {predicate1}.");
+        assertEquals(3, single.occurrences(p1));
+        assertEquals(0, sets.subjectsWith(sorted(p1, p2)));
+    }
+
+    @Test
+    public void testEstimateAndPruning() {
+        RDFHexaStore store = new RDFHexaStore();
+        store.addAll(List.of(
+                new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1),
+                new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_2),
+                new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_1),
+                new RDFAtom(SUBJECT_2, PREDICATE_3, OBJECT_1)));
+
+        StarQuery star = new StarQuery("Star", List.of(
+                new RDFAtom(VAR_X, PREDICATE_1, VAR_Y),
+                new RDFAtom(VAR_X, PREDICATE_2, VAR_Z)), List.of(VAR_X, VAR_Y, VAR_Z));
+        assertEquals(2.0, store.estimateCardinality(star).orElseThrow(), 1e-9,
+                "Sans objet constant, l'estimation est exacte : 1 sujet, 2 x 1 combinaisons.");
+
+        StarQuery disjoint = new StarQuery("Disjoint", List.of(
+                new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1),
+                new RDFAtom(VAR_X, PREDICATE_3, OBJECT_1)), List.of(VAR_X));
+        assertEquals(0.0, store.estimateCardinality(disjoint).orElseThrow());
+        assertFalse(store.match(disjoint).hasNext(), "Aucun sujet n'a predicate1 et predicate3.");
+
+        StarQuery objectCentered = new StarQuery("Object", List.of(new RDFAtom(SUBJECT_1, PREDICATE_1, VAR_X)), List.of(VAR_X));
+        assertTrue(store.estimateCardinality(objectCentered).isEmpty());
+    }
+
+    @Test
+    public void testEstimateWithoutEagerPos() {
+        List<RDFAtom> triples = List.of(
+                new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1),
+                new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_2),
+                new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_2));
+        StarQuery bound = new StarQuery("Bound", List.of(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1)), List.of(VAR_X));
+
+        RDFHexaStore lazy = new RDFHexaStore(EnumSet.allOf(IndexPermutation.class), true);
+        lazy.addAll(triples);
+        assertEquals(1.0, lazy.estimateCardinality(bound).orElseThrow(), 1e-9,
+                "La feuille de pos est construite à la demande : 1 triplet sur 3 a l'objet object1.");
+
+        RDFHexaStore withOps = new RDFHexaStore(EnumSet.of(IndexPermutation.OPS));
+        withOps.addAll(triples);
+        assertEquals(1.0, withOps.estimateCardinality(bound).orElseThrow(), 1e-9, "Sans pos, ops donne le même compte.");
+
+        RDFHexaStore spoOnly = new RDFHexaStore(EnumSet.of(IndexPermutation.SPO));
+        spoOnly.addAll(triples);
+        assertEquals(3.0, spoOnly.estimateCardinality(bound).orElseThrow(), 1e-9,
+                "Sans pos ni ops, l'objet constant n'est pas pris en compte.");
+        assertEquals(3, spoOnly.getCharacteristicSets().orElseThrow().triples(spoOnly.lookup(PREDICATE_1)));
+    }
+
+    private static int[] sorted(int a, int b) {
+        return a < b ? new int[]{a, b} : new int[]{b, a};
+    }
+}
@@ -0,0 +1,117 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.Test;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour la classe {@link ConcurrentRDFHexaStore}.
+ */
+class ConcurrentRDFHexaStoreTest {
+    private static final int WRITERS = 4;
+    private static final int TRIPLES_PER_WRITER = 5_000;
+
+    private static final Term PREDICATE = SameObjectTermFactory.instance().createOrGetLiteral("predicate");
+    private static final Term OBJECT = SameObjectTermFactory.instance().createOrGetLiteral("object");
+    private static final Variable VAR_X = SameObjectTermFactory.instance().createOrGetVariable("?x");
+
+    private static RDFAtom atom(int writer, int i) {
+        return new RDFAtom(SameObjectTermFactory.instance().createOrGetLiteral("s" + writer + "_" + i), PREDICATE, OBJECT);
+    }
+
+    @Test
+    void testConcurrentWritersAndReaders() throws Exception {
+        ConcurrentRDFHexaStore store = new ConcurrentRDFHexaStore();
+        StarQuery starQuery = new StarQuery("Concurrent", List.of(new RDFAtom(VAR_X, PREDICATE, OBJECT)), List.of(VAR_X));
+        AtomicBoolean writing = new AtomicBoolean(true);
+
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + 2);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                int writer = w;
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < TRIPLES_PER_WRITER; i++) {
+                        assertTrue(store.add(atom(writer, i)));
+                        // Retire un triplet sur deux pendant que les autres écrivains ajoutent les leurs
+                        if (i % 2 == 1) {
+                            assertTrue(store.remove(atom(writer, i)));
+                        }
+                    }
+                }));
+            }
+            List<Future<Integer>> readers = new ArrayList<>();
+            for (int r = 0; r < 2; r++) {
+                readers.add(executor.submit(() -> {
+                    int queries = 0;
+                    while (writing.get()) {
+                        for (var it = store.match(starQuery); it.hasNext(); ) {
+                            assertNotNull(it.next().createImageOf(VAR_X), "Chaque réponse doit être décodée.");
+                        }
+                        queries++;
+                    }
+                    return queries;
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+            writing.set(false);
+            for (Future<Integer> reader : readers) {
+                assertTrue(reader.get(30, TimeUnit.SECONDS) > 0);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long expected = (long) WRITERS * TRIPLES_PER_WRITER / 2;
+        assertEquals(expected, store.size());
+        assertEquals(expected, store.getAtoms().size());
+        List<Substitution> results = new ArrayList<>();
+        store.match(starQuery).forEachRemaining(results::add);
+        assertEquals(expected, results.size(), "Les six index doivent être cohérents.");
+        assertFalse(store.getAtoms().contains(atom(0, 1)), "Un triplet retiré ne doit plus être présent.");
+    }
+
+    @Test
+    void testSameTripleAddedConcurrently() throws Exception {
+        ConcurrentRDFHexaStore store = new ConcurrentRDFHexaStore();
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int w = 0; w < WRITERS; w++) {
+                futures.add(executor.submit(() -> {
+                    int added = 0;
+                    for (int i = 0; i < TRIPLES_PER_WRITER; i++) {
+                        if (store.add(atom(0, i))) {
+                            added++;
+                        }
+                    }
+                    return added;
+                }));
+            }
+            int added = 0;
+            for (Future<Integer> future : futures) {
+                added += future.get(30, TimeUnit.SECONDS);
+            }
+            assertEquals(TRIPLES_PER_WRITER, added, "Chaque triplet ne doit être ajouté qu'une fois.");
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(TRIPLES_PER_WRITER, store.size());
+    }
+}
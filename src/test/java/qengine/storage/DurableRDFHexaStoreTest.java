@@ -0,0 +1,149 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import qengine.model.RDFAtom;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour les classes {@link DurableRDFHexaStore} et {@link WriteAheadLog}.
+ */
+class DurableRDFHexaStoreTest {
+    private static final Literal<String> SUBJECT_1 = SameObjectTermFactory.instance().createOrGetLiteral("subject1");
+    private static final Literal<String> SUBJECT_2 = SameObjectTermFactory.instance().createOrGetLiteral("subject2");
+    private static final Literal<String> PREDICATE_1 = SameObjectTermFactory.instance().createOrGetLiteral("predicate1");
+    private static final Literal<String> OBJECT_1 = SameObjectTermFactory.instance().createOrGetLiteral("object1");
+    private static final Literal<String> OBJECT_2 = SameObjectTermFactory.instance().createOrGetLiteral("objet \"é\"");
+    private static final Variable VAR_X = SameObjectTermFactory.instance().createOrGetVariable("?x");
+
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("rdff-durable");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static Set<Object> atoms(RDFHexaStore store) {
+        return new HashSet<>(store.getAtoms());
+    }
+
+    @Test
+    void testRecoverFromLogOnly() throws IOException {
+        Set<Object> expected;
+        try (DurableRDFHexaStore store = new DurableRDFHexaStore(directory)) {
+            store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1));
+            store.add(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_2));
+            store.add(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1));
+            store.remove(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1));
+            expected = atoms(store);
+        }
+
+        try (DurableRDFHexaStore recovered = new DurableRDFHexaStore(directory)) {
+            assertEquals(2, recovered.size());
+            assertEquals(expected, atoms(recovered), "Le journal doit restaurer les mêmes triplets.");
+            assertFalse(recovered.add(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_2)), "Les indexes relus doivent être cohérents.");
+        }
+    }
+
+    @Test
+    void testCheckpointTruncatesLog() throws IOException {
+        try (DurableRDFHexaStore store = new DurableRDFHexaStore(directory)) {
+            store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1));
+            store.checkpoint();
+            assertEquals(0, Files.size(directory.resolve(DurableRDFHexaStore.WAL_FILE)), "Le checkpoint doit vider le journal.");
+            store.add(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1));
+        }
+
+        try (DurableRDFHexaStore recovered = new DurableRDFHexaStore(directory)) {
+            assertEquals(Set.of(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1), new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1)),
+                    atoms(recovered), "Le checkpoint et la fin du journal doivent être relus.");
+        }
+    }
+
+    @Test
+    void testTornTailIsIgnored() throws IOException {
+        try (DurableRDFHexaStore store = new DurableRDFHexaStore(directory)) {
+            store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1));
+            store.add(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1));
+        }
+        // Simule une panne pendant l'écriture du dernier enregistrement
+        Path wal = directory.resolve(DurableRDFHexaStore.WAL_FILE);
+        try (FileChannel channel = FileChannel.open(wal, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        try (DurableRDFHexaStore recovered = new DurableRDFHexaStore(directory)) {
+            assertEquals(Set.of(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1)), atoms(recovered));
+            recovered.add(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_2));
+        }
+        try (DurableRDFHexaStore recovered = new DurableRDFHexaStore(directory)) {
+            assertEquals(2, recovered.size(), "Les ajouts après la reprise doivent suivre le dernier enregistrement valide.");
+        }
+    }
+
+    @Test
+    void testFailedLogWriteLeavesStoreUnchanged() throws IOException {
+        DurableRDFHexaStore store = new DurableRDFHexaStore(directory, 1, DurableRDFHexaStore.DEFAULT_MAX_DELAY_MILLIS);
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1));
+        store.close();
+
+        // Le journal fermé refuse l'écriture : la modification ne doit pas être appliquée
+        assertThrows(UncheckedIOException.class, () -> store.add(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1)));
+        assertThrows(UncheckedIOException.class, () -> store.remove(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1)));
+        assertEquals(1, store.size());
+        assertEquals(0, store.lookup(SUBJECT_2), "Le terme non journalisé ne doit pas entrer dans le dictionnaire.");
+    }
+
+    @Test
+    void testIdleLogIsSyncedByTimer() throws Exception {
+        Path file = directory.resolve(DurableRDFHexaStore.WAL_FILE);
+        try (WriteAheadLog wal = new WriteAheadLog(file, Integer.MAX_VALUE, 20)) {
+            wal.appendAdd(1, 2, 3);
+            // Aucun ajout ne suit : seule la synchronisation périodique écrit l'enregistrement
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (Files.size(file) == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(Files.size(file) > 0, "L'enregistrement doit être synchronisé après maxDelayMillis.");
+        }
+        assertEquals(1, WriteAheadLog.replay(file, new WriteAheadLog.Visitor() {
+            @Override
+            public void term(int id, Term term) {
+            }
+
+            @Override
+            public void add(int s, int p, int o) {
+                assertArrayEquals(new int[]{1, 2, 3}, new int[]{s, p, o});
+            }
+
+            @Override
+            public void remove(int s, int p, int o) {
+            }
+        }));
+    }
+}
@@ -0,0 +1,119 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.Test;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour les classes {@link BloomFilter} et {@link ExistenceFilters}.
+ */
+public class ExistenceFiltersTest {
+    private static final Literal<String> PREDICATE_1 = SameObjectTermFactory.instance().createOrGetLiteral("predicate1");
+    private static final Literal<String> PREDICATE_2 = SameObjectTermFactory.instance().createOrGetLiteral("predicate2");
+    private static final Literal<String> OBJECT_1 = SameObjectTermFactory.instance().createOrGetLiteral("object1");
+    private static final Literal<String> OBJECT_2 = SameObjectTermFactory.instance().createOrGetLiteral("object2");
+    private static final Variable VAR_X = SameObjectTermFactory.instance().createOrGetVariable("?x");
+
+    @Test
+    public void testBloomFilter() {
+        BloomFilter filter = new BloomFilter(10_000);
+        for (long key = 0; key < 10_000; key++) {
+            filter.add(key * 7);
+        }
+        int falsePositives = 0;
+        for (long key = 0; key < 10_000; key++) {
+            assertTrue(filter.mightContain(key * 7), "Un filtre de Bloom n'a pas de faux négatif.");
+            if (filter.mightContain(key * 7 + 1)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 500, "Trop de faux positifs : " + falsePositives);
+    }
+
+    @Test
+    public void testStarQueryWithFilters() {
+        RDFHexaStore store = new RDFHexaStore();
+        store.setExistenceFilters(true);
+        List<RDFAtom> atoms = new ArrayList<>();
+        int subjects = 3 * ExistenceFilters.MIN_LEAF_SIZE;
+        for (int i = 0; i < subjects; i++) {
+            Literal<String> subject = SameObjectTermFactory.instance().createOrGetLiteral("subject" + i);
+            atoms.add(new RDFAtom(subject, PREDICATE_1, OBJECT_1));
+            if (i % 3 == 0) {
+                atoms.add(new RDFAtom(subject, PREDICATE_2, OBJECT_2));
+            }
+        }
+        store.addAll(atoms);
+
+        StarQuery query = new StarQuery("Bloom", List.of(
+                new RDFAtom(VAR_X, PREDICATE_2, OBJECT_2),
+                new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1)), List.of(VAR_X));
+        List<Substitution> answers = new ArrayList<>();
+        store.match(query).forEachRemaining(answers::add);
+        assertEquals(subjects / 3, answers.size(), "Les filtres ne doivent écarter aucune réponse.");
+
+        StarQuery empty = new StarQuery("Empty", List.of(
+                new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1),
+                new RDFAtom(VAR_X, PREDICATE_2, OBJECT_1)), List.of(VAR_X));
+        assertFalse(store.match(empty).hasNext());
+    }
+
+    @Test
+    public void testLeafFilterGrowsWithLeaf() {
+        ExistenceFilters filters = new ExistenceFilters();
+        Set<Integer> subjects = new HashSet<>();
+        for (int s = 1; s <= 5 * ExistenceFilters.MIN_LEAF_SIZE; s++) {
+            subjects.add(s);
+            filters.added(s, 1, 2, subjects);
+            if (s >= ExistenceFilters.MIN_LEAF_SIZE) {
+                assertTrue(filters.leaf(1, 2).capacity() >= subjects.size(),
+                        "Le filtre est reconstruit dès que la feuille dépasse sa capacité.");
+            }
+        }
+    }
+
+    @Test
+    public void testLeafFilterAfterRemovals() {
+        RDFHexaStore store = new RDFHexaStore();
+        store.setExistenceFilters(true);
+        List<RDFAtom> atoms = new ArrayList<>();
+        int both = 0;
+        for (int i = 0; i < ExistenceFilters.MIN_LEAF_SIZE; i++) {
+            Literal<String> subject = SameObjectTermFactory.instance().createOrGetLiteral("subject" + i);
+            atoms.add(new RDFAtom(subject, PREDICATE_1, OBJECT_1));
+            if (i % 3 == 0) {
+                atoms.add(new RDFAtom(subject, PREDICATE_2, OBJECT_2));
+                both++;
+            }
+        }
+        store.addAll(atoms);
+
+        // La feuille (predicate1, object1) repasse sous le seuil, puis reçoit un nouveau sujet
+        for (int i = 0; i < 2; i++) {
+            store.remove(new RDFAtom(SameObjectTermFactory.instance().createOrGetLiteral("subject" + i), PREDICATE_1, OBJECT_1));
+        }
+        Literal<String> fresh = SameObjectTermFactory.instance().createOrGetLiteral("fresh");
+        store.add(new RDFAtom(fresh, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(fresh, PREDICATE_2, OBJECT_2));
+
+        StarQuery query = new StarQuery("Bloom", List.of(
+                new RDFAtom(VAR_X, PREDICATE_2, OBJECT_2),
+                new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1)), List.of(VAR_X));
+        Set<String> answers = new HashSet<>();
+        store.match(query).forEachRemaining(answer -> answers.add(answer.createImageOf(VAR_X).label()));
+        assertEquals(both, answers.size(), "subject0 est retiré et fresh ajouté.");
+        assertTrue(answers.contains("fresh"), "Le filtre de la feuille rétrécie reçoit le nouveau sujet.");
+        assertFalse(answers.contains("subject0"));
+    }
+}
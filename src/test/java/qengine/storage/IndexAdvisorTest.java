@@ -0,0 +1,45 @@
+package qengine.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour la classe {@link IndexAdvisor}.
+ */
+public class IndexAdvisorTest {
+
+    @Test
+    public void testServes() {
+        assertTrue(IndexPermutation.POS.serves(IndexPermutation.mask(false, true, true)));
+        assertTrue(IndexPermutation.POS.serves(IndexPermutation.mask(false, true, false)));
+        assertFalse(IndexPermutation.POS.serves(IndexPermutation.mask(false, false, true)));
+        assertTrue(IndexPermutation.SPO.serves(IndexPermutation.mask(true, true, true)));
+        assertTrue(IndexPermutation.OPS.serves(0));
+    }
+
+    @Test
+    public void testRecommendation() {
+        IndexAdvisor advisor = new IndexAdvisor();
+        assertEquals(EnumSet.of(IndexPermutation.SPO), advisor.recommend(0), "SPO est toujours recommandée.");
+
+        for (int i = 0; i < 90; i++) {
+            advisor.record(IndexPermutation.mask(false, true, true));
+        }
+        for (int i = 0; i < 10; i++) {
+            advisor.record(IndexPermutation.mask(true, true, false));
+        }
+        advisor.record(IndexPermutation.mask(false, false, true));
+
+        Set<IndexPermutation> recommended = advisor.recommend(0.05);
+        assertEquals(EnumSet.of(IndexPermutation.SPO, IndexPermutation.POS), recommended,
+                "Un motif rare ne doit pas justifier un index.");
+        assertEquals(2, advisor.recommend(0).size(), "OPS sert à la fois (?, ?, o) et (?, p, o).");
+
+        advisor.reset();
+        assertEquals(0, advisor.accesses(IndexPermutation.mask(false, true, true)));
+    }
+}
@@ -0,0 +1,80 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Term;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.Test;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour la classe {@link InlineTerms}.
+ */
+public class InlineTermsTest {
+    private static final Literal<String> SUBJECT_1 = SameObjectTermFactory.instance().createOrGetLiteral("subject1");
+    private static final Literal<String> PREDICATE_1 = SameObjectTermFactory.instance().createOrGetLiteral("predicate1");
+    private static final Literal<String> PREDICATE_2 = SameObjectTermFactory.instance().createOrGetLiteral("predicate2");
+    private static final Variable VAR_X = SameObjectTermFactory.instance().createOrGetVariable("?x");
+
+    private static Literal<String> literal(String value) {
+        return SameObjectTermFactory.instance().createOrGetLiteral(value);
+    }
+
+    @Test
+    public void testRoundTrip() {
+        for (String value : List.of("0", "7", "9764726", "1988-09-24", "0001-01-01", "9999-12-31", "true", "false")) {
+            int id = InlineTerms.encode(literal(value));
+            assertTrue(InlineTerms.isInline(id), value + " devrait être encodé dans son indexe.");
+            assertTrue(id > 0, "Un indexe encodé reste positif.");
+            assertEquals(literal(value), InlineTerms.decode(id), "Le terme décodé doit être égal à l'original.");
+        }
+    }
+
+    @Test
+    public void testNonCanonicalForms() {
+        for (String value : List.of("", "007", "-1", "1e3", "12345678901", "1988-9-24", "1988-02-30", "True", "subject1")) {
+            assertEquals(0, InlineTerms.encode(literal(value)), value + " ne doit pas être encodé.");
+        }
+        assertEquals(0, InlineTerms.encode(VAR_X), "Une variable ne doit pas être encodée.");
+    }
+
+    @Test
+    public void testOrderPreserving() {
+        assertTrue(InlineTerms.encode(literal("9")) < InlineTerms.encode(literal("10")));
+        assertTrue(InlineTerms.encode(literal("1988-09-24")) < InlineTerms.encode(literal("1988-10-01")));
+        assertTrue(InlineTerms.encode(literal("1969-12-31")) < InlineTerms.encode(literal("1970-01-01")));
+        int id = InlineTerms.encode(literal("1970-01-02"));
+        assertEquals(InlineTerms.Kind.DATE, InlineTerms.kind(id));
+        assertEquals(1, InlineTerms.value(id));
+        assertEquals(id, InlineTerms.encode(InlineTerms.Kind.DATE, 1));
+    }
+
+    @Test
+    public void testStoreSkipsDictionary() {
+        RDFHexaStore store = new RDFHexaStore();
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, literal("42")));
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_2, literal("2001-01-01")));
+        assertEquals(3, store.dictionarySize(), "Les littéraux encodés ne doivent pas entrer dans le dictionnaire.");
+        assertTrue(store.getAtoms().contains(new RDFAtom(SUBJECT_1, PREDICATE_1, literal("42"))));
+
+        StarQuery query = new StarQuery("Inline", List.of(
+                new RDFAtom(VAR_X, PREDICATE_1, literal("42")),
+                new RDFAtom(VAR_X, PREDICATE_2, literal("2001-01-01"))), List.of(VAR_X));
+        List<Substitution> answers = new ArrayList<>();
+        store.match(query).forEachRemaining(answers::add);
+        assertEquals(1, answers.size());
+        assertEquals(SUBJECT_1, answers.get(0).createImageOf(VAR_X));
+
+        Variable y = SameObjectTermFactory.instance().createOrGetVariable("?y");
+        List<Term> objects = new ArrayList<>();
+        store.match(new RDFAtom(SUBJECT_1, PREDICATE_1, y)).forEachRemaining(s -> objects.add(s.createImageOf(y)));
+        assertEquals(List.of(literal("42")), objects);
+    }
+}
@@ -0,0 +1,154 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.Test;
+import qengine.model.OrderKey;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour la classe {@link QueryScheduler}.
+ */
+public class QuerySchedulerTest {
+    private static final Literal<String> TYPE = SameObjectTermFactory.instance().createOrGetLiteral("type");
+    private static final Literal<String> NAME = SameObjectTermFactory.instance().createOrGetLiteral("name");
+    private static final Literal<String> PERSON = SameObjectTermFactory.instance().createOrGetLiteral("Person");
+    private static final Literal<String> RARE = SameObjectTermFactory.instance().createOrGetLiteral("Rare");
+    private static final Variable VAR_S = SameObjectTermFactory.instance().createOrGetVariable("?s");
+    private static final Variable VAR_P = SameObjectTermFactory.instance().createOrGetVariable("?p");
+    private static final Variable VAR_O = SameObjectTermFactory.instance().createOrGetVariable("?o");
+
+    private static final int SUBJECTS = 2_000;
+
+    private static RDFHexaStore store() {
+        RDFHexaStore store = new RDFHexaStore();
+        List<RDFAtom> atoms = new ArrayList<>();
+        for (int i = 0; i < SUBJECTS; i++) {
+            Literal<String> subject = SameObjectTermFactory.instance().createOrGetLiteral("subject" + i);
+            atoms.add(new RDFAtom(subject, TYPE, i % 100 == 0 ? RARE : PERSON));
+            atoms.add(new RDFAtom(subject, NAME, SameObjectTermFactory.instance().createOrGetLiteral("name" + i % 7)));
+        }
+        store.addAll(atoms);
+        return store;
+    }
+
+    private static List<Substitution> match(RDFHexaStore store, StarQuery query) {
+        List<Substitution> answers = new ArrayList<>();
+        store.match(query).forEachRemaining(answers::add);
+        return answers;
+    }
+
+    private static Map<Substitution, Integer> multiset(List<Substitution> answers) {
+        Map<Substitution, Integer> counts = new HashMap<>();
+        answers.forEach(answer -> counts.merge(answer, 1, Integer::sum));
+        return counts;
+    }
+
+    @Test
+    public void testMorselsMatchStore() throws Exception {
+        RDFHexaStore store = store();
+        StarQuery star = new StarQuery("Star", List.of(
+                new RDFAtom(VAR_S, TYPE, PERSON),
+                new RDFAtom(VAR_S, NAME, VAR_O)), List.of(VAR_S, VAR_O));
+        StarQuery all = new StarQuery("All", List.of(new RDFAtom(VAR_S, VAR_P, VAR_O)), List.of(VAR_S, VAR_P, VAR_O));
+        List<StarQuery> queries = List.of(star, star.withDistinct(),
+                new StarQuery("Names", List.of(new RDFAtom(VAR_S, TYPE, PERSON), new RDFAtom(VAR_S, NAME, VAR_O)),
+                        List.of(VAR_O)).withDistinct(),
+                all, all.withOrder(List.of(), 10),
+                new StarQuery("Rare", List.of(new RDFAtom(VAR_S, TYPE, RARE)), List.of(VAR_S)));
+        try (QueryScheduler scheduler = new QueryScheduler(store, 4, 64)) {
+            for (StarQuery query : queries) {
+                List<Substitution> answers = scheduler.submit(query).get(30, TimeUnit.SECONDS);
+                if (query.getLimit().isPresent()) {
+                    assertEquals(query.getLimit().getAsLong(), answers.size());
+                    Set<Substitution> expected = new HashSet<>(match(store, query.withOrder(List.of(), -1)));
+                    assertTrue(expected.containsAll(answers), query.getLabel());
+                } else {
+                    assertEquals(multiset(match(store, query)), multiset(answers), query.getLabel());
+                }
+            }
+            StarQuery ordered = star.withOrder(List.of(new OrderKey(VAR_O, false), new OrderKey(VAR_S, true)), 25);
+            assertEquals(match(store, ordered), scheduler.submit(ordered, QueryScheduler.Priority.LOW).get(30, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testLightQueryOvertakesHeavyQuery() throws Exception {
+        RDFHexaStore store = store();
+        StarQuery heavy = new StarQuery("Heavy", List.of(new RDFAtom(VAR_S, VAR_P, VAR_O)), List.of(VAR_S, VAR_P, VAR_O));
+        StarQuery light = new StarQuery("Light", List.of(new RDFAtom(VAR_S, TYPE, RARE)), List.of(VAR_S));
+        List<String> completed = new CopyOnWriteArrayList<>();
+        try (QueryScheduler scheduler = new QueryScheduler(store, 1, 1)) {
+            CompletableFuture<List<Substitution>> heavyAnswers = scheduler.submit(heavy);
+            heavyAnswers.thenRun(() -> completed.add("heavy"));
+            CompletableFuture<List<Substitution>> lightAnswers = scheduler.submit(light, QueryScheduler.Priority.HIGH);
+            lightAnswers.thenRun(() -> completed.add("light"));
+
+            assertEquals(SUBJECTS / 100, lightAnswers.get(30, TimeUnit.SECONDS).size());
+            assertEquals(2 * SUBJECTS, heavyAnswers.get(30, TimeUnit.SECONDS).size());
+        }
+        assertEquals(List.of("light", "heavy"), completed, "La requête légère ne doit pas attendre la requête lourde.");
+    }
+
+    @Test
+    public void testQueryReadsSnapshotTakenAtSubmission() throws Exception {
+        RDFHexaStore store = store();
+        StarQuery query = new StarQuery("Snapshot", List.of(new RDFAtom(VAR_S, TYPE, PERSON)), List.of(VAR_S));
+        int expected = match(store, query).size();
+        try (QueryScheduler scheduler = new QueryScheduler(store, 1, 16)) {
+            CompletableFuture<List<Substitution>> answers = scheduler.submit(query);
+            for (int i = SUBJECTS; i < 2 * SUBJECTS; i++) {
+                store.add(new RDFAtom(SameObjectTermFactory.instance().createOrGetLiteral("subject" + i), TYPE, PERSON));
+            }
+            assertEquals(expected, answers.get(10, TimeUnit.SECONDS).size(),
+                    "Les morceaux ne voient pas les triplets ajoutés après la soumission.");
+        }
+    }
+
+    @Test
+    public void testErrorCompletesFuture() throws Exception {
+        RDFHexaStore failing = new RDFHexaStore() {
+            @Override
+            public RDFHexaStore snapshot() {
+                return this;
+            }
+
+            @Override
+            QueryMorsels morsels(StarQuery q, int size) {
+                return new QueryMorsels(2, morsel -> {
+                    throw new AssertionError("morceau " + morsel);
+                }, Long.MAX_VALUE, rows -> List.of());
+            }
+        };
+        try (QueryScheduler scheduler = new QueryScheduler(failing, 1, QueryScheduler.DEFAULT_MORSEL_SIZE)) {
+            CompletableFuture<List<Substitution>> answers = scheduler.submit(
+                    new StarQuery("Error", List.of(new RDFAtom(VAR_S, TYPE, RARE)), List.of(VAR_S)));
+            ExecutionException e = assertThrows(ExecutionException.class, () -> answers.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(AssertionError.class, e.getCause());
+
+            // Le thread a survécu à l'erreur
+            StarQuery other = new StarQuery("Other", List.of(new RDFAtom(VAR_S, TYPE, RARE)), List.of(VAR_S));
+            assertThrows(ExecutionException.class, () -> scheduler.submit(other).get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testClosedSchedulerRejectsQueries() {
+        QueryScheduler scheduler = new QueryScheduler(store(), 1, QueryScheduler.DEFAULT_MORSEL_SIZE);
+        scheduler.close();
+        StarQuery query = new StarQuery("Closed", List.of(new RDFAtom(VAR_S, TYPE, RARE)), List.of(VAR_S));
+        assertThrows(IllegalStateException.class, () -> scheduler.submit(query));
+        assertThrows(IllegalArgumentException.class, () -> new QueryScheduler(store(), 0, 1));
+    }
+}
@@ -10,11 +10,17 @@ import qengine.parser.RDFAtomParser;
 import qengine.storage.RDFHexaStore;
 import org.junit.jupiter.api.Test;
 import qengine.model.RDFAtom;
+import qengine.model.OrderKey;
 import qengine.model.StarQuery;
+import qengine.model.ValueFilter;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -160,4 +166,375 @@ public class RDFHexaStoreTest {
         assertTrue(matchedList.contains(expectedMatch), "La correspondance attendue est manquante.");
     }
 
+    @Test
+    public void testRemoveRDFAtom() {
+        RDFHexaStore store = new RDFHexaStore();
+        RDFAtom rdfAtom1 = new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1);
+        RDFAtom rdfAtom2 = new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_2);
+        store.addAll(List.of(rdfAtom1, rdfAtom2));
+
+        assertTrue(store.remove(rdfAtom1), "Le RDFAtom présent devrait être retiré.");
+        assertFalse(store.remove(rdfAtom1), "Un RDFAtom absent ne peut pas être retiré.");
+        assertFalse(store.remove(new RDFAtom(SUBJECT_2, PREDICATE_2, OBJECT_3)), "Des termes inconnus ne peuvent pas être retirés.");
+        assertEquals(1, store.size());
+        assertEquals(List.of(rdfAtom2), new ArrayList<>(store.getAtoms()));
+
+        List<Substitution> matchedList = new ArrayList<>();
+        store.match(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1)).forEachRemaining(matchedList::add);
+        assertTrue(matchedList.isEmpty(), "Le RDFAtom retiré ne doit plus être trouvé.");
+
+        assertTrue(store.add(rdfAtom1), "Un RDFAtom retiré peut être ajouté à nouveau.");
+    }
+
+    @Test
+    public void testSnapshotIsolation() {
+        RDFHexaStore store = new RDFHexaStore();
+        RDFAtom rdfAtom1 = new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1);
+        RDFAtom rdfAtom2 = new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1);
+        store.add(rdfAtom1);
+
+        RDFHexaStore snapshot = store.snapshot();
+        store.add(rdfAtom2);
+        store.remove(rdfAtom1);
+
+        StarQuery starQuery = new StarQuery("Snapshot", List.of(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1)), List.of(VAR_X));
+        List<Substitution> before = new ArrayList<>();
+        snapshot.match(starQuery).forEachRemaining(before::add);
+        List<Substitution> after = new ArrayList<>();
+        store.match(starQuery).forEachRemaining(after::add);
+
+        assertEquals(List.of(new SubstitutionImpl(Map.of(VAR_X, SUBJECT_1))), before, "Le snapshot ne doit pas voir les modifications.");
+        assertEquals(List.of(new SubstitutionImpl(Map.of(VAR_X, SUBJECT_2))), after);
+        assertEquals(1, snapshot.size());
+        assertEquals(List.of(rdfAtom1), new ArrayList<>(snapshot.getAtoms()));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(rdfAtom2), "Un snapshot est en lecture seule.");
+    }
+
+    @Test
+    public void testSnapshotReadsDuringWrites() throws Exception {
+        RDFHexaStore store = new RDFHexaStore();
+        List<Literal<String>> subjects = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            subjects.add(SameObjectTermFactory.instance().createOrGetLiteral("subject_" + i));
+        }
+        StarQuery starQuery = new StarQuery("Writes", List.of(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1)), List.of(VAR_X));
+        AtomicReference<RDFHexaStore> published = new AtomicReference<>(store.snapshot());
+
+        // L'écrivain ajoute des termes au dictionnaire pendant que le lecteur interroge les snapshots publiés
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 0; i < subjects.size(); i++) {
+                    store.add(new RDFAtom(subjects.get(i), PREDICATE_1, OBJECT_1));
+                    if (i % 100 == 0) {
+                        published.set(store.snapshot());
+                    }
+                }
+            });
+            do {
+                RDFHexaStore snapshot = published.get();
+                int terms = snapshot.dictionarySize();
+                List<Substitution> results = new ArrayList<>();
+                snapshot.match(starQuery).forEachRemaining(results::add);
+                assertEquals(snapshot.size(), results.size(), "Le snapshot doit voir exactement ses triplets.");
+                for (Substitution result : results) {
+                    assertNotNull(result.createImageOf(VAR_X), "Chaque indexe du snapshot doit avoir son terme.");
+                }
+                if (snapshot.size() < subjects.size()) {
+                    assertEquals(0, snapshot.lookup(subjects.get((int) snapshot.size())),
+                            "Un terme ajouté après le snapshot doit lui rester inconnu.");
+                }
+                assertEquals(terms, snapshot.dictionarySize(), "Le dictionnaire d'un snapshot ne doit pas grandir.");
+            } while (!writer.isDone());
+            writer.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(subjects.size(), store.size());
+    }
+
+    @Test
+    public void testReducedPermutations() {
+        RDFHexaStore store = new RDFHexaStore(EnumSet.of(IndexPermutation.SPO));
+        RDFAtom rdfAtom1 = new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1);
+        RDFAtom rdfAtom2 = new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1);
+        RDFAtom rdfAtom3 = new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_2);
+        store.addAll(List.of(rdfAtom1, rdfAtom2, rdfAtom3));
+        assertEquals(EnumSet.of(IndexPermutation.SPO), store.getPermutations());
+
+        List<Substitution> matchedList = new ArrayList<>();
+        store.match(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1)).forEachRemaining(matchedList::add);
+        assertEquals(2, matchedList.size(), "Sans POS, l'accès doit être résolu par un parcours de SPO.");
+        assertTrue(matchedList.contains(new SubstitutionImpl(Map.of(VAR_X, SUBJECT_2))));
+
+        StarQuery query = new StarQuery("Reduced", List.of(
+                new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1),
+                new RDFAtom(VAR_X, PREDICATE_2, OBJECT_2)), List.of(VAR_X));
+        List<Substitution> answers = new ArrayList<>();
+        store.match(query).forEachRemaining(answers::add);
+        assertEquals(List.of(new SubstitutionImpl(Map.of(VAR_X, SUBJECT_1))), answers);
+
+        assertTrue(store.getIndexAdvisor().accesses(IndexPermutation.mask(false, true, true)) > 0);
+        store.tunePermutations(0.1);
+        assertTrue(store.getPermutations().contains(IndexPermutation.POS), "L'accès (?, p, o) doit conduire à recommander POS.");
+        matchedList.clear();
+        store.match(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1)).forEachRemaining(matchedList::add);
+        assertEquals(2, matchedList.size(), "L'index construit doit contenir les triplets déjà présents.");
+
+        store.setPermutations(EnumSet.noneOf(IndexPermutation.class));
+        assertEquals(EnumSet.of(IndexPermutation.SPO), store.getPermutations(), "SPO est toujours maintenue.");
+        assertEquals(3, store.getAtoms().size());
+    }
+
+    @Test
+    public void testLazyPermutations() {
+        RDFHexaStore store = new RDFHexaStore(EnumSet.allOf(IndexPermutation.class), true);
+        store.addAll(List.of(
+                new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1),
+                new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1),
+                new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_2)));
+        assertEquals(EnumSet.of(IndexPermutation.SPO), store.getPermutations(), "Seule SPO est construite au chargement.");
+
+        List<Substitution> matchedList = new ArrayList<>();
+        store.match(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1)).forEachRemaining(matchedList::add);
+        assertEquals(2, matchedList.size());
+        assertEquals(EnumSet.of(IndexPermutation.SPO, IndexPermutation.POS), store.getPermutations(),
+                "POS doit être construite au premier accès (?, p, o), et elle seule.");
+
+        store.add(new RDFAtom(SUBJECT_2, PREDICATE_2, OBJECT_2));
+        matchedList.clear();
+        store.match(new RDFAtom(VAR_X, PREDICATE_2, OBJECT_2)).forEachRemaining(matchedList::add);
+        assertEquals(2, matchedList.size(), "Une permutation construite est ensuite maintenue.");
+    }
+
+    @Test
+    public void testMatcherResolvesPermutations() {
+        List<RDFAtom> atoms = List.of(
+                new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1),
+                new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1),
+                new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_2));
+        RDFAtom pattern = new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1);
+
+        RDFHexaStore lazy = new RDFHexaStore(EnumSet.allOf(IndexPermutation.class), true);
+        lazy.addAll(atoms);
+        List<Substitution> matchedList = new ArrayList<>();
+        RDFMatcher.VAR_LIT_LIT.substitution(lazy, pattern).forEachRemaining(matchedList::add);
+        assertEquals(2, matchedList.size());
+        assertTrue(lazy.getPermutations().contains(IndexPermutation.POS), "La permutation préférée différée est construite.");
+        matchedList.clear();
+        RDFMatcher.VAR_LIT_LIT.substitution(lazy, pattern, IndexPermutation.OPS).forEachRemaining(matchedList::add);
+        assertEquals(2, matchedList.size(), "Une permutation différée demandée explicitement est construite.");
+
+        RDFHexaStore reduced = new RDFHexaStore(EnumSet.of(IndexPermutation.SPO));
+        reduced.addAll(atoms);
+        matchedList.clear();
+        RDFMatcher.VAR_LIT_LIT.substitution(reduced, pattern).forEachRemaining(matchedList::add);
+        assertEquals(2, matchedList.size(), "Sans permutation adaptée, l'atome est évalué par un parcours de SPO.");
+        assertThrows(IllegalArgumentException.class,
+                () -> RDFMatcher.VAR_LIT_LIT.substitution(reduced, pattern, IndexPermutation.POS));
+    }
+
+    @Test
+    public void testSubjectAdjacency() {
+        RDFHexaStore store = new RDFHexaStore();
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1));
+        store.setSubjectAdjacency(true);
+        assertTrue(store.hasSubjectAdjacency());
+        store.addAll(List.of(
+                new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_2),
+                new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1),
+                new RDFAtom(SUBJECT_2, PREDICATE_2, OBJECT_3)));
+
+        StarQuery query = new StarQuery("Adjacency", List.of(
+                new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1),
+                new RDFAtom(VAR_X, PREDICATE_2, OBJECT_2)), List.of(VAR_X));
+        List<Substitution> answers = new ArrayList<>();
+        store.match(query).forEachRemaining(answers::add);
+        assertEquals(List.of(new SubstitutionImpl(Map.of(VAR_X, SUBJECT_1))), answers,
+                "Les triplets présents avant l'activation doivent être dans la liste d'adjacence.");
+
+        store.remove(new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_2));
+        assertFalse(store.match(query).hasNext(), "Un triplet retiré doit quitter la liste d'adjacence.");
+    }
+
+    @Test
+    public void testFilteredStarQuery() {
+        Literal<String> birthDate = SameObjectTermFactory.instance().createOrGetLiteral("birthDate");
+        RDFHexaStore store = new RDFHexaStore();
+        store.add(new RDFAtom(SUBJECT_1, birthDate, SameObjectTermFactory.instance().createOrGetLiteral("1985-03-02")));
+        store.add(new RDFAtom(SUBJECT_2, birthDate, SameObjectTermFactory.instance().createOrGetLiteral("1992-11-20")));
+        store.add(new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1));
+        store.add(new RDFAtom(SUBJECT_2, PREDICATE_2, OBJECT_2));
+
+        StarQuery query = new StarQuery("Filtre", List.of(
+                new RDFAtom(VAR_X, birthDate, VAR_Y),
+                new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1)), List.of(VAR_X, VAR_Y),
+                List.of(new ValueFilter(VAR_Y, ValueFilter.Operator.GT, SameObjectTermFactory.instance().createOrGetLiteral("1990-01-01"))));
+        List<Substitution> answers = new ArrayList<>();
+        store.match(query).forEachRemaining(answers::add);
+        assertEquals(1, answers.size(), "Seul subject2 est né après 1990.");
+        assertEquals(SUBJECT_2, answers.get(0).createImageOf(VAR_X));
+        assertEquals("1992-11-20", answers.get(0).createImageOf(VAR_Y).label());
+
+        // Une constante d'un autre type ne compare aucune date
+        StarQuery numeric = new StarQuery("Filtre", List.of(new RDFAtom(VAR_X, birthDate, VAR_Y)), List.of(VAR_X),
+                List.of(new ValueFilter(VAR_Y, ValueFilter.Operator.LT, SameObjectTermFactory.instance().createOrGetLiteral("5"))));
+        assertFalse(store.match(numeric).hasNext());
+    }
+
+    @Test
+    public void testFilterComparesNumericValues() {
+        Literal<String> score = SameObjectTermFactory.instance().createOrGetLiteral("score");
+        RDFHexaStore store = new RDFHexaStore();
+        String[] values = {"-3", "2.5", "7", "300000000"};
+        for (int i = 0; i < values.length; i++) {
+            Literal<String> subject = SameObjectTermFactory.instance().createOrGetLiteral("subject" + i);
+            store.add(new RDFAtom(subject, score, SameObjectTermFactory.instance().createOrGetLiteral(values[i])));
+        }
+
+        StarQuery below = new StarQuery("Filtre", List.of(new RDFAtom(VAR_X, score, VAR_Y)), List.of(VAR_Y),
+                List.of(new ValueFilter(VAR_Y, ValueFilter.Operator.LT, SameObjectTermFactory.instance().createOrGetLiteral("5"))));
+        Set<String> found = new HashSet<>();
+        store.match(below).forEachRemaining(answer -> found.add(answer.createImageOf(VAR_Y).label()));
+        assertEquals(Set.of("-3", "2.5"), found, "Les nombres hors de l'encodage se comparent par valeur.");
+
+        StarQuery above = new StarQuery("Filtre", List.of(new RDFAtom(VAR_X, score, VAR_Y)), List.of(VAR_Y),
+                List.of(new ValueFilter(VAR_Y, ValueFilter.Operator.GE, SameObjectTermFactory.instance().createOrGetLiteral("2.5"))));
+        found.clear();
+        store.match(above).forEachRemaining(answer -> found.add(answer.createImageOf(VAR_Y).label()));
+        assertEquals(Set.of("2.5", "7", "300000000"), found);
+
+        // Les objets triés de pos[score] suivent les ajouts, sans toucher au snapshot
+        RDFHexaStore snapshot = store.snapshot();
+        store.add(new RDFAtom(SUBJECT_1, score, SameObjectTermFactory.instance().createOrGetLiteral("-10")));
+        found.clear();
+        store.match(below).forEachRemaining(answer -> found.add(answer.createImageOf(VAR_Y).label()));
+        assertEquals(Set.of("-10", "-3", "2.5"), found);
+        found.clear();
+        snapshot.match(below).forEachRemaining(answer -> found.add(answer.createImageOf(VAR_Y).label()));
+        assertEquals(Set.of("-3", "2.5"), found);
+    }
+
+    @Test
+    public void testOrderByWithLimit() {
+        Literal<String> age = SameObjectTermFactory.instance().createOrGetLiteral("age");
+        RDFHexaStore store = new RDFHexaStore();
+        for (int i = 0; i < 50; i++) {
+            Literal<String> subject = SameObjectTermFactory.instance().createOrGetLiteral("subject" + i);
+            store.add(new RDFAtom(subject, PREDICATE_1, OBJECT_1));
+            store.add(new RDFAtom(subject, age, SameObjectTermFactory.instance().createOrGetLiteral(String.valueOf(i * 7 % 50))));
+        }
+
+        // Tri sur les indexes des âges, encodés dans l'ordre de leurs valeurs
+        StarQuery youngest = new StarQuery("Tri", List.of(
+                new RDFAtom(VAR_X, age, VAR_Y),
+                new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1)), List.of(VAR_X, VAR_Y),
+                List.of(new ValueFilter(VAR_Y, ValueFilter.Operator.GE, SameObjectTermFactory.instance().createOrGetLiteral("0"))))
+                .withOrder(List.of(new OrderKey(VAR_Y, true)), 3);
+        List<String> ages = new ArrayList<>();
+        store.match(youngest).forEachRemaining(answer -> ages.add(answer.createImageOf(VAR_Y).label()));
+        assertEquals(List.of("0", "1", "2"), ages, "Les âges se trient par valeur et non par label.");
+
+        // Étoile simple : tri des candidats de la variable centrale
+        StarQuery last = new StarQuery("Tri", List.of(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1)), List.of(VAR_X))
+                .withOrder(List.of(new OrderKey(VAR_X, false)), 2);
+        List<String> subjects = new ArrayList<>();
+        store.match(last).forEachRemaining(answer -> subjects.add(answer.createImageOf(VAR_X).label()));
+        assertEquals(List.of("subject9", "subject8"), subjects);
+    }
+
+    @Test
+    public void testOrderByValueAcrossDictionaryAndInlineTerms() {
+        Literal<String> score = SameObjectTermFactory.instance().createOrGetLiteral("score");
+        RDFHexaStore store = new RDFHexaStore();
+        String[] values = {"10", "-3", "label", "2.5", "300000000", "0"};
+        for (int i = 0; i < values.length; i++) {
+            Literal<String> subject = SameObjectTermFactory.instance().createOrGetLiteral("subject" + i);
+            store.add(new RDFAtom(subject, score, SameObjectTermFactory.instance().createOrGetLiteral(values[i])));
+        }
+
+        StarQuery query = new StarQuery("Tri", List.of(new RDFAtom(VAR_X, score, VAR_Y)), List.of(VAR_Y))
+                .withOrder(List.of(new OrderKey(VAR_Y, true)), -1);
+        List<String> sorted = new ArrayList<>();
+        store.match(query).forEachRemaining(answer -> sorted.add(answer.createImageOf(VAR_Y).label()));
+        assertEquals(List.of("-3", "0", "2.5", "10", "300000000", "label"), sorted,
+                "Les nombres encodés ou non se trient ensemble par valeur, les labels ensuite.");
+    }
+
+    @Test
+    public void testCountGroupBy() {
+        Literal<String> tag = SameObjectTermFactory.instance().createOrGetLiteral("tag");
+        Variable varZ = SameObjectTermFactory.instance().createOrGetVariable("?z");
+        Variable count = SameObjectTermFactory.instance().createOrGetVariable("?count");
+        RDFHexaStore store = new RDFHexaStore();
+        for (int i = 0; i < 30; i++) {
+            Literal<String> subject = SameObjectTermFactory.instance().createOrGetLiteral("subject" + i);
+            store.add(new RDFAtom(subject, PREDICATE_1, SameObjectTermFactory.instance().createOrGetLiteral("group" + i % 3)));
+            for (int j = 0; j <= i % 2; j++) {
+                store.add(new RDFAtom(subject, tag, SameObjectTermFactory.instance().createOrGetLiteral("tag" + j)));
+            }
+        }
+
+        // Un atome : les tailles des feuilles de pos
+        StarQuery perGroup = new StarQuery("Compte", List.of(new RDFAtom(VAR_X, PREDICATE_1, VAR_Y)), List.of(VAR_Y))
+                .withCount(count, List.of(VAR_Y));
+        assertEquals(Map.of("group0", "10", "group1", "10", "group2", "10"), counts(store, perGroup, VAR_Y, count));
+        StarQuery total = new StarQuery("Compte", List.of(new RDFAtom(VAR_X, PREDICATE_1, VAR_Y)), List.of())
+                .withCount(count, List.of());
+        assertEquals(Map.of("", "30"), counts(store, total, null, count));
+
+        // Étoile : le compte de chaque groupe est celui de ses réponses
+        List<RDFAtom> star = List.of(new RDFAtom(VAR_X, PREDICATE_1, VAR_Y), new RDFAtom(VAR_X, tag, varZ));
+        Map<String, Integer> expected = new HashMap<>();
+        store.match(new StarQuery("Étoile", star, List.of(VAR_X, VAR_Y, varZ)))
+                .forEachRemaining(answer -> expected.merge(answer.createImageOf(VAR_Y).label(), 1, Integer::sum));
+        StarQuery grouped = new StarQuery("Compte", star, List.of(VAR_Y)).withCount(count, List.of(VAR_Y))
+                .withOrder(List.of(new OrderKey(VAR_Y, true)), -1);
+        Map<String, String> actual = counts(store, grouped, VAR_Y, count);
+        assertEquals(List.of("group0", "group1", "group2"), new ArrayList<>(actual.keySet()));
+        expected.forEach((group, n) -> assertEquals(String.valueOf(n), actual.get(group), group));
+
+        // Sans réponse, un compte sans groupement vaut 0
+        StarQuery none = new StarQuery("Compte", List.of(new RDFAtom(VAR_X, PREDICATE_2, VAR_Y)), List.of())
+                .withCount(count, List.of());
+        assertEquals(Map.of("", "0"), counts(store, none, null, count));
+    }
+
+    @Test
+    public void testProjectionAndDistinct() {
+        RDFHexaStore store = new RDFHexaStore();
+        for (int i = 0; i < 20; i++) {
+            Literal<String> subject = SameObjectTermFactory.instance().createOrGetLiteral("subject" + i);
+            store.add(new RDFAtom(subject, PREDICATE_1, SameObjectTermFactory.instance().createOrGetLiteral("object" + i % 4)));
+            store.add(new RDFAtom(subject, PREDICATE_2, OBJECT_1));
+        }
+        List<RDFAtom> star = List.of(new RDFAtom(VAR_X, PREDICATE_1, VAR_Y), new RDFAtom(VAR_X, PREDICATE_2, OBJECT_1));
+
+        // Une réponse par solution, réduite aux variables réponses
+        List<Substitution> all = new ArrayList<>();
+        store.match(new StarQuery("Projection", star, List.of(VAR_Y))).forEachRemaining(all::add);
+        assertEquals(20, all.size());
+        assertEquals(VAR_X, all.get(0).createImageOf(VAR_X), "Seules les variables réponses devraient être liées.");
+
+        List<String> distinct = new ArrayList<>();
+        store.match(new StarQuery("Projection", star, List.of(VAR_Y)).withDistinct())
+                .forEachRemaining(answer -> distinct.add(answer.createImageOf(VAR_Y).label()));
+        assertEquals(4, distinct.size());
+        assertEquals(4, new HashSet<>(distinct).size());
+
+        // La limite compte les réponses distinctes
+        StarQuery firstTwo = new StarQuery("Projection", star, List.of(VAR_Y)).withDistinct()
+                .withOrder(List.of(new OrderKey(VAR_Y, true)), 2);
+        List<String> ordered = new ArrayList<>();
+        store.match(firstTwo).forEachRemaining(answer -> ordered.add(answer.createImageOf(VAR_Y).label()));
+        assertEquals(List.of("object0", "object1"), ordered);
+    }
+
+    private static Map<String, String> counts(RDFHexaStore store, StarQuery query, Variable group, Variable count) {
+        Map<String, String> counts = new LinkedHashMap<>();
+        store.match(query).forEachRemaining(answer ->
+                counts.put(group == null ? "" : answer.createImageOf(group).label(), answer.createImageOf(count).label()));
+        return counts;
+    }
 }
@@ -131,6 +131,28 @@ public class RDFMatcherTest {
         ))));
     }
 
+    @Test
+    public void testVarLitVar() {
+        var query = new RDFAtom(VAR_X, PREDICATE_1, VAR_Z);
+        var optMatcher = RDFMatcher.match(query);
+        assertTrue(optMatcher.isPresent(), "(VAR, LIT, VAR) atom should have a matcher.");
+        var matcher = optMatcher.get();
+        assertEquals(RDFMatcher.VAR_LIT_VAR, matcher, "(VAR, LIT, VAR) matcher expected");
+
+        for (IndexPermutation permutation : matcher.permutations()) {
+            var subs = Streams.stream(matcher.substitution(store, query, permutation))
+                    .collect(Collectors.toSet());
+            assertEquals(1, subs.size(), "Expected 1 substitution through " + permutation);
+            assertTrue(subs.contains(new SubstitutionImpl(Map.of(
+                    VAR_X, SUBJECT_1,
+                    VAR_Z, OBJECT_1
+            ))));
+        }
+        var repeated = new RDFAtom(VAR_X, PREDICATE_1, VAR_X);
+        assertFalse(RDFMatcher.VAR_LIT_VAR.substitution(store, repeated).hasNext(),
+                "A repeated variable should have the same image everywhere");
+    }
+
     @Test
     public void testLitLitLit() {
         var atom = new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1);
@@ -139,10 +161,27 @@ public class RDFMatcherTest {
         var matcher = optMatcher.get();
         assertEquals(RDFMatcher.LIT_LIT_LIT, matcher, "(LIT, LIT, LIT) matcher expected");
 
-        for (Iterator<Substitution> it = matcher.substitution(store, atom); it.hasNext();) {
-            fail("There should be an empty substitution only if there are no variables");
-        }
-    }
+        var subs = Streams.stream(matcher.substitution(store, atom))
+                .collect(Collectors.toList());
+        assertEquals(1, subs.size(), "A stored triple should have the empty substitution as its only answer");
+        assertTrue(subs.get(0).isEmpty());
 
+        var missing = new RDFAtom(SUBJECT_1, PREDICATE_1, SUBJECT_1);
+        assertFalse(matcher.substitution(store, missing).hasNext(), "A missing triple should have no answer");
+    }
 
+    @Test
+    public void testEveryShapeHasPrefixPermutations() {
+        for (RDFMatcher matcher : RDFMatcher.values()) {
+            for (IndexPermutation permutation : matcher.permutations()) {
+                int bound = 0;
+                for (String position : matcher.name().split("_")) {
+                    bound = bound << 1 | (position.equals("LIT") ? 1 : 0);
+                }
+                // Le masque lit le sujet au bit 0 : on inverse l'ordre des trois bits
+                int mask = (bound >> 2 & 1) | (bound & 2) | (bound << 2 & 4);
+                assertTrue(permutation.serves(mask), permutation + " should serve " + matcher);
+            }
+        }
+    }
 }
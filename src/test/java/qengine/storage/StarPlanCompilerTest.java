@@ -0,0 +1,138 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.Test;
+import qengine.instrumentation.MetricsRegistry;
+import qengine.instrumentation.StarQueryEvent;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour la classe {@link StarPlanCompiler} et le mode compilé de {@link RDFHexaStore}.
+ */
+public class StarPlanCompilerTest {
+    private static final Literal<String> PREDICATE_1 = SameObjectTermFactory.instance().createOrGetLiteral("predicate1");
+    private static final Literal<String> PREDICATE_2 = SameObjectTermFactory.instance().createOrGetLiteral("predicate2");
+    private static final Literal<String> PREDICATE_3 = SameObjectTermFactory.instance().createOrGetLiteral("predicate3");
+    private static final Literal<String> OBJECT_1 = SameObjectTermFactory.instance().createOrGetLiteral("object1");
+    private static final Literal<String> OBJECT_2 = SameObjectTermFactory.instance().createOrGetLiteral("object2");
+    private static final Variable VAR_X = SameObjectTermFactory.instance().createOrGetVariable("?x");
+    private static final Variable VAR_Y = SameObjectTermFactory.instance().createOrGetVariable("?y");
+    private static final Variable VAR_Z = SameObjectTermFactory.instance().createOrGetVariable("?z");
+
+    private static List<RDFAtom> data() {
+        List<RDFAtom> atoms = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            Literal<String> subject = SameObjectTermFactory.instance().createOrGetLiteral("subject" + i);
+            atoms.add(new RDFAtom(subject, PREDICATE_1, i % 2 == 0 ? OBJECT_1 : OBJECT_2));
+            for (int j = 0; j < i % 3; j++) {
+                atoms.add(new RDFAtom(subject, PREDICATE_2, SameObjectTermFactory.instance().createOrGetLiteral("value" + j)));
+            }
+            if (i % 5 == 0) {
+                atoms.add(new RDFAtom(subject, PREDICATE_3, SameObjectTermFactory.instance().createOrGetLiteral("other" + i)));
+            }
+        }
+        return atoms;
+    }
+
+    private static Set<Substitution> answers(RDFHexaStore store, StarQuery query) {
+        Set<Substitution> answers = new HashSet<>();
+        store.match(query).forEachRemaining(answers::add);
+        return answers;
+    }
+
+    @Test
+    public void testCompiledPlansMatchInterpreter() {
+        RDFHexaStore interpreted = new RDFHexaStore();
+        interpreted.addAll(data().stream());
+        RDFHexaStore compiled = new RDFHexaStore();
+        compiled.setCompiledPlans(true);
+        compiled.addAll(data().stream());
+        assertTrue(compiled.hasCompiledPlans());
+
+        List<StarQuery> queries = List.of(
+                new StarQuery("Constant", List.of(
+                        new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1)), List.of(VAR_X)),
+                new StarQuery("Open", List.of(
+                        new RDFAtom(VAR_X, PREDICATE_1, OBJECT_2),
+                        new RDFAtom(VAR_X, PREDICATE_2, VAR_Y)), List.of(VAR_X, VAR_Y)),
+                new StarQuery("Product", List.of(
+                        new RDFAtom(VAR_X, PREDICATE_2, VAR_Y),
+                        new RDFAtom(VAR_X, PREDICATE_3, VAR_Z)), List.of(VAR_X, VAR_Y, VAR_Z)),
+                new StarQuery("Unknown", List.of(
+                        new RDFAtom(VAR_X, PREDICATE_1, VAR_Y),
+                        new RDFAtom(VAR_X, PREDICATE_2, PREDICATE_3)), List.of(VAR_X)));
+        for (int run = 0; run <= StarPlanCompiler.COMPILE_THRESHOLD; run++) {
+            for (StarQuery query : queries) {
+                assertEquals(answers(interpreted, query), answers(compiled, query), query.getLabel());
+            }
+        }
+        assertEquals(queries.size() - 1, compiled.compiledPlanCount(),
+                "Chaque forme fréquente doit être compilée, sauf l'étoile simple, qui garde ses élagages.");
+    }
+
+    @Test
+    public void testPreparedQueriesShareTheirPlan() {
+        RDFHexaStore store = new RDFHexaStore();
+        store.setCompiledPlans(true);
+        store.addAll(data().stream());
+        for (int run = 0; run < StarPlanCompiler.COMPILE_THRESHOLD; run++) {
+            Literal<String> object = run % 2 == 0 ? OBJECT_1 : OBJECT_2;
+            StarQuery query = new StarQuery("Prepared", List.of(
+                    new RDFAtom(VAR_X, PREDICATE_1, object),
+                    new RDFAtom(VAR_X, PREDICATE_2, VAR_Y)), List.of(VAR_X));
+            assertEquals(10, answers(store, query).size());
+        }
+        assertEquals(1, store.compiledPlanCount(), "Les objets constants sont des paramètres du plan.");
+
+        store.setCompiledPlans(false);
+        assertFalse(store.hasCompiledPlans());
+        assertEquals(0, store.compiledPlanCount());
+    }
+
+    @Test
+    public void testCompiledModeAvailability() {
+        RDFHexaStore lazy = new RDFHexaStore(EnumSet.allOf(IndexPermutation.class), true);
+        lazy.setCompiledPlans(true);
+        lazy.addAll(data().stream());
+        StarQuery query = new StarQuery("Open", List.of(
+                new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1),
+                new RDFAtom(VAR_X, PREDICATE_2, VAR_Y)), List.of(VAR_X, VAR_Y));
+        for (int run = 0; run < StarPlanCompiler.COMPILE_THRESHOLD; run++) {
+            lazy.match(query);
+        }
+        assertEquals(1, lazy.compiledPlanCount(), "Les permutations différées sont construites pour le plan compilé.");
+
+        TieredRDFHexaStore tiered = new TieredRDFHexaStore();
+        assertThrows(UnsupportedOperationException.class, () -> tiered.setCompiledPlans(true));
+        tiered.setCompiledPlans(false);
+        assertFalse(tiered.hasCompiledPlans());
+    }
+
+    @Test
+    public void testRareShapesAreInterpreted() {
+        StarPlanCompiler compiler = new StarPlanCompiler();
+        int[] predicates = {1, 2};
+        boolean[] constant = {true, false};
+        for (int run = 1; run < StarPlanCompiler.COMPILE_THRESHOLD; run++) {
+            assertNull(compiler.plan(predicates, constant, new StarQueryEvent()));
+        }
+        StarQueryEvent compiled = new StarQueryEvent();
+        CompiledStar plan = compiler.plan(predicates, constant, compiled);
+        assertNotNull(plan);
+        assertFalse(compiled.cacheHit, "Le plan vient d'être compilé.");
+        StarQueryEvent hit = new StarQueryEvent();
+        long hits = MetricsRegistry.get(MetricsRegistry.Counter.CACHE_HITS);
+        assertSame(plan, compiler.plan(predicates.clone(), constant.clone(), hit));
+        assertTrue(hit.cacheHit, "Le plan est trouvé dans le cache.");
+        assertEquals(hits + 1, MetricsRegistry.get(MetricsRegistry.Counter.CACHE_HITS));
+        assertNull(compiler.plan(predicates, new boolean[]{false, false}, new StarQueryEvent()));
+    }
+}
@@ -0,0 +1,226 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import org.junit.jupiter.api.Test;
+import qengine.benchmark.WatDivGenerator;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+import qengine.parser.StarQueryFastParser;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour la classe {@link TieredRDFHexaStore}.
+ */
+class TieredRDFHexaStoreTest {
+    private static final Variable VAR_X = SameObjectTermFactory.instance().createOrGetVariable("?x");
+    private static final Variable VAR_Y = SameObjectTermFactory.instance().createOrGetVariable("?y");
+
+    private static Set<Substitution> answers(Iterator<Substitution> it) {
+        Set<Substitution> answers = new HashSet<>();
+        it.forEachRemaining(answers::add);
+        return answers;
+    }
+
+    @Test
+    void testSameAnswersAsHexaStore() {
+        WatDivGenerator generator = new WatDivGenerator(5, 20_000);
+        RDFHexaStore reference = generator.loadInto(new RDFHexaStore());
+        TieredRDFHexaStore store = new TieredRDFHexaStore(1_000, 3);
+        List<RDFAtom> atoms = generator.atoms().toList();
+        for (int i = 0; i < atoms.size(); i++) {
+            store.add(atoms.get(i));
+            if (i % 5_000 == 0) {
+                store.awaitMerge();
+            }
+        }
+        assertTrue(store.segmentCount() > 0, "Des segments doivent avoir été figés.");
+        assertEquals(reference.size(), store.size());
+        assertFalse(store.add(atoms.get(0)), "Un triplet figé ne doit pas être ajouté une seconde fois.");
+
+        StarQueryFastParser parser = new StarQueryFastParser();
+        for (WatDivGenerator.Template template : WatDivGenerator.Template.values()) {
+            for (String sparql : generator.queries(template, 10)) {
+                StarQuery query = parser.parse(sparql);
+                assertEquals(answers(reference.match(query)), answers(store.match(query)), sparql);
+                RDFAtom atom = query.getRdfAtoms().get(0);
+                assertEquals(answers(reference.match(atom)), answers(store.match(atom)), atom.toString());
+            }
+        }
+
+        // Parcours avec prédicat variable : LIT_VAR_VAR sur le sujet d'un triplet figé
+        RDFAtom first = atoms.get(0);
+        RDFAtom open = new RDFAtom(first.getTripleSubject(), VAR_X, VAR_Y);
+        assertEquals(answers(reference.match(open)), answers(store.match(open)));
+
+        store.compact();
+        assertEquals(1, store.segmentCount(), "Le compactage doit produire un unique segment.");
+        assertEquals(reference.size(), store.size());
+        assertEquals(new HashSet<>(reference.getAtoms()), new HashSet<>(store.getAtoms()));
+    }
+
+    @Test
+    void testAdjacencyAndFiltersCoverSegments() {
+        WatDivGenerator generator = new WatDivGenerator(7, 20_000);
+        RDFHexaStore reference = generator.loadInto(new RDFHexaStore());
+        TieredRDFHexaStore store = new TieredRDFHexaStore(1_000, 3);
+        List<RDFAtom> atoms = generator.atoms().toList();
+        for (int i = 0; i < atoms.size(); i++) {
+            if (i == atoms.size() / 2) {
+                // Construits à partir des segments déjà figés, puis tenus à jour
+                store.setSubjectAdjacency(true);
+                store.setExistenceFilters(true);
+            }
+            store.add(atoms.get(i));
+        }
+        store.awaitMerge();
+        assertTrue(store.segmentCount() > 0, "Des segments doivent avoir été figés.");
+
+        StarQueryFastParser parser = new StarQueryFastParser();
+        for (WatDivGenerator.Template template : WatDivGenerator.Template.values()) {
+            for (String sparql : generator.queries(template, 10)) {
+                StarQuery query = parser.parse(sparql);
+                assertEquals(answers(reference.match(query)), answers(store.match(query)), sparql);
+            }
+        }
+    }
+
+    @Test
+    void testSnapshotCoversAllTiers() {
+        TieredRDFHexaStore store = new TieredRDFHexaStore(2, 1);
+        var factory = SameObjectTermFactory.instance();
+        var predicate = factory.createOrGetLiteral("p");
+        var object = factory.createOrGetLiteral("o");
+        RDFAtom frozen1 = new RDFAtom(factory.createOrGetLiteral("s1"), predicate, object);
+        RDFAtom frozen2 = new RDFAtom(factory.createOrGetLiteral("s2"), predicate, object);
+        RDFAtom recent = new RDFAtom(factory.createOrGetLiteral("s3"), predicate, object);
+        RDFAtom later = new RDFAtom(factory.createOrGetLiteral("s4"), predicate, object);
+        store.add(frozen1);
+        store.add(frozen2);
+        store.awaitMerge();
+        store.add(recent);
+
+        RDFHexaStore snapshot = store.snapshot();
+        store.remove(recent);
+        store.add(later);
+        store.compact();
+
+        StarQuery query = new StarQuery("Snapshot", List.of(new RDFAtom(VAR_X, predicate, object)), List.of(VAR_X));
+        assertEquals(Set.of(frozen1, frozen2, recent), new HashSet<>(snapshot.getAtoms()), "Le snapshot ne doit pas voir les modifications.");
+        assertEquals(3, answers(snapshot.match(query)).size());
+        assertEquals(3, snapshot.size());
+        assertEquals(Set.of(frozen1, frozen2, later), new HashSet<>(store.getAtoms()));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(later), "Un snapshot est en lecture seule.");
+    }
+
+    @Test
+    void testRemoveFrozenTriples() {
+        TieredRDFHexaStore store = new TieredRDFHexaStore(2, 1);
+        var factory = SameObjectTermFactory.instance();
+        var predicate = factory.createOrGetLiteral("p");
+        var object = factory.createOrGetLiteral("o");
+        RDFAtom frozen1 = new RDFAtom(factory.createOrGetLiteral("s1"), predicate, object);
+        RDFAtom frozen2 = new RDFAtom(factory.createOrGetLiteral("s2"), predicate, object);
+        RDFAtom recent = new RDFAtom(factory.createOrGetLiteral("s3"), predicate, object);
+        store.add(frozen1);
+        store.add(frozen2);
+        store.awaitMerge();
+        store.add(recent);
+        StarQuery query = new StarQuery("Remove", List.of(new RDFAtom(VAR_X, predicate, object)), List.of(VAR_X));
+
+        assertTrue(store.remove(recent), "Un triplet du delta peut être retiré.");
+        assertTrue(store.remove(frozen1), "Un triplet figé peut être retiré.");
+        assertFalse(store.remove(frozen1), "Un triplet déjà retiré ne l'est pas une seconde fois.");
+        assertEquals(1, store.size());
+        assertEquals(Set.of(frozen2), new HashSet<>(store.getAtoms()));
+        assertEquals(1, answers(store.match(query)).size());
+
+        assertTrue(store.add(frozen1), "Un triplet figé retiré peut être ajouté à nouveau.");
+        assertEquals(2, store.size());
+        assertTrue(store.remove(frozen1));
+
+        store.compact();
+        assertEquals(1, store.segmentCount());
+        assertEquals(1, store.size());
+        assertEquals(Set.of(frozen2), new HashSet<>(store.getAtoms()));
+    }
+
+    @Test
+    void testRemovalsMatchHexaStore() {
+        WatDivGenerator generator = new WatDivGenerator(11, 10_000);
+        List<RDFAtom> atoms = generator.atoms().toList();
+        RDFHexaStore reference = new RDFHexaStore();
+        TieredRDFHexaStore store = new TieredRDFHexaStore(500, 2);
+        Random random = new Random(11);
+        for (int i = 0; i < atoms.size(); i++) {
+            assertEquals(reference.add(atoms.get(i)), store.add(atoms.get(i)));
+            if (i % 3 == 0) {
+                // Retire, ou ajoute à nouveau, un triplet plus ancien, souvent déjà figé
+                RDFAtom other = atoms.get(random.nextInt(i + 1));
+                boolean remove = random.nextInt(4) != 0;
+                assertEquals(remove ? reference.remove(other) : reference.add(other),
+                        remove ? store.remove(other) : store.add(other), other.toString());
+            }
+            if (i % 2_000 == 0) {
+                store.awaitMerge();
+            }
+        }
+        assertEquals(reference.size(), store.size());
+        assertEquals(new HashSet<>(reference.getAtoms()), new HashSet<>(store.getAtoms()));
+
+        StarQueryFastParser parser = new StarQueryFastParser();
+        for (WatDivGenerator.Template template : WatDivGenerator.Template.values()) {
+            for (String sparql : generator.queries(template, 10)) {
+                StarQuery query = parser.parse(sparql);
+                assertEquals(answers(reference.match(query)), answers(store.match(query)), sparql);
+                RDFAtom atom = query.getRdfAtoms().get(0);
+                assertEquals(answers(reference.match(atom)), answers(store.match(atom)), atom.toString());
+            }
+        }
+
+        store.compact();
+        assertEquals(reference.size(), store.size());
+        assertEquals(new HashSet<>(reference.getAtoms()), new HashSet<>(store.getAtoms()));
+    }
+
+    @Test
+    void testFailedMergeIsReportedAndRetried() {
+        AtomicBoolean fail = new AtomicBoolean(true);
+        TieredRDFHexaStore store = new TieredRDFHexaStore(2, 1) {
+            @Override
+            FrozenSegment fold(RDFHexaStore delta, List<FrozenSegment> inputs, Tombstones removed) {
+                if (fail.getAndSet(false)) {
+                    throw new IllegalStateException("Échec simulé");
+                }
+                return super.fold(delta, inputs, removed);
+            }
+        };
+        var factory = SameObjectTermFactory.instance();
+        var predicate = factory.createOrGetLiteral("p");
+        var object = factory.createOrGetLiteral("o");
+        RDFAtom first = new RDFAtom(factory.createOrGetLiteral("s1"), predicate, object);
+        RDFAtom second = new RDFAtom(factory.createOrGetLiteral("s2"), predicate, object);
+        RDFAtom third = new RDFAtom(factory.createOrGetLiteral("s3"), predicate, object);
+        store.add(first);
+        store.add(second);
+
+        IllegalStateException failure = assertThrows(IllegalStateException.class, store::awaitMerge);
+        assertEquals("Échec simulé", failure.getCause().getMessage());
+        assertEquals(2, store.size(), "Le delta figé reste interrogé après l'échec du repli.");
+
+        // Le repli a été relancé : il réussit et les écritures reprennent
+        store.awaitMerge();
+        assertEquals(1, store.segmentCount());
+        assertTrue(store.add(third));
+        assertEquals(Set.of(first, second, third), new HashSet<>(store.getAtoms()));
+    }
+}
@@ -0,0 +1,83 @@
+package qengine.storage;
+
+import fr.boreal.model.logicalElements.api.Literal;
+import fr.boreal.model.logicalElements.api.Substitution;
+import fr.boreal.model.logicalElements.api.Variable;
+import fr.boreal.model.logicalElements.factory.impl.SameObjectTermFactory;
+import fr.boreal.model.logicalElements.impl.SubstitutionImpl;
+import org.junit.jupiter.api.Test;
+import qengine.model.RDFAtom;
+import qengine.model.StarQuery;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitaires pour la classe {@link VerticalPartitionStore}.
+ */
+public class VerticalPartitionStoreTest {
+    private static final Literal<String> SUBJECT_1 = SameObjectTermFactory.instance().createOrGetLiteral("subject1");
+    private static final Literal<String> SUBJECT_2 = SameObjectTermFactory.instance().createOrGetLiteral("subject2");
+    private static final Literal<String> PREDICATE_1 = SameObjectTermFactory.instance().createOrGetLiteral("predicate1");
+    private static final Literal<String> PREDICATE_2 = SameObjectTermFactory.instance().createOrGetLiteral("predicate2");
+    private static final Literal<String> OBJECT_1 = SameObjectTermFactory.instance().createOrGetLiteral("object1");
+    private static final Literal<String> OBJECT_2 = SameObjectTermFactory.instance().createOrGetLiteral("object2");
+    private static final Variable VAR_X = SameObjectTermFactory.instance().createOrGetVariable("?x");
+    private static final Variable VAR_Y = SameObjectTermFactory.instance().createOrGetVariable("?y");
+
+    @Test
+    public void testAddAndRemove() {
+        VerticalPartitionStore store = new VerticalPartitionStore();
+        RDFAtom rdfAtom1 = new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1);
+        RDFAtom rdfAtom2 = new RDFAtom(SUBJECT_2, PREDICATE_2, OBJECT_1);
+        assertTrue(store.add(rdfAtom1));
+        assertTrue(store.add(rdfAtom2));
+        assertFalse(store.add(rdfAtom1), "Un doublon en attente de fusion doit être détecté.");
+        assertEquals(2, store.predicateCount(), "Chaque prédicat a sa table.");
+
+        store.match(new RDFAtom(VAR_X, PREDICATE_1, VAR_Y)).forEachRemaining(s -> { });
+        assertFalse(store.add(rdfAtom1), "Un doublon déjà fusionné doit être détecté.");
+        assertEquals(2, store.size());
+
+        assertTrue(store.remove(rdfAtom1));
+        assertFalse(store.remove(rdfAtom1));
+        assertEquals(List.of(rdfAtom2), new ArrayList<>(store.getAtoms()));
+    }
+
+    @Test
+    public void testMatchAtom() {
+        VerticalPartitionStore store = new VerticalPartitionStore();
+        store.addAll(List.of(
+                new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1),
+                new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1),
+                new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_2)));
+
+        Set<Substitution> subjects = new HashSet<>();
+        store.match(new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1)).forEachRemaining(subjects::add);
+        assertEquals(Set.of(new SubstitutionImpl(Map.of(VAR_X, SUBJECT_1)), new SubstitutionImpl(Map.of(VAR_X, SUBJECT_2))), subjects);
+
+        Set<Substitution> predicates = new HashSet<>();
+        store.match(new RDFAtom(SUBJECT_1, VAR_Y, VAR_X)).forEachRemaining(predicates::add);
+        assertEquals(Set.of(
+                new SubstitutionImpl(Map.of(VAR_Y, PREDICATE_1, VAR_X, OBJECT_1)),
+                new SubstitutionImpl(Map.of(VAR_Y, PREDICATE_2, VAR_X, OBJECT_2))), predicates);
+    }
+
+    @Test
+    public void testMatchStarQuery() {
+        VerticalPartitionStore store = new VerticalPartitionStore();
+        store.addAll(List.of(
+                new RDFAtom(SUBJECT_1, PREDICATE_1, OBJECT_1),
+                new RDFAtom(SUBJECT_2, PREDICATE_1, OBJECT_1),
+                new RDFAtom(SUBJECT_1, PREDICATE_2, OBJECT_2),
+                new RDFAtom(SUBJECT_2, PREDICATE_2, OBJECT_1)));
+
+        StarQuery query = new StarQuery("Vertical", List.of(
+                new RDFAtom(VAR_X, PREDICATE_1, OBJECT_1),
+                new RDFAtom(VAR_X, PREDICATE_2, OBJECT_2)), List.of(VAR_X));
+        List<Substitution> answers = new ArrayList<>();
+        store.match(query).forEachRemaining(answers::add);
+        assertEquals(List.of(new SubstitutionImpl(Map.of(VAR_X, SUBJECT_1))), answers);
+    }
+}